@@ -1,11 +1,13 @@
 package io.snice.networking.diameter;
 
 import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.MessageDiscriminator;
 import io.snice.networking.app.NetworkApplication;
 import io.snice.networking.app.NetworkBootstrap;
 import io.snice.networking.app.impl.GenericBootstrap;
 import io.snice.networking.diameter.event.DiameterEvent;
 import io.snice.networking.diameter.event.DiameterMessageReadEvent;
+import io.snice.networking.diameter.event.DiameterTransactionTimeoutEvent;
 import io.snice.networking.diameter.tx.Transaction;
 
 import java.util.function.Consumer;
@@ -52,7 +54,8 @@ public abstract class DiameterApplication<C extends DiameterAppConfig> extends N
      */
     @Override
     public final void initialize(final NetworkBootstrap<PeerConnection, DiameterEvent, C> bootstrap) {
-        final var diameterBootstrap = new DiameterBootstrapImpl<>(bootstrap.getConfiguration());
+        final var diameterBootstrap = new DiameterBootstrapImpl<>(bootstrap.getConfiguration(),
+                getProtocolBundle().getMessageDiscriminator().orElse(null));
         initialize((DiameterBootstrap) diameterBootstrap);
         diameterBootstrap.getConnectionContexts().forEach(r -> {
             final var rule = r;
@@ -60,6 +63,7 @@ public abstract class DiameterApplication<C extends DiameterAppConfig> extends N
             if (rule.isDrop()) {
                 b.drop(rule.getDropFunction().get());
             } else {
+                b.withExecutionMode(rule.getExecutionMode());
                 b.accept(builder -> {
                     builder.match(e -> true)
                             .consume((peer, event) -> processEvent(rule, peer, event));
@@ -80,6 +84,8 @@ public abstract class DiameterApplication<C extends DiameterAppConfig> extends N
     private void processEvent(final ConnectionContext<PeerConnection, DiameterEvent> ctx, final PeerConnection peer, final DiameterEvent event) {
         if (event.isMessageReadEvent()) {
             processMessageReadEvent(ctx, peer, event.toMessageReadEvent());
+        } else if (event.isTransactionTimeoutEvent()) {
+            processTransactionTimeoutEvent(event.toTransactionTimeoutEvent());
         } else {
             ctx.match(peer, event).apply(peer, event);
         }
@@ -104,6 +110,19 @@ public abstract class DiameterApplication<C extends DiameterAppConfig> extends N
         }
     }
 
+    /**
+     * A transaction timed out, which is only ever reported for transactions the application is tracking
+     * and as such, only the callback of that transaction is invoked, if any. The event never makes it to the
+     * general context of the peer.
+     */
+    private void processTransactionTimeoutEvent(final DiameterTransactionTimeoutEvent event) {
+        final var transaction = event.getTransaction();
+        final var callback = transaction.getOnTransactionTimeout();
+        if (callback != null) {
+            callback.accept(transaction);
+        }
+    }
+
     /**
      * Diameter applications need to override this initialize method, which has the same purpose as the
      * general {@link NetworkApplication#initialize(NetworkBootstrap)} but is tailored to diameter only.
@@ -111,8 +130,8 @@ public abstract class DiameterApplication<C extends DiameterAppConfig> extends N
     public abstract void initialize(final DiameterBootstrap<C> bootstrap);
 
     private class DiameterBootstrapImpl<C extends DiameterAppConfig> extends GenericBootstrap<PeerConnection, DiameterEvent, C> implements DiameterBootstrap<C> {
-        public DiameterBootstrapImpl(final C config) {
-            super(config);
+        public DiameterBootstrapImpl(final C config, final MessageDiscriminator<DiameterEvent> discriminator) {
+            super(config, discriminator);
         }
     }
 }
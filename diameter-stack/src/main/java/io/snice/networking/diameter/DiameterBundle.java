@@ -6,6 +6,7 @@ import io.snice.codecs.codec.diameter.avp.api.HostIpAddress;
 import io.snice.codecs.codec.diameter.avp.api.ProductName;
 import io.snice.codecs.codec.diameter.avp.type.IpAddress;
 import io.snice.networking.app.Environment;
+import io.snice.networking.app.MessageDiscriminator;
 import io.snice.networking.app.NetworkStack;
 import io.snice.networking.bundles.ProtocolBundle;
 import io.snice.networking.common.Connection;
@@ -21,7 +22,7 @@ import io.snice.networking.diameter.peer.fsm.PeerContext;
 import io.snice.networking.diameter.peer.fsm.PeerData;
 import io.snice.networking.diameter.peer.fsm.PeerState;
 import io.snice.networking.diameter.peer.impl.DefaultDiameterEnvironment;
-import io.snice.networking.diameter.peer.impl.DefaultRoutingEngine;
+import io.snice.networking.diameter.peer.impl.RealmRoutingEngine;
 import io.snice.networking.diameter.yaml.StandardAvpDeserializer;
 import io.snice.networking.netty.ProtocolHandler;
 import org.slf4j.Logger;
@@ -61,18 +62,30 @@ public class DiameterBundle<C extends DiameterAppConfig> implements ProtocolBund
         encoders = List.of(tcpEncoder, sctpEncoder);
 
         final var tcpDecoder = ProtocolHandler.of("diameter-codec-decoder")
-                .withChannelHandler(() -> new DiameterMessageStreamDecoder2())
+                .withChannelHandler(() -> new DiameterMessageStreamDecoder2(isZeroCopyDecoding(), isRecycleEvents()))
                 .withTransport(Transport.tcp)
                 .build();
 
         final var sctpDecoder = ProtocolHandler.of("diameter-codec-decoder")
-                .withChannelHandler(() -> new DiameterSctpDecoder())
+                .withChannelHandler(() -> new DiameterSctpDecoder(isZeroCopyDecoding(), isRecycleEvents()))
                 .withTransport(Transport.sctp)
                 .build();
 
         decoders = List.of(tcpDecoder, sctpDecoder);
     }
 
+    /**
+     * The decoders are created per channel, which happens after we have been initialized, so
+     * by then the configuration is available.
+     */
+    private boolean isZeroCopyDecoding() {
+        return configuration != null && configuration.isZeroCopyDecoding();
+    }
+
+    private boolean isRecycleEvents() {
+        return configuration != null && configuration.isRecycleEvents();
+    }
+
     @Override
     public String getBundleName() {
         return "DiameterBundle";
@@ -83,7 +96,7 @@ public class DiameterBundle<C extends DiameterAppConfig> implements ProtocolBund
         logger.info("Initializing Diameter Stack");
         ensureNotNull(config, "The configuration object for the \"" + getBundleName() + "\" cannot be null");
         this.configuration = config;
-        final var routingEngine = new DefaultRoutingEngine();
+        final var routingEngine = RealmRoutingEngine.of(configuration.getConfig());
         // TODO: perhaps the PeerTable should just be called a DiameterStack instead.
         peerTable = PeerTable.create(configuration.getConfig(), routingEngine);
     }
@@ -137,4 +150,22 @@ public class DiameterBundle<C extends DiameterAppConfig> implements ProtocolBund
     public Optional<FsmFactory<DiameterEvent, PeerState, PeerContext, PeerData>> getFsmFactory() {
         return Optional.of(peerTable);
     }
+
+    /**
+     * The typical rules of a diameter application look at the command code and whether or not the message
+     * is a request (e.g. {@link DiameterEvent#isULR()}) so that is what the key is made up of.
+     */
+    @Override
+    public Optional<MessageDiscriminator<DiameterEvent>> getMessageDiscriminator() {
+        return Optional.of(DiameterBundle::discriminate);
+    }
+
+    private static int discriminate(final DiameterEvent event) {
+        if (!event.isMessageEvent()) {
+            return MessageDiscriminator.NO_KEY;
+        }
+
+        final var msg = event.getMessage();
+        return msg.getHeader().getCommandCode() << 1 | (msg.isRequest() ? 1 : 0);
+    }
 }
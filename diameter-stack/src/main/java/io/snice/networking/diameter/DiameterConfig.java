@@ -3,6 +3,7 @@ package io.snice.networking.diameter;
 import io.snice.codecs.codec.diameter.avp.api.ProductName;
 import io.snice.codecs.codec.diameter.avp.api.VendorId;
 import io.snice.networking.diameter.peer.PeerConfiguration;
+import io.snice.networking.diameter.peer.RouteConfiguration;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,6 +16,17 @@ public class DiameterConfig {
 
     private List<PeerConfiguration> peers = new ArrayList<>();
 
+    /**
+     * The realm routing table, see {@link RouteConfiguration}.
+     */
+    private List<RouteConfiguration> routes = new ArrayList<>();
+
+    /**
+     * The names of the peers, in order of preference, to send a request to when there is no matching
+     * route for it. If not configured, any available peer will do.
+     */
+    private List<String> defaultRoute = new ArrayList<>();
+
     public ProductName getProductName() {
         return productName;
     }
@@ -35,4 +47,20 @@ public class DiameterConfig {
         this.peers = peers;
     }
 
+    public List<RouteConfiguration> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(final List<RouteConfiguration> routes) {
+        this.routes = routes;
+    }
+
+    public List<String> getDefaultRoute() {
+        return defaultRoute;
+    }
+
+    public void setDefaultRoute(final List<String> defaultRoute) {
+        this.defaultRoute = defaultRoute;
+    }
+
 }
@@ -9,6 +9,8 @@ import io.snice.networking.diameter.event.DiameterMessageEvent;
 import io.snice.networking.diameter.peer.Peer;
 import io.snice.networking.diameter.peer.impl.PeerConnectionWrapper;
 
+import java.util.concurrent.CompletionStage;
+
 public interface PeerConnection extends Connection<DiameterEvent> {
 
     static PeerConnection of(final Connection<DiameterEvent> actualConnection) {
@@ -38,6 +40,13 @@ public interface PeerConnection extends Connection<DiameterEvent> {
 
     void send(DiameterMessage msg);
 
+    /**
+     * Same as {@link #send(DiameterMessage)} but the returned {@link CompletionStage} will complete once
+     * the message has actually been written to the underlying transport. Use this, together with
+     * {@link #isWritable()}, if you need to throttle how fast you are sending.
+     */
+    CompletionStage<Void> sendAsync(DiameterMessage msg);
+
     /**
      * Get the {@link Peer} associated with this connection. At the end of the day, the connection
      * is just that, a transport connection (tcp, sctp, udp, tls etc). However, in Diameter, the {@link Peer}
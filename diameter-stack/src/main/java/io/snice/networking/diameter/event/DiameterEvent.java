@@ -107,4 +107,12 @@ public interface DiameterEvent {
         throw new ClassCastException("Cannot cast " + getClass().getName() + " into a " + DiameterMessageEvent.class.getName());
     }
 
+    default boolean isTransactionTimeoutEvent() {
+        return false;
+    }
+
+    default DiameterTransactionTimeoutEvent toTransactionTimeoutEvent() {
+        throw new ClassCastException("Cannot cast " + getClass().getName() + " into a " + DiameterTransactionTimeoutEvent.class.getName());
+    }
+
 }
@@ -14,6 +14,22 @@ public interface DiameterMessageWriteEvent extends DiameterMessageEvent {
         return DefaultDiameterMessageEvent.newWriteEvent(transaction);
     }
 
+    /**
+     * Have the given identifiers stamped into the header of the outgoing message as it is being encoded,
+     * which is how the peer hands out its own identifiers without having to re-build the message.
+     */
+    void stamp(int hopByHopId, int endToEndId);
+
+    /**
+     * Whether identifiers have been stamped onto this event, in which case they take precedence over the ones
+     * in the {@link DiameterMessage} itself.
+     */
+    boolean isStamped();
+
+    int getHopByHopId();
+
+    int getEndToEndId();
+
     @Override
     default boolean isMessageWriteEvent() {
         return true;
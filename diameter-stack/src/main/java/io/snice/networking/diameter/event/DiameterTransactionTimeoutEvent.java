@@ -0,0 +1,27 @@
+package io.snice.networking.diameter.event;
+
+import io.snice.networking.diameter.event.impl.DefaultDiameterTransactionTimeoutEvent;
+import io.snice.networking.diameter.tx.Transaction;
+
+/**
+ * Fired by the Peer FSM when no answer was received to a request sent within
+ * a {@link Transaction} in time. The transaction has been purged by the time this event is fired.
+ */
+public interface DiameterTransactionTimeoutEvent extends DiameterEvent {
+
+    static DiameterTransactionTimeoutEvent of(final Transaction transaction) {
+        return DefaultDiameterTransactionTimeoutEvent.of(transaction);
+    }
+
+    Transaction getTransaction();
+
+    @Override
+    default boolean isTransactionTimeoutEvent() {
+        return true;
+    }
+
+    @Override
+    default DiameterTransactionTimeoutEvent toTransactionTimeoutEvent() {
+        return this;
+    }
+}
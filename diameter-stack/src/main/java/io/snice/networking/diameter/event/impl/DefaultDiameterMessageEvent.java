@@ -1,8 +1,10 @@
 package io.snice.networking.diameter.event.impl;
 
+import io.netty.util.Recycler;
 import io.snice.codecs.codec.diameter.DiameterAnswer;
 import io.snice.codecs.codec.diameter.DiameterMessage;
 import io.snice.codecs.codec.diameter.DiameterRequest;
+import io.snice.networking.common.event.Recyclable;
 import io.snice.networking.diameter.event.DiameterMessageEvent;
 import io.snice.networking.diameter.event.DiameterMessageReadEvent;
 import io.snice.networking.diameter.event.DiameterMessageWriteEvent;
@@ -14,8 +16,8 @@ import static io.snice.preconditions.PreConditions.assertNotNull;
 
 public class DefaultDiameterMessageEvent implements DiameterMessageEvent {
 
-    private final DiameterMessage msg;
-    private final Optional<Transaction> transaction;
+    private DiameterMessage msg;
+    private Optional<Transaction> transaction;
 
     public static DiameterMessageWriteEvent newWriteEvent(final DiameterMessage msg) {
         assertNotNull(msg, "The diameter message cannot be null");
@@ -32,6 +34,17 @@ public class DefaultDiameterMessageEvent implements DiameterMessageEvent {
         return new MessageReadEvent(msg);
     }
 
+    /**
+     * Get a {@link DiameterMessageReadEvent} from the pool of the current thread, which is handed back
+     * once the application has been invoked with it.
+     *
+     * See {@link io.snice.networking.app.NetworkAppConfig#isRecycleEvents()}.
+     */
+    public static DiameterMessageReadEvent newRecycledReadEvent(final DiameterMessage msg) {
+        assertNotNull(msg, "The diameter message cannot be null");
+        return RecycledMessageReadEvent.get(msg);
+    }
+
     public static DiameterMessageReadEvent newReadEvent(final Transaction transaction) {
         assertNotNull(transaction, "The transaction cannot be null");
         return new MessageReadEvent(transaction);
@@ -72,6 +85,11 @@ public class DefaultDiameterMessageEvent implements DiameterMessageEvent {
         this.transaction = Optional.of(transaction);
     }
 
+    void set(final DiameterMessage msg, final Optional<Transaction> transaction) {
+        this.msg = msg;
+        this.transaction = transaction;
+    }
+
     @Override
     public DiameterMessage getMessage() {
         return msg;
@@ -169,11 +187,37 @@ public class DefaultDiameterMessageEvent implements DiameterMessageEvent {
 
     private static class MessageWriteEvent extends DefaultDiameterMessageEvent implements DiameterMessageWriteEvent {
 
+        private boolean stamped;
+        private int hopByHopId;
+        private int endToEndId;
+
         @Override
         public boolean isMessageWriteEvent() {
             return true;
         }
 
+        @Override
+        public void stamp(final int hopByHopId, final int endToEndId) {
+            this.hopByHopId = hopByHopId;
+            this.endToEndId = endToEndId;
+            this.stamped = true;
+        }
+
+        @Override
+        public boolean isStamped() {
+            return stamped;
+        }
+
+        @Override
+        public int getHopByHopId() {
+            return hopByHopId;
+        }
+
+        @Override
+        public int getEndToEndId() {
+            return endToEndId;
+        }
+
         private MessageWriteEvent(final DiameterMessage msg) {
             super(msg);
         }
@@ -202,4 +246,33 @@ public class DefaultDiameterMessageEvent implements DiameterMessageEvent {
             super(transaction);
         }
     }
+
+    private static final class RecycledMessageReadEvent extends MessageReadEvent implements Recyclable {
+
+        private static final Recycler<RecycledMessageReadEvent> RECYCLER = new Recycler<RecycledMessageReadEvent>() {
+            @Override
+            protected RecycledMessageReadEvent newObject(final Handle<RecycledMessageReadEvent> handle) {
+                return new RecycledMessageReadEvent(handle);
+            }
+        };
+
+        private final Recycler.Handle<RecycledMessageReadEvent> handle;
+
+        private static RecycledMessageReadEvent get(final DiameterMessage msg) {
+            final var event = RECYCLER.get();
+            event.set(msg, Optional.empty());
+            return event;
+        }
+
+        private RecycledMessageReadEvent(final Recycler.Handle<RecycledMessageReadEvent> handle) {
+            super((DiameterMessage) null);
+            this.handle = handle;
+        }
+
+        @Override
+        public void recycle() {
+            set(null, Optional.empty());
+            handle.recycle(this);
+        }
+    }
 }
@@ -0,0 +1,30 @@
+package io.snice.networking.diameter.event.impl;
+
+import io.snice.networking.diameter.event.DiameterTransactionTimeoutEvent;
+import io.snice.networking.diameter.tx.Transaction;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+public class DefaultDiameterTransactionTimeoutEvent implements DiameterTransactionTimeoutEvent {
+
+    private final Transaction transaction;
+
+    public static DiameterTransactionTimeoutEvent of(final Transaction transaction) {
+        assertNotNull(transaction, "The transaction cannot be null");
+        return new DefaultDiameterTransactionTimeoutEvent(transaction);
+    }
+
+    private DefaultDiameterTransactionTimeoutEvent(final Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    @Override
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionTimeout: [Req: " + transaction.getRequest() + "]";
+    }
+}
@@ -4,13 +4,47 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.snice.buffer.Buffer;
+import io.snice.codecs.codec.diameter.DiameterMessage;
 import io.snice.codecs.codec.diameter.impl.DiameterParser;
+import io.snice.networking.app.impl.NettyReadableBuffer;
+import io.snice.networking.app.impl.PooledMessage;
 import io.snice.networking.diameter.event.DiameterMessageReadEvent;
+import io.snice.networking.diameter.event.impl.DefaultDiameterMessageEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
 public class DiameterMessageStreamDecoder2 extends ByteToMessageDecoder {
 
+    private static final Logger logger = LoggerFactory.getLogger(DiameterMessageStreamDecoder2.class);
+
+    /**
+     * If true, the messages will be framed as views over the cumulation buffer as opposed
+     * to being copied out of it. See {@link PooledMessage}.
+     */
+    private final boolean zeroCopy;
+
+    /**
+     * If true, the {@link DiameterMessageReadEvent}s are taken from a per-thread pool and handed back
+     * once the application has been invoked with them.
+     * See {@link io.snice.networking.app.NetworkAppConfig#isRecycleEvents()}.
+     */
+    private final boolean recycle;
+
+    public DiameterMessageStreamDecoder2() {
+        this(false);
+    }
+
+    public DiameterMessageStreamDecoder2(final boolean zeroCopy) {
+        this(zeroCopy, false);
+    }
+
+    public DiameterMessageStreamDecoder2(final boolean zeroCopy, final boolean recycle) {
+        this.zeroCopy = zeroCopy;
+        this.recycle = recycle;
+    }
+
     @Override
     protected void decode(final ChannelHandlerContext ctx, final ByteBuf bytebuf,
                           final List<Object> list) throws Exception {
@@ -19,21 +53,50 @@ public class DiameterMessageStreamDecoder2 extends ByteToMessageDecoder {
             return;
         }
 
-        final int length = Buffer.signedInt(bytebuf.getByte(1), bytebuf.getByte(2), bytebuf.getByte(3));
+        final int readerIndex = bytebuf.readerIndex();
+        final int length = Buffer.signedInt(bytebuf.getByte(readerIndex + 1),
+                bytebuf.getByte(readerIndex + 2),
+                bytebuf.getByte(readerIndex + 3));
 
         if (bytebuf.readableBytes() < length) {
             return;
         }
 
+        if (zeroCopy) {
+            decodeZeroCopy(bytebuf, length, list);
+            return;
+        }
+
         final byte[] raw = new byte[length];
         bytebuf.readBytes(raw);
         final Buffer buffer = Buffer.of(raw);
         try {
             final var msg = DiameterParser.frame(buffer);
-            final var evt = DiameterMessageReadEvent.of(msg);
+            final var evt = newReadEvent(msg);
             list.add(evt);
         } catch (final IndexOutOfBoundsException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * The retained slice keeps the cumulation buffer alive (Netty will not discard the read bytes
+     * from underneath us since discarding only happens once nothing else references the buffer)
+     * until the {@link PooledMessage} has been released by the inbound adapter.
+     */
+    private void decodeZeroCopy(final ByteBuf bytebuf, final int length, final List<Object> list) {
+        final ByteBuf slice = bytebuf.readRetainedSlice(length);
+        try {
+            final var msg = DiameterParser.frame(NettyReadableBuffer.of(slice));
+            final var evt = newReadEvent(msg);
+            list.add(PooledMessage.of(evt, slice));
+        } catch (final IndexOutOfBoundsException e) {
+            slice.release();
+            logger.warn("Unable to frame Diameter message of {} bytes, dropping it", length, e);
+        }
+    }
+
+    private DiameterMessageReadEvent newReadEvent(final DiameterMessage msg) {
+        return recycle ? DefaultDiameterMessageEvent.newRecycledReadEvent(msg) : DiameterMessageReadEvent.of(msg);
+    }
 }
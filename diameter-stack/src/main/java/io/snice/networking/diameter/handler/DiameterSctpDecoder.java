@@ -4,6 +4,7 @@ import com.sun.nio.sctp.Association;
 import com.sun.nio.sctp.AssociationChangeNotification;
 import com.sun.nio.sctp.Notification;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.sctp.SctpMessage;
 import io.netty.handler.codec.MessageToMessageDecoder;
@@ -11,7 +12,10 @@ import io.netty.util.AttributeKey;
 import io.snice.buffer.Buffer;
 import io.snice.buffer.Buffers;
 import io.snice.codecs.codec.diameter.DiameterMessage;
+import io.snice.networking.app.impl.NettyReadableBuffer;
+import io.snice.networking.app.impl.PooledMessage;
 import io.snice.networking.diameter.event.DiameterMessageReadEvent;
+import io.snice.networking.diameter.event.impl.DefaultDiameterMessageEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,6 +39,19 @@ public class DiameterSctpDecoder extends MessageToMessageDecoder<SctpMessage> {
 
     private final UUID uuid = UUID.randomUUID();
 
+    /**
+     * If true, the messages will be framed as views over the SCTP segments as opposed
+     * to being copied out of them. See {@link PooledMessage}.
+     */
+    private final boolean zeroCopy;
+
+    /**
+     * If true, the {@link DiameterMessageReadEvent}s are taken from a per-thread pool and handed back
+     * once the application has been invoked with them.
+     * See {@link io.snice.networking.app.NetworkAppConfig#isRecycleEvents()}.
+     */
+    private final boolean recycle;
+
     /**
      * The total number of streams is negotiated during the SCTP handshake. The max inbound
      * stream is read from that but there is also an absolute max we want to use so we will
@@ -51,6 +68,18 @@ public class DiameterSctpDecoder extends MessageToMessageDecoder<SctpMessage> {
      */
     private Association association;
 
+    public DiameterSctpDecoder() {
+        this(false);
+    }
+
+    public DiameterSctpDecoder(final boolean zeroCopy) {
+        this(zeroCopy, false);
+    }
+
+    public DiameterSctpDecoder(final boolean zeroCopy, final boolean recycle) {
+        this.zeroCopy = zeroCopy;
+        this.recycle = recycle;
+    }
 
     @Override
     protected void decode(final ChannelHandlerContext ctx, final SctpMessage sctp, final List<Object> list) throws Exception {
@@ -61,11 +90,21 @@ public class DiameterSctpDecoder extends MessageToMessageDecoder<SctpMessage> {
             return;
         }
 
+        final Buffer framed;
+        if (zeroCopy) {
+            framed = NettyReadableBuffer.of(aggregate);
+        } else {
+            final byte[] b = new byte[aggregate.readableBytes()];
+            aggregate.getBytes(aggregate.readerIndex(), b);
+            aggregate.release();
+            framed = Buffers.wrap(b);
+        }
+
         try {
-            final var buffer = aggregate.toReadableBuffer();
+            final var buffer = framed.toReadableBuffer();
             final var diameter = DiameterMessage.frame(buffer);
-            final var evt = DiameterMessageReadEvent.of(diameter);
-            list.add(evt);
+            final var evt = newReadEvent(diameter);
+            list.add(zeroCopy ? PooledMessage.of(evt, aggregate) : evt);
             if (buffer.hasReadableBytes()) {
                 if (buffer.getReadableBytes() < 20) {
                     // can't be Diameter
@@ -80,6 +119,9 @@ public class DiameterSctpDecoder extends MessageToMessageDecoder<SctpMessage> {
                 throw new RuntimeException("Turns out it wasn't only zeros... really???");
             }
         } catch (final Throwable t) {
+            if (zeroCopy && list.isEmpty()) {
+                aggregate.release();
+            }
             t.printStackTrace();
             System.err.println("SCTP message info " + sctp.messageInfo());
             throw t;
@@ -141,9 +183,16 @@ public class DiameterSctpDecoder extends MessageToMessageDecoder<SctpMessage> {
         }
 
         /**
+         * Aggregate the segments of the SCTP message and once it is complete, return
+         * all of them as a single {@link ByteBuf}, without copying them. If the message
+         * fit in a single segment, it is simply a retained slice of that segment, otherwise
+         * the segments are stitched together as a {@link CompositeByteBuf}.
          *
+         * The returned {@link ByteBuf} is owned by the caller, who must release it.
+         *
+         * @return the full message or null if we are still waiting for more segments.
          */
-        protected Buffer aggregate(final ChannelHandlerContext ctx, final SctpMessage sctp) throws Exception {
+        protected ByteBuf aggregate(final ChannelHandlerContext ctx, final SctpMessage sctp) throws Exception {
             final var info = sctp.messageInfo();
             if (!info.isComplete()) {
                 ensureMaxSegments();
@@ -154,22 +203,20 @@ public class DiameterSctpDecoder extends MessageToMessageDecoder<SctpMessage> {
             }
 
             final var currentContent = sctp.content();
-            final byte[] b = new byte[totalSize + currentContent.readableBytes()];
-            int writeIndex = 0;
-
-            if (index != 0) {
-                for (int i = 0; i < index; ++i) {
-                    final var buffer = buffers[i];
-                    buffer.getBytes(0, b, writeIndex, buffer.readableBytes());
-                    writeIndex += buffer.readableBytes();
-                    buffer.release();
-                    buffers[i] = null;
-                }
-                index = 0;
+            if (index == 0) {
+                return currentContent.retainedSlice();
             }
 
-            currentContent.getBytes(0, b, writeIndex, currentContent.readableBytes());
-            return Buffers.wrap(b);
+            final CompositeByteBuf composite = ctx.alloc().compositeBuffer(index + 1);
+            for (int i = 0; i < index; ++i) {
+                // the composite takes over the reference we retained when we stored the segment
+                composite.addComponent(true, buffers[i]);
+                buffers[i] = null;
+            }
+            composite.addComponent(true, currentContent.retain());
+            index = 0;
+            totalSize = 0;
+            return composite;
         }
     }
 
@@ -235,4 +282,8 @@ public class DiameterSctpDecoder extends MessageToMessageDecoder<SctpMessage> {
         log("Configuring the association " + association.associationID()
                 + " with max inbound streams of " + maxInboundStreams);
     }
+
+    private DiameterMessageReadEvent newReadEvent(final DiameterMessage msg) {
+        return recycle ? DefaultDiameterMessageEvent.newRecycledReadEvent(msg) : DiameterMessageReadEvent.of(msg);
+    }
 }
@@ -7,9 +7,9 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.sctp.SctpMessage;
 import io.netty.handler.codec.MessageToMessageEncoder;
-import io.snice.buffer.Buffer;
 import io.snice.codecs.codec.diameter.DiameterMessage;
 import io.snice.networking.diameter.event.DiameterEvent;
+import io.snice.networking.netty.NettyBuffers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,19 +40,14 @@ public class DiameterSctpEncoder extends MessageToMessageEncoder<DiameterEvent>
 
         final var msg = evt.toMessageEvent().getMessage();
         final var buf = toByteBuf(ctx.channel(), msg);
+        DiameterStreamEncoder.stampIdentifiers(evt, buf, buf.readerIndex());
         final var info = MessageInfo.createOutgoing(association, null, calculateStream(msg));
         final var sctp = new SctpMessage(info, buf);
         list.add(sctp);
     }
 
     public static ByteBuf toByteBuf(final Channel channel, final DiameterMessage msg) {
-        final Buffer buffer = msg.getBuffer();
-        final int capacity = buffer.capacity();
-        final ByteBuf byteBuf = channel.alloc().buffer(capacity, capacity);
-        for (int i = 0; i < buffer.capacity(); ++i) {
-            byteBuf.writeByte(buffer.getByte(i));
-        }
-        return byteBuf;
+        return NettyBuffers.toByteBuf(channel.alloc(), msg.getBuffer());
     }
 
     private int calculateStream(final DiameterMessage msg) {
@@ -3,11 +3,32 @@ package io.snice.networking.diameter.handler;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
-import io.snice.codecs.codec.diameter.DiameterMessage;
 import io.snice.networking.diameter.event.DiameterEvent;
+import io.snice.networking.diameter.event.DiameterMessageWriteEvent;
+import io.snice.networking.netty.NettyBuffers;
 
 public class DiameterStreamEncoder extends MessageToByteEncoder<DiameterEvent> {
 
+    private static final int HOP_BY_HOP_OFFSET = 12;
+    private static final int END_TO_END_OFFSET = 16;
+
+    /**
+     * If the peer has allocated the identifiers of the outgoing request (see
+     * {@link DiameterMessageWriteEvent#stamp(int, int)}), overwrite the ones in the header of the encoded
+     * message, which starts at the given index of the buffer.
+     */
+    public static void stampIdentifiers(final DiameterEvent evt, final ByteBuf buffer, final int start) {
+        if (!evt.isMessageWriteEvent()) {
+            return;
+        }
+
+        final var writeEvent = evt.toMessageWriteEvent();
+        if (writeEvent.isStamped()) {
+            buffer.setInt(start + HOP_BY_HOP_OFFSET, writeEvent.getHopByHopId());
+            buffer.setInt(start + END_TO_END_OFFSET, writeEvent.getEndToEndId());
+        }
+    }
+
     @Override
     protected void encode(final ChannelHandlerContext channelHandlerContext, final DiameterEvent evt, final ByteBuf byteBuf) throws Exception {
         if (!evt.isMessageEvent()) {
@@ -15,11 +36,22 @@ public class DiameterStreamEncoder extends MessageToByteEncoder<DiameterEvent> {
         }
 
         final var msg = evt.toMessageEvent().getMessage();
+        final int start = byteBuf.writerIndex();
+        NettyBuffers.write(msg.getBuffer(), byteBuf);
+        stampIdentifiers(evt, byteBuf, start);
+    }
 
-        // TODO: this is so dumb. We can do better.
-        final var buffer = msg.getBuffer();
-        for (int i = 0; i < buffer.capacity(); ++i) {
-            byteBuf.writeByte(buffer.getByte(i));
+    /**
+     * Allocate a buffer of the exact size of the outgoing message as opposed to
+     * the default, which would allocate a small buffer and then grow it as we write.
+     */
+    @Override
+    protected ByteBuf allocateBuffer(final ChannelHandlerContext ctx, final DiameterEvent evt, final boolean preferDirect) throws Exception {
+        if (!evt.isMessageEvent()) {
+            return super.allocateBuffer(ctx, evt, preferDirect);
         }
+
+        final int capacity = evt.toMessageEvent().getMessage().getBuffer().capacity();
+        return preferDirect ? ctx.alloc().ioBuffer(capacity) : ctx.alloc().heapBuffer(capacity);
     }
 }
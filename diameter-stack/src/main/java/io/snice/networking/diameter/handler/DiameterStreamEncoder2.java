@@ -1,10 +1,9 @@
 package io.snice.networking.diameter.handler;
 
-import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageEncoder;
-import io.snice.buffer.Buffer;
 import io.snice.codecs.codec.diameter.DiameterMessage;
+import io.snice.networking.netty.NettyBuffers;
 
 import java.util.List;
 
@@ -16,12 +15,6 @@ public class DiameterStreamEncoder2 extends MessageToMessageEncoder<DiameterMess
 
     @Override
     protected void encode(final ChannelHandlerContext ctx, final DiameterMessage diameterMessage, final List<Object> list) throws Exception {
-        final Buffer msg = diameterMessage.getBuffer();
-        final int capacity = msg.capacity();
-        final ByteBuf buffer = ctx.alloc().buffer(capacity, capacity);
-        for (int i = 0; i < msg.capacity(); ++i) {
-            buffer.writeByte(msg.getByte(i));
-        }
-        list.add(buffer);
+        list.add(NettyBuffers.toByteBuf(ctx.alloc(), diameterMessage.getBuffer()));
     }
 }
@@ -1,14 +1,17 @@
 package io.snice.networking.diameter.peer;
 
+import io.snice.codecs.codec.diameter.DiameterAnswer;
 import io.snice.codecs.codec.diameter.DiameterMessage;
 import io.snice.codecs.codec.diameter.DiameterRequest;
 import io.snice.codecs.codec.diameter.avp.api.OriginHost;
 import io.snice.functional.Either;
+import io.snice.networking.app.ExecutionMode;
 import io.snice.networking.app.NetworkBootstrap;
 import io.snice.networking.diameter.DiameterEnvironment;
 import io.snice.networking.diameter.PeerConnection;
 import io.snice.networking.diameter.tx.Transaction;
 
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
 
 /**
@@ -90,8 +93,68 @@ public interface Peer {
     */
    void send(DiameterMessage msg) throws PeerIllegalStateException;
 
+   /**
+    * Same as {@link #send(DiameterMessage)} but the returned {@link CompletionStage} completes once the message
+    * has been written to the underlying connection, or completes exceptionally if the write fails.
+    * <p>
+    * A producer that is sending a lot of traffic should use this, or check {@link #isWritable()}, in
+    * order to slow down when the remote endpoint isn't keeping up. Otherwise the messages will be
+    * buffered up without bound.
+    *
+    * @throws PeerIllegalStateException in case the {@link Peer} has never made an attempt to be established
+    *                                   towards the remote endpoint.
+    */
+   CompletionStage<Void> sendAsync(DiameterMessage msg) throws PeerIllegalStateException;
+
+   /**
+    * Check whether the underlying connection of this {@link Peer} is able to accept more messages
+    * without them piling up in the outbound buffer. If the peer hasn't been established yet, this
+    * will return false.
+    */
+   boolean isWritable();
+
+   /**
+    * The number of transactions currently outstanding across all the open connections of this {@link Peer},
+    * i.e., requests, sent or received, that have not been answered yet.
+    * <p>
+    * This is maintained by the event loops of the connections and as such, may be slightly stale by the time
+    * it is read.
+    */
+   int getOutstandingTransactionCount();
+
+   /**
+    * The number of transactions that have been purged, across all the open connections of this {@link Peer},
+    * because they were never answered within the transaction timeout (see
+    * {@link PeerConfiguration#getTransactionTimeoutMillis()}). A connection that closes takes its count with it.
+    */
+   long getExpiredTransactionCount();
+
    Transaction.Builder createNewTransaction(DiameterRequest.Builder req) throws PeerIllegalStateException;
 
    Transaction.Builder createNewTransaction(DiameterRequest req) throws PeerIllegalStateException;
 
+   /**
+    * Send the given request within a new {@link Transaction} and then block until the answer is received, or
+    * the timeout expires, whichever comes first. The answer is handed to the waiting thread straight from the
+    * event loop that read it, i.e. it does not go through the application, and if no answer is received in
+    * time, the transaction is purged just as if it had hit the transaction timeout of the peer.
+    * <p>
+    * This is meant for applications running on virtual threads (see {@link ExecutionMode#VIRTUAL_THREAD})
+    * where blocking is cheap. It may be used from {@link ExecutionMode#WORKER} as well, since the answer never
+    * goes through the worker, but the worker of the connection you're currently processing a message for won't
+    * process anything else until you return, so every message queued up behind this one has to wait for the
+    * answer as well.
+    *
+    * @param timeout the max time to wait for the answer.
+    * @return the {@link DiameterAnswer} to the request.
+    * @throws PeerTimeoutException      in case no answer was received within the given time.
+    * @throws PeerIllegalStateException in case the {@link Peer} has never made an attempt to be established
+    *                                   towards the remote endpoint.
+    * @throws PeerException             in case the transaction failed for any other reason, or the calling
+    *                                   thread was interrupted while waiting.
+    * @throws IllegalStateException     in case this is called from an event loop, which is the very thread
+    *                                   that is supposed to process the answer.
+    */
+   DiameterAnswer request(DiameterRequest req, Duration timeout) throws PeerException;
+
 }
@@ -11,6 +11,8 @@ import java.net.URI;
 import java.util.List;
 import java.util.Optional;
 
+import static io.snice.preconditions.PreConditions.assertArgument;
+
 /**
  * TODO: may actually split the configuration in "public facing", meaning what you actually
  * type in the config file and then an internal one where the internal one is built up based
@@ -73,9 +75,60 @@ public class PeerConfiguration {
     @JsonProperty("mode")
     private Peer.MODE mode = Peer.MODE.PASSIVE;
 
+    /**
+     * The Diameter identity (the Origin-Host) of the remote peer, if known. Requests with a Destination-Host
+     * matching this identity are sent straight to this peer without consulting the realm routing table
+     * (see {@link RouteConfiguration}).
+     */
+    @JsonProperty("host")
+    private Optional<String> host = Optional.empty();
+
     @JsonProperty("uri")
     private URI uri;
 
+    /**
+     * When a remote peer connects to us, it is expected to initiate the Capability Exchange by sending us a CER.
+     * If it doesn't do so within this time, we give up on the peer.
+     */
+    @JsonProperty("cerTimeoutMillis")
+    private long cerTimeoutMillis = 30_000;
+
+    /**
+     * The Tx timer. If no answer has been received to a request within this time, the transaction
+     * is purged and, if the application is tracking it, the application is told about it
+     * (see {@link io.snice.networking.diameter.tx.Transaction.Builder#onTransactionTimeout}). Requests received
+     * from the remote peer that the application never answers are purged after the same time.
+     */
+    @JsonProperty("transactionTimeoutMillis")
+    private long transactionTimeoutMillis = 10_000;
+
+    /**
+     * Whether the stack allocates the hop-by-hop and end-to-end identifiers of the requests sent to this peer,
+     * which are then stamped into the outgoing messages, overwriting whatever identifiers the application put in
+     * there. Turn it off if the application manages the identifiers itself, e.g., when relaying requests, in which
+     * case it is also up to the application to make sure that they are unique.
+     */
+    @JsonProperty("allocateIdentifiers")
+    private boolean allocateIdentifiers = true;
+
+    /**
+     * The number of parallel connections to establish to an active peer. Each connection goes through its own
+     * capability exchange (CER/CEA) and has its own state machine and as such, ends up on its own event loop, which
+     * is what allows the traffic to a single high volume peer to be spread across more than one core.
+     *
+     * Requests are sent over the open connection with the least outstanding transactions, unless
+     * session affinity has been asked for, see {@link #isSessionAffinity()}.
+     */
+    @JsonProperty("connections")
+    private int connections = 1;
+
+    /**
+     * If there is more than one connection to the peer, send all requests belonging to the
+     * same session (as given by the Session-Id) over the same connection, as long as that connection is open.
+     */
+    @JsonProperty("sessionAffinity")
+    private boolean sessionAffinity = false;
+
     /**
      * Options for configuring the internal map of outstanding transactions.
      * In general, we would like to avoid re-hashing the internal tables since
@@ -134,6 +187,14 @@ public class PeerConfiguration {
         this.nic = nic == null ? Optional.empty() : nic;
     }
 
+    public Optional<String> getHost() {
+        return host;
+    }
+
+    public void setHost(final Optional<String> host) {
+        this.host = host;
+    }
+
     public Peer.MODE getMode() {
         return mode;
     }
@@ -158,6 +219,49 @@ public class PeerConfiguration {
         this.uri = uri;
     }
 
+    public long getCerTimeoutMillis() {
+        return cerTimeoutMillis;
+    }
+
+    public void setCerTimeoutMillis(final long cerTimeoutMillis) {
+        assertArgument(cerTimeoutMillis >= 1, "The CER timeout must be at least 1 ms");
+        this.cerTimeoutMillis = cerTimeoutMillis;
+    }
+
+    public long getTransactionTimeoutMillis() {
+        return transactionTimeoutMillis;
+    }
+
+    public void setTransactionTimeoutMillis(final long transactionTimeoutMillis) {
+        assertArgument(transactionTimeoutMillis >= 1, "The transaction timeout must be at least 1 ms");
+        this.transactionTimeoutMillis = transactionTimeoutMillis;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(final int connections) {
+        assertArgument(connections >= 1 && connections <= 64, "The number of connections must be between 1 and 64");
+        this.connections = connections;
+    }
+
+    public boolean isSessionAffinity() {
+        return sessionAffinity;
+    }
+
+    public void setSessionAffinity(final boolean sessionAffinity) {
+        this.sessionAffinity = sessionAffinity;
+    }
+
+    public boolean isAllocateIdentifiers() {
+        return allocateIdentifiers;
+    }
+
+    public void setAllocateIdentifiers(final boolean allocateIdentifiers) {
+        this.allocateIdentifiers = allocateIdentifiers;
+    }
+
     @Override
     public String toString() {
         return "Name: \"" + name + "\"" +
@@ -8,6 +8,7 @@ import io.snice.networking.diameter.dns.Resolver;
 import io.snice.networking.diameter.dns.SimpleResolver;
 
 import java.net.URI;
+import java.util.Optional;
 
 import static io.snice.preconditions.PreConditions.assertNotNull;
 
@@ -39,6 +40,14 @@ public class PeerSettings {
         this.resolver = resolver;
     }
 
+    /**
+     * The configuration the user gave us for this peer, which also governs the
+     * state machine of every connection to it, such as its timers.
+     */
+    public PeerConfiguration getConfiguration() {
+        return config;
+    }
+
     public String getName() {
         return config.getName();
     }
@@ -63,6 +72,27 @@ public class PeerSettings {
         return nic;
     }
 
+    /**
+     * See {@link PeerConfiguration#getHost()}.
+     */
+    public Optional<String> getHost() {
+        return config.getHost();
+    }
+
+    /**
+     * See {@link PeerConfiguration#getConnections()}.
+     */
+    public int getConnections() {
+        return config.getConnections();
+    }
+
+    /**
+     * See {@link PeerConfiguration#isSessionAffinity()}.
+     */
+    public boolean isSessionAffinity() {
+        return config.isSessionAffinity();
+    }
+
     @Override
     public String toString() {
         return "{" +
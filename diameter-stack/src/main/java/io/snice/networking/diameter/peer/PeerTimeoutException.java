@@ -0,0 +1,21 @@
+package io.snice.networking.diameter.peer;
+
+import java.time.Duration;
+
+/**
+ * Thrown by the blocking {@link Peer#request(io.snice.codecs.codec.diameter.DiameterRequest, Duration)} in case
+ * no answer was received in time.
+ */
+public class PeerTimeoutException extends PeerException {
+
+    private final Duration timeout;
+
+    public PeerTimeoutException(final Peer peer, final Duration timeout) {
+        super(peer, "No answer received within " + timeout.toMillis() + "ms");
+        this.timeout = timeout;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
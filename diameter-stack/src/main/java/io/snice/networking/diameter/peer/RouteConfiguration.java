@@ -0,0 +1,69 @@
+package io.snice.networking.diameter.peer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Optional;
+
+import static io.snice.preconditions.PreConditions.assertArgument;
+import static io.snice.preconditions.PreConditions.assertNotEmpty;
+
+/**
+ * A single entry in the realm routing table, as described by RFC 6733 section 2.7, which tells the stack
+ * which {@link Peer}s a request for a given Destination-Realm, and optionally Application-Id, is to be sent to.
+ *
+ * <pre>
+ * diameter:
+ *   routes:
+ *     - realm: epc.mnc001.mcc001.3gppnetwork.org
+ *       applicationId: 16777251 # S6a. If left out, the route applies to all applications
+ *       peers: [hss01, hss02]   # the names of the peers, in order of preference
+ *   defaultRoute: [dra01]
+ * </pre>
+ *
+ * The only local action supported is relaying the request to the first available peer of the route.
+ */
+public class RouteConfiguration {
+
+    @JsonProperty("realm")
+    private String realm;
+
+    @JsonProperty("applicationId")
+    private Optional<Long> applicationId = Optional.empty();
+
+    @JsonProperty("peers")
+    private List<String> peers = List.of();
+
+    public String getRealm() {
+        return realm;
+    }
+
+    public void setRealm(final String realm) {
+        assertNotEmpty(realm, "The realm of a route cannot be empty");
+        this.realm = realm;
+    }
+
+    public Optional<Long> getApplicationId() {
+        return applicationId;
+    }
+
+    public void setApplicationId(final Optional<Long> applicationId) {
+        this.applicationId = applicationId;
+    }
+
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    public void setPeers(final List<String> peers) {
+        assertArgument(peers != null && !peers.isEmpty(), "A route must have at least one peer");
+        this.peers = peers;
+    }
+
+    @Override
+    public String toString() {
+        return "Realm: \"" + realm + "\"" +
+                " Application: " + applicationId.map(String::valueOf).orElse("any") +
+                " Peers: " + peers;
+    }
+}
@@ -2,9 +2,19 @@ package io.snice.networking.diameter.peer;
 
 import io.snice.codecs.codec.diameter.DiameterMessage;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface RoutingEngine {
 
     Optional<Peer> findRoute(PeerTable peers, DiameterMessage msg);
+
+    /**
+     * Called by the {@link PeerTable} whenever a {@link Peer} goes up or down.
+     *
+     * @param available all the {@link Peer}s that currently are available, in the order they were configured.
+     */
+    default void updateRoutes(final List<Peer> available) {
+        // nothing to update by default
+    }
 }
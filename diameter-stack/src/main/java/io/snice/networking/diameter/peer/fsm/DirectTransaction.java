@@ -0,0 +1,39 @@
+package io.snice.networking.diameter.peer.fsm;
+
+import io.snice.codecs.codec.diameter.DiameterAnswer;
+import io.snice.networking.diameter.tx.Transaction;
+
+import java.time.Duration;
+
+/**
+ * A {@link Transaction} that the {@link PeerFsm} completes itself, right there on the event loop, as opposed to
+ * passing the answer, or the timeout, up to the application. The application may be running on a thread that is
+ * busy waiting for that very answer (see {@link io.snice.networking.diameter.peer.Peer#request}) and as such,
+ * going through the application layer could mean that no one is left to process it.
+ * <p>
+ * All callbacks are invoked on the event loop and MUST NOT block. Only one of them will ever be invoked, and
+ * only once.
+ */
+public interface DirectTransaction extends Transaction {
+
+    /**
+     * The max time the transaction may be outstanding, which overrides the transaction timeout of the peer
+     * if it is shorter.
+     */
+    Duration getTimeout();
+
+    /**
+     * The answer to the request was received.
+     */
+    void complete(DiameterAnswer answer);
+
+    /**
+     * No answer was received within the timeout and the transaction has been purged.
+     */
+    void timeout();
+
+    /**
+     * The connection to the peer went away before the answer was received and the transaction has been purged.
+     */
+    void connectionLost();
+}
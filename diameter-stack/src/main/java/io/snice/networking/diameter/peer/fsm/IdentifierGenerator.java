@@ -0,0 +1,65 @@
+package io.snice.networking.diameter.peer.fsm;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * Hands out the hop-by-hop and end-to-end identifiers of the requests sent to a peer.
+ *
+ * <p>
+ * The hop-by-hop identifiers are allocated per peer connection from a counter that starts off at a random
+ * value and any identifier that still belongs to an outstanding transaction is skipped, which can only happen
+ * once the counter has wrapped around and as such, is no cost in practice.
+ * </p>
+ *
+ * <p>
+ * The end-to-end identifiers are unique for this host, across all peers, and as per RFC 6733 section 3,
+ * the high order 12 bits are the low order 12 bits of the time the stack was started and the low order
+ * 20 bits start off at a random value, which is then incremented for every request.
+ * </p>
+ *
+ * Both counters are lock free so any thread can allocate identifiers without any coordination.
+ */
+public final class IdentifierGenerator {
+
+    private static final int END_TO_END_MASK = 0xFFFFF;
+
+    private static final int END_TO_END_HIGH = (int) ((System.currentTimeMillis() / 1000) & 0xFFF) << 20;
+
+    private static final AtomicInteger END_TO_END = new AtomicInteger(ThreadLocalRandom.current().nextInt());
+
+    private final AtomicInteger hopByHop;
+
+    public static IdentifierGenerator create() {
+        return new IdentifierGenerator(ThreadLocalRandom.current().nextInt());
+    }
+
+    /**
+     * @param seed the first hop-by-hop identifier to hand out.
+     */
+    public static IdentifierGenerator create(final int seed) {
+        return new IdentifierGenerator(seed);
+    }
+
+    private IdentifierGenerator(final int seed) {
+        hopByHop = new AtomicInteger(seed);
+    }
+
+    /**
+     * Allocate the next hop-by-hop identifier that isn't currently in use by any of the given transactions.
+     */
+    public int nextHopByHopId(final TransactionTable<?> outstanding) {
+        assertNotNull(outstanding, "The outstanding transactions cannot be null");
+        int id = hopByHop.getAndIncrement();
+        while (outstanding.containsKey(id)) {
+            id = hopByHop.getAndIncrement();
+        }
+        return id;
+    }
+
+    public static int nextEndToEndId() {
+        return END_TO_END_HIGH | (END_TO_END.getAndIncrement() & END_TO_END_MASK);
+    }
+}
@@ -1,7 +1,9 @@
 package io.snice.networking.diameter.peer.fsm;
 
+import io.snice.codecs.codec.diameter.DiameterMessage;
 import io.snice.codecs.codec.diameter.DiameterRequest;
-import io.snice.codecs.codec.diameter.HopByHopIdentifier;
+import io.snice.networking.app.impl.NettyReadableBuffer;
+import io.snice.networking.common.timer.Timeout;
 import io.snice.networking.diameter.tx.Transaction;
 
 import java.util.Optional;
@@ -16,16 +18,28 @@ import static io.snice.preconditions.PreConditions.assertNotNull;
  */
 public class InternalTransaction {
 
+    /**
+     * The offset of the hop-by-hop identifier within the diameter header.
+     */
+    private static final int HOP_BY_HOP_OFFSET = 12;
+
     /**
      * The request that created this transaction.
      */
     private final DiameterRequest req;
 
+    /**
+     * With zero-copy decoding (see {@link io.snice.networking.app.NetworkAppConfig#isZeroCopyDecoding()}) a
+     * request we received is a view over the pooled buffer it was read into, which is retained for as long as
+     * the transaction is outstanding and then released again (see {@link #release()}).
+     */
+    private boolean retained;
+
     /**
      * The actual identifier of this transaction, which is just the
      * hop-by-hop identifier.
      */
-    private final HopByHopIdentifier id;
+    private final int id;
 
     /**
      * If we are tracking this as a client transaction, it means we are the
@@ -42,18 +56,43 @@ public class InternalTransaction {
      */
     private Optional<Transaction> transaction = Optional.empty();
 
+    /**
+     * The transaction timer, which is scheduled with the transaction itself as the event so that the
+     * FSM knows which transaction timed out.
+     */
+    private Timeout timer;
+
     public static InternalTransaction create(final DiameterRequest req, final boolean isClientTransaction) {
         assertNotNull(req, "The diameter request cannot be null");
-        return new InternalTransaction(req, isClientTransaction);
+        return new InternalTransaction(req, hopByHopId(req), isClientTransaction);
+    }
+
+    /**
+     * Create a new transaction for a request whose hop-by-hop identifier has been allocated by
+     * the peer and as such, isn't the one in the request itself.
+     */
+    public static InternalTransaction create(final DiameterRequest req, final int hopByHopId, final boolean isClientTransaction) {
+        assertNotNull(req, "The diameter request cannot be null");
+        return new InternalTransaction(req, hopByHopId, isClientTransaction);
     }
 
-    private InternalTransaction(final DiameterRequest req, final boolean isClientTransaction) {
+    private InternalTransaction(final DiameterRequest req, final int id, final boolean isClientTransaction) {
         this.req = req;
-        this.id = HopByHopIdentifier.from(req);
+        this.id = id;
         this.isClientTransaction = isClientTransaction;
+        this.retained = NettyReadableBuffer.retain(req.getBuffer());
     }
 
-    public HopByHopIdentifier getId() {
+    /**
+     * Read the hop-by-hop identifier straight off of the header of the given message, which,
+     * as opposed to going through the {@link io.snice.codecs.codec.diameter.HopByHopIdentifier},
+     * doesn't allocate anything.
+     */
+    public static int hopByHopId(final DiameterMessage msg) {
+        return msg.getBuffer().getInt(HOP_BY_HOP_OFFSET);
+    }
+
+    public int getId() {
         return id;
     }
 
@@ -69,4 +108,25 @@ public class InternalTransaction {
         this.transaction = Optional.of(transaction);
     }
 
+    public void setTimer(final Timeout timer) {
+        this.timer = timer;
+    }
+
+    public void cancelTimer() {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    /**
+     * The transaction is no longer outstanding so let go of the pooled buffer of the request, if any.
+     */
+    public void release() {
+        if (retained) {
+            retained = false;
+            NettyReadableBuffer.release(req.getBuffer());
+        }
+    }
+
 }
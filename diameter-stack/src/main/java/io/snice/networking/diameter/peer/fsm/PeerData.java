@@ -3,39 +3,83 @@ package io.snice.networking.diameter.peer.fsm;
 import io.hektor.fsm.Data;
 import io.snice.codecs.codec.diameter.DiameterMessage;
 import io.snice.codecs.codec.diameter.DiameterRequest;
-import io.snice.codecs.codec.diameter.HopByHopIdentifier;
 import io.snice.codecs.codec.diameter.TransactionIdentifier;
 import io.snice.networking.common.event.ConnectionActiveIOEvent;
 import io.snice.networking.common.event.ConnectionAttemptCompletedIOEvent;
+import io.snice.networking.common.timer.Timeout;
 import io.snice.networking.diameter.PeerConnection;
 import io.snice.networking.diameter.peer.PeerConfiguration;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static io.snice.preconditions.PreConditions.assertNull;
 
 public class PeerData implements Data {
 
-    private final Map<HopByHopIdentifier, InternalTransaction> oustandingTransactions;
+    /**
+     * The transactions we initiated, keyed by the hop-by-hop identifier of the request we sent, and the ones
+     * the remote peer initiated, keyed by the hop-by-hop identifier of the request it sent. The two sides
+     * allocate their identifiers independently of each other so the same identifier may very well be in use
+     * by both sides at once, hence two separate tables.
+     */
+    private final TransactionTable<InternalTransaction> clientTransactions;
+    private final TransactionTable<InternalTransaction> serverTransactions;
 
     private final PeerConfiguration config;
 
+    private final Duration transactionTimeout;
+
+    private final IdentifierGenerator identifiers = IdentifierGenerator.create();
+
+    /**
+     * The number of transactions that were purged because they timed out. Only ever written by the
+     * FSM but read by anyone asking the {@link io.snice.networking.diameter.peer.Peer} for its counters.
+     */
+    private volatile long expiredTransactions;
+
     private ConnectionAttemptCompletedIOEvent event;
     private ConnectionActiveIOEvent activeEvent;
 
+    private Timeout cerTimer;
+
     public PeerData(final PeerConfiguration config) {
         this.config = config;
-        oustandingTransactions = new HashMap<>(PeerConfiguration.getPeerTransactionTableInitialSize(), 0.75f);
+        clientTransactions = TransactionTable.of(PeerConfiguration.getPeerTransactionTableInitialSize());
+        serverTransactions = TransactionTable.of(PeerConfiguration.getPeerTransactionTableInitialSize());
+        transactionTimeout = Duration.ofMillis(config.getTransactionTimeoutMillis());
     }
 
-    public boolean hasOutstandingTransaction(final DiameterMessage msg) {
-        return hasOutstandingTransaction(HopByHopIdentifier.from(msg));
+    public Duration getTransactionTimeout() {
+        return transactionTimeout;
     }
 
-    public boolean hasOutstandingTransaction(final HopByHopIdentifier id) {
-        return oustandingTransactions.containsKey(id);
+    /**
+     * The number of transactions currently outstanding, i.e., requests that have not been answered yet.
+     */
+    public int getOutstandingTransactionCount() {
+        return clientTransactions.size() + serverTransactions.size();
+    }
+
+    /**
+     * The total number of transactions that have been purged because they were never answered in time.
+     */
+    public long getExpiredTransactionCount() {
+        return expiredTransactions;
+    }
+
+    private TransactionTable<InternalTransaction> transactions(final boolean isClientTransaction) {
+        return isClientTransaction ? clientTransactions : serverTransactions;
+    }
+
+    public boolean hasOutstandingTransaction(final DiameterMessage msg, final boolean isClientTransaction) {
+        return hasOutstandingTransaction(InternalTransaction.hopByHopId(msg), isClientTransaction);
+    }
+
+    public boolean hasOutstandingTransaction(final int hopByHopId, final boolean isClientTransaction) {
+        return transactions(isClientTransaction).containsKey(hopByHopId);
     }
 
     /**
@@ -49,16 +93,86 @@ public class PeerData implements Data {
      * @return
      */
     public InternalTransaction storeTransaction(final DiameterRequest req, final boolean isClientTransaction) {
-        final var transaction = InternalTransaction.create(req, isClientTransaction);
-        final var previous = oustandingTransactions.put(transaction.getId(), transaction);
+        return storeTransaction(InternalTransaction.create(req, isClientTransaction));
+    }
+
+    /**
+     * Allocate a new hop-by-hop identifier for the given outgoing request, one that isn't used by any of our
+     * outstanding client transactions, and store a new client transaction under it.
+     *
+     * Note that it is up to the caller to make sure that the identifier actually makes it into the request
+     * that is sent out (see {@link io.snice.networking.diameter.event.DiameterMessageWriteEvent#stamp(int, int)}).
+     */
+    public InternalTransaction storeClientTransaction(final DiameterRequest req) {
+        final int hopByHopId = identifiers.nextHopByHopId(clientTransactions);
+        return storeTransaction(InternalTransaction.create(req, hopByHopId, true));
+    }
+
+    private InternalTransaction storeTransaction(final InternalTransaction transaction) {
+        final var previous = transactions(transaction.isClientTransaction()).put(transaction.getId(), transaction);
         // TODO: need to handle this in a better way. Also need to check
         // with the application id as a precaution for phishing.
         assertNull(previous, "We overwrote a previous transaction. Something is wrong.");
         return transaction;
     }
 
-    public InternalTransaction getTransaction(final DiameterMessage msg) {
-        return oustandingTransactions.get(HopByHopIdentifier.from(msg));
+    /**
+     * @param isClientTransaction whether the message belongs to a transaction we initiated, i.e., it is a request
+     *                            we are sending or an answer we received, or to one the remote peer initiated.
+     */
+    public InternalTransaction getTransaction(final DiameterMessage msg, final boolean isClientTransaction) {
+        return transactions(isClientTransaction).get(InternalTransaction.hopByHopId(msg));
+    }
+
+    /**
+     * Remove the transaction the given message, typically the answer, belongs to, which
+     * also cancels the timer of that transaction and releases its request.
+     *
+     * @param isClientTransaction see {@link #getTransaction(DiameterMessage, boolean)}.
+     * @return the transaction that was removed or null if there was none.
+     */
+    public InternalTransaction removeTransaction(final DiameterMessage msg, final boolean isClientTransaction) {
+        final var transaction = transactions(isClientTransaction).remove(InternalTransaction.hopByHopId(msg));
+        if (transaction != null) {
+            transaction.cancelTimer();
+            transaction.release();
+        }
+        return transaction;
+    }
+
+    /**
+     * The timer of the given transaction fired so remove it, but only if it still is the one stored under its
+     * hop-by-hop identifier, which it may not be since it may have been answered just as the timer fired.
+     *
+     * @return true if the transaction was removed, i.e., it really did time out.
+     */
+    public boolean expireTransaction(final InternalTransaction transaction) {
+        if (!transactions(transaction.isClientTransaction()).remove(transaction.getId(), transaction)) {
+            return false;
+        }
+
+        transaction.release();
+        ++expiredTransactions;
+        return true;
+    }
+
+    /**
+     * The connection went away, taking all the outstanding transactions with it, so purge every one of
+     * them and cancel their timers.
+     *
+     * @return the transactions that were purged.
+     */
+    public List<InternalTransaction> purgeTransactions() {
+        final List<InternalTransaction> purged = new ArrayList<>(getOutstandingTransactionCount());
+        clientTransactions.forEach(purged::add);
+        serverTransactions.forEach(purged::add);
+        clientTransactions.clear();
+        serverTransactions.clear();
+        purged.forEach(transaction -> {
+            transaction.cancelTimer();
+            transaction.release();
+        });
+        return purged;
     }
 
     /**
@@ -96,4 +210,17 @@ public class PeerData implements Data {
         return evt;
     }
 
+    /**
+     * The timer guarding the remote peer from never sending us a CER. See {@link PeerTimeout#WAIT_CER}.
+     */
+    public void storeCerTimer(final Timeout timer) {
+        this.cerTimer = timer;
+    }
+
+    public void cancelCerTimer() {
+        if (cerTimer != null) {
+            cerTimer.cancel();
+            cerTimer = null;
+        }
+    }
 }
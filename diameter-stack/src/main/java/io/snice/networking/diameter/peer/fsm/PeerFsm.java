@@ -3,18 +3,25 @@ package io.snice.networking.diameter.peer.fsm;
 import io.hektor.fsm.Definition;
 import io.hektor.fsm.FSM;
 import io.snice.codecs.codec.diameter.DiameterAnswer;
+import io.snice.codecs.codec.diameter.DiameterMessage;
 import io.snice.codecs.codec.diameter.DiameterRequest;
 import io.snice.codecs.codec.diameter.avp.api.*;
+import io.snice.codecs.codec.diameter.impl.DiameterParser;
+import io.snice.networking.app.impl.NettyReadableBuffer;
 import io.snice.networking.common.event.ConnectionActiveIOEvent;
 import io.snice.networking.common.event.ConnectionAttemptCompletedIOEvent;
 import io.snice.networking.common.event.ConnectionConnectAttemptIOEvent;
+import io.snice.networking.common.event.ConnectionInactiveIOEvent;
 import io.snice.networking.diameter.event.DiameterMessageEvent;
 import io.snice.networking.diameter.event.DiameterMessageReadEvent;
 import io.snice.networking.diameter.event.DiameterMessageWriteEvent;
+import io.snice.networking.diameter.event.DiameterTransactionTimeoutEvent;
 import io.snice.networking.diameter.tx.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+
 import static io.snice.networking.diameter.peer.fsm.PeerState.*;
 
 public class PeerFsm {
@@ -97,13 +104,19 @@ public class PeerFsm {
          *                  R-Conn-CER       R-Reject         R-Open
          *                  Stop             R-Snd-DPR        Closing
          *                  R-Rcv-DPR        R-Snd-DPA        Closing           x
-         *                  R-Peer-Disc      R-Disc           Closed
+         *                  R-Peer-Disc      R-Disc           Closed            x
+         *
+         * In addition, every transaction has a timer (Tx) and if it fires, the transaction is purged.
+         *
+         * In Snice Networking, the "Peer-Disc" event is the {@link ConnectionInactiveIOEvent}.
          */
         open.transitionTo(OPEN).onEvent(DiameterMessageEvent.class).withGuard(PeerFsm::isRetransmission).withAction(PeerFsm::handleRetransmission);
         open.transitionTo(OPEN).onEvent(DiameterMessageEvent.class).withGuard(DiameterMessageEvent::isDWR).withAction(PeerFsm::processDWR);
         open.transitionTo(CLOSING).onEvent(DiameterMessageEvent.class).withGuard(DiameterMessageEvent::isDPR).withAction(PeerFsm::processDPR);
         open.transitionTo(OPEN).onEvent(DiameterMessageReadEvent.class).withAction(PeerFsm::processRead);
         open.transitionTo(OPEN).onEvent(DiameterMessageWriteEvent.class).withAction(PeerFsm::processWrite);
+        open.transitionTo(OPEN).onEvent(InternalTransaction.class).withAction(PeerFsm::processTransactionTimeout);
+        open.transitionTo(CLOSED).onEvent(ConnectionInactiveIOEvent.class).withAction(PeerFsm::processPeerDisconnect);
         open.transitionTo(CLOSED).onEvent(String.class).withGuard("Disconnect"::equals);
 
         /**
@@ -114,8 +127,10 @@ public class PeerFsm {
          *                  R-Conn-CER       R-Accept,        Wait-Conn-Ack/
          *                                   Process-CER      Elect
          *                  Timeout          Error            Closed
+         *                  Peer-Disc        Cleanup          Closed           x
          */
         waitConnAck.transitionTo(OPEN).onEvent(ConnectionActiveIOEvent.class).withAction(PeerFsm::processRcvConnAck);
+        waitConnAck.transitionTo(CLOSED).onEvent(ConnectionInactiveIOEvent.class);
 
         /**
          * state            event              action         next state    implemented
@@ -124,9 +139,13 @@ public class PeerFsm {
          *                                   Process-CER,
          *                                   R-Snd-CEA
          *                  Timeout          Kill-Conn        Terminated
+         *                  R-Peer-Disc      Cleanup          Closed           x
+         *
+         * The application has yet to learn about the connection so there is no one to tell that it went away.
          */
         waitCer.transitionTo(OPEN).onEvent(DiameterMessageEvent.class).withGuard(DiameterMessageEvent::isCER).withAction(PeerFsm::processCER);
-        // TODO: setup the timeout
+        waitCer.transitionTo(TERMINATED).onEvent(PeerTimeout.class).withGuard(PeerTimeout.WAIT_CER::equals).withAction(PeerFsm::processCerTimeout);
+        waitCer.transitionTo(CLOSED).onEvent(ConnectionInactiveIOEvent.class).withAction((evt, ctx, data) -> data.cancelCerTimer());
 
         /**
          * state            event              action         next state    implemented
@@ -135,12 +154,13 @@ public class PeerFsm {
          *                  R-Conn-CER       R-Accept,        Wait-Returns
          *                                   Process-CER,
          *                                   Elect
-         *                  I-Peer-Disc      I-Disc           Closed
+         *                  I-Peer-Disc      I-Disc           Closed           x
          *                  I-Rcv-Non-CEA    Error            Closed
          *                  Timeout          Error            Closed
          */
         waitCea.transitionTo(OPEN).onEvent(DiameterMessageEvent.class).withGuard(DiameterMessageEvent::isCEA).withAction(PeerFsm::processCEA);
         waitCea.transitionTo(WAIT_CEA).onEvent(ConnectionAttemptCompletedIOEvent.class).withAction((evt, ctx, data) -> data.storeConnectionAttemptEvent(evt));
+        waitCea.transitionTo(CLOSED).onEvent(ConnectionInactiveIOEvent.class).withAction(PeerFsm::processDisconnectBeforeCea);
 
         /**
          * state            event              action         next state    implemented
@@ -148,9 +168,10 @@ public class PeerFsm {
          * Closing          I-Rcv-DPA        I-Disc           Closed
          *                  R-Rcv-DPA        R-Disc           Closed
          *                  Timeout          Error            Closed
-         *                  I-Peer-Disc      I-Disc           Closed
-         *                  R-Peer-Disc      R-Disc           Closed
+         *                  I-Peer-Disc      I-Disc           Closed        x
+         *                  R-Peer-Disc      R-Disc           Closed        x
          */
+        closing.transitionTo(CLOSED).onEvent(ConnectionInactiveIOEvent.class).withAction(PeerFsm::processPeerDisconnect);
         closing.transitionTo(CLOSED).onEvent(String.class).withGuard("TODO"::equals);
 
         definition = builder.build();
@@ -162,7 +183,13 @@ public class PeerFsm {
             return false;
         }
 
-        final var transaction = data.getTransaction(msg);
+        // the peer allocates a fresh hop-by-hop identifier for every outgoing
+        // request so whatever identifier the request carries is irrelevant.
+        if (evt.isMessageWriteEvent() && ctx.getConfig().isAllocateIdentifiers()) {
+            return false;
+        }
+
+        final var transaction = data.getTransaction(msg, isClientTransaction(evt));
 
         if (transaction == null) {
             return false;
@@ -183,6 +210,14 @@ public class PeerFsm {
         return transaction != null;
     }
 
+    /**
+     * A request we read, or an answer we write, belongs to a transaction the remote peer initiated, whereas a
+     * request we write, or an answer we read, belongs to one we initiated.
+     */
+    private static boolean isClientTransaction(final DiameterMessageEvent evt) {
+        return evt.isMessageWriteEvent() == evt.getMessage().isRequest();
+    }
+
     private static final void handleRetransmission(final DiameterMessageEvent evt, final PeerContext ctx, final PeerData data) {
         // TODO:
     }
@@ -203,6 +238,10 @@ public class PeerFsm {
      */
     private static final void processConnectionActive(final ConnectionActiveIOEvent evt, final PeerContext ctx, final PeerData data) {
         data.storeConnectionActiveIoEvent(evt);
+
+        // Start-CER-Timer
+        final var timeout = Duration.ofMillis(ctx.getConfig().getCerTimeoutMillis());
+        data.storeCerTimer(ctx.schedule(PeerTimeout.WAIT_CER, timeout));
     }
 
     /**
@@ -217,6 +256,8 @@ public class PeerFsm {
      * as part of just calling this method!)
      */
     private static final void processCER(final DiameterMessageEvent cer, final PeerContext ctx, final PeerData data) {
+        data.cancelCerTimer();
+
         // TODO: check if we want to accept traffic from the other peer.
         // TODO: check if we should check the applications and find the intersection of what we support or just accept all.
 
@@ -231,6 +272,18 @@ public class PeerFsm {
         data.consumeConnectionActiveEvent().ifPresent(evt -> ctx.getChannelContext().fireUserEvent(evt));
     }
 
+    /**
+     * The remote peer connected to us but never sent a CER, so we give up on it and, as the RFC says,
+     * kill the connection. The connection active event we have been holding onto is never propagated so,
+     * as far as the application is concerned, the peer never existed.
+     */
+    private static final void processCerTimeout(final PeerTimeout timeout, final PeerContext ctx, final PeerData data) {
+        logger.warn("No CER received from {} within {} ms, terminating the peer",
+                ctx.getChannelContext().getConnectionId(), ctx.getConfig().getCerTimeoutMillis());
+        data.consumeConnectionActiveEvent();
+        ctx.getChannelContext().close();
+    }
+
     /**
      * When we establish an outbound connection and that connection successfully is established,
      * we must initiate the Capability Exchange procedure.
@@ -308,6 +361,31 @@ public class PeerFsm {
         ctx.sendDownstream(dpa);
     }
 
+    /**
+     * Action: Disc
+     * Description: The transport layer connection is disconnected, and local resources are freed.
+     * <p>
+     * None of the outstanding transactions will ever be answered so every one of them is purged and, just
+     * as if it had timed out, whoever is tracking the transaction is told about it. The application is then
+     * told that the connection went away.
+     */
+    private static final void processPeerDisconnect(final ConnectionInactiveIOEvent event, final PeerContext ctx, final PeerData data) {
+        for (final var transaction : data.purgeTransactions()) {
+            if (!transaction.isClientTransaction()) {
+                continue;
+            }
+
+            final var userTransaction = transaction.getTransaction().orElse(null);
+            if (userTransaction instanceof DirectTransaction) {
+                ((DirectTransaction) userTransaction).connectionLost();
+            } else if (userTransaction != null) {
+                ctx.getChannelContext().sendUpstream(DiameterTransactionTimeoutEvent.of(userTransaction));
+            }
+        }
+
+        ctx.getChannelContext().fireUserEvent(event);
+    }
+
     // ----------------------------------------------------------------------
     // ----------------------------------------------------------------------
     // ------------------------- WAIT-CONN-ACK STATE ------------------------
@@ -349,6 +427,16 @@ public class PeerFsm {
         connectionAttemptEvt.ifPresent(e -> ctx.getChannelContext().fireUserEvent(e));
     }
 
+    /**
+     * The connection went away before the remote peer answered our CER and as such, the attempt to establish
+     * the peer failed, which is what whoever asked for the connection is told.
+     */
+    private static final void processDisconnectBeforeCea(final ConnectionInactiveIOEvent evt, final PeerContext ctx, final PeerData data) {
+        data.consumeConnectionAttemptEvent()
+                .map(e -> e.fail(new RuntimeException("The connection went away before the Capability Exchange completed")))
+                .ifPresent(e -> ctx.getChannelContext().fireUserEvent(e));
+    }
+
     // ----------------------------------------------------------------------
     // ----------------------------------------------------------------------
     // ------------------------------ RFC6733 -------------------------------
@@ -377,23 +465,49 @@ public class PeerFsm {
     private static final void processRead(final DiameterMessageEvent evt, final PeerContext ctx, final PeerData data) {
         final var msg = evt.getMessage();
         if (msg.isRequest()) {
-            data.storeTransaction(msg.toRequest(), false);
+            final var transaction = data.storeTransaction(msg.toRequest(), false);
+            startTransactionTimer(transaction, ctx, data);
             ctx.getChannelContext().sendUpstream(evt);
             return;
         }
 
-        final var transaction = data.getTransaction(msg);
+        // the answer completes the transaction so there is no reason to hold onto it any longer.
+        final var transaction = data.removeTransaction(msg, true);
         if (transaction == null) {
             logger.info("Dropping stray Answer {}", msg);
             return;
         }
 
+        // a blocking request is completed right here since the thread waiting for it may be the very
+        // thread the application layer would have to process the answer on.
+        final var userTransaction = transaction.getTransaction().orElse(null);
+        if (userTransaction instanceof DirectTransaction) {
+            ((DirectTransaction) userTransaction).complete(detach(msg).toAnswer());
+            return;
+        }
+
         final var decoratedEventMaybe = transaction.getTransaction()
                 .map(t -> DiameterMessageReadEvent.of(msg, t))
-                .orElse(evt.toMessageReadEvent());
+                .orElseGet(evt::toMessageReadEvent);
         ctx.getChannelContext().sendUpstream(decoratedEventMaybe);
     }
 
+    /**
+     * With zero-copy decoding (see {@link io.snice.networking.app.NetworkAppConfig#isZeroCopyDecoding()}) the
+     * message is a view over a pooled buffer that is released as soon as the inbound event has been processed.
+     * A request kept in its transaction retains that buffer (see {@link InternalTransaction#release()}) and the
+     * application layer retains it for as long as the application is processing the message. The thread blocked
+     * on a {@link DirectTransaction} though may hold onto the answer for as long as it likes so that answer is
+     * copied out of the pooled buffer.
+     *
+     * @return the given message if it isn't a view over a pooled buffer, otherwise a copy of it.
+     */
+    private static DiameterMessage detach(final DiameterMessage msg) {
+        final var buffer = msg.getBuffer();
+        final var detached = NettyReadableBuffer.detach(buffer);
+        return detached == buffer ? msg : DiameterParser.frame(detached);
+    }
+
     /**
      * Action: Process
      * Description: A message is serviced
@@ -405,13 +519,11 @@ public class PeerFsm {
         final var userTransaction = evt.getTransaction();
 
         if (msg.isRequest()) {
-            final var transaction = data.storeTransaction(msg.toRequest(), true);
+            final var transaction = storeClientTransaction(evt.toMessageWriteEvent(), ctx, data);
             userTransaction.ifPresent(transaction::setTransaction);
+            startTransactionTimer(transaction, ctx, data);
         } else {
-            final var transaction = data.getTransaction(msg);
-            if (transaction != null) {
-                userTransaction.ifPresent(transaction::setTransaction);
-            }
+            data.removeTransaction(msg, false);
             // TODO: if the application sends an answer and we have not transaction
             // it means we didn't actually see a request for it. Should we allow
             // the app to do so or not? For now, we'll allow it...
@@ -425,4 +537,60 @@ public class PeerFsm {
         ctx.getChannelContext().sendDownstream(evt);
     }
 
+    /**
+     * Unless the application manages the identifiers itself, allocate new hop-by-hop and end-to-end identifiers
+     * for the outgoing request, which are stamped into the message as it is encoded, and store the
+     * transaction under the new hop-by-hop identifier, which is what the answer will carry.
+     */
+    private static final InternalTransaction storeClientTransaction(final DiameterMessageWriteEvent evt, final PeerContext ctx, final PeerData data) {
+        final var req = evt.getMessage().toRequest();
+        if (!ctx.getConfig().isAllocateIdentifiers()) {
+            return data.storeTransaction(req, true);
+        }
+
+        final var transaction = data.storeClientTransaction(req);
+        evt.stamp(transaction.getId(), IdentifierGenerator.nextEndToEndId());
+        return transaction;
+    }
+
+    private static final void startTransactionTimer(final InternalTransaction transaction, final PeerContext ctx, final PeerData data) {
+        transaction.setTimer(ctx.schedule(transaction, getTransactionTimeout(transaction, data)));
+    }
+
+    /**
+     * A {@link DirectTransaction} may not be willing to wait for as long as the transaction timeout of the peer,
+     * in which case the transaction is purged as soon as whoever is waiting for it gives up.
+     */
+    private static Duration getTransactionTimeout(final InternalTransaction transaction, final PeerData data) {
+        final var timeout = data.getTransactionTimeout();
+        final var userTransaction = transaction.getTransaction().orElse(null);
+        if (userTransaction instanceof DirectTransaction) {
+            final var direct = ((DirectTransaction) userTransaction).getTimeout();
+            return direct.compareTo(timeout) < 0 ? direct : timeout;
+        }
+        return timeout;
+    }
+
+    /**
+     * The timer of the given transaction fired, i.e., we never saw an answer to a request we sent, or
+     * the application never answered a request we received. Either way, the transaction is purged
+     * and if the application is tracking the transaction, it is told about it.
+     */
+    private static final void processTransactionTimeout(final InternalTransaction transaction, final PeerContext ctx, final PeerData data) {
+        if (!data.expireTransaction(transaction)) {
+            return;
+        }
+
+        if (!transaction.isClientTransaction()) {
+            return;
+        }
+
+        final var userTransaction = transaction.getTransaction().orElse(null);
+        if (userTransaction instanceof DirectTransaction) {
+            ((DirectTransaction) userTransaction).timeout();
+        } else if (userTransaction != null) {
+            ctx.getChannelContext().sendUpstream(DiameterTransactionTimeoutEvent.of(userTransaction));
+        }
+    }
+
 }
@@ -0,0 +1,14 @@
+package io.snice.networking.diameter.peer.fsm;
+
+/**
+ * The timers of the {@link PeerFsm}. They are scheduled through the {@link PeerContext} (see
+ * {@link io.snice.networking.common.fsm.NetworkContext#schedule}) and as such, delivered back to the
+ * {@link PeerFsm} as any other event.
+ */
+public enum PeerTimeout {
+
+    /**
+     * The remote peer connected to us but never sent us a CER.
+     */
+    WAIT_CER
+}
@@ -0,0 +1,237 @@
+package io.snice.networking.diameter.peer.fsm;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static io.snice.preconditions.PreConditions.assertArgument;
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * The outstanding transactions of a single peer, keyed by their hop-by-hop identifier, which is just
+ * a 32-bit integer.
+ *
+ * <p>
+ * Every single request and answer going through a peer results in a lookup so this is a specialised
+ * open-addressing hash table with the keys and values stored in two parallel arrays. There is no boxing
+ * of the keys, no entry objects and no identifier objects to allocate just to do a lookup.
+ * </p>
+ *
+ * <p>
+ * Collisions are resolved through linear probing and removing an entry shifts the entries further down the
+ * same probe sequence back into the hole (Knuth, Algorithm R) so there are no tombstones. As such, a table with a lot
+ * of churn, which is what a transaction table is, never degrades and never needs to be rehashed to get rid of them.
+ * </p>
+ *
+ * <p>
+ * The load factor is kept at or below 0.5, which keeps the probe sequences, and the clusters
+ * a removal has to walk, short.
+ * </p>
+ *
+ * This class is NOT thread safe and is only to be accessed by the FSM of the peer, i.e., on
+ * the event loop of the peer.
+ *
+ * @param <T> the type of the transactions.
+ */
+public final class TransactionTable<T> {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int shift;
+    private int resizeThreshold;
+    private int size;
+
+    /**
+     * @param expectedSize the number of transactions we expect to be outstanding at any given time. The
+     *                     table grows beyond that if needed.
+     */
+    public static <T> TransactionTable<T> of(final int expectedSize) {
+        assertArgument(expectedSize >= 0 && expectedSize <= MAX_CAPACITY / 2, "The expected size must be between 0 and 2^29");
+        return new TransactionTable<>(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(final int expectedSize) {
+        final int capacity = Math.max(16, expectedSize * 2);
+        return capacity == Integer.highestOneBit(capacity) ? capacity : Integer.highestOneBit(capacity) << 1;
+    }
+
+    private TransactionTable(final int capacity) {
+        allocate(capacity);
+    }
+
+    private void allocate(final int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        resizeThreshold = capacity / 2;
+    }
+
+    /**
+     * Fibonacci hashing, i.e., the top bits of the hop-by-hop identifier multiplied by 2^32 divided by the golden
+     * ratio. Hop-by-hop identifiers are typically allocated sequentially and sequential keys are spread
+     * out evenly across the table, whereas simply masking off the lower bits would put them in one long cluster
+     * that every lookup of a key that isn't in the table would have to walk.
+     */
+    private int indexOf(final int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(final int key) {
+        return get(key) != null;
+    }
+
+    public T get(final int key) {
+        final var values = this.values;
+        final var keys = this.keys;
+        for (int i = indexOf(key); ; i = (i + 1) & mask) {
+            final var value = values[i];
+            if (value == null) {
+                return null;
+            }
+
+            if (keys[i] == key) {
+                return (T) value;
+            }
+        }
+    }
+
+    /**
+     * Store the given transaction under the given key.
+     *
+     * @return the transaction that previously was stored under the same key, if any, which is replaced.
+     */
+    public T put(final int key, final T value) {
+        assertNotNull(value, "The transaction cannot be null");
+        final var values = this.values;
+        final var keys = this.keys;
+
+        int i = indexOf(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                final var previous = (T) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeThreshold) {
+            grow();
+        }
+        return null;
+    }
+
+    /**
+     * Remove the transaction stored under the given key.
+     *
+     * @return the transaction that was removed or null if there was none.
+     */
+    public T remove(final int key) {
+        for (int i = indexOf(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                final var value = (T) values[i];
+                removeAt(i);
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove the transaction stored under the given key but only if it is the given transaction.
+     *
+     * @return true if the transaction was removed.
+     */
+    public boolean remove(final int key, final T value) {
+        for (int i = indexOf(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                if (values[i] != value) {
+                    return false;
+                }
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Invoke the given function for every transaction in the table, in no particular order.
+     */
+    public void forEach(final Consumer<? super T> f) {
+        final var values = this.values;
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i] != null) {
+                f.accept((T) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Remove all the transactions.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Empty the slot at the given index and then walk the rest of the cluster, moving every entry whose
+     * home slot is at or "before" the hole (cyclically speaking) into the hole, since otherwise the entry
+     * could no longer be found. The slot the entry was moved from becomes the new hole.
+     */
+    private void removeAt(final int index) {
+        final var values = this.values;
+        final var keys = this.keys;
+
+        int hole = index;
+        int i = (index + 1) & mask;
+        while (values[i] != null) {
+            final int home = indexOf(keys[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+
+        values[hole] = null;
+        --size;
+    }
+
+    private void grow() {
+        final var oldKeys = keys;
+        final var oldValues = values;
+        if (oldValues.length == MAX_CAPACITY) {
+            throw new IllegalStateException("The transaction table cannot grow any further");
+        }
+
+        allocate(oldValues.length << 1);
+        final var values = this.values;
+        final var keys = this.keys;
+        for (int j = 0; j < oldValues.length; ++j) {
+            final var value = oldValues[j];
+            if (value != null) {
+                int i = indexOf(oldKeys[j]);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = value;
+            }
+        }
+    }
+}
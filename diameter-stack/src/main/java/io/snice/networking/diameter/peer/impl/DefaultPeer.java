@@ -4,25 +4,39 @@ import io.snice.codecs.codec.diameter.DiameterAnswer;
 import io.snice.codecs.codec.diameter.DiameterMessage;
 import io.snice.codecs.codec.diameter.DiameterRequest;
 import io.snice.codecs.codec.diameter.TransactionIdentifier;
+import io.snice.codecs.codec.diameter.avp.api.SessionId;
+import io.snice.networking.app.ExecutionMode;
 import io.snice.networking.common.Transport;
 import io.snice.networking.diameter.PeerConnection;
 import io.snice.networking.diameter.event.DiameterMessageEvent;
 import io.snice.networking.diameter.event.DiameterMessageWriteEvent;
 import io.snice.networking.diameter.peer.Peer;
+import io.snice.networking.diameter.peer.PeerException;
 import io.snice.networking.diameter.peer.PeerId;
 import io.snice.networking.diameter.peer.PeerIllegalStateException;
 import io.snice.networking.diameter.peer.PeerSettings;
+import io.snice.networking.diameter.peer.PeerTimeoutException;
+import io.snice.networking.diameter.peer.fsm.DirectTransaction;
 import io.snice.networking.diameter.tx.Transaction;
 
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
+import static io.snice.preconditions.PreConditions.assertArgument;
 import static io.snice.preconditions.PreConditions.assertNotNull;
 import static io.snice.preconditions.PreConditions.assertNull;
 
@@ -32,7 +46,11 @@ public class DefaultPeer implements Peer {
     private final PeerSettings settings;
     private final PeerId id;
 
-    private final AtomicReference<CompletionStage<PeerConnection>> connection = new AtomicReference<>();
+    /**
+     * The connections to the peer, of which there are as many as configured (see
+     * {@link PeerSettings#getConnections()}) once the peer has been established.
+     */
+    private final AtomicReference<List<CompletionStage<PeerConnection>>> connections = new AtomicReference<>();
 
     public static DefaultPeer of(final DefaultPeerTable peerTable, final PeerSettings settings) {
         assertNotNull(peerTable, "The Peer Table cannot be null");
@@ -59,15 +77,47 @@ public class DefaultPeer implements Peer {
         return settings.getResolver().resolve(settings.getUri());
     }
 
+    /**
+     * Establish all the connections to the peer, each of which will go through its own capability exchange. The
+     * peer is considered established as soon as any one of them is and it has only failed to be established
+     * if every single one of them failed.
+     */
     @Override
     public CompletionStage<Peer> establishPeer() {
-        // this is dumb.
-        final var maybe = connection.compareAndExchangeAcquire(null, peerTable.activatePeer(this));
-        if (maybe != null) {
-            return maybe.thenApply(c -> this);
+        var current = connections.get();
+        if (current == null) {
+            final var count = settings.getConnections();
+            final List<CompletionStage<PeerConnection>> activated = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                activated.add(peerTable.activatePeer(this));
+            }
+
+            final var existing = connections.compareAndExchange(null, List.copyOf(activated));
+            if (existing != null) {
+                // someone else beat us to it so get rid of the connections we just created.
+                activated.forEach(f -> f.thenAccept(PeerConnection::close));
+                current = existing;
+            } else {
+                current = connections.get();
+            }
         }
 
-        return connection.get().thenApply(c -> this);
+        if (current.size() == 1) {
+            return current.get(0).thenApply(c -> this);
+        }
+
+        final var established = new CompletableFuture<Peer>();
+        final var remaining = new AtomicInteger(current.size());
+        for (final var connection : current) {
+            connection.whenComplete((c, t) -> {
+                if (t == null) {
+                    established.complete(this);
+                } else if (remaining.decrementAndGet() == 0) {
+                    established.completeExceptionally(t);
+                }
+            });
+        }
+        return established;
     }
 
     @Override
@@ -87,16 +137,97 @@ public class DefaultPeer implements Peer {
 
     @Override
     public void send(final DiameterMessage.Builder msg) {
-        ensureConnection().thenAccept(c -> c.send(msg));
+        ensureConnection(null).thenAccept(c -> c.send(msg));
     }
 
     @Override
     public void send(final DiameterMessage msg) {
-        ensureConnection().thenAccept(c -> c.send(msg));
+        ensureConnection(msg).thenAccept(c -> c.send(msg));
+    }
+
+    @Override
+    public CompletionStage<Void> sendAsync(final DiameterMessage msg) {
+        return ensureConnection(msg).thenCompose(c -> c.sendAsync(msg));
+    }
+
+    /**
+     * Whether it is worth routing requests to this peer, which it is as long as any of its connections are either
+     * still being established, in which case the requests are sent once it is, or is up and running.
+     */
+    boolean isAvailable() {
+        final var current = connections.get();
+        if (current == null) {
+            return false;
+        }
+
+        for (int i = 0; i < current.size(); ++i) {
+            final var future = current.get(i).toCompletableFuture();
+            if (!future.isDone()) {
+                return true;
+            }
+
+            if (!future.isCompletedExceptionally() && peerTable.isConnectionAlive(future.join().id())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The peer is writable if any of its open connections are.
+     */
+    @Override
+    public boolean isWritable() {
+        final var current = connections.get();
+        if (current == null) {
+            return false;
+        }
+
+        for (int i = 0; i < current.size(); ++i) {
+            final var c = getIfOpen(current.get(i));
+            if (c != null && c.isWritable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getOutstandingTransactionCount() {
+        final var current = connections.get();
+        if (current == null) {
+            return 0;
+        }
+
+        int count = 0;
+        for (int i = 0; i < current.size(); ++i) {
+            final var c = getIfOpen(current.get(i));
+            if (c != null) {
+                count += peerTable.getOutstandingTransactions(c.id());
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long getExpiredTransactionCount() {
+        final var current = connections.get();
+        if (current == null) {
+            return 0;
+        }
+
+        long count = 0;
+        for (int i = 0; i < current.size(); ++i) {
+            final var c = getIfOpen(current.get(i));
+            if (c != null) {
+                count += peerTable.getExpiredTransactions(c.id());
+            }
+        }
+        return count;
     }
 
     private void send(final DiameterMessageEvent evt) {
-        ensureConnection().thenAccept(c -> c.send(evt));
+        ensureConnection(evt.getMessage()).thenAccept(c -> c.send(evt));
     }
 
     @Override
@@ -110,17 +241,82 @@ public class DefaultPeer implements Peer {
         return new DefaultTransaction.DefaultBuilder(this, req);
     }
 
+    @Override
+    public DiameterAnswer request(final DiameterRequest req, final Duration timeout) throws PeerException {
+        assertNotNull(req, "The request cannot be null");
+        assertArgument(timeout != null && !timeout.isNegative() && !timeout.isZero(), "The timeout must be a positive duration");
+        ExecutionMode.assertMayBlock();
+
+        final var transaction = new BlockingTransaction(this, req, timeout);
+        send(DiameterMessageWriteEvent.of(transaction));
+        return transaction.await();
+    }
+
     @Override
     public String toString() {
         return settings.toString();
     }
 
-    private CompletionStage<PeerConnection> ensureConnection() {
-        final var f = connection.get();
-        if (f == null) {
+    /**
+     * Pick the connection to send the given message over.
+     *
+     * If session affinity has been asked for, the message goes over the connection its Session-Id hashes to, as long
+     * as that connection is open. Otherwise, it goes over the open connection with the least outstanding transactions.
+     * If none of the connections are open (yet), the message goes over the first one and will be sent out as soon as
+     * it has been established.
+     *
+     * @param msg the message to send or null if it is yet to be built, in which case there is no session to be
+     *            affine to.
+     */
+    private CompletionStage<PeerConnection> ensureConnection(final DiameterMessage msg) {
+        final var current = connections.get();
+        if (current == null) {
             throw new PeerIllegalStateException(this, "Peer has never been established");
         }
-        return f;
+
+        final int count = current.size();
+        if (count == 1) {
+            return current.get(0);
+        }
+
+        if (msg != null && settings.isSessionAffinity()) {
+            final var affine = msg.getAvp(SessionId.CODE)
+                    .map(avp -> current.get(Math.floorMod(avp.getData().hashCode(), count)))
+                    .orElse(null);
+            if (affine != null && getIfOpen(affine) != null) {
+                return affine;
+            }
+        }
+
+        CompletionStage<PeerConnection> best = null;
+        int bestOutstanding = Integer.MAX_VALUE;
+        for (int i = 0; i < count; ++i) {
+            final var c = getIfOpen(current.get(i));
+            if (c == null) {
+                continue;
+            }
+
+            final int outstanding = peerTable.getOutstandingTransactions(c.id());
+            if (outstanding < bestOutstanding) {
+                best = current.get(i);
+                bestOutstanding = outstanding;
+            }
+        }
+
+        return best != null ? best : current.get(0);
+    }
+
+    /**
+     * @return the connection if it has been established and has not gone away since, otherwise null.
+     */
+    private PeerConnection getIfOpen(final CompletionStage<PeerConnection> connection) {
+        final var future = connection.toCompletableFuture();
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+
+        final var c = future.join();
+        return peerTable.isConnectionAlive(c.id()) ? c : null;
     }
 
     @Override
@@ -163,6 +359,89 @@ public class DefaultPeer implements Peer {
         }
     }
 
+    /**
+     * The transaction behind the blocking {@link #request(DiameterRequest, Duration)}, which is completed by the
+     * {@link io.snice.networking.diameter.peer.fsm.PeerFsm} directly on the event loop.
+     */
+    private static class BlockingTransaction implements DirectTransaction {
+
+        private final DefaultPeer peer;
+        private final DiameterRequest req;
+        private final TransactionIdentifier id;
+        private final Duration timeout;
+        private final CompletableFuture<DiameterAnswer> answer = new CompletableFuture<>();
+
+        private BlockingTransaction(final DefaultPeer peer, final DiameterRequest req, final Duration timeout) {
+            this.peer = peer;
+            this.req = req;
+            this.timeout = timeout;
+            this.id = TransactionIdentifier.from(req);
+        }
+
+        private DiameterAnswer await() throws PeerException {
+            try {
+                return answer.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (final TimeoutException e) {
+                // the FSM purges the transaction when its own timer, of the same duration, fires.
+                // Until then, an answer showing up is simply ignored.
+                throw new PeerTimeoutException(peer, timeout);
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof PeerException) {
+                    throw (PeerException) e.getCause();
+                }
+                throw new PeerException(peer, "The transaction failed: " + e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PeerException(peer, "Interrupted while waiting for the answer");
+            }
+        }
+
+        @Override
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        @Override
+        public void complete(final DiameterAnswer answer) {
+            this.answer.complete(answer);
+        }
+
+        @Override
+        public void timeout() {
+            answer.completeExceptionally(new PeerTimeoutException(peer, timeout));
+        }
+
+        @Override
+        public void connectionLost() {
+            answer.completeExceptionally(new PeerException(peer, "The connection to the peer went away before the answer was received"));
+        }
+
+        @Override
+        public TransactionIdentifier getId() {
+            return id;
+        }
+
+        @Override
+        public DiameterRequest getRequest() {
+            return req;
+        }
+
+        @Override
+        public Optional<Object> getApplicationData() {
+            return Optional.empty();
+        }
+
+        @Override
+        public BiConsumer<Transaction, DiameterAnswer> getOnAnswer() {
+            return null;
+        }
+
+        @Override
+        public Consumer<Transaction> getOnTransactionTimeout() {
+            return null;
+        }
+    }
+
     private static class DefaultTransaction implements Transaction {
 
         private final DefaultPeer peer;
@@ -170,14 +449,17 @@ public class DefaultPeer implements Peer {
         private final TransactionIdentifier id;
         private final Optional<Object> appData;
         private final BiConsumer<Transaction, DiameterAnswer> onAnswer;
+        private final Consumer<Transaction> onTimeout;
 
         private DefaultTransaction(final DefaultPeer peer, final DiameterRequest req,
                                    final BiConsumer<Transaction, DiameterAnswer> onAnswer,
+                                   final Consumer<Transaction> onTimeout,
                                    final Optional<Object> appData) {
             this.peer = peer;
             this.req = req;
             this.appData = appData;
             this.onAnswer = onAnswer;
+            this.onTimeout = onTimeout;
             this.id = TransactionIdentifier.from(req);
         }
 
@@ -201,6 +483,11 @@ public class DefaultPeer implements Peer {
             return onAnswer;
         }
 
+        @Override
+        public Consumer<Transaction> getOnTransactionTimeout() {
+            return onTimeout;
+        }
+
         private static class DefaultBuilder implements Transaction.Builder {
 
             private final DefaultPeer peer;
@@ -208,6 +495,7 @@ public class DefaultPeer implements Peer {
             private final DiameterRequest.Builder builder;
             private Object appData;
             private BiConsumer<Transaction, DiameterAnswer> onAnswer;
+            private Consumer<Transaction> onTimeout;
 
             private DefaultBuilder(final DefaultPeer peer, final DiameterRequest req) {
                 this.peer = peer;
@@ -247,12 +535,15 @@ public class DefaultPeer implements Peer {
 
             @Override
             public Transaction.Builder onTransactionTimeout(final Consumer<Transaction> f) {
+                assertNotNull(f);
+                assertNull(onTimeout, "You have already specified a onTransactionTimeout function. You cannot overwrite it.");
+                this.onTimeout = f;
                 return this;
             }
 
             @Override
             public Transaction start() {
-                final var t = new DefaultTransaction(peer, req, onAnswer, Optional.ofNullable(appData));
+                final var t = new DefaultTransaction(peer, req, onAnswer, onTimeout, Optional.ofNullable(appData));
                 final var evt = DiameterMessageWriteEvent.of(t);
                 peer.send(evt);
                 return t;
@@ -24,12 +24,14 @@ import io.snice.networking.diameter.peer.fsm.PeerState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 import static io.snice.networking.common.Transport.tcp;
@@ -42,7 +44,10 @@ public class DefaultPeerTable<C extends DiameterAppConfig> implements PeerTable<
     private static final Logger logger = LoggerFactory.getLogger(DefaultPeerTable.class);
     private static final FsmSupport<PeerState> loggingSupport = new FsmSupport<>(PeerFsm.class);
 
-    private final PeerConfiguration peerConfiguration = new PeerConfiguration();
+    /**
+     * The configuration for connections from remote endpoints that aren't any of the configured peers.
+     */
+    private final PeerConfiguration defaultPeerConfiguration = new PeerConfiguration();
     private final DiameterConfig config;
     private NetworkStack<PeerConnection, DiameterEvent, C> stack;
     private final RoutingEngine routingEngine;
@@ -52,6 +57,27 @@ public class DefaultPeerTable<C extends DiameterAppConfig> implements PeerTable<
      */
     private final ConcurrentHashMap<PeerId, Peer> peers = new ConcurrentHashMap<>();
 
+    /**
+     * All the peers in the order they were added, which is the order in which the {@link RoutingEngine} will
+     * consider them.
+     */
+    private final List<DefaultPeer> peersInOrder = new CopyOnWriteArrayList<>();
+
+    /**
+     * The state of every peer connection, as kept by its {@link PeerFsm}, which is how a {@link Peer} with
+     * more than one connection figures out which connection is the least loaded one.
+     * The connection is removed once its state machine closes.
+     */
+    private final ConcurrentHashMap<ConnectionId, PeerData> connections = new ConcurrentHashMap<>();
+
+    /**
+     * The configuration of every peer, keyed by the address its URI resolved to, which is how a connection,
+     * whether we established it or the remote peer did, finds the configuration (timers etc) of its peer.
+     * A remote peer connecting to us does so from an ephemeral port so those are matched on the IP address alone.
+     */
+    private final ConcurrentHashMap<InetSocketAddress, PeerConfiguration> configurationsByAddress = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PeerConfiguration> configurationsByIp = new ConcurrentHashMap<>();
+
     public DefaultPeerTable(final DiameterConfig config, final RoutingEngine routingEngine) {
         this.config = config;
         this.routingEngine = routingEngine;
@@ -66,10 +92,7 @@ public class DefaultPeerTable<C extends DiameterAppConfig> implements PeerTable<
 
     @Override
     public void send(final DiameterMessage msg) throws DiameterRoutingException {
-        routingEngine.findRoute(this, msg).or(() -> getDefaultPeer(msg)).orElseThrow(() -> {
-            // TODO: need special exception. No peer found or something.
-            throw new NoMatchingPeerException(msg);
-        }).send(msg);
+        routingEngine.findRoute(this, msg).orElseThrow(() -> new NoMatchingPeerException(msg)).send(msg);
     }
 
     @Override
@@ -78,36 +101,109 @@ public class DefaultPeerTable<C extends DiameterAppConfig> implements PeerTable<
     }
 
     /**
-     * If the {@link RoutingEngine} doesn't find an appropriate route for the given message, let's
-     * pick a default route if we are configured/allowed to do so.
+     * Let the {@link RoutingEngine} know which peers currently are available, which is done whenever
+     * an attempt to connect to a peer completes, successfully or not, and whenever the state machine of a peer
+     * connection opens or closes, which it also does when the connection goes away. The routing engine is expected to swap in its new routes without blocking
+     * anyone that is sending.
+     */
+    private synchronized void refreshRoutes() {
+        final List<Peer> available = new ArrayList<>(peersInOrder.size());
+        for (final var peer : peersInOrder) {
+            if (peer.isAvailable()) {
+                available.add(peer);
+            }
+        }
+        routingEngine.updateRoutes(available);
+    }
+
+    /**
+     * Whether the state machine of the given connection is up and running, i.e., it has been
+     * created and has not yet closed.
      */
-    private Optional<Peer> getDefaultPeer(final DiameterMessage msg) {
-        // for now, we'll just find any...
-        return peers.entrySet().stream().findAny().map(Map.Entry::getValue);
+    boolean isConnectionAlive(final ConnectionId connectionId) {
+        return connections.containsKey(connectionId);
     }
 
     @Override
     public FsmKey calculateKey(final ConnectionId connectionId, final Optional<DiameterEvent> evt) {
         final var originHost = evt.map(e -> e.toMessageEvent().getMessage()).map(DiameterMessage::getOriginHost);
         final var connectionEndpointId = connectionId.getRemoteConnectionEndpointId();
-        return new PeerFsmKey(originHost, connectionEndpointId);
+        return new PeerFsmKey(originHost, connectionEndpointId, connectionId, findConfiguration(connectionId));
+    }
+
+    /**
+     * Find the configuration of the peer on the other side of the given connection, which is the
+     * peer we connected to, or the peer connecting to us from the IP address it is configured with, and
+     * if it is none of the configured peers, the defaults.
+     */
+    private PeerConfiguration findConfiguration(final ConnectionId connectionId) {
+        final var config = configurationsByAddress.get(connectionId.getRemoteAddress());
+        if (config != null) {
+            return config;
+        }
+        return configurationsByIp.getOrDefault(connectionId.getRemoteIpAddress(), defaultPeerConfiguration);
+    }
+
+    private void registerConfiguration(final DefaultPeer peer, final InetSocketAddress remoteAddress) {
+        final var config = peer.getSettings().getConfiguration();
+        configurationsByAddress.put(remoteAddress, config);
+        if (remoteAddress.getAddress() != null) {
+            configurationsByIp.putIfAbsent(remoteAddress.getAddress().getHostAddress(), config);
+        }
     }
 
     @Override
     public PeerData createNewDataBag(final FsmKey key) {
-        return new PeerData(peerConfiguration);
+        final var data = new PeerData(((PeerFsmKey) key).config);
+        connections.put(((PeerFsmKey) key).connectionId, data);
+        return data;
+    }
+
+    /**
+     * The number of outstanding transactions on the given connection, or zero if the state machine
+     * of the connection isn't up (yet).
+     *
+     * Note that this is read from the thread of the caller while the count is maintained by the
+     * event loop of the connection so it may very well be slightly stale, which is good enough for
+     * spreading the load.
+     */
+    int getOutstandingTransactions(final ConnectionId connectionId) {
+        final var data = connections.get(connectionId);
+        return data == null ? 0 : data.getOutstandingTransactionCount();
+    }
+
+    /**
+     * The number of transactions on the given connection that have timed out, or zero if the state machine
+     * of the connection isn't up.
+     */
+    long getExpiredTransactions(final ConnectionId connectionId) {
+        final var data = connections.get(connectionId);
+        return data == null ? 0 : data.getExpiredTransactionCount();
     }
 
     @Override
     public PeerContext createNewContext(final FsmKey key, final ChannelContext<DiameterEvent> ctx) {
-        final var peerCfg = peerConfiguration;
+        final var peerCfg = ((PeerFsmKey) key).config;
         final var peerCtx = new DefaultPeerContext(peerCfg, ctx, null);
         return peerCtx;
     }
 
     @Override
     public FSM<PeerState, PeerContext, PeerData> createNewFsm(final FsmKey key, final PeerContext ctx, final PeerData data) {
-        final var fsm = PeerFsm.definition.newInstance(key, ctx, data, loggingSupport::unhandledEvent, loggingSupport::onTransition);
+        final var connectionId = ((PeerFsmKey) key).connectionId;
+        final var fsm = PeerFsm.definition.newInstance(key, ctx, data, loggingSupport::unhandledEvent, (from, to, event) -> {
+            loggingSupport.onTransition(from, to, event);
+            if (from == to) {
+                return;
+            }
+
+            if (to == PeerState.CLOSED || to == PeerState.TERMINATED) {
+                connections.remove(connectionId, data);
+                refreshRoutes();
+            } else if (to == PeerState.OPEN) {
+                refreshRoutes();
+            }
+        });
         return fsm;
     }
 
@@ -119,11 +215,17 @@ public class DefaultPeerTable<C extends DiameterAppConfig> implements PeerTable<
         final var settings = PeerSettings.of(config).withNetworkInterface(nic).withTransport(transport).build();
         final var peer = DefaultPeer.of(this, settings);
         peers.put(peer.getId(), peer);
+        peersInOrder.add(peer);
 
         if (peer.getMode() == Peer.MODE.ACTIVE) {
-            peer.establishPeer();
+            peer.establishPeer().whenComplete((p, t) -> refreshRoutes());
+        } else if (config.getUri() != null) {
+            // so that the peer gets its own configuration when it connects to us.
+            peer.resolveRemoteHost().thenAccept(remoteAddress -> registerConfiguration(peer, remoteAddress));
         }
 
+        refreshRoutes();
+
         return peer;
     }
 
@@ -175,8 +277,15 @@ public class DefaultPeerTable<C extends DiameterAppConfig> implements PeerTable<
         logger.info("Activating Peer {}", config);
         // TODO: lots of error handling here!
         final var f = peer.resolveRemoteHost()
-                .thenCompose(remoteAddress -> stack.connect(peer.getTransport(), remoteAddress))
+                .thenCompose(remoteAddress -> {
+                    registerConfiguration(peer, remoteAddress);
+                    return stack.connect(peer.getTransport(), remoteAddress);
+                })
                 .thenApply(PeerConnection::of);
+
+        // the connection may fail long after the peer itself was established, as it only takes one of its
+        // connections for it to be, and if it was the last one standing, the peer is no longer available.
+        f.whenComplete((c, t) -> refreshRoutes());
         return f;
     }
 
@@ -189,9 +298,24 @@ public class DefaultPeerTable<C extends DiameterAppConfig> implements PeerTable<
         private final Optional<OriginHost> originHost;
         private final ConnectionEndpointId endpointId;
 
-        private PeerFsmKey(final Optional<OriginHost> originHost, final ConnectionEndpointId endpointId) {
+        /**
+         * Not part of the identity of the key, the remote endpoint is, but kept so that the
+         * {@link PeerData} can be associated with the connection it belongs to.
+         */
+        private final ConnectionId connectionId;
+
+        /**
+         * Not part of the identity of the key either but the configuration of the peer on the other side
+         * of the connection, which the context and data of the state machine are created from.
+         */
+        private final PeerConfiguration config;
+
+        private PeerFsmKey(final Optional<OriginHost> originHost, final ConnectionEndpointId endpointId,
+                           final ConnectionId connectionId, final PeerConfiguration config) {
             this.originHost = originHost;
             this.endpointId = endpointId;
+            this.connectionId = connectionId;
+            this.config = config;
         }
 
         @Override
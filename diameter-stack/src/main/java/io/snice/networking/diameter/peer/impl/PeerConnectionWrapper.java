@@ -14,6 +14,7 @@ import io.snice.networking.diameter.peer.Peer;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 
 import static io.snice.preconditions.PreConditions.assertNotNull;
 import static io.snice.preconditions.PreConditions.ensureNotNull;
@@ -130,6 +131,21 @@ public class PeerConnectionWrapper implements PeerConnection {
         actualConnection.send(DiameterMessageWriteEvent.of(msg));
     }
 
+    @Override
+    public CompletionStage<Void> sendAsync(final DiameterEvent msg) {
+        return actualConnection.sendAsync(msg);
+    }
+
+    @Override
+    public CompletionStage<Void> sendAsync(final DiameterMessage msg) {
+        return actualConnection.sendAsync(DiameterMessageWriteEvent.of(msg));
+    }
+
+    @Override
+    public boolean isWritable() {
+        return actualConnection.isWritable();
+    }
+
     @Override
     public boolean connect() {
         return actualConnection.connect();
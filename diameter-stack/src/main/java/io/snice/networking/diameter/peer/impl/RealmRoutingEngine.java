@@ -0,0 +1,67 @@
+package io.snice.networking.diameter.peer.impl;
+
+import io.snice.codecs.codec.diameter.DiameterMessage;
+import io.snice.codecs.codec.diameter.avp.api.DestinationHost;
+import io.snice.codecs.codec.diameter.avp.api.DestinationRealm;
+import io.snice.networking.diameter.DiameterConfig;
+import io.snice.networking.diameter.peer.Peer;
+import io.snice.networking.diameter.peer.PeerTable;
+import io.snice.networking.diameter.peer.RouteConfiguration;
+import io.snice.networking.diameter.peer.RoutingEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * A {@link RoutingEngine} backed by the realm routing table as configured through the {@link DiameterConfig}
+ * (see {@link RouteConfiguration}).
+ *
+ * The table is an immutable snapshot, which is rebuilt and swapped in whenever the set of available peers changes.
+ * As such, finding a route never blocks, no matter how many threads are sending, and it never has to
+ * consider peers that are down.
+ */
+public class RealmRoutingEngine implements RoutingEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(RealmRoutingEngine.class);
+
+    private final List<RouteConfiguration> routes;
+    private final List<String> defaultRoute;
+
+    private volatile RealmRoutingTable<Peer> table = RealmRoutingTable.empty();
+
+    public static RealmRoutingEngine of(final DiameterConfig config) {
+        assertNotNull(config, "The configuration cannot be null");
+        return new RealmRoutingEngine(List.copyOf(config.getRoutes()), List.copyOf(config.getDefaultRoute()));
+    }
+
+    private RealmRoutingEngine(final List<RouteConfiguration> routes, final List<String> defaultRoute) {
+        this.routes = routes;
+        this.defaultRoute = defaultRoute;
+    }
+
+    @Override
+    public Optional<Peer> findRoute(final PeerTable peers, final DiameterMessage msg) {
+        final var table = this.table;
+        final var host = msg.getAvp(DestinationHost.CODE).map(avp -> avp.getData().toString()).orElse(null);
+        final var realm = msg.getAvp(DestinationRealm.CODE).map(avp -> avp.getData().toString()).orElse(null);
+        return Optional.ofNullable(table.find(host, realm, msg.getHeader().getApplicationId()));
+    }
+
+    /**
+     * Build a new routing table based on the given available peers, which then replaces the current one. Updates
+     * are serialized so the last one to be built is also the last one to be swapped in.
+     */
+    @Override
+    public synchronized void updateRoutes(final List<Peer> available) {
+        logger.debug("Updating the routing table. Available peers: {}", available);
+        table = RealmRoutingTable.build(routes, defaultRoute, available, Peer::getName, RealmRoutingEngine::hostOf);
+    }
+
+    private static Optional<String> hostOf(final Peer peer) {
+        return peer instanceof DefaultPeer ? ((DefaultPeer) peer).getSettings().getHost() : Optional.empty();
+    }
+}
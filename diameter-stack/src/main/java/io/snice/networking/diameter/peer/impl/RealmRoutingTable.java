@@ -0,0 +1,167 @@
+package io.snice.networking.diameter.peer.impl;
+
+import io.snice.networking.diameter.peer.RouteConfiguration;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * An immutable snapshot of the realm routing table (RFC 6733 section 2.7) where every route has already
+ * been resolved to the {@link io.snice.networking.diameter.peer.Peer} to use, given the peers that were available
+ * when the snapshot was built. As such, looking up a route is a hash lookup on the Destination-Host and/or
+ * the Destination-Realm followed by a scan over the handful of applications of that realm.
+ *
+ * A new snapshot is built whenever a peer goes up or down and simply replaces the old one, see
+ * {@link RealmRoutingEngine}.
+ *
+ * Realms and hosts are DNS names and as such, are matched irrespective of case.
+ *
+ * @param <P> the type of the peers.
+ */
+final class RealmRoutingTable<P> {
+
+    private static final RealmRoutingTable<?> EMPTY = new RealmRoutingTable<>(Map.of(), Map.of(), null);
+
+    private final Map<String, P> hosts;
+    private final Map<String, Realm<P>> realms;
+    private final P defaultRoute;
+
+    static <P> RealmRoutingTable<P> empty() {
+        return (RealmRoutingTable<P>) EMPTY;
+    }
+
+    /**
+     * Build a new routing table.
+     *
+     * @param routes the configured routes.
+     * @param defaultRoute the names of the peers making up the default route. If empty, the first of the
+     *                     available peers is the default route.
+     * @param available the peers that currently are available, in the order they were configured.
+     * @param nameOf a function returning the name of a peer, which is what the routes refer to.
+     * @param hostOf a function returning the Diameter identity of a peer, if known.
+     */
+    static <P> RealmRoutingTable<P> build(final List<RouteConfiguration> routes,
+                                          final List<String> defaultRoute,
+                                          final List<P> available,
+                                          final Function<P, String> nameOf,
+                                          final Function<P, Optional<String>> hostOf) {
+        final Map<String, P> byName = new HashMap<>();
+        final Map<String, P> hosts = new HashMap<>();
+        for (final var peer : available) {
+            byName.putIfAbsent(nameOf.apply(peer), peer);
+            hostOf.apply(peer).ifPresent(host -> hosts.putIfAbsent(normalize(host), peer));
+        }
+
+        final Map<String, Realm<P>> realms = new HashMap<>();
+        for (final var route : routes) {
+            final var peer = firstAvailable(route.getPeers(), byName);
+            if (peer == null) {
+                continue;
+            }
+
+            final var realm = realms.computeIfAbsent(normalize(route.getRealm()), r -> new Realm<>());
+            if (route.getApplicationId().isPresent()) {
+                realm.add(route.getApplicationId().get(), peer);
+            } else if (realm.anyApplication == null) {
+                realm.anyApplication = peer;
+            }
+        }
+
+        final P defaultPeer = defaultRoute.isEmpty()
+                ? available.stream().findFirst().orElse(null)
+                : firstAvailable(defaultRoute, byName);
+
+        return new RealmRoutingTable<>(hosts, realms, defaultPeer);
+    }
+
+    private static <P> P firstAvailable(final List<String> names, final Map<String, P> byName) {
+        for (final var name : names) {
+            final var peer = byName.get(name);
+            if (peer != null) {
+                return peer;
+            }
+        }
+        return null;
+    }
+
+    private static String normalize(final String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private RealmRoutingTable(final Map<String, P> hosts, final Map<String, Realm<P>> realms, final P defaultRoute) {
+        this.hosts = hosts;
+        this.realms = realms;
+        this.defaultRoute = defaultRoute;
+    }
+
+    /**
+     * Find the peer to send a request to.
+     *
+     * A Destination-Host that is one of our peers always wins. After that, the route for the realm and the
+     * application, then the route for the realm irrespective of application and finally, the default route.
+     *
+     * @param destinationHost the Destination-Host of the request or null if there is none.
+     * @param destinationRealm the Destination-Realm of the request or null if there is none.
+     * @return the peer or null if there is no route, not even a default one.
+     */
+    P find(final String destinationHost, final String destinationRealm, final long applicationId) {
+        if (destinationHost != null && !hosts.isEmpty()) {
+            final var peer = hosts.get(normalize(destinationHost));
+            if (peer != null) {
+                return peer;
+            }
+        }
+
+        if (destinationRealm != null) {
+            final var realm = realms.get(normalize(destinationRealm));
+            if (realm != null) {
+                final var peer = realm.find(applicationId);
+                if (peer != null) {
+                    return peer;
+                }
+            }
+        }
+
+        return defaultRoute;
+    }
+
+    /**
+     * The routes of a single realm. A realm typically only serves a handful of applications so they
+     * are simply kept in an array.
+     */
+    private static final class Realm<P> {
+
+        private long[] applications = new long[0];
+        private Object[] peers = new Object[0];
+        private P anyApplication;
+
+        private void add(final long applicationId, final P peer) {
+            for (final long application : applications) {
+                if (application == applicationId) {
+                    return;
+                }
+            }
+
+            final int size = applications.length;
+            applications = Arrays.copyOf(applications, size + 1);
+            peers = Arrays.copyOf(peers, size + 1);
+            applications[size] = applicationId;
+            peers[size] = peer;
+        }
+
+        private P find(final long applicationId) {
+            final var applications = this.applications;
+            for (int i = 0; i < applications.length; ++i) {
+                if (applications[i] == applicationId) {
+                    return (P) peers[i];
+                }
+            }
+            return anyApplication;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import io.snice.codecs.codec.diameter.DiameterAnswer;
 import io.snice.codecs.codec.diameter.DiameterMessage;
 import io.snice.codecs.codec.diameter.DiameterRequest;
 import io.snice.codecs.codec.diameter.TransactionIdentifier;
+import io.snice.networking.diameter.peer.PeerConfiguration;
 
 import java.util.Optional;
 import java.util.function.BiConsumer;
@@ -14,6 +15,15 @@ import java.util.function.Consumer;
  */
 public interface Transaction {
 
+    /**
+     * The identifier of the request as it was built by the application.
+     * <p>
+     * Note that unless the application manages the identifiers itself (see
+     * {@link PeerConfiguration#isAllocateIdentifiers()}), the peer allocates new hop-by-hop and end-to-end
+     * identifiers for the request as it is sent, which means that this is NOT the identity of the transaction
+     * on the wire and it will not match the identifiers of the answer. There is no need to match them up though
+     * since the answer is handed to the application along with its {@link Transaction}.
+     */
     TransactionIdentifier getId();
 
     /**
@@ -31,6 +41,12 @@ public interface Transaction {
 
     BiConsumer<Transaction, DiameterAnswer> getOnAnswer();
 
+    /**
+     * The callback to invoke if no answer is received within the transaction timeout, if any.
+     * See {@link Builder#onTransactionTimeout(Consumer)}.
+     */
+    Consumer<Transaction> getOnTransactionTimeout();
+
     interface Builder {
 
         /**
@@ -108,7 +124,10 @@ public interface Transaction {
         Builder onRetransmission(Consumer<Transaction> f);
 
         /**
-         * If the {@link Transaction} times out, this callback will be called.
+         * If the {@link Transaction} times out, this callback will be called. The transaction times out if no
+         * answer is received within the transaction timeout of the peer, see
+         * {@link io.snice.networking.diameter.peer.PeerConfiguration#getTransactionTimeoutMillis()}, at which
+         * point the transaction has already been purged and any answer showing up later is treated as a stray.
          */
         Builder onTransactionTimeout(Consumer<Transaction> f);
 
@@ -0,0 +1,41 @@
+package io.snice.networking.diameter.peer.fsm;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IdentifierGeneratorTest {
+
+    /**
+     * Hop-by-hop identifiers still in use by outstanding transactions must be skipped, which
+     * includes when the counter wraps around.
+     */
+    @Test
+    public void testSkipOutstandingHopByHopIds() {
+        final TransactionTable<Object> outstanding = TransactionTable.of(16);
+        outstanding.put(Integer.MAX_VALUE, "a");
+        outstanding.put(Integer.MIN_VALUE, "b");
+        outstanding.put(Integer.MIN_VALUE + 2, "c");
+
+        final var generator = IdentifierGenerator.create(Integer.MAX_VALUE - 1);
+        assertThat(generator.nextHopByHopId(outstanding), is(Integer.MAX_VALUE - 1));
+        assertThat(generator.nextHopByHopId(outstanding), is(Integer.MIN_VALUE + 1));
+        assertThat(generator.nextHopByHopId(outstanding), is(Integer.MIN_VALUE + 3));
+    }
+
+    /**
+     * The high order 12 bits of the end-to-end identifiers are fixed, only the low order 20 bits change.
+     */
+    @Test
+    public void testEndToEndIds() {
+        final int first = IdentifierGenerator.nextEndToEndId();
+        int previous = first;
+        for (int i = 0; i < (1 << 20) + 10; ++i) {
+            final int next = IdentifierGenerator.nextEndToEndId();
+            assertThat(next >>> 20, is(first >>> 20));
+            assertThat(next & 0xFFFFF, is((previous + 1) & 0xFFFFF));
+            previous = next;
+        }
+    }
+}
@@ -1,19 +1,35 @@
 package io.snice.networking.diameter.peer.fsm;
 
 import io.snice.codecs.codec.diameter.avp.api.ResultCode;
+import io.snice.networking.common.event.ConnectionActiveIOEvent;
+import io.snice.networking.common.event.ConnectionAttemptCompletedIOEvent;
+import io.snice.networking.common.event.ConnectionInactiveIOEvent;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.mockito.Mock;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 /**
  * Testing all aspects of the {@link PeerState#CLOSED} state.
  */
 public class PeerFsmCloseTest extends PeerFsmTestBase {
 
+    @Mock
+    private ConnectionAttemptCompletedIOEvent attempt;
+
+    @Mock
+    private ConnectionAttemptCompletedIOEvent failedAttempt;
+
     @Override
     @Before
     public void setUp() throws Exception {
@@ -41,4 +57,56 @@ public class PeerFsmCloseTest extends PeerFsmTestBase {
         verify(channelCtx).sendDownstream(expectedCEA);
         verifyNoMoreInteractions(channelCtx);
     }
-}
\ No newline at end of file
+
+    /**
+     * A remote peer that connects to us but never sends a CER has its connection killed and the application
+     * never learns about it.
+     */
+    @Test
+    public void testCerTimeoutKillsConnection() {
+        fsm.onEvent(ConnectionActiveIOEvent.create(channelCtx, true, 0));
+        verify(ctx).schedule(eq(PeerTimeout.WAIT_CER), any());
+
+        fsm.onEvent(PeerTimeout.WAIT_CER);
+
+        assertThat(fsm.getState() == PeerState.TERMINATED, is(true));
+        verify(channelCtx).close();
+        verify(channelCtx, never()).fireUserEvent(any());
+    }
+
+    /**
+     * A remote peer that goes away before sending a CER leaves nothing behind, not even the CER timer, and the
+     * application never learns about it.
+     */
+    @Test
+    public void testConnectionLostWaitingForCer() {
+        fsm.onEvent(ConnectionActiveIOEvent.create(channelCtx, true, 0));
+        assertThat(fsm.getState() == PeerState.WAIT_CER, is(true));
+
+        fsm.onEvent(ConnectionInactiveIOEvent.create(channelCtx, 0));
+
+        assertThat(fsm.getState() == PeerState.CLOSED, is(true));
+        verify(timer).cancel();
+        verify(channelCtx, never()).fireUserEvent(any());
+    }
+
+    /**
+     * If the connection we established goes away before the remote peer answers our CER, whoever asked for
+     * the connection is told that it failed.
+     */
+    @Test
+    public void testConnectionLostWaitingForCea() {
+        when(ctx.getOriginHost()).thenReturn(defaultOriginHost);
+        when(ctx.getOriginRealm()).thenReturn(defaultOriginRealm);
+        when(attempt.fail(any())).thenReturn(failedAttempt);
+
+        fsm.onEvent(ConnectionActiveIOEvent.create(channelCtx, false, 0));
+        fsm.onEvent(attempt);
+        assertThat(fsm.getState() == PeerState.WAIT_CEA, is(true));
+
+        fsm.onEvent(ConnectionInactiveIOEvent.create(channelCtx, 0));
+
+        assertThat(fsm.getState() == PeerState.CLOSED, is(true));
+        verify(channelCtx).fireUserEvent(failedAttempt);
+    }
+}
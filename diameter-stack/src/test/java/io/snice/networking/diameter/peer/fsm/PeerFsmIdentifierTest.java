@@ -0,0 +1,159 @@
+package io.snice.networking.diameter.peer.fsm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.snice.buffer.Buffers;
+import io.snice.codecs.codec.diameter.DiameterMessage;
+import io.snice.codecs.codec.diameter.avp.api.ResultCode;
+import io.snice.codecs.codec.diameter.impl.DiameterParser;
+import io.snice.networking.common.event.ConnectionActiveIOEvent;
+import io.snice.networking.diameter.event.DiameterMessageReadEvent;
+import io.snice.networking.diameter.event.DiameterMessageWriteEvent;
+import io.snice.networking.diameter.handler.DiameterStreamEncoder;
+import io.snice.networking.diameter.tx.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testing the hop-by-hop and end-to-end identifiers the peer allocates for the outgoing requests
+ * (see {@link io.snice.networking.diameter.peer.PeerConfiguration#isAllocateIdentifiers()}) all the way
+ * through the encoder and back.
+ */
+public class PeerFsmIdentifierTest extends PeerFsmTestBase {
+
+    private static final int HOP_BY_HOP_OFFSET = 12;
+    private static final int END_TO_END_OFFSET = 16;
+
+    @Mock
+    private Transaction transaction;
+
+    private EmbeddedChannel channel;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        channel = new EmbeddedChannel(new DiameterStreamEncoder());
+
+        fsm.onEvent(ConnectionActiveIOEvent.create(channelCtx, true, 0));
+        fsm.onEvent(DiameterMessageReadEvent.of(someCer()));
+        assertThat(fsm.getState() == PeerState.OPEN, is(true));
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        channel.finishAndReleaseAll();
+        super.tearDown();
+    }
+
+    /**
+     * Send the given event through the peer and then through the encoder and return what
+     * actually went out on the wire.
+     */
+    private DiameterMessage sendAndEncode(final DiameterMessageWriteEvent evt) {
+        fsm.onEvent(evt);
+
+        final var sent = ArgumentCaptor.forClass(Object.class);
+        verify(channelCtx).sendDownstream(sent.capture());
+        assertThat(sent.getValue() == evt, is(true));
+
+        channel.writeOutbound(evt);
+        final ByteBuf out = channel.readOutbound();
+        try {
+            return DiameterParser.frame(Buffers.wrap(ByteBufUtil.getBytes(out)));
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * The identifiers the peer allocated are the ones that end up on the wire, and the answer, which
+     * carries them, is matched to the transaction of the request.
+     */
+    @Test
+    public void testAllocatedIdentifiersOnTheWire() {
+        final var ulr = someUlr();
+        when(transaction.getRequest()).thenReturn(ulr);
+
+        final var evt = DiameterMessageWriteEvent.of(transaction);
+        final var wire = sendAndEncode(evt);
+
+        assertThat(evt.isStamped(), is(true));
+        assertThat(wire.getBuffer().getInt(HOP_BY_HOP_OFFSET), is(evt.getHopByHopId()));
+        assertThat(wire.getBuffer().getInt(END_TO_END_OFFSET), is(evt.getEndToEndId()));
+
+        // only the header is touched, the request the application built is left as is.
+        assertThat(wire.getBuffer().slice(20, wire.getBuffer().capacity()).equals(ulr.getBuffer().slice(20, ulr.getBuffer().capacity())), is(true));
+
+        final var ula = wire.toRequest().createAnswer(ResultCode.DiameterSuccess2001).build();
+        fsm.onEvent(DiameterMessageReadEvent.of(ula));
+
+        final var answer = ArgumentCaptor.forClass(DiameterMessageReadEvent.class);
+        verify(channelCtx).sendUpstream(answer.capture());
+        assertThat(answer.getValue().getTransaction().get() == transaction, is(true));
+        assertThat(data.getOutstandingTransactionCount(), is(0));
+    }
+
+    /**
+     * If the application manages the identifiers itself, the request goes out exactly as it was built.
+     */
+    @Test
+    public void testApplicationIdentifiersOnTheWire() {
+        peerConfiguration.setAllocateIdentifiers(false);
+
+        final var ulr = someUlr();
+        when(transaction.getRequest()).thenReturn(ulr);
+
+        final var evt = DiameterMessageWriteEvent.of(transaction);
+        final var wire = sendAndEncode(evt);
+
+        assertThat(evt.isStamped(), is(false));
+        assertThat(wire.getBuffer().equals(ulr.getBuffer()), is(true));
+
+        fsm.onEvent(DiameterMessageReadEvent.of(ulr.createAnswer(ResultCode.DiameterSuccess2001).build()));
+        verify(channelCtx).sendUpstream(any(DiameterMessageReadEvent.class));
+        assertThat(data.getOutstandingTransactionCount(), is(0));
+    }
+
+    /**
+     * The remote peer allocates its hop-by-hop identifiers independently of us so a request it sends may
+     * carry the very same identifier as one of our outstanding requests. That is a new transaction of its
+     * own, not a re-transmission, and the two are answered independently of each other.
+     */
+    @Test
+    public void testInboundRequestWithOurHopByHopId() {
+        when(transaction.getRequest()).thenReturn(someUlr());
+        final var wire = sendAndEncode(DiameterMessageWriteEvent.of(transaction));
+
+        // the remote peer happens to send us the very same request, identifiers and all.
+        final var ulr = wire.toRequest();
+        fsm.onEvent(DiameterMessageReadEvent.of(ulr));
+
+        final var upstream = ArgumentCaptor.forClass(DiameterMessageReadEvent.class);
+        verify(channelCtx).sendUpstream(upstream.capture());
+        assertThat(upstream.getValue().getMessage().getBuffer().equals(ulr.getBuffer()), is(true));
+        assertThat(data.getOutstandingTransactionCount(), is(2));
+
+        // answering their request leaves ours outstanding...
+        fsm.onEvent(DiameterMessageWriteEvent.of(ulr.createAnswer(ResultCode.DiameterSuccess2001).build()));
+        assertThat(data.getOutstandingTransactionCount(), is(1));
+
+        // ... until their answer to it shows up.
+        fsm.onEvent(DiameterMessageReadEvent.of(ulr.createAnswer(ResultCode.DiameterSuccess2001).build()));
+        verify(channelCtx, times(2)).sendUpstream(upstream.capture());
+        assertThat(upstream.getValue().getTransaction().get() == transaction, is(true));
+        assertThat(data.getOutstandingTransactionCount(), is(0));
+    }
+}
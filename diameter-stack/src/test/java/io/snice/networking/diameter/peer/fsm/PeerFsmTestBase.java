@@ -5,6 +5,7 @@ import io.hektor.fsm.TransitionListener;
 import io.snice.codecs.codec.diameter.avp.api.HostIpAddress;
 import io.snice.codecs.codec.diameter.avp.type.IpAddress;
 import io.snice.networking.common.ChannelContext;
+import io.snice.networking.common.timer.Timeout;
 import io.snice.networking.diameter.PeerConnection;
 import io.snice.networking.diameter.peer.DiameterTestBase;
 import io.snice.networking.diameter.peer.PeerConfiguration;
@@ -17,6 +18,8 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.function.BiConsumer;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 public abstract class PeerFsmTestBase extends DiameterTestBase {
@@ -30,6 +33,9 @@ public abstract class PeerFsmTestBase extends DiameterTestBase {
     @Mock
     protected TransitionListener<PeerState> transitionListener;
 
+    @Mock
+    protected Timeout timer;
+
     /**
      * A {@link PeerConnection} must have a local IP associated with it.
      */
@@ -58,7 +64,9 @@ public abstract class PeerFsmTestBase extends DiameterTestBase {
         when(ctx.getChannelContext()).thenReturn(channelCtx);
         when(ctx.getHostIpAddresses()).thenReturn(List.of(LOCAL_PEER_IP_ADDRESS));
         when(ctx.getConfig()).thenReturn(peerConfiguration);
+        lenient().when(ctx.schedule(any(), any())).thenReturn(timer);
 
+        data = new PeerData(peerConfiguration);
         fsm = PeerFsm.definition.newInstance(UUID.randomUUID(), ctx, data, unhandledEventHandler, transitionListener);
         fsm.start();
     }
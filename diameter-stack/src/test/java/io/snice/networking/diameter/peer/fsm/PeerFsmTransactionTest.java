@@ -0,0 +1,280 @@
+package io.snice.networking.diameter.peer.fsm;
+
+import io.snice.codecs.codec.diameter.DiameterAnswer;
+import io.snice.codecs.codec.diameter.DiameterRequest;
+import io.snice.codecs.codec.diameter.TransactionIdentifier;
+import io.snice.codecs.codec.diameter.avp.api.ResultCode;
+import io.snice.networking.common.event.ConnectionActiveIOEvent;
+import io.snice.networking.common.event.ConnectionInactiveIOEvent;
+import io.snice.networking.diameter.event.DiameterMessageReadEvent;
+import io.snice.networking.diameter.event.DiameterMessageWriteEvent;
+import io.snice.networking.diameter.event.DiameterTransactionTimeoutEvent;
+import io.snice.networking.diameter.tx.Transaction;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Testing the transactions of a peer in the {@link PeerState#OPEN} state.
+ */
+public class PeerFsmTransactionTest extends PeerFsmTestBase {
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+
+        // the answers in these tests are created off of the requests, and as such, carry the same
+        // hop-by-hop identifier as the request did before it was sent.
+        peerConfiguration.setAllocateIdentifiers(false);
+
+        fsm.onEvent(ConnectionActiveIOEvent.create(channelCtx, true, 0));
+        fsm.onEvent(DiameterMessageReadEvent.of(someCer()));
+        assertThat(fsm.getState() == PeerState.OPEN, is(true));
+    }
+
+    /**
+     * The answer to a blocking request is handed straight to the waiting thread, as opposed to going
+     * through the application, which may be running on that very thread.
+     */
+    @Test
+    public void testDirectTransactionCompletedByFsm() {
+        final var ulr = someUlr();
+        final var transaction = new TestTransaction(ulr, Duration.ofSeconds(1));
+        fsm.onEvent(DiameterMessageWriteEvent.of(transaction));
+        assertThat(data.getOutstandingTransactionCount(), is(1));
+
+        final var ula = ulr.createAnswer(ResultCode.DiameterSuccess2001).build();
+        fsm.onEvent(DiameterMessageReadEvent.of(ula));
+
+        assertThat(transaction.answer, is(ula));
+        assertThat(transaction.timedOut, is(false));
+        assertThat(data.getOutstandingTransactionCount(), is(0));
+        verify(channelCtx, never()).sendUpstream(any());
+    }
+
+    /**
+     * The blocking request only waits for as long as it was told to, which is shorter than the transaction
+     * timeout of the peer, and once it gives up, the transaction is purged right away.
+     */
+    @Test
+    public void testDirectTransactionTimeout() {
+        final var timeout = Duration.ofMillis(100);
+        final var transaction = new TestTransaction(someUlr(), timeout);
+        fsm.onEvent(DiameterMessageWriteEvent.of(transaction));
+
+        final var event = ArgumentCaptor.forClass(Object.class);
+        verify(ctx).schedule(event.capture(), eq(timeout));
+        fsm.onEvent(event.getValue());
+
+        assertThat(transaction.timedOut, is(true));
+        assertThat(transaction.answer, nullValue());
+        assertThat(data.getOutstandingTransactionCount(), is(0));
+        assertThat(data.getExpiredTransactionCount(), is(1L));
+        verify(channelCtx, never()).sendUpstream(any());
+    }
+
+    /**
+     * A blocking request willing to wait longer than the peer still times out with the peer.
+     */
+    @Test
+    public void testDirectTransactionNeverOutlivesPeerTimeout() {
+        final var transaction = new TestTransaction(someUlr(), Duration.ofHours(1));
+        fsm.onEvent(DiameterMessageWriteEvent.of(transaction));
+        verify(ctx).schedule(any(InternalTransaction.class), eq(data.getTransactionTimeout()));
+    }
+
+    /**
+     * An answer to a request we sent completes the transaction and is handed to the application
+     * along with the transaction the request was sent within.
+     */
+    @Test
+    public void testAnswerRemovesTransaction() {
+        final var ulr = someUlr();
+        final var transaction = new PlainTransaction(ulr);
+        fsm.onEvent(DiameterMessageWriteEvent.of(transaction));
+        assertThat(data.getOutstandingTransactionCount(), is(1));
+
+        final var ula = ulr.createAnswer(ResultCode.DiameterSuccess2001).build();
+        fsm.onEvent(DiameterMessageReadEvent.of(ula));
+
+        final var event = ArgumentCaptor.forClass(DiameterMessageReadEvent.class);
+        verify(channelCtx).sendUpstream(event.capture());
+        assertThat(event.getValue().getTransaction().get() == transaction, is(true));
+        assertThat(data.getOutstandingTransactionCount(), is(0));
+        assertThat(data.getExpiredTransactionCount(), is(0L));
+        verify(timer).cancel();
+    }
+
+    /**
+     * A request we receive is outstanding until the application answers it.
+     */
+    @Test
+    public void testAnswerRemovesServerTransaction() {
+        final var ulr = someUlr();
+        fsm.onEvent(DiameterMessageReadEvent.of(ulr));
+        assertThat(data.getOutstandingTransactionCount(), is(1));
+
+        fsm.onEvent(DiameterMessageWriteEvent.of(ulr.createAnswer(ResultCode.DiameterSuccess2001).build()));
+        assertThat(data.getOutstandingTransactionCount(), is(0));
+        verify(timer).cancel();
+    }
+
+    /**
+     * A request that isn't answered within the transaction timeout of the peer is purged and the application
+     * is told about it. An answer showing up after that is a stray one.
+     */
+    @Test
+    public void testTransactionTimeout() {
+        final var ulr = someUlr();
+        final var transaction = new PlainTransaction(ulr);
+        fsm.onEvent(DiameterMessageWriteEvent.of(transaction));
+
+        final var timeout = ArgumentCaptor.forClass(Object.class);
+        verify(ctx).schedule(timeout.capture(), eq(data.getTransactionTimeout()));
+        fsm.onEvent(timeout.getValue());
+
+        final var event = ArgumentCaptor.forClass(DiameterTransactionTimeoutEvent.class);
+        verify(channelCtx).sendUpstream(event.capture());
+        assertThat(event.getValue().getTransaction() == transaction, is(true));
+        assertThat(data.getOutstandingTransactionCount(), is(0));
+        assertThat(data.getExpiredTransactionCount(), is(1L));
+
+        fsm.onEvent(DiameterMessageReadEvent.of(ulr.createAnswer(ResultCode.DiameterSuccess2001).build()));
+        verify(channelCtx, times(1)).sendUpstream(any());
+    }
+
+    /**
+     * If the timer fires just as the answer was processed, the transaction is no longer outstanding
+     * and as such, didn't time out.
+     */
+    @Test
+    public void testTransactionTimeoutAfterAnswer() {
+        final var ulr = someUlr();
+        fsm.onEvent(DiameterMessageWriteEvent.of(new PlainTransaction(ulr)));
+
+        final var timeout = ArgumentCaptor.forClass(Object.class);
+        verify(ctx).schedule(timeout.capture(), any());
+        fsm.onEvent(DiameterMessageReadEvent.of(ulr.createAnswer(ResultCode.DiameterSuccess2001).build()));
+        fsm.onEvent(timeout.getValue());
+
+        assertThat(data.getExpiredTransactionCount(), is(0L));
+        verify(channelCtx, never()).sendUpstream(any(DiameterTransactionTimeoutEvent.class));
+    }
+
+    /**
+     * When the connection goes away, none of the outstanding transactions will ever be answered so they are all
+     * purged, their timers cancelled and whoever is waiting for them told so.
+     */
+    @Test
+    public void testConnectionLost() {
+        // no answers in this one so let the peer make sure the requests don't share any identifiers.
+        peerConfiguration.setAllocateIdentifiers(true);
+
+        final var direct = new TestTransaction(someUlr(), Duration.ofSeconds(1));
+        fsm.onEvent(DiameterMessageWriteEvent.of(direct));
+
+        final var plain = new PlainTransaction(someUlr());
+        fsm.onEvent(DiameterMessageWriteEvent.of(plain));
+        fsm.onEvent(DiameterMessageReadEvent.of(someUlr()));
+        assertThat(data.getOutstandingTransactionCount(), is(3));
+
+        final var inactive = ConnectionInactiveIOEvent.create(channelCtx, 0);
+        fsm.onEvent(inactive);
+
+        assertThat(fsm.getState() == PeerState.CLOSED, is(true));
+        assertThat(data.getOutstandingTransactionCount(), is(0));
+        assertThat(data.getExpiredTransactionCount(), is(0L));
+        verify(timer, times(3)).cancel();
+
+        assertThat(direct.lost, is(true));
+        assertThat(direct.timedOut, is(false));
+
+        // the first one being the request we read.
+        final var events = ArgumentCaptor.forClass(Object.class);
+        verify(channelCtx, times(2)).sendUpstream(events.capture());
+        assertThat(((DiameterTransactionTimeoutEvent) events.getAllValues().get(1)).getTransaction() == plain, is(true));
+        verify(channelCtx).fireUserEvent(inactive);
+    }
+
+    private static class PlainTransaction implements Transaction {
+
+        private final DiameterRequest req;
+
+        private PlainTransaction(final DiameterRequest req) {
+            this.req = req;
+        }
+
+        @Override
+        public TransactionIdentifier getId() {
+            return TransactionIdentifier.from(req);
+        }
+
+        @Override
+        public DiameterRequest getRequest() {
+            return req;
+        }
+
+        @Override
+        public Optional<Object> getApplicationData() {
+            return Optional.empty();
+        }
+
+        @Override
+        public BiConsumer<Transaction, DiameterAnswer> getOnAnswer() {
+            return null;
+        }
+
+        @Override
+        public Consumer<Transaction> getOnTransactionTimeout() {
+            return null;
+        }
+    }
+
+    private static class TestTransaction extends PlainTransaction implements DirectTransaction {
+
+        private final Duration timeout;
+        private DiameterAnswer answer;
+        private boolean timedOut;
+        private boolean lost;
+
+        private TestTransaction(final DiameterRequest req, final Duration timeout) {
+            super(req);
+            this.timeout = timeout;
+        }
+
+        @Override
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        @Override
+        public void complete(final DiameterAnswer answer) {
+            this.answer = answer;
+        }
+
+        @Override
+        public void timeout() {
+            timedOut = true;
+        }
+
+        @Override
+        public void connectionLost() {
+            lost = true;
+        }
+    }
+}
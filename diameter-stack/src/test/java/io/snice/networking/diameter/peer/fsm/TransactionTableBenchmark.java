@@ -0,0 +1,114 @@
+package io.snice.networking.diameter.peer.fsm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link TransactionTable} with the {@link HashMap} it replaced, with a steady state
+ * of outstanding transactions. Every operation is what a single transaction costs the table: the
+ * request is checked for being a re-transmission and stored, and the answer to an older request is looked
+ * up and removed. Since the answers don't come back in the order the requests were sent, the answered
+ * transaction is picked at random among the oldest ones.
+ *
+ * Run it from your IDE or through the main method below.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionTableBenchmark {
+
+    private static final Object TRANSACTION = new Object();
+
+    /**
+     * The number of answers that may be out of order.
+     */
+    private static final int JITTER = 64;
+
+    @Param({"10000", "100000"})
+    private int outstanding;
+
+    private TransactionTable<Object> table;
+    private Map<Integer, Object> map;
+
+    /**
+     * The hop-by-hop identifiers of the outstanding transactions, in the order they were sent.
+     */
+    private int[] ids;
+    private int head;
+    private int nextId;
+    private Random random;
+
+    @Setup
+    public void setup() {
+        table = TransactionTable.of(outstanding);
+        map = new HashMap<>(outstanding * 4 / 3 + 1, 0.75f);
+        ids = new int[outstanding];
+        random = new Random(1234);
+        nextId = random.nextInt();
+
+        for (int i = 0; i < outstanding; ++i) {
+            ids[i] = nextId;
+            table.put(nextId, TRANSACTION);
+            map.put(nextId, TRANSACTION);
+            ++nextId;
+        }
+    }
+
+    /**
+     * Swap the oldest transaction with one of the slightly younger ones, send a new request and
+     * return the identifier of the transaction that is to be answered.
+     */
+    private int nextAnswered() {
+        final int other = (head + random.nextInt(JITTER)) % outstanding;
+        final int answered = ids[other];
+        ids[other] = ids[head];
+        ids[head] = nextId++;
+        head = (head + 1) % outstanding;
+        return answered;
+    }
+
+    @Benchmark
+    public Object transactionTable() {
+        final int request = nextId;
+        final int answer = nextAnswered();
+        if (table.containsKey(request)) {
+            return null;
+        }
+        table.put(request, TRANSACTION);
+        return table.remove(answer);
+    }
+
+    @Benchmark
+    public Object hashMap() {
+        final int request = nextId;
+        final int answer = nextAnswered();
+        if (map.containsKey(request)) {
+            return null;
+        }
+        map.put(request, TRANSACTION);
+        return map.remove(answer);
+    }
+
+    public static void main(final String... args) throws Exception {
+        new Runner(new OptionsBuilder().include(TransactionTableBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,109 @@
+package io.snice.networking.diameter.peer.fsm;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TransactionTableTest {
+
+    private TransactionTable<String> table;
+
+    @Before
+    public void setUp() {
+        table = TransactionTable.of(4);
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        assertThat(table.put(17, "a"), nullValue());
+        assertThat(table.put(-1, "b"), nullValue());
+        assertThat(table.put(0, "c"), nullValue());
+        assertThat(table.size(), is(3));
+
+        assertThat(table.get(17), is("a"));
+        assertThat(table.get(-1), is("b"));
+        assertThat(table.get(0), is("c"));
+        assertThat(table.get(18), nullValue());
+
+        assertThat(table.put(17, "d"), is("a"));
+        assertThat(table.size(), is(3));
+
+        assertThat(table.remove(17), is("d"));
+        assertThat(table.remove(17), nullValue());
+        assertThat(table.containsKey(17), is(false));
+        assertThat(table.size(), is(2));
+    }
+
+    /**
+     * The conditional remove is what the transaction timer uses and it must not remove
+     * a newer transaction that happens to be stored under the same key.
+     */
+    @Test
+    public void testForEachAndClear() {
+        for (int i = 0; i < 100; ++i) {
+            table.put(i, "t" + i);
+        }
+
+        final Set<String> seen = new HashSet<>();
+        table.forEach(seen::add);
+        assertThat(seen.size(), is(100));
+
+        table.clear();
+        assertThat(table.isEmpty(), is(true));
+        assertThat(table.get(17), nullValue());
+        table.forEach(t -> seen.clear());
+        assertThat(seen.size(), is(100));
+
+        assertThat(table.put(17, "a"), nullValue());
+        assertThat(table.get(17), is("a"));
+    }
+
+    @Test
+    public void testRemoveOnlyIfSame() {
+        final var first = new String("a");
+        final var second = new String("a");
+        table.put(5, first);
+        table.put(5, second);
+
+        assertThat(table.remove(5, first), is(false));
+        assertThat(table.get(5), is(second));
+        assertThat(table.remove(5, second), is(true));
+        assertThat(table.isEmpty(), is(true));
+    }
+
+    /**
+     * Since there are no tombstones, removing an entry in the middle of a cluster must shift the
+     * rest of the cluster back. Compare against a {@link HashMap} for a long run of random operations
+     * over a small key space so that we get plenty of collisions, wrap-arounds and growth.
+     */
+    @Test
+    public void testRandomOperations() {
+        final var random = new Random(1234);
+        final Map<Integer, String> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; ++i) {
+            final int key = random.nextInt(512) * 1024;
+            final int op = random.nextInt(3);
+            if (op == 0) {
+                final var value = "v" + i;
+                assertThat(table.put(key, value), is(expected.put(key, value)));
+            } else if (op == 1) {
+                assertThat(table.remove(key), is(expected.remove(key)));
+            } else {
+                assertThat(table.get(key), is(expected.get(key)));
+            }
+            assertThat(table.size(), is(expected.size()));
+        }
+
+        expected.forEach((key, value) -> assertThat(table.get(key), is(value)));
+    }
+}
@@ -0,0 +1,248 @@
+package io.snice.networking.diameter.peer.impl;
+
+import io.hektor.fsm.FSM;
+import io.snice.codecs.codec.diameter.DiameterMessage;
+import io.snice.codecs.codec.diameter.avp.api.ResultCode;
+import io.snice.networking.app.NetworkStack;
+import io.snice.networking.common.ChannelContext;
+import io.snice.networking.common.Connection;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.Transport;
+import io.snice.networking.common.event.ConnectionActiveIOEvent;
+import io.snice.networking.common.event.ConnectionInactiveIOEvent;
+import io.snice.networking.core.NetworkInterface;
+import io.snice.networking.diameter.DiameterAppConfig;
+import io.snice.networking.diameter.DiameterConfig;
+import io.snice.networking.diameter.PeerConnection;
+import io.snice.networking.diameter.event.DiameterEvent;
+import io.snice.networking.diameter.event.DiameterMessageReadEvent;
+import io.snice.networking.diameter.peer.DiameterTestBase;
+import io.snice.networking.diameter.peer.Peer;
+import io.snice.networking.diameter.peer.PeerConfiguration;
+import io.snice.networking.diameter.peer.RoutingEngine;
+import io.snice.networking.diameter.peer.fsm.PeerContext;
+import io.snice.networking.diameter.peer.fsm.PeerData;
+import io.snice.networking.diameter.peer.fsm.PeerState;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class DefaultPeerTableTest extends DiameterTestBase {
+
+    private static final InetSocketAddress LOCAL = new InetSocketAddress("10.36.10.10", 3868);
+
+    @Mock(lenient = true)
+    private NetworkStack<PeerConnection, DiameterEvent, DiameterAppConfig> stack;
+
+    @Mock(lenient = true)
+    private NetworkInterface<DiameterMessage> nic;
+
+    @Mock(lenient = true)
+    private ChannelContext<DiameterEvent> channelCtx;
+
+    @Mock
+    private RoutingEngine routingEngine;
+
+    private DefaultPeerTable<DiameterAppConfig> peerTable;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        when(stack.getDefaultNetworkInterface()).thenReturn(nic);
+        when(nic.isSupportingTransport(Transport.tcp)).thenReturn(true);
+        when(nic.getName()).thenReturn("default");
+
+        peerTable = new DefaultPeerTable<>(new DiameterConfig(), routingEngine);
+        peerTable.start(stack);
+    }
+
+    private static PeerConfiguration somePeer(final String name, final String uri, final Peer.MODE mode) {
+        final var config = new PeerConfiguration();
+        config.setName(name);
+        config.setUri(URI.create(uri));
+        config.setMode(mode);
+        return config;
+    }
+
+    /**
+     * Connect the given remote address, which will never complete unless told to.
+     */
+    private CompletableFuture<Connection<DiameterEvent>> whenConnecting(final InetSocketAddress remote) {
+        final var future = new CompletableFuture<Connection<DiameterEvent>>();
+        lenient().when(stack.connect(eq(Transport.tcp), eq(remote))).thenReturn((CompletionStage) future);
+        return future;
+    }
+
+    private PeerData createNewDataBag(final InetSocketAddress remote) {
+        final var id = ConnectionId.create(Transport.tcp, LOCAL, remote);
+        return peerTable.createNewDataBag(peerTable.calculateKey(id, Optional.empty()));
+    }
+
+    /**
+     * Create the state machine of the given connection, just as the FSM layer does when the connection
+     * becomes active.
+     */
+    private FSM<PeerState, PeerContext, PeerData> startFsm(final ConnectionId id) {
+        final var key = peerTable.calculateKey(id, Optional.empty());
+        final var data = peerTable.createNewDataBag(key);
+        final var ctx = peerTable.createNewContext(key, channelCtx);
+        final var fsm = peerTable.createNewFsm(key, ctx, data);
+        fsm.start();
+        return fsm;
+    }
+
+    /**
+     * Take the state machine of an outbound connection through the capability exchange.
+     */
+    private static void open(final FSM<PeerState, PeerContext, PeerData> fsm, final ChannelContext<DiameterEvent> channelCtx) {
+        fsm.onEvent(ConnectionActiveIOEvent.create(channelCtx, false, 0));
+        fsm.onEvent(DiameterMessageReadEvent.of(someCea(ResultCode.DiameterSuccess2001)));
+        assertThat(fsm.getState() == PeerState.OPEN, is(true));
+    }
+
+    private Connection<DiameterEvent> someConnection(final ConnectionId id) {
+        final Connection<DiameterEvent> connection = mock(Connection.class, withSettings().lenient());
+        when(connection.id()).thenReturn(id);
+        return connection;
+    }
+
+    /**
+     * The peers that were available the last time the routes were refreshed.
+     */
+    private List<Peer> availablePeers() {
+        final ArgumentCaptor<List<Peer>> routes = ArgumentCaptor.forClass(List.class);
+        verify(routingEngine, atLeastOnce()).updateRoutes(routes.capture());
+        return routes.getValue();
+    }
+
+    /**
+     * A peer is routed to while it is being established and for as long as its connection is up.
+     */
+    @Test
+    public void testPeerUpAndDown() {
+        final var remote = new InetSocketAddress("10.36.10.20", 3868);
+        final var connecting = whenConnecting(remote);
+        final var peer = peerTable.addPeer(somePeer("hss", "aaa://10.36.10.20:3868", Peer.MODE.ACTIVE));
+        assertThat(availablePeers(), is(List.of(peer)));
+
+        final var id = ConnectionId.create(Transport.tcp, LOCAL, remote);
+        final var fsm = startFsm(id);
+        connecting.complete(someConnection(id));
+        open(fsm, channelCtx);
+        assertThat(availablePeers(), is(List.of(peer)));
+
+        fsm.onEvent(ConnectionInactiveIOEvent.create(channelCtx, 0));
+        assertThat(fsm.getState() == PeerState.CLOSED, is(true));
+        assertThat(availablePeers().isEmpty(), is(true));
+    }
+
+    /**
+     * A peer is established as soon as one of its connections is but if the others fail afterwards, and then
+     * the one that made it goes away, the peer is down.
+     */
+    @Test
+    public void testConnectionFailsAfterPeerEstablished() {
+        final var remote = new InetSocketAddress("10.36.10.20", 3868);
+        final var first = new CompletableFuture<Connection<DiameterEvent>>();
+        final var second = new CompletableFuture<Connection<DiameterEvent>>();
+        when(stack.connect(Transport.tcp, remote)).thenReturn((CompletionStage) first, (CompletionStage) second);
+
+        final var config = somePeer("hss", "aaa://10.36.10.20:3868", Peer.MODE.ACTIVE);
+        config.setConnections(2);
+        final var peer = peerTable.addPeer(config);
+
+        final var id = ConnectionId.create(Transport.tcp, LOCAL, remote);
+        final var fsm = startFsm(id);
+        first.complete(someConnection(id));
+        open(fsm, channelCtx);
+        assertThat(peer.establishPeer().toCompletableFuture().isDone(), is(true));
+
+        reset(routingEngine);
+        second.completeExceptionally(new RuntimeException("Connection refused"));
+        assertThat(availablePeers(), is(List.of(peer)));
+
+        fsm.onEvent(ConnectionInactiveIOEvent.create(channelCtx, 0));
+        assertThat(availablePeers().isEmpty(), is(true));
+    }
+
+    /**
+     * A peer whose every connection attempt fails is never routed to.
+     */
+    @Test
+    public void testPeerNeverEstablished() {
+        final var remote = new InetSocketAddress("10.36.10.20", 3868);
+        final var connecting = whenConnecting(remote);
+        final var peer = peerTable.addPeer(somePeer("hss", "aaa://10.36.10.20:3868", Peer.MODE.ACTIVE));
+        assertThat(availablePeers(), is(List.of(peer)));
+
+        connecting.completeExceptionally(new RuntimeException("Connection refused"));
+        assertThat(availablePeers().isEmpty(), is(true));
+    }
+
+    /**
+     * The state machine of a connection we establish towards a peer is running with the configuration of that peer.
+     */
+    @Test
+    public void testActivePeerConfiguration() {
+        final var remote = new InetSocketAddress("10.36.10.20", 3868);
+        whenConnecting(remote);
+
+        final var config = somePeer("hss", "aaa://10.36.10.20:3868", Peer.MODE.ACTIVE);
+        config.setTransactionTimeoutMillis(250);
+        config.setCerTimeoutMillis(500);
+        peerTable.addPeer(config);
+
+        final var id = ConnectionId.create(Transport.tcp, LOCAL, remote);
+        final var key = peerTable.calculateKey(id, Optional.empty());
+        assertThat(peerTable.createNewDataBag(key).getTransactionTimeout(), is(Duration.ofMillis(250)));
+        assertThat(peerTable.createNewContext(key, channelCtx).getConfig() == config, is(true));
+    }
+
+    /**
+     * A configured peer connecting to us does so from some ephemeral port, but from the IP address it is
+     * configured with.
+     */
+    @Test
+    public void testPassivePeerConfiguration() {
+        final var config = somePeer("hss", "aaa://10.36.10.20:3868", Peer.MODE.PASSIVE);
+        config.setTransactionTimeoutMillis(250);
+        peerTable.addPeer(config);
+
+        final var data = createNewDataBag(new InetSocketAddress("10.36.10.20", 51234));
+        assertThat(data.getTransactionTimeout(), is(Duration.ofMillis(250)));
+    }
+
+    /**
+     * Anyone who isn't a configured peer gets the defaults.
+     */
+    @Test
+    public void testUnknownPeerConfiguration() {
+        final var config = somePeer("hss", "aaa://10.36.10.20:3868", Peer.MODE.PASSIVE);
+        config.setTransactionTimeoutMillis(250);
+        peerTable.addPeer(config);
+
+        final var data = createNewDataBag(new InetSocketAddress("10.36.10.99", 51234));
+        assertThat(data.getTransactionTimeout(), is(Duration.ofMillis(new PeerConfiguration().getTransactionTimeoutMillis())));
+    }
+}
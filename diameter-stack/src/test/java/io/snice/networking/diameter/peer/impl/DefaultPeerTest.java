@@ -1,17 +1,43 @@
 package io.snice.networking.diameter.peer.impl;
 
+import io.snice.codecs.codec.diameter.DiameterMessage;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.Transport;
+import io.snice.networking.diameter.PeerConnection;
 import io.snice.networking.diameter.peer.Peer;
+import io.snice.networking.diameter.peer.PeerConfiguration;
 import io.snice.networking.diameter.peer.PeerIllegalStateException;
+import io.snice.networking.diameter.peer.PeerSettings;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 public class DefaultPeerTest extends PeerTestBase {
 
+    private static final InetSocketAddress LOCAL = new InetSocketAddress("10.36.10.10", 3868);
+
+    /**
+     * The connections of the peer created by {@link #createEstablishedPeer(boolean, int...)}.
+     */
+    private List<PeerConnection> connections;
+
     @Override
     @Before
     public void setUp() throws Exception {
@@ -44,5 +70,170 @@ public class DefaultPeerTest extends PeerTestBase {
         verifyNoMoreInteractions(peerConnection);
     }
 
+    @SafeVarargs
+    private Peer createPeer(final boolean sessionAffinity, final CompletionStage<PeerConnection>... activated) {
+        final var config = new PeerConfiguration();
+        config.setConnections(activated.length);
+        config.setSessionAffinity(sessionAffinity);
+        final var settings = PeerSettings.of(config).withTransport(Transport.tcp).withNetworkInterface(nic).build();
+
+        final var peer = DefaultPeer.of(peerTable, settings);
+        when(peerTable.activatePeer(peer)).thenReturn(activated[0], Arrays.copyOfRange(activated, 1, activated.length));
+        return peer;
+    }
+
+    /**
+     * Create a peer whose connections all have been established.
+     */
+    private Peer createEstablishedPeer(final boolean sessionAffinity, final int... outstanding) {
+        connections = new ArrayList<>();
+        final List<CompletionStage<PeerConnection>> activated = new ArrayList<>();
+        for (int i = 0; i < outstanding.length; ++i) {
+            final var connection = someConnection(i, outstanding[i]);
+            connections.add(connection);
+            activated.add(CompletableFuture.completedFuture(connection));
+        }
+
+        final var peer = createPeer(sessionAffinity, activated.toArray(CompletionStage[]::new));
+        peer.establishPeer();
+        return peer;
+    }
+
+    private PeerConnection someConnection(final int index, final int outstanding) {
+        final var connection = mock(PeerConnection.class, withSettings().lenient());
+        final var id = ConnectionId.create(Transport.tcp, LOCAL, new InetSocketAddress("10.36.10.20", 40000 + index));
+        when(connection.id()).thenReturn(id);
+        setAlive(connection, true);
+        setOutstanding(connection, outstanding);
+        return connection;
+    }
+
+    private void setAlive(final PeerConnection connection, final boolean alive) {
+        when(peerTable.isConnectionAlive(connection.id())).thenReturn(alive);
+    }
+
+    private void setOutstanding(final PeerConnection connection, final int outstanding) {
+        when(peerTable.getOutstandingTransactions(connection.id())).thenReturn(outstanding);
+    }
+
+    /**
+     * @return the index of the connection the given message was sent over, or -1 if it wasn't sent at all.
+     */
+    private int sentOver(final DiameterMessage msg) {
+        int index = -1;
+        for (int i = 0; i < connections.size(); ++i) {
+            final var sent = mockingDetails(connections.get(i)).getInvocations().stream()
+                    .anyMatch(invocation -> invocation.getMethod().getName().equals("send") && invocation.getArgument(0) == msg);
+            if (sent) {
+                assertThat("The message was sent over more than one connection", index, is(-1));
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Every one of the configured connections is established.
+     */
+    @Test
+    public void testEstablishAllConnections() {
+        final var peer = createEstablishedPeer(false, 0, 0, 0);
+        verify(peerTable, times(3)).activatePeer((DefaultPeer) peer);
+        assertThat(peer.establishPeer().toCompletableFuture().isDone(), is(true));
+    }
+
+    /**
+     * The peer is established as soon as one of its connections is, irrespective of any that failed before it.
+     */
+    @Test
+    public void testEstablishedOnFirstSuccessfulConnection() {
+        final var first = new CompletableFuture<PeerConnection>();
+        final var second = new CompletableFuture<PeerConnection>();
+        final var third = new CompletableFuture<PeerConnection>();
+        final var established = createPeer(false, first, second, third).establishPeer().toCompletableFuture();
+
+        first.completeExceptionally(new RuntimeException("Connection refused"));
+        assertThat(established.isDone(), is(false));
+
+        second.complete(someConnection(1, 0));
+        assertThat(established.isDone(), is(true));
+        assertThat(established.isCompletedExceptionally(), is(false));
+    }
+
+    /**
+     * The peer only failed to be established if every single one of its connections failed.
+     */
+    @Test
+    public void testEstablishFailsWhenAllConnectionsFail() {
+        final var first = new CompletableFuture<PeerConnection>();
+        final var second = new CompletableFuture<PeerConnection>();
+        final var established = createPeer(false, first, second).establishPeer().toCompletableFuture();
+
+        first.completeExceptionally(new RuntimeException("Connection refused"));
+        assertThat(established.isDone(), is(false));
+
+        second.completeExceptionally(new RuntimeException("Connection refused"));
+        assertThat(established.isCompletedExceptionally(), is(true));
+    }
+
+    /**
+     * Without session affinity, every message goes over the connection with the least outstanding transactions.
+     */
+    @Test
+    public void testLeastOutstandingConnection() {
+        final var peer = createEstablishedPeer(false, 10, 3, 7);
+
+        final var first = someUlr();
+        peer.send(first);
+        assertThat(sentOver(first), is(1));
+
+        setOutstanding(connections.get(1), 11);
+        final var second = someUlr();
+        peer.send(second);
+        assertThat(sentOver(second), is(2));
+    }
+
+    /**
+     * A connection that has gone away is never picked, no matter how idle it is.
+     */
+    @Test
+    public void testDeadConnectionIsSkipped() {
+        final var peer = createEstablishedPeer(false, 10, 0, 7);
+        setAlive(connections.get(1), false);
+        when(connections.get(1).isWritable()).thenReturn(true);
+
+        final var ulr = someUlr();
+        peer.send(ulr);
+        assertThat(sentOver(ulr), is(2));
+        assertThat(peer.isWritable(), is(false));
+        assertThat(peer.getOutstandingTransactionCount(), is(17));
+    }
+
+    /**
+     * With session affinity, all the messages of a session go over the same connection, irrespective of the load,
+     * for as long as that connection is around.
+     */
+    @Test
+    public void testSessionAffinity() {
+        final var peer = createEstablishedPeer(true, 0, 0, 0);
+
+        final var first = someUlr();
+        peer.send(first);
+        final int affine = sentOver(first);
+        assertThat(affine >= 0, is(true));
+
+        setOutstanding(connections.get(affine), 100);
+        final var second = someUlr();
+        peer.send(second);
+        assertThat(sentOver(second), is(affine));
+
+        // once it goes away, the session moves over to the least loaded connection.
+        setAlive(connections.get(affine), false);
+        final var third = someUlr();
+        peer.send(third);
+        assertThat(sentOver(third) != affine, is(true));
+        assertThat(sentOver(third) >= 0, is(true));
+    }
+
 
 }
\ No newline at end of file
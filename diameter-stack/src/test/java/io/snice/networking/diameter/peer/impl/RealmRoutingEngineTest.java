@@ -0,0 +1,123 @@
+package io.snice.networking.diameter.peer.impl;
+
+import io.snice.codecs.codec.diameter.DiameterMessage;
+import io.snice.networking.app.ConfigUtils;
+import io.snice.networking.common.Transport;
+import io.snice.networking.core.NetworkInterface;
+import io.snice.networking.diameter.DiameterAppConfig;
+import io.snice.networking.diameter.DiameterConfig;
+import io.snice.networking.diameter.TestConfig;
+import io.snice.networking.diameter.peer.DiameterTestBase;
+import io.snice.networking.diameter.peer.Peer;
+import io.snice.networking.diameter.peer.PeerSettings;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testing the {@link RealmRoutingEngine} as configured through the YAML configuration file, as the peers
+ * come and go.
+ */
+public class RealmRoutingEngineTest extends DiameterTestBase {
+
+    @Mock(lenient = true)
+    private DefaultPeerTable<DiameterAppConfig> peerTable;
+
+    @Mock(lenient = true)
+    private NetworkInterface<DiameterMessage> nic;
+
+    private DiameterConfig config;
+    private RealmRoutingEngine engine;
+
+    private Peer hss01;
+    private Peer hss02;
+    private Peer dra01;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        when(nic.getName()).thenReturn("default");
+
+        final var raw = RealmRoutingEngineTest.class.getResourceAsStream("/io/snice/networking/diameter/diameter_config_001.yml").readAllBytes();
+        config = ConfigUtils.loadConfiguration(TestConfig.class, raw).getConfig();
+        engine = RealmRoutingEngine.of(config);
+
+        final var peers = config.getPeers().stream()
+                .map(c -> PeerSettings.of(c).withTransport(Transport.tcp).withNetworkInterface(nic).build())
+                .map(settings -> DefaultPeer.of(peerTable, settings))
+                .collect(Collectors.toList());
+        hss01 = peers.get(0);
+        hss02 = peers.get(1);
+        dra01 = peers.get(2);
+    }
+
+    private Optional<Peer> findRoute() {
+        return engine.findRoute(peerTable, someUlr());
+    }
+
+    @Test
+    public void testYamlBinding() {
+        assertThat(config.getPeers().size(), is(3));
+
+        final var hss = config.getPeers().get(0);
+        assertThat(hss.getName(), is("hss01"));
+        assertThat(hss.getUri(), is(URI.create("aaa://10.36.10.20:3868")));
+        assertThat(hss.getMode(), is(Peer.MODE.PASSIVE));
+        assertThat(hss.getTransactionTimeoutMillis(), is(2000L));
+        assertThat(hss.getConnections(), is(2));
+        assertThat(hss.isSessionAffinity(), is(true));
+
+        // and the ones that weren't configured keep their defaults.
+        assertThat(config.getPeers().get(1).getConnections(), is(1));
+        assertThat(config.getPeers().get(1).isAllocateIdentifiers(), is(true));
+
+        assertThat(config.getRoutes().size(), is(1));
+        final var route = config.getRoutes().get(0);
+        assertThat(route.getRealm(), is("hss.epc.mnc001.mcc001.3gppnetwork.org"));
+        assertThat(route.getApplicationId(), is(Optional.of(16777251L)));
+        assertThat(route.getPeers(), is(List.of("hss01", "hss02")));
+
+        assertThat(config.getDefaultRoute(), is(List.of("dra01")));
+    }
+
+    /**
+     * Nothing is routed anywhere until the peer table tells the engine which peers are available.
+     */
+    @Test
+    public void testNoPeersAvailable() {
+        assertThat(findRoute().isPresent(), is(false));
+
+        engine.updateRoutes(List.of(hss01, hss02, dra01));
+        engine.updateRoutes(List.of());
+        assertThat(findRoute().isPresent(), is(false));
+    }
+
+    /**
+     * The request goes to the most preferred peer of the route that is up and when none of them
+     * are, to the default route.
+     */
+    @Test
+    public void testPeersUpAndDown() {
+        engine.updateRoutes(List.of(hss01, hss02, dra01));
+        assertThat(findRoute().get() == hss01, is(true));
+
+        engine.updateRoutes(List.of(hss02, dra01));
+        assertThat(findRoute().get() == hss02, is(true));
+
+        engine.updateRoutes(List.of(dra01));
+        assertThat(findRoute().get() == dra01, is(true));
+
+        engine.updateRoutes(List.of(hss01, dra01));
+        assertThat(findRoute().get() == hss01, is(true));
+    }
+}
@@ -0,0 +1,73 @@
+package io.snice.networking.diameter.peer.impl;
+
+import io.snice.networking.diameter.peer.RouteConfiguration;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * The peers are just their names and peer "hss02" is known by its Diameter identity.
+ */
+public class RealmRoutingTableTest {
+
+    private static final String EPC = "epc.mnc001.mcc001.3gppnetwork.org";
+    private static final long S6A = 16777251;
+    private static final long GX = 16777238;
+
+    private static final List<RouteConfiguration> ROUTES = List.of(
+            route(EPC, S6A, "hss01", "hss02"),
+            route(EPC, null, "dra01"),
+            route("ims.example.com", GX, "pcrf01"));
+
+    private static RouteConfiguration route(final String realm, final Long applicationId, final String... peers) {
+        final var route = new RouteConfiguration();
+        route.setRealm(realm);
+        route.setApplicationId(Optional.ofNullable(applicationId));
+        route.setPeers(List.of(peers));
+        return route;
+    }
+
+    private static RealmRoutingTable<String> build(final List<String> defaultRoute, final String... available) {
+        return RealmRoutingTable.build(ROUTES, defaultRoute, List.of(available), name -> name,
+                name -> name.equals("hss02") ? Optional.of("hss02.epc.example.com") : Optional.empty());
+    }
+
+    @Test
+    public void testRealmAndApplication() {
+        final var table = build(List.of(), "dra01", "hss01", "hss02", "pcrf01");
+        assertThat(table.find(null, EPC, S6A), is("hss01"));
+        assertThat(table.find(null, EPC.toUpperCase(), S6A), is("hss01"));
+        assertThat(table.find(null, EPC, GX), is("dra01"));
+        assertThat(table.find(null, "ims.example.com", GX), is("pcrf01"));
+
+        // no route for the application in that realm so the default route it is,
+        // which is the first available peer since there is no configured default route.
+        assertThat(table.find(null, "ims.example.com", S6A), is("dra01"));
+        assertThat(table.find(null, null, S6A), is("dra01"));
+    }
+
+    @Test
+    public void testDestinationHostOverride() {
+        final var table = build(List.of(), "dra01", "hss01", "hss02");
+        assertThat(table.find("HSS02.epc.example.com", EPC, S6A), is("hss02"));
+        assertThat(table.find("unknown.epc.example.com", EPC, S6A), is("hss01"));
+    }
+
+    /**
+     * A route only ever points to peers that are available and if none of its peers are, the next
+     * best route, eventually the default one, is used.
+     */
+    @Test
+    public void testPeersDown() {
+        assertThat(build(List.of("pcrf01"), "hss02", "pcrf01").find(null, EPC, S6A), is("hss02"));
+        assertThat(build(List.of("pcrf01"), "dra01", "pcrf01").find(null, EPC, S6A), is("dra01"));
+        assertThat(build(List.of("pcrf01"), "pcrf01").find(null, EPC, S6A), is("pcrf01"));
+        assertThat(build(List.of("pcrf01"), "hss01").find(null, "ims.example.com", GX), nullValue());
+        assertThat(RealmRoutingTable.<String>empty().find(null, EPC, S6A), nullValue());
+    }
+}
@@ -3,6 +3,10 @@ package io.snice.networking.gtp;
 import io.snice.codecs.codec.gtp.GtpMessage;
 import io.snice.codecs.codec.gtp.GtpRequest;
 import io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Request;
+import io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Response;
+import io.snice.networking.app.ExecutionMode;
+
+import java.time.Duration;
 
 public interface GtpControlTunnel extends GtpTunnel {
 
@@ -28,4 +32,23 @@ public interface GtpControlTunnel extends GtpTunnel {
      * @throws IllegalGtpMessageException in case the given {@link GtpMessage} cannot be run within a {@link Transaction}
      */
     Transaction.Builder createNewTransaction(Gtp2Request request) throws IllegalGtpMessageException;
+
+    /**
+     * Send the given request within a new {@link Transaction} and then block until the response is received, or
+     * the timeout expires, whichever comes first. The response is handed to the waiting thread straight from the
+     * event loop that read it, i.e. it does not go through the application, and if no response is received in
+     * time, the transaction is purged just as if it had hit the transaction timeout of the tunnel.
+     * <p>
+     * This is meant for applications running on virtual threads (see {@link ExecutionMode#VIRTUAL_THREAD})
+     * where blocking is cheap.
+     *
+     * @param timeout the max time to wait for the response.
+     * @return the {@link Gtp2Response} to the request.
+     * @throws GtpTimeoutException        in case no response was received within the given time.
+     * @throws IllegalGtpMessageException in case the given {@link GtpMessage} cannot be run within a {@link Transaction}
+     * @throws GtpException               in case the calling thread was interrupted while waiting.
+     * @throws IllegalStateException      in case this is called from an event loop, which is the very thread
+     *                                    that is supposed to process the response.
+     */
+    Gtp2Response request(Gtp2Request request, Duration timeout) throws GtpException;
 }
@@ -0,0 +1,21 @@
+package io.snice.networking.gtp;
+
+import java.time.Duration;
+
+/**
+ * Thrown by the blocking {@link GtpControlTunnel#request(io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Request, Duration)}
+ * in case no response was received in time.
+ */
+public class GtpTimeoutException extends GtpException {
+
+    private final Duration timeout;
+
+    public GtpTimeoutException(final Duration timeout) {
+        super("No response received within " + timeout.toMillis() + "ms");
+        this.timeout = timeout;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
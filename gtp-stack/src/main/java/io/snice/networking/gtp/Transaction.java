@@ -38,6 +38,11 @@ public interface Transaction {
 
     BiConsumer<Transaction, Gtp2Response> getOnResponse();
 
+    /**
+     * The callback to invoke if no response is received in time, if any.
+     */
+    Consumer<Transaction> getOnTransactionTimeout();
+
     interface Builder {
 
         /**
@@ -26,6 +26,13 @@ public class ControlPlaneConfig {
      */
     private int initialTunnelStoreSize = 10;
 
+    /**
+     * The time we wait for a response to a request, which is when the transaction times out and the
+     * application is told so. The same time is also given the application to respond to a request
+     * it received before we purge that transaction.
+     */
+    private long transactionTimeoutMillis = 3000;
+
     public boolean isEnable() {
         return enable;
     }
@@ -60,5 +67,14 @@ public class ControlPlaneConfig {
         this.initialTunnelStoreSize = size;
     }
 
+    public long getTransactionTimeoutMillis() {
+        return transactionTimeoutMillis;
+    }
+
+    public void setTransactionTimeoutMillis(final long transactionTimeoutMillis) {
+        assertArgument(transactionTimeoutMillis >= 1, "The transaction timeout must be at least 1 ms");
+        this.transactionTimeoutMillis = transactionTimeoutMillis;
+    }
+
 
 }
@@ -35,6 +35,14 @@ public interface GtpEvent {
         throw new ClassCastException("Cannot cast " + getClass().getName() + " into a " + GtpMessageEvent.class.getName());
     }
 
+    default boolean isTransactionTimeoutEvent() {
+        return false;
+    }
+
+    default GtpTransactionTimeoutEvent toTransactionTimeoutEvent() {
+        throw new ClassCastException("Cannot cast " + getClass().getName() + " into a " + GtpTransactionTimeoutEvent.class.getName());
+    }
+
     default GtpMessage getMessage() {
         return toMessageEvent().getMessage();
     }
@@ -2,6 +2,7 @@ package io.snice.networking.gtp.event;
 
 import io.snice.codecs.codec.gtp.GtpMessage;
 import io.snice.networking.common.Connection;
+import io.snice.networking.common.ConnectionId;
 import io.snice.networking.gtp.Transaction;
 import io.snice.networking.gtp.event.impl.DefaultGtpMessageEvent;
 
@@ -11,6 +12,10 @@ public interface GtpMessageReadEvent extends GtpMessageEvent {
         return DefaultGtpMessageEvent.newReadEvent(msg, connection);
     }
 
+    static GtpMessageReadEvent of(final GtpMessage msg, final ConnectionId connectionId) {
+        return DefaultGtpMessageEvent.newReadEvent(msg, connectionId);
+    }
+
     static GtpMessageReadEvent of(final GtpMessage msg, final Transaction transaction) {
         return DefaultGtpMessageEvent.newReadEvent(msg, transaction);
     }
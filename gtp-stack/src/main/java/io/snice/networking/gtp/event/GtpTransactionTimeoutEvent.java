@@ -0,0 +1,27 @@
+package io.snice.networking.gtp.event;
+
+import io.snice.networking.gtp.Transaction;
+import io.snice.networking.gtp.event.impl.DefaultGtpTransactionTimeoutEvent;
+
+/**
+ * Fired by the GTP tunnel FSM when no response was received to a request sent within
+ * a {@link Transaction} in time. The transaction has been purged by the time this event is fired.
+ */
+public interface GtpTransactionTimeoutEvent extends GtpEvent {
+
+    static GtpTransactionTimeoutEvent of(final Transaction transaction) {
+        return DefaultGtpTransactionTimeoutEvent.of(transaction);
+    }
+
+    Transaction getTransaction();
+
+    @Override
+    default boolean isTransactionTimeoutEvent() {
+        return true;
+    }
+
+    @Override
+    default GtpTransactionTimeoutEvent toTransactionTimeoutEvent() {
+        return this;
+    }
+}
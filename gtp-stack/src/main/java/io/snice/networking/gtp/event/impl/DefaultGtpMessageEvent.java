@@ -1,28 +1,54 @@
 package io.snice.networking.gtp.event.impl;
 
+import io.netty.util.Recycler;
 import io.snice.codecs.codec.gtp.GtpMessage;
 import io.snice.networking.common.Connection;
 import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.Transport;
+import io.snice.networking.common.event.Recyclable;
 import io.snice.networking.gtp.Transaction;
 import io.snice.networking.gtp.event.GtpEvent;
 import io.snice.networking.gtp.event.GtpMessageEvent;
 import io.snice.networking.gtp.event.GtpMessageReadEvent;
 import io.snice.networking.gtp.event.GtpMessageWriteEvent;
 
+import java.net.InetSocketAddress;
 import java.util.Optional;
 
 import static io.snice.preconditions.PreConditions.assertNotNull;
 
 public class DefaultGtpMessageEvent implements GtpMessageEvent {
 
-    private final GtpMessage msg;
-    private final ConnectionId connectionId;
-    private final Optional<Transaction> transaction;
+    private GtpMessage msg;
+    private ConnectionId connectionId;
+    private Optional<Transaction> transaction;
 
     public static GtpMessageReadEvent newReadEvent(final GtpMessage msg, final Connection<GtpEvent> connection) {
         assertNotNull(msg, "The GTP message cannot be null");
         assertNotNull(connection, "The connection cannot be null");
-        return new MessageReadEvent(msg, connection);
+        return new MessageReadEvent(msg, connection.id());
+    }
+
+    public static GtpMessageReadEvent newReadEvent(final GtpMessage msg, final ConnectionId connectionId) {
+        assertNotNull(msg, "The GTP message cannot be null");
+        assertNotNull(connectionId, "The connection cannot be null");
+        return new MessageReadEvent(msg, connectionId);
+    }
+
+    /**
+     * Get a {@link GtpMessageReadEvent} from the pool of the current thread, which is handed back once the
+     * application has been invoked with it. The {@link ConnectionId} is only created if someone asks for it.
+     *
+     * See {@link io.snice.networking.app.NetworkAppConfig#isRecycleEvents()}.
+     *
+     * @param local the local address the message was received on.
+     * @param remote the remote address the message was received from.
+     */
+    public static GtpMessageReadEvent newRecycledReadEvent(final GtpMessage msg, final InetSocketAddress local, final InetSocketAddress remote) {
+        assertNotNull(msg, "The GTP message cannot be null");
+        assertNotNull(local, "The local address cannot be null");
+        assertNotNull(remote, "The remote address cannot be null");
+        return RecycledMessageReadEvent.get(msg, local, remote);
     }
 
     public static GtpMessageReadEvent newReadEvent(final GtpMessage msg, final Transaction transaction) {
@@ -54,6 +80,12 @@ public class DefaultGtpMessageEvent implements GtpMessageEvent {
         this.transaction = Optional.of(transaction);
     }
 
+    void set(final GtpMessage msg, final ConnectionId connectionId, final Optional<Transaction> transaction) {
+        this.msg = msg;
+        this.connectionId = connectionId;
+        this.transaction = transaction;
+    }
+
     @Override
     public Optional<Transaction> getTransaction() {
         return transaction;
@@ -77,8 +109,8 @@ public class DefaultGtpMessageEvent implements GtpMessageEvent {
 
     private static class MessageReadEvent extends DefaultGtpMessageEvent implements GtpMessageReadEvent {
 
-        private MessageReadEvent(final GtpMessage msg, final Connection<GtpEvent> connection) {
-            super(msg, connection.id());
+        private MessageReadEvent(final GtpMessage msg, final ConnectionId connectionId) {
+            super(msg, connectionId);
         }
 
         private MessageReadEvent(final GtpMessage msg, final Transaction transaction) {
@@ -91,6 +123,52 @@ public class DefaultGtpMessageEvent implements GtpMessageEvent {
         }
     }
 
+    private static final class RecycledMessageReadEvent extends MessageReadEvent implements Recyclable {
+
+        private static final Recycler<RecycledMessageReadEvent> RECYCLER = new Recycler<RecycledMessageReadEvent>() {
+            @Override
+            protected RecycledMessageReadEvent newObject(final Handle<RecycledMessageReadEvent> handle) {
+                return new RecycledMessageReadEvent(handle);
+            }
+        };
+
+        private final Recycler.Handle<RecycledMessageReadEvent> handle;
+
+        private InetSocketAddress local;
+        private InetSocketAddress remote;
+
+        private static RecycledMessageReadEvent get(final GtpMessage msg, final InetSocketAddress local, final InetSocketAddress remote) {
+            final var event = RECYCLER.get();
+            event.set(msg, null, Optional.empty());
+            event.local = local;
+            event.remote = remote;
+            return event;
+        }
+
+        private RecycledMessageReadEvent(final Recycler.Handle<RecycledMessageReadEvent> handle) {
+            super(null, (ConnectionId) null);
+            this.handle = handle;
+        }
+
+        @Override
+        public ConnectionId getConnectionId() {
+            var id = super.getConnectionId();
+            if (id == null) {
+                id = ConnectionId.create(Transport.udp, local, remote);
+                set(getMessage(), id, Optional.empty());
+            }
+            return id;
+        }
+
+        @Override
+        public void recycle() {
+            set(null, null, Optional.empty());
+            local = null;
+            remote = null;
+            handle.recycle(this);
+        }
+    }
+
     private static class MessageWriteEvent extends DefaultGtpMessageEvent implements GtpMessageWriteEvent {
 
         private MessageWriteEvent(final GtpMessage msg, final ConnectionId connectionId) {
@@ -0,0 +1,30 @@
+package io.snice.networking.gtp.event.impl;
+
+import io.snice.networking.gtp.Transaction;
+import io.snice.networking.gtp.event.GtpTransactionTimeoutEvent;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+public class DefaultGtpTransactionTimeoutEvent implements GtpTransactionTimeoutEvent {
+
+    private final Transaction transaction;
+
+    public static GtpTransactionTimeoutEvent of(final Transaction transaction) {
+        assertNotNull(transaction, "The GTP transaction cannot be null");
+        return new DefaultGtpTransactionTimeoutEvent(transaction);
+    }
+
+    private DefaultGtpTransactionTimeoutEvent(final Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    @Override
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionTimeout: [Req: " + transaction.getRequest() + "]";
+    }
+}
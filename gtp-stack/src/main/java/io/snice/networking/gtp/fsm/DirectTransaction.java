@@ -0,0 +1,34 @@
+package io.snice.networking.gtp.fsm;
+
+import io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Response;
+import io.snice.networking.gtp.Transaction;
+
+import java.time.Duration;
+
+/**
+ * A {@link Transaction} that the {@link GtpControlTunnelFsm} completes itself, right there on the event loop, as
+ * opposed to passing the response, or the timeout, up to the application. The application may be running on a
+ * thread that is busy waiting for that very response (see {@link io.snice.networking.gtp.GtpControlTunnel#request})
+ * and as such, going through the application layer could mean that no one is left to process it.
+ * <p>
+ * Both callbacks are invoked on the event loop and MUST NOT block. Neither will be invoked more than once and
+ * never both.
+ */
+public interface DirectTransaction extends Transaction {
+
+    /**
+     * The max time the transaction may be outstanding, which overrides the transaction timeout of the tunnel
+     * if it is shorter.
+     */
+    Duration getTimeout();
+
+    /**
+     * The response to the request was received.
+     */
+    void complete(Gtp2Response response);
+
+    /**
+     * No response was received within the timeout and the transaction has been purged.
+     */
+    void timeout();
+}
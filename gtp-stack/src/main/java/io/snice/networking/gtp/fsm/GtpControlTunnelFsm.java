@@ -2,15 +2,21 @@ package io.snice.networking.gtp.fsm;
 
 import io.hektor.fsm.Definition;
 import io.hektor.fsm.FSM;
+import io.snice.codecs.codec.gtp.GtpMessage;
 import io.snice.codecs.codec.gtp.gtpc.v2.messages.path.EchoRequest;
 import io.snice.codecs.codec.gtp.gtpc.v2.tliv.Recovery;
+import io.snice.networking.app.impl.NettyReadableBuffer;
 import io.snice.networking.common.event.ConnectionActiveIOEvent;
 import io.snice.networking.common.event.ConnectionAttemptCompletedIOEvent;
+import io.snice.networking.common.event.ConnectionInactiveIOEvent;
 import io.snice.networking.gtp.event.GtpMessageReadEvent;
 import io.snice.networking.gtp.event.GtpMessageWriteEvent;
+import io.snice.networking.gtp.event.GtpTransactionTimeoutEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+
 import static io.snice.networking.gtp.fsm.GtpTunnelState.*;
 
 public class GtpControlTunnelFsm {
@@ -27,12 +33,21 @@ public class GtpControlTunnelFsm {
         final var terminated = builder.withFinalState(TERMINATED);
 
         closed.transitionTo(SYNC).onEvent(ConnectionActiveIOEvent.class);
+
+        // a tunnel re-created for a flow that already is up, e.g. because the previous one was evicted for
+        // being idle, never sees the flow being established and goes straight to OPEN on its first message.
+        closed.transitionTo(OPEN).onEvent(GtpMessageReadEvent.class).withGuard(GtpMessageReadEvent::isEchoRequest).withAction(GtpControlTunnelFsm::processEchoRequest);
+        closed.transitionTo(OPEN).onEvent(GtpMessageReadEvent.class).withAction(GtpControlTunnelFsm::processRead);
+        closed.transitionTo(OPEN).onEvent(GtpMessageWriteEvent.class).withAction(GtpControlTunnelFsm::processWrite);
+
         sync.transitionTo(OPEN).onEvent(ConnectionAttemptCompletedIOEvent.class).withAction(GtpControlTunnelFsm::processConnectionCompleted);
         open.transitionTo(OPEN).onEvent(GtpMessageReadEvent.class).withGuard(GtpMessageReadEvent::isEchoRequest).withAction(GtpControlTunnelFsm::processEchoRequest);
         open.transitionTo(OPEN).onEvent(GtpMessageReadEvent.class).withAction(GtpControlTunnelFsm::processRead);
         open.transitionTo(OPEN).onEvent(GtpMessageWriteEvent.class).withAction(GtpControlTunnelFsm::processWrite);
+        open.transitionTo(OPEN).onEvent(InternalTransaction.class).withAction(GtpControlTunnelFsm::processTransactionTimeout);
 
         open.transitionTo(OPEN).onEvent(ConnectionActiveIOEvent.class);
+        open.transitionTo(OPEN).onEvent(ConnectionInactiveIOEvent.class);
         open.transitionTo(OPEN).onEvent(ConnectionAttemptCompletedIOEvent.class).withAction(GtpControlTunnelFsm::processConnectionCompleted);
 
 
@@ -76,24 +91,47 @@ public class GtpControlTunnelFsm {
         if (msg.isRequest()) {
             final var transaction = data.storeTransaction(msg.toGtp2Request(), false);
             event.getTransaction().ifPresent(transaction::setTransaction);
+            startTransactionTimer(transaction, ctx, data);
             ctx.getChannelContext().sendUpstream(event);
             return;
         }
 
-        // not actually correct but I haven't scheduled any timers just yet
-        // so we would leak these...
         final var transaction = data.removeTransaction(msg);
         if (transaction == null) {
             logger.info("Dropping stray response {}", msg);
             return;
         }
 
+        // a blocking request is completed right here since the thread waiting for it may be the very
+        // thread the application layer would have to process the response on.
+        final var userTransaction = transaction.getTransaction().orElse(null);
+        if (userTransaction instanceof DirectTransaction) {
+            ((DirectTransaction) userTransaction).complete(detach(msg).toGtp2Response());
+            return;
+        }
+
         final var decoratedEventMaybe = transaction.getTransaction()
                 .map(t -> GtpMessageReadEvent.of(msg, t))
                 .orElse(event);
         ctx.sendUpstream(decoratedEventMaybe);
     }
 
+    /**
+     * With zero-copy decoding (see {@link io.snice.networking.app.NetworkAppConfig#isZeroCopyDecoding()}) the
+     * message is a view over the pooled content of the datagram, which is released as soon as the inbound event
+     * has been processed. A request kept in its transaction retains that content (see
+     * {@link InternalTransaction#release()}) and the application layer retains it for as long as the application
+     * is processing the message. The thread blocked on a {@link DirectTransaction} though may hold onto the
+     * response for as long as it likes so that response is copied out of the pooled content.
+     *
+     * @return the given message if it isn't a view over a pooled buffer, otherwise a copy of it.
+     */
+    private static GtpMessage detach(final GtpMessage msg) {
+        final var buffer = msg.getBuffer();
+        final var detached = NettyReadableBuffer.detach(buffer);
+        return detached == buffer ? msg : GtpMessage.frame(detached);
+    }
+
     private static final void processWrite(final GtpMessageWriteEvent event, final GtpTunnelContext ctx, final GtpTunnelData data) {
         // TODO: need to change because currently Gtp2Request doesn't extent GtpRequest. Must have missed something.
         final var msg = event.getMessage();
@@ -101,6 +139,7 @@ public class GtpControlTunnelFsm {
             if (msg.isRequest()) {
                 final var transaction = data.storeTransaction(msg, true);
                 event.getTransaction().ifPresent(transaction::setTransaction);
+                startTransactionTimer(transaction, ctx, data);
             } else {
                 final var transaction = data.removeTransaction(msg);
                 if (transaction == null) {
@@ -111,4 +150,44 @@ public class GtpControlTunnelFsm {
 
         ctx.sendDownstream(event);
     }
+
+    private static final void startTransactionTimer(final InternalTransaction transaction, final GtpTunnelContext ctx, final GtpTunnelData data) {
+        transaction.setTimer(ctx.schedule(transaction, getTransactionTimeout(transaction, data)));
+    }
+
+    /**
+     * A {@link DirectTransaction} may not be willing to wait for as long as the transaction timeout of the tunnel,
+     * in which case the transaction is purged as soon as whoever is waiting for it gives up.
+     */
+    private static Duration getTransactionTimeout(final InternalTransaction transaction, final GtpTunnelData data) {
+        final var timeout = data.getTransactionTimeout();
+        final var userTransaction = transaction.getTransaction().orElse(null);
+        if (userTransaction instanceof DirectTransaction) {
+            final var direct = ((DirectTransaction) userTransaction).getTimeout();
+            return direct.compareTo(timeout) < 0 ? direct : timeout;
+        }
+        return timeout;
+    }
+
+    /**
+     * The timer of the given transaction fired, i.e., we never saw a response to a request we sent, or
+     * the application never responded to a request we received. Either way, the transaction is purged
+     * and if the application is tracking the transaction, it is told about it.
+     */
+    private static final void processTransactionTimeout(final InternalTransaction transaction, final GtpTunnelContext ctx, final GtpTunnelData data) {
+        if (!data.removeTransaction(transaction)) {
+            return;
+        }
+
+        if (!transaction.isClientTransaction()) {
+            return;
+        }
+
+        final var userTransaction = transaction.getTransaction().orElse(null);
+        if (userTransaction instanceof DirectTransaction) {
+            ((DirectTransaction) userTransaction).timeout();
+        } else if (userTransaction != null) {
+            ctx.sendUpstream(GtpTransactionTimeoutEvent.of(userTransaction));
+        }
+    }
 }
@@ -5,6 +5,7 @@ import io.snice.buffer.Buffer;
 import io.snice.codecs.codec.gtp.GtpMessage;
 import io.snice.networking.gtp.conf.GtpConfig;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,6 +17,8 @@ public class GtpTunnelData implements Data {
 
     private final Map<Buffer, InternalTransaction> transactions;
 
+    private final Duration transactionTimeout;
+
     public static GtpTunnelData of(final GtpConfig config) {
         assertNotNull(config);
         return new GtpTunnelData(config);
@@ -24,6 +27,19 @@ public class GtpTunnelData implements Data {
     private GtpTunnelData(final GtpConfig config) {
         this.config = config;
         transactions = new HashMap<>(config.getControlPlane().getInitialTransactionStoreSize());
+        transactionTimeout = Duration.ofMillis(config.getControlPlane().getTransactionTimeoutMillis());
+    }
+
+    public Duration getTransactionTimeout() {
+        return transactionTimeout;
+    }
+
+    /**
+     * Whether there are any transactions still waiting for a response, in which case the tunnel must be
+     * kept around or the response has nowhere to go.
+     */
+    public boolean hasOutstandingTransactions() {
+        return !transactions.isEmpty();
     }
 
     /**
@@ -43,6 +59,14 @@ public class GtpTunnelData implements Data {
         final var seqNo = header.getSequenceNo();
         final var internalTransaction = InternalTransaction.create(request, seqNo, isClientTransaction);
         // System.err.println("Storing Transaction: " + internalTransaction);
+
+        // the previous transaction is removed first since the map would otherwise hang on to its key,
+        // which may be a view over the request of that transaction, and as such, released with it.
+        final var previous = transactions.remove(seqNo);
+        if (previous != null) {
+            previous.cancelTimer();
+            previous.release();
+        }
         transactions.put(seqNo, internalTransaction);
         return internalTransaction;
     }
@@ -53,8 +77,27 @@ public class GtpTunnelData implements Data {
             // System.err.println("Attempting to remove: " + seqNo.dumpAsHex().strip());
             final var transaction = transactions.remove(seqNo);
             // System.err.println("Removing Transaction: " + transaction);
+            if (transaction != null) {
+                transaction.cancelTimer();
+                transaction.release();
+            }
             return transaction;
         }
         throw new RuntimeException("No GTPv1 Support right now");
     }
+
+    /**
+     * Remove the given transaction, but only if it still is the one stored under its sequence number,
+     * which it may not be since the sequence numbers eventually wrap around.
+     *
+     * @return true if the transaction was removed.
+     */
+    public boolean removeTransaction(final InternalTransaction transaction) {
+        if (!transactions.remove(transaction.getId(), transaction)) {
+            return false;
+        }
+
+        transaction.release();
+        return true;
+    }
 }
@@ -4,6 +4,8 @@ import io.snice.buffer.Buffer;
 import io.snice.buffer.Buffers;
 import io.snice.codecs.codec.gtp.GtpMessage;
 import io.snice.codecs.codec.gtp.GtpRequest;
+import io.snice.networking.app.impl.NettyReadableBuffer;
+import io.snice.networking.common.timer.Timeout;
 import io.snice.networking.gtp.Transaction;
 
 import java.util.Optional;
@@ -23,6 +25,14 @@ public class InternalTransaction {
      */
     private final GtpMessage req;
 
+    /**
+     * With zero-copy decoding (see {@link io.snice.networking.app.NetworkAppConfig#isZeroCopyDecoding()}) a
+     * request we received is a view over the pooled content of the datagram, and so is its sequence number,
+     * which is retained for as long as the transaction is outstanding and then released again
+     * (see {@link #release()}).
+     */
+    private boolean retained;
+
     /**
      * The actual identifier of this transaction, which is just the sequence number
      * as found in the GTP header.
@@ -47,6 +57,12 @@ public class InternalTransaction {
      */
     private Optional<Transaction> transaction = Optional.empty();
 
+    /**
+     * The transaction timer, which is scheduled with the transaction itself as the event so that the
+     * FSM knows which transaction timed out.
+     */
+    private Timeout timer;
+
     public static InternalTransaction create(final GtpMessage req,
                                              final Buffer transactionId,
                                              final boolean isClientTransaction) {
@@ -59,6 +75,7 @@ public class InternalTransaction {
         this.req = req;
         this.id = transactionId;
         this.isClientTransaction = isClientTransaction;
+        this.retained = NettyReadableBuffer.retain(req.getBuffer());
     }
 
     public Buffer getId() {
@@ -74,6 +91,27 @@ public class InternalTransaction {
         return transaction;
     }
 
+    public void setTimer(final Timeout timer) {
+        this.timer = timer;
+    }
+
+    public void cancelTimer() {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    /**
+     * The transaction is no longer outstanding so let go of the pooled content of the request, if any.
+     */
+    public void release() {
+        if (retained) {
+            retained = false;
+            NettyReadableBuffer.release(req.getBuffer());
+        }
+    }
+
     public boolean isClientTransaction() {
         return isClientTransaction;
     }
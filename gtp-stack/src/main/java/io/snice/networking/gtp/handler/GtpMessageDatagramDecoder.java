@@ -5,23 +5,46 @@ import io.netty.channel.socket.DatagramPacket;
 import io.netty.handler.codec.MessageToMessageDecoder;
 import io.snice.buffer.Buffers;
 import io.snice.codecs.codec.gtp.GtpMessage;
+import io.snice.networking.app.impl.NettyReadableBuffer;
 import io.snice.networking.app.impl.UdpReadEvent;
-import io.snice.networking.gtp.event.GtpEvent;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.Transport;
 import io.snice.networking.gtp.event.GtpMessageReadEvent;
-import io.snice.networking.netty.UdpConnection;
+import io.snice.networking.gtp.event.impl.DefaultGtpMessageEvent;
 import io.snice.time.Clock;
 
-import java.net.URI;
 import java.util.List;
-import java.util.Optional;
 
 public class GtpMessageDatagramDecoder extends MessageToMessageDecoder<DatagramPacket> {
 
-    private final Optional<URI> vipAddress = Optional.empty();
     private final Clock clock;
 
+    /**
+     * If true, the GTP messages will be framed as views over the pooled {@link DatagramPacket}
+     * content as opposed to being copied out of it. The content is then released once the
+     * {@link UdpReadEvent} has been processed.
+     */
+    private final boolean zeroCopy;
+
+    /**
+     * If true, the {@link GtpMessageReadEvent}s are taken from a per-thread pool and handed back
+     * once the application has been invoked with them.
+     * See {@link io.snice.networking.app.NetworkAppConfig#isRecycleEvents()}.
+     */
+    private final boolean recycle;
+
     public GtpMessageDatagramDecoder(final Clock clock) {
+        this(clock, false);
+    }
+
+    public GtpMessageDatagramDecoder(final Clock clock, final boolean zeroCopy) {
+        this(clock, zeroCopy, false);
+    }
+
+    public GtpMessageDatagramDecoder(final Clock clock, final boolean zeroCopy, final boolean recycle) {
         this.clock = clock;
+        this.zeroCopy = zeroCopy;
+        this.recycle = recycle;
     }
 
     @Override
@@ -29,13 +52,42 @@ public class GtpMessageDatagramDecoder extends MessageToMessageDecoder<DatagramP
         final long arrivalTime = clock.getCurrentTimeMillis();
         final var content = udp.content();
 
+        if (zeroCopy) {
+            decodeZeroCopy(ctx, udp, arrivalTime, list);
+            return;
+        }
+
         final byte[] b = new byte[content.readableBytes()];
         content.getBytes(0, b);
 
         final var buffer = Buffers.wrap(b);
         final var msg = GtpMessage.frame(buffer);
-        final var connection = new UdpConnection<GtpEvent>(ctx.channel(), udp.sender(), vipAddress);
-        final var evt = GtpMessageReadEvent.of(msg, connection);
+        final var evt = newReadEvent(msg, udp);
         list.add(UdpReadEvent.create(ctx, udp, evt, arrivalTime));
     }
+
+    private void decodeZeroCopy(final ChannelHandlerContext ctx, final DatagramPacket udp, final long arrivalTime, final List<Object> list) {
+        final var slice = udp.content().retainedSlice();
+        try {
+            final var msg = GtpMessage.frame(NettyReadableBuffer.of(slice));
+            final var evt = newReadEvent(msg, udp);
+            list.add(UdpReadEvent.create(ctx, udp, evt, arrivalTime, slice));
+        } catch (final RuntimeException e) {
+            slice.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Note that the recipient of the {@link DatagramPacket} is the local address of the channel, which is
+     * what the {@link ConnectionId} of the flow the message belongs to is made up of, so there is no
+     * need to go through a full blown {@link io.snice.networking.netty.UdpConnection} just to get to it.
+     */
+    private GtpMessageReadEvent newReadEvent(final GtpMessage msg, final DatagramPacket udp) {
+        if (recycle) {
+            return DefaultGtpMessageEvent.newRecycledReadEvent(msg, udp.recipient(), udp.sender());
+        }
+
+        return GtpMessageReadEvent.of(msg, ConnectionId.create(Transport.udp, udp.recipient(), udp.sender()));
+    }
 }
@@ -5,9 +5,9 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.handler.codec.MessageToMessageEncoder;
-import io.snice.buffer.Buffer;
 import io.snice.codecs.codec.gtp.GtpMessage;
 import io.snice.networking.gtp.event.GtpEvent;
+import io.snice.networking.netty.NettyBuffers;
 
 import java.util.List;
 
@@ -31,13 +31,7 @@ public class GtpMessageDatagramEncoder extends MessageToMessageEncoder<GtpEvent>
     }
 
     public static ByteBuf toByteBuf(final Channel channel, final GtpMessage msg) {
-        final Buffer buffer = msg.getBuffer();
-        final int capacity = buffer.capacity();
-        final ByteBuf byteBuf = channel.alloc().buffer(capacity, capacity);
-        for (int i = 0; i < buffer.capacity(); ++i) {
-            byteBuf.writeByte(buffer.getByte(i));
-        }
-        return byteBuf;
+        return NettyBuffers.toByteBuf(channel.alloc(), msg.getBuffer());
     }
 
 }
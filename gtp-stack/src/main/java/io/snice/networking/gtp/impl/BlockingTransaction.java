@@ -0,0 +1,100 @@
+package io.snice.networking.gtp.impl;
+
+import io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Request;
+import io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Response;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.gtp.GtpException;
+import io.snice.networking.gtp.GtpTimeoutException;
+import io.snice.networking.gtp.Transaction;
+import io.snice.networking.gtp.TransactionIdentifier;
+import io.snice.networking.gtp.fsm.DirectTransaction;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The transaction behind the blocking {@link io.snice.networking.gtp.GtpControlTunnel#request(Gtp2Request, Duration)},
+ * which is completed by the {@link io.snice.networking.gtp.fsm.GtpControlTunnelFsm} directly on the event loop.
+ */
+class BlockingTransaction implements DirectTransaction, InternalGtp2Transaction {
+
+    private final Gtp2Request request;
+    private final ConnectionId id;
+    private final Duration timeout;
+    private final CompletableFuture<Gtp2Response> response = new CompletableFuture<>();
+
+    BlockingTransaction(final Gtp2Request request, final ConnectionId id, final Duration timeout) {
+        this.request = request;
+        this.id = id;
+        this.timeout = timeout;
+    }
+
+    Gtp2Response await() throws GtpException {
+        try {
+            return response.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (final TimeoutException e) {
+            // the FSM purges the transaction when its own timer, of the same duration, fires.
+            // Until then, a response showing up is simply ignored.
+            throw new GtpTimeoutException(timeout);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof GtpException) {
+                throw (GtpException) e.getCause();
+            }
+            throw new GtpException("The transaction failed: " + e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GtpException("Interrupted while waiting for the response");
+        }
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public void complete(final Gtp2Response response) {
+        this.response.complete(response);
+    }
+
+    @Override
+    public void timeout() {
+        response.completeExceptionally(new GtpTimeoutException(timeout));
+    }
+
+    @Override
+    public TransactionIdentifier getId() {
+        return null;
+    }
+
+    @Override
+    public Gtp2Request getRequest() {
+        return request;
+    }
+
+    @Override
+    public ConnectionId getConnectionId() {
+        return id;
+    }
+
+    @Override
+    public Optional<Object> getApplicationData() {
+        return Optional.empty();
+    }
+
+    @Override
+    public BiConsumer<Transaction, Gtp2Response> getOnResponse() {
+        return null;
+    }
+
+    @Override
+    public Consumer<Transaction> getOnTransactionTimeout() {
+        return null;
+    }
+}
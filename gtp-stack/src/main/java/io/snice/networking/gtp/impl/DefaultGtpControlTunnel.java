@@ -3,8 +3,10 @@ package io.snice.networking.gtp.impl;
 import io.snice.buffer.Buffer;
 import io.snice.codecs.codec.gtp.GtpMessage;
 import io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Request;
+import io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Response;
 import io.snice.networking.common.ConnectionId;
 import io.snice.networking.common.Transport;
+import io.snice.networking.gtp.GtpException;
 import io.snice.networking.gtp.IllegalGtpMessageException;
 import io.snice.networking.gtp.Transaction;
 import io.snice.networking.gtp.conf.GtpAppConfig;
@@ -12,6 +14,7 @@ import io.snice.networking.gtp.event.GtpEvent;
 
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.time.Duration;
 import java.util.Optional;
 
 import static io.snice.preconditions.PreConditions.assertNotNull;
@@ -59,6 +62,11 @@ public class DefaultGtpControlTunnel<C extends GtpAppConfig> implements Internal
         return stack.createNewTransaction(this, request);
     }
 
+    @Override
+    public Gtp2Response request(final Gtp2Request request, final Duration timeout) throws GtpException {
+        return stack.request(this, request, timeout);
+    }
+
     @Override
     public ConnectionId id() {
         return connectionId;
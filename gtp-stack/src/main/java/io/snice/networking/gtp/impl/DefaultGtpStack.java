@@ -13,6 +13,8 @@ import io.snice.codecs.codec.transport.UdpMessage;
 import io.snice.net.IPv4;
 import io.snice.networking.app.ConnectionContext;
 import io.snice.networking.app.Environment;
+import io.snice.networking.app.ExecutionMode;
+import io.snice.networking.app.MessageDiscriminator;
 import io.snice.networking.app.NetworkBootstrap;
 import io.snice.networking.app.NetworkStack;
 import io.snice.networking.app.impl.GenericBootstrap;
@@ -22,12 +24,15 @@ import io.snice.networking.common.ConnectionEndpointId;
 import io.snice.networking.common.ConnectionId;
 import io.snice.networking.common.Transport;
 import io.snice.networking.common.fsm.FsmFactory;
+import io.snice.networking.common.time.CachedClock;
+import io.snice.networking.common.time.PreciseClock;
 import io.snice.networking.core.NetworkInterface;
 import io.snice.networking.gtp.DataTunnel;
 import io.snice.networking.gtp.EpsBearer;
 import io.snice.networking.gtp.GtpApplication;
 import io.snice.networking.gtp.GtpBootstrap;
 import io.snice.networking.gtp.GtpControlTunnel;
+import io.snice.networking.gtp.GtpException;
 import io.snice.networking.gtp.GtpTunnel;
 import io.snice.networking.gtp.GtpUserTunnel;
 import io.snice.networking.gtp.IllegalGtpMessageException;
@@ -40,6 +45,8 @@ import io.snice.networking.gtp.conf.UserPlaneConfig;
 import io.snice.networking.gtp.event.GtpEvent;
 import io.snice.networking.gtp.event.GtpMessageReadEvent;
 import io.snice.networking.gtp.event.GtpMessageWriteEvent;
+import io.snice.networking.gtp.event.GtpTransactionTimeoutEvent;
+import io.snice.networking.gtp.event.impl.DefaultGtpMessageEvent;
 import io.snice.networking.gtp.fsm.GtpTunnelContext;
 import io.snice.networking.gtp.fsm.GtpTunnelData;
 import io.snice.networking.gtp.fsm.GtpTunnelState;
@@ -47,11 +54,11 @@ import io.snice.networking.gtp.handler.GtpMessageDatagramDecoder;
 import io.snice.networking.gtp.handler.GtpMessageDatagramEncoder;
 import io.snice.networking.netty.ProtocolHandler;
 import io.snice.time.Clock;
-import io.snice.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -75,7 +82,11 @@ public class DefaultGtpStack<C extends GtpAppConfig> implements InternalGtpStack
     private final List<ProtocolHandler> encoders;
     private final List<ProtocolHandler> decoders;
 
-    private final Clock clock = new SystemClock();
+    /**
+     * Same as the clock of the network stack, see {@link io.snice.networking.app.NetworkAppConfig#getClockResolutionMillis()},
+     * and as such only known once we have been initialized.
+     */
+    private Clock clock;
 
     private C configuration;
 
@@ -121,7 +132,7 @@ public class DefaultGtpStack<C extends GtpAppConfig> implements InternalGtpStack
         encoders = List.of(udpEncoder);
 
         final var udpDecoder = ProtocolHandler.of("gtp-codec-decoder")
-                .withChannelHandler(() -> new GtpMessageDatagramDecoder(clock))
+                .withChannelHandler(() -> new GtpMessageDatagramDecoder(clock, isZeroCopyDecoding(), isRecycleEvents()))
                 .withTransport(Transport.udp)
                 .build();
 
@@ -134,6 +145,9 @@ public class DefaultGtpStack<C extends GtpAppConfig> implements InternalGtpStack
         ensureNotNull(config, "The configuration object for the \"" + getBundleName() + "\" cannot be null");
         this.configuration = config;
 
+        final long resolution = config.getClockResolutionMillis();
+        clock = resolution > 0 ? CachedClock.of(Duration.ofMillis(resolution)) : PreciseClock.getInstance();
+
         gtpTunnelFsmSupport = new GtpTunnelFsmSupport(config, clock);
         sessionFactory = new GtpSessionFsmFactory(config, clock);
 
@@ -150,7 +164,7 @@ public class DefaultGtpStack<C extends GtpAppConfig> implements InternalGtpStack
      * @param bootstrap
      */
     public final void initializeApplication(final GtpApplication<C> app, final NetworkBootstrap<GtpTunnel, GtpEvent, C> bootstrap) {
-        final var gtpBootstrap = new GtpBootstrapImpl<>(bootstrap.getConfiguration());
+        final var gtpBootstrap = new GtpBootstrapImpl<>(bootstrap.getConfiguration(), getMessageDiscriminator().orElse(null));
         app.initialize((GtpBootstrap) gtpBootstrap);
 
         gtpBootstrap.getConnectionContexts().forEach(r -> {
@@ -160,6 +174,7 @@ public class DefaultGtpStack<C extends GtpAppConfig> implements InternalGtpStack
                 b.drop(rule.getDropFunction().get());
             } else {
                 final var saveFunction = rule.getSaveAction();
+                b.withExecutionMode(rule.getExecutionMode());
                 b.save(tunnel -> saveInboundConnection(tunnel, saveFunction));
                 b.accept(builder -> {
                     builder.match(e -> true).consume((peer, event) -> processEvent(rule, peer, event));
@@ -175,6 +190,8 @@ public class DefaultGtpStack<C extends GtpAppConfig> implements InternalGtpStack
     private void processEvent(final ConnectionContext<GtpTunnel, GtpEvent> ctx, final GtpTunnel tunnel, final GtpEvent event) {
         if (event.isMessageReadEvent()) {
             processMessageReadEvent(ctx, tunnel, event.toMessageReadEvent());
+        } else if (event.isTransactionTimeoutEvent()) {
+            processTransactionTimeoutEvent(event.toTransactionTimeoutEvent());
         } else {
             ctx.match(tunnel, event).apply(tunnel, event);
         }
@@ -215,6 +232,19 @@ public class DefaultGtpStack<C extends GtpAppConfig> implements InternalGtpStack
         }
     }
 
+    /**
+     * A transaction timed out, which is only ever reported for transactions the application is tracking
+     * and as such, only the callback of that transaction is invoked, if any. The event never makes it to the
+     * general context of the tunnel.
+     */
+    private void processTransactionTimeoutEvent(final GtpTransactionTimeoutEvent event) {
+        final var transaction = event.getTransaction();
+        final var callback = transaction.getOnTransactionTimeout();
+        if (callback != null) {
+            callback.accept(transaction);
+        }
+    }
+
     /**
      * For incoming PDU's, we will have to check if there are any defined {@link DataTunnel}s since if there is
      * one matching the given {@link Teid} then we will invoke and "push" the data through this {@link DataTunnel}
@@ -246,6 +276,18 @@ public class DefaultGtpStack<C extends GtpAppConfig> implements InternalGtpStack
         dataTunnel.onDataFunction.accept(dataTunnel, userData);
     }
 
+    /**
+     * Only evaluated when a new UDP channel creates its decoder, at which point {@link #initialize}
+     * has already been called.
+     */
+    private boolean isZeroCopyDecoding() {
+        return configuration != null && configuration.isZeroCopyDecoding();
+    }
+
+    private boolean isRecycleEvents() {
+        return configuration != null && configuration.isRecycleEvents();
+    }
+
     @Override
     public String getBundleName() {
         return "GtpBundle";
@@ -313,6 +355,24 @@ public class DefaultGtpStack<C extends GtpAppConfig> implements InternalGtpStack
         return DirectGtpControlTunnel.of(connection, this);
     }
 
+    /**
+     * All the rules of a GTP application, such as {@link GtpEvent#isCreateSessionRequest()}, only look at the
+     * message type, which is only unique within a given version of GTP, so the version and the message type
+     * make up our key.
+     */
+    @Override
+    public Optional<MessageDiscriminator<GtpEvent>> getMessageDiscriminator() {
+        return Optional.of(DefaultGtpStack::discriminate);
+    }
+
+    private static int discriminate(final GtpEvent event) {
+        if (!event.isMessageEvent()) {
+            return MessageDiscriminator.NO_KEY;
+        }
+        final var msg = event.getMessage();
+        return msg.getHeader().getMessageTypeDecimal() << 1 | (msg.isGtpVersion2() ? 1 : 0);
+    }
+
     @Override
     public Optional<FsmFactory<GtpEvent, GtpTunnelState, GtpTunnelContext, GtpTunnelData>> getFsmFactory() {
         return Optional.of(gtpTunnelFsmSupport);
@@ -356,6 +416,17 @@ public class DefaultGtpStack<C extends GtpAppConfig> implements InternalGtpStack
         return DefaultTransaction.of(tunnel, this, request);
     }
 
+    @Override
+    public Gtp2Response request(final InternalGtpControlTunnel tunnel, final Gtp2Request request, final Duration timeout) throws GtpException {
+        assertNotNull(request, "The request cannot be null");
+        assertArgument(timeout != null && !timeout.isNegative() && !timeout.isZero(), "The timeout must be a positive duration");
+        ExecutionMode.assertMayBlock();
+
+        final var transaction = new BlockingTransaction(request, tunnel.id(), timeout);
+        send(DefaultGtpMessageEvent.newWriteEvent(request, transaction), tunnel);
+        return transaction.await();
+    }
+
     @Override
     public <T> DataTunnel.Builder<T> createDataTunnel(final InternalGtpUserTunnel tunnel, final Class<T> type, final String remoteHost, final int port) {
         assertNotNull(tunnel, "The Tunnel cannot be null");
@@ -427,8 +498,8 @@ public class DefaultGtpStack<C extends GtpAppConfig> implements InternalGtpStack
     }
 
     private class GtpBootstrapImpl<C extends GtpAppConfig> extends GenericBootstrap<GtpTunnel, GtpEvent, C> implements GtpBootstrap<C> {
-        public GtpBootstrapImpl(final C config) {
-            super(config);
+        public GtpBootstrapImpl(final C config, final MessageDiscriminator<GtpEvent> discriminator) {
+            super(config, discriminator);
         }
     }
 
@@ -30,12 +30,18 @@ public class DefaultTransaction implements InternalGtp2Transaction {
     private final ConnectionId id;
     private final Optional<Object> appData;
     private final BiConsumer<Transaction, Gtp2Response> onResponse;
+    private final Consumer<Transaction> onTimeout;
 
-    private DefaultTransaction(final Gtp2Request request, final Object appData, final ConnectionId id, final BiConsumer<Transaction, Gtp2Response> onResponse) {
+    private DefaultTransaction(final Gtp2Request request,
+                               final Object appData,
+                               final ConnectionId id,
+                               final BiConsumer<Transaction, Gtp2Response> onResponse,
+                               final Consumer<Transaction> onTimeout) {
         this.request = request;
         this.appData = Optional.ofNullable(appData);
         this.id = id;
         this.onResponse = onResponse;
+        this.onTimeout = onTimeout;
     }
 
     @Override
@@ -63,6 +69,11 @@ public class DefaultTransaction implements InternalGtp2Transaction {
         return onResponse;
     }
 
+    @Override
+    public Consumer<Transaction> getOnTransactionTimeout() {
+        return onTimeout;
+    }
+
     public static class TransactionBuilder<C extends GtpAppConfig> implements Transaction.Builder {
 
         private final InternalGtpStack<C> stack;
@@ -70,6 +81,7 @@ public class DefaultTransaction implements InternalGtp2Transaction {
         private final Gtp2Request request;
         private Object appData;
         private BiConsumer<Transaction, Gtp2Response> onAnswer;
+        private Consumer<Transaction> onTimeout;
 
         private TransactionBuilder(final InternalGtpStack<C> stack, final InternalGtpControlTunnel tunnel, final Gtp2Request request) {
             this.stack = stack;
@@ -103,12 +115,15 @@ public class DefaultTransaction implements InternalGtp2Transaction {
 
         @Override
         public Transaction.Builder onTransactionTimeout(final Consumer<Transaction> f) {
-            throw new RuntimeException("Not yet implemented");
+            assertNotNull(f);
+            assertNull(onTimeout, "You have already specified a onTransactionTimeout function. You cannot overwrite it.");
+            this.onTimeout = f;
+            return this;
         }
 
         @Override
         public Transaction start() {
-            final var transaction = new DefaultTransaction(request, appData, tunnel.id(), onAnswer);
+            final var transaction = new DefaultTransaction(request, appData, tunnel.id(), onAnswer, onTimeout);
             final var evt = DefaultGtpMessageEvent.newWriteEvent(request, transaction);
             stack.send(evt, tunnel);
             return transaction;
@@ -3,11 +3,13 @@ package io.snice.networking.gtp.impl;
 import io.snice.buffer.Buffer;
 import io.snice.codecs.codec.gtp.GtpMessage;
 import io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Request;
+import io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Response;
 import io.snice.networking.common.Connection;
 import io.snice.networking.common.ConnectionId;
 import io.snice.networking.common.Transport;
 import io.snice.networking.gtp.GtpApplication;
 import io.snice.networking.gtp.GtpUserTunnel;
+import io.snice.networking.gtp.GtpException;
 import io.snice.networking.gtp.IllegalGtpMessageException;
 import io.snice.networking.gtp.Transaction;
 import io.snice.networking.gtp.conf.GtpAppConfig;
@@ -16,6 +18,7 @@ import io.snice.networking.gtp.event.GtpMessageWriteEvent;
 
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.time.Duration;
 import java.util.Optional;
 
 import static io.snice.preconditions.PreConditions.assertNotNull;
@@ -61,6 +64,11 @@ public class DirectGtpControlTunnel<C extends GtpAppConfig> implements InternalG
         return stack.createNewTransaction(this, request);
     }
 
+    @Override
+    public Gtp2Response request(final Gtp2Request request, final Duration timeout) throws GtpException {
+        return stack.request(this, request, timeout);
+    }
+
     @Override
     public ConnectionId id() {
         return actualConnection.id();
@@ -40,6 +40,24 @@ public class GtpSessionFsmFactory implements FsmFactory<GtpEvent, GtpSessionStat
         return ConnectionIdFsmKey.of(connectionId);
     }
 
+    /**
+     * GTP is running over UDP so all peers share the same channel and what we write has to
+     * be routed to the FSM of the peer it is destined for.
+     */
+    @Override
+    public FsmKey calculateDownstreamKey(final GtpEvent msg) {
+        if (!msg.isMessageEvent()) {
+            return null;
+        }
+
+        return ConnectionIdFsmKey.of(msg.toMessageEvent().getConnectionId());
+    }
+
+    @Override
+    public ConnectionId calculateDownstreamConnectionId(final GtpEvent msg) {
+        return msg.isMessageEvent() ? msg.toMessageEvent().getConnectionId() : null;
+    }
+
     @Override
     public GtpSessionData createNewDataBag(final FsmKey key) {
         return GtpSessionData.of(config);
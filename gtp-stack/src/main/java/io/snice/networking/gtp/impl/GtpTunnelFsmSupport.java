@@ -37,6 +37,32 @@ public class GtpTunnelFsmSupport implements FsmFactory<GtpEvent, GtpTunnelState,
         return ConnectionIdFsmKey.of(connectionId);
     }
 
+    /**
+     * GTP is running over UDP so all peers share the same channel and what we write has to
+     * be routed to the FSM of the peer it is destined for.
+     */
+    @Override
+    public FsmKey calculateDownstreamKey(final GtpEvent msg) {
+        if (!msg.isMessageEvent()) {
+            return null;
+        }
+
+        return ConnectionIdFsmKey.of(msg.toMessageEvent().getConnectionId());
+    }
+
+    @Override
+    public ConnectionId calculateDownstreamConnectionId(final GtpEvent msg) {
+        return msg.isMessageEvent() ? msg.toMessageEvent().getConnectionId() : null;
+    }
+
+    /**
+     * A tunnel with outstanding transactions is still waiting on responses and as such, cannot be evicted.
+     */
+    @Override
+    public boolean isEvictable(final GtpTunnelData data) {
+        return !data.hasOutstandingTransactions();
+    }
+
     @Override
     public GtpTunnelData createNewDataBag(final FsmKey key) {
         return GtpTunnelData.of(config);
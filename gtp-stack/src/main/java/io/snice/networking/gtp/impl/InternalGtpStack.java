@@ -2,13 +2,17 @@ package io.snice.networking.gtp.impl;
 
 import io.snice.codecs.codec.gtp.GtpMessage;
 import io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Request;
+import io.snice.codecs.codec.gtp.gtpc.v2.Gtp2Response;
 import io.snice.networking.gtp.DataTunnel;
+import io.snice.networking.gtp.GtpException;
 import io.snice.networking.gtp.GtpStack;
 import io.snice.networking.gtp.IllegalGtpMessageException;
 import io.snice.networking.gtp.Transaction;
 import io.snice.networking.gtp.conf.GtpAppConfig;
 import io.snice.networking.gtp.event.GtpMessageWriteEvent;
 
+import java.time.Duration;
+
 /**
  * Operations needed for the implementation but that should not be exposed to the application
  * users.
@@ -26,5 +30,10 @@ public interface InternalGtpStack<C extends GtpAppConfig> extends GtpStack<C> {
 
     Transaction.Builder createNewTransaction(InternalGtpControlTunnel tunnel, Gtp2Request request) throws IllegalGtpMessageException;
 
+    /**
+     * See {@link io.snice.networking.gtp.GtpControlTunnel#request(Gtp2Request, Duration)}.
+     */
+    Gtp2Response request(InternalGtpControlTunnel tunnel, Gtp2Request request, Duration timeout) throws GtpException;
+
     <T> DataTunnel.Builder<T> createDataTunnel(InternalGtpUserTunnel tunnel, Class<T> type, String remoteHost, int port);
 }
@@ -18,10 +18,24 @@ public interface ConnectionContext<C extends Connection<T>, T> extends Predicate
         return getDropFunction().isPresent();
     }
 
+    /**
+     * @return on which thread the application is to be invoked for connections belonging to this context.
+     */
+    default ExecutionMode getExecutionMode() {
+        return ExecutionMode.EVENT_LOOP;
+    }
+
     MessagePipe<C, T, ?> match(C connection, T data);
 
     <U extends Object> MessagePipe<C, U, ?> matchEvent(C connection, U event);
 
+    /**
+     * Same as {@link #matchEvent(Connection, Object)} but for those events the application may
+     * choose to ignore, e.g. the {@link io.snice.networking.common.event.ConnectionWritabilityChangedIOEvent},
+     * and as such, it is not an error if there is no matching rule.
+     */
+    <U extends Object> Optional<MessagePipe<C, U, ?>> tryMatchEvent(C connection, U event);
+
     interface Builder<C extends Connection<T>, T, R> {
         /**
          * If you decide to accept the incoming connection, then you must also specify what
@@ -41,6 +55,25 @@ public interface ConnectionContext<C extends Connection<T>, T> extends Predicate
          */
         Builder<C, T, R> save(Consumer<C> f);
 
+        /**
+         * Specify on which thread the application should be invoked for connections matching this context.
+         * The default is {@link ExecutionMode#EVENT_LOOP}, which means that your application MUST NOT block.
+         * If it does, use {@link ExecutionMode#WORKER}.
+         */
+        Builder<C, T, R> withExecutionMode(ExecutionMode mode);
+
+        /**
+         * Promise that the rules of this context only look at what the {@link MessageDiscriminator} of the
+         * protocol captures (e.g. the command code of a diameter message and whether it is a request or not)
+         * so that the rule that matched the last message with the same key can be tested first, as opposed to
+         * testing every rule in order. If any of your rules look at anything else, such as an AVP,
+         * the first matching rule is no longer guaranteed to be the one picked, so don't.
+         *
+         * The default is to test every rule in order. If the protocol has no {@link MessageDiscriminator},
+         * this has no effect.
+         */
+        Builder<C, T, R> withIndexedMatching();
+
         // TODO: wrong. It's not a function, it's just a consumer!
         void drop(Function<C, T> f);
     }
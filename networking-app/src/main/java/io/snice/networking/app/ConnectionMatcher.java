@@ -0,0 +1,120 @@
+package io.snice.networking.app;
+
+import io.snice.networking.app.impl.IpPrefix;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.Transport;
+
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static io.snice.preconditions.PreConditions.assertArgument;
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * A declarative {@link Predicate} for selecting which {@link ConnectionContext} a new connection belongs
+ * to, based on the transport, the local port and the prefix (subnet) of the remote address. Any of those
+ * can be left out, in which case anything goes for that part.
+ *
+ * <pre>
+ *     bootstrap.onConnection(ConnectionMatcher.of()
+ *             .withTransport(Transport.sctp)
+ *             .withLocalPort(36412)
+ *             .withRemotePrefix("10.10.0.0/16")
+ *             .build()).accept(...);
+ * </pre>
+ *
+ * You can of course use any {@link Predicate} you want when registering your rules, but since a
+ * {@link ConnectionMatcher} tells us exactly what it is looking at, those rules are indexed and
+ * as such, selecting the context for a new connection doesn't get any more expensive the more of these
+ * rules you have. Any other predicate has to be evaluated, in order, for every new connection.
+ */
+public final class ConnectionMatcher implements Predicate<ConnectionId> {
+
+    private final Transport transport;
+    private final int localPort;
+    private final Optional<IpPrefix> remotePrefix;
+
+    public static Builder of() {
+        return new Builder();
+    }
+
+    private ConnectionMatcher(final Transport transport, final int localPort, final Optional<IpPrefix> remotePrefix) {
+        this.transport = transport;
+        this.localPort = localPort;
+        this.remotePrefix = remotePrefix;
+    }
+
+    /**
+     * @return the transport this matcher is restricted to or null if any transport is fine.
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @return the local port this matcher is restricted to or -1 if any port is fine.
+     */
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    public Optional<IpPrefix> getRemotePrefix() {
+        return remotePrefix;
+    }
+
+    @Override
+    public boolean test(final ConnectionId id) {
+        if (transport != null && transport != id.getProtocol()) {
+            return false;
+        }
+
+        if (localPort != -1 && localPort != id.getLocalPort()) {
+            return false;
+        }
+
+        return remotePrefix.isEmpty() || remotePrefix.get().contains(id.getRawRemoteIpAddress());
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionMatcher[" + (transport == null ? "*" : transport) + ":"
+                + (localPort == -1 ? "*" : localPort) + ":" + remotePrefix.map(IpPrefix::toString).orElse("*") + "]";
+    }
+
+    public static class Builder {
+
+        private Transport transport;
+        private int localPort = -1;
+        private IpPrefix remotePrefix;
+
+        private Builder() {
+            // use ConnectionMatcher.of()
+        }
+
+        public Builder withTransport(final Transport transport) {
+            assertNotNull(transport, "The transport cannot be null");
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder withLocalPort(final int port) {
+            assertArgument(port >= 0 && port <= 0xFFFF, "The port must be between 0 - 65535");
+            this.localPort = port;
+            return this;
+        }
+
+        /**
+         * @param prefix the remote prefix in CIDR notation, e.g. "10.36.0.0/16" or "2001:db8::/32". If no
+         *               length is given, the full address has to match. Note that this must be an IP address
+         *               and not a host name.
+         */
+        public Builder withRemotePrefix(final String prefix) {
+            this.remotePrefix = IpPrefix.parse(prefix);
+            return this;
+        }
+
+        public ConnectionMatcher build() {
+            return new ConnectionMatcher(transport, localPort, Optional.ofNullable(remotePrefix));
+        }
+    }
+}
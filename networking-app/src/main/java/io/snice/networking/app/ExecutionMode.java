@@ -0,0 +1,65 @@
+package io.snice.networking.app;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import io.netty.channel.EventLoop;
+import io.netty.util.internal.ThreadExecutorMap;
+import io.snice.networking.config.WorkerPoolConfiguration;
+
+import static io.snice.preconditions.PreConditions.assertNotEmpty;
+
+/**
+ * Decides on which thread the application, i.e. the {@link MessagePipe}s registered for a given
+ * {@link ConnectionContext}, is invoked.
+ */
+public enum ExecutionMode {
+
+    /**
+     * The application is invoked straight on the event loop that read the message off of the network.
+     * This is the fastest option but the application MUST NOT block, or it will stall every other
+     * connection that happens to be served by the same event loop. This is the default.
+     */
+    EVENT_LOOP,
+
+    /**
+     * The application is invoked on the worker pool (see {@link WorkerPoolConfiguration}), which means
+     * that the application is free to block. Messages for the same connection are still processed
+     * one at a time, in the order they were received, and any message the application sends as a
+     * result is written through the event loop of the connection it came in on.
+     */
+    WORKER,
+
+    /**
+     * Every invocation of the application, i.e. every message and event, is executed on a virtual thread
+     * of its own, which means that the application can be written in a plain blocking style (e.g. send a request
+     * and wait for the answer) and still have hundreds of thousands of those in flight at the same time.
+     *
+     * Unlike {@link #WORKER}, messages for the same connection are NOT processed one at a time and as such,
+     * they may be processed out of order. If they weren't, an application waiting for an answer would
+     * also prevent that very answer from ever being processed, if it arrives over the same connection.
+     *
+     * If the JVM doesn't support virtual threads, the stack will refuse to start since a pool of platform threads
+     * would quickly be exhausted by application threads waiting for answers that no one is left to process.
+     */
+    VIRTUAL_THREAD;
+
+    @JsonCreator
+    public static ExecutionMode of(final String mode) {
+        assertNotEmpty(mode, "The execution mode cannot be null or the empty string");
+        return ExecutionMode.valueOf(mode.trim().toUpperCase());
+    }
+
+    /**
+     * The blocking helpers, such as sending a request and waiting for the answer, park the calling thread
+     * until the answer has been processed by an event loop. Calling one of those from an event loop would
+     * therefore, at best, stall every connection served by that event loop and, at worst, wait forever
+     * for an answer that the very same event loop is supposed to process.
+     *
+     * @throws IllegalStateException in case the calling thread is a Netty event loop.
+     */
+    public static void assertMayBlock() throws IllegalStateException {
+        if (ThreadExecutorMap.currentExecutor() instanceof EventLoop) {
+            throw new IllegalStateException("Blocking operations are not allowed on the event loop, use "
+                    + WORKER + " or " + VIRTUAL_THREAD + " or the asynchronous version instead");
+        }
+    }
+}
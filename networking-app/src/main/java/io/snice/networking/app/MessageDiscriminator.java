@@ -0,0 +1,41 @@
+package io.snice.networking.app;
+
+/**
+ * A {@link MessageDiscriminator} maps a message to a small integer "key", such as the command code of
+ * a diameter message or the message type of a GTP message, and is used to speed up the matching of
+ * incoming messages against the {@link MessagePipe}s registered by the application. Without it, every
+ * message is tested against every registered rule, in order, until one matches. With it, the rule
+ * that matched the last message with the same key is tested first, which means that, regardless
+ * of how many rules the application has registered, it is typically just a single predicate
+ * that is evaluated per message.
+ *
+ * A {@link MessageDiscriminator} is supplied by the {@link io.snice.networking.bundles.ProtocolBundle}
+ * (see {@link io.snice.networking.bundles.ProtocolBundle#getMessageDiscriminator()}) since it is the bundle
+ * that knows what the typical rules for its protocol look at.
+ *
+ * IMPORTANT: the key must capture everything the rules are looking at. If two messages have the same key,
+ * they MUST be matched by the same rule. E.g., for diameter, the typical rule is {@code DiameterEvent::isULR},
+ * which only looks at the command code and whether or not it is a request, so those two make up the key.
+ * If a bundle cannot guarantee that for a particular message, it must return {@link #NO_KEY} for that message
+ * in which case the message will be tested against every rule in order, just as if there was no discriminator.
+ *
+ * However, only the application knows what its rules really look at and a rule that looks beyond the key, such
+ * as at an AVP, would break the first-match semantics of the rules. As such, the discriminator is only used for
+ * the contexts where the application has opted in through
+ * {@link ConnectionContext.Builder#withIndexedMatching()}.
+ *
+ * @author jonas@jonasborjesson.com
+ */
+@FunctionalInterface
+public interface MessageDiscriminator<T> {
+
+    /**
+     * Returned by {@link #discriminate(Object)} when there is no key for the given message.
+     */
+    int NO_KEY = -1;
+
+    /**
+     * @return the key for the given message, which must be zero or greater, or {@link #NO_KEY}.
+     */
+    int discriminate(T msg);
+}
@@ -2,7 +2,12 @@ package io.snice.networking.app;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.snice.networking.config.FsmTableConfiguration;
 import io.snice.networking.config.NetworkInterfaceConfiguration;
+import io.snice.networking.config.TransportMode;
+import io.snice.networking.config.UdpFlowTableConfiguration;
+import io.snice.networking.config.WorkerPoolConfiguration;
+import io.snice.networking.config.WriteCoalescingConfiguration;
 import io.snice.preconditions.PreConditions;
 
 import java.util.Collections;
@@ -13,6 +18,89 @@ public class NetworkAppConfig {
     @JsonProperty("networkInterfaces")
     private List<NetworkInterfaceConfiguration> networkInterfaces;
 
+    /**
+     * The I/O transport for the underlying event loops and channels. See {@link TransportMode}.
+     */
+    @JsonProperty("transportMode")
+    private TransportMode transportMode = TransportMode.NIO;
+
+    /**
+     * If true, the protocol decoders will frame the inbound messages as views straight over the
+     * pooled buffers Netty read the data into, as opposed to first copying every message into
+     * a new byte-array. This saves an allocation and a copy per message but the
+     * message is then only valid for as long as the inbound event is being processed, i.e.,
+     * if your application holds onto a message after it has been handed to you,
+     * you must copy it. Hence, off by default.
+     *
+     * Stacks that keep messages around on their own, such as the Diameter and GTP FSMs tracking
+     * transactions, copy those messages out of the pooled buffers before they hand them to the application.
+     */
+    @JsonProperty("zeroCopyDecoding")
+    private boolean zeroCopyDecoding = false;
+
+    /**
+     * Whether, and how, to coalesce the flushes of outbound messages. See {@link WriteCoalescingConfiguration}.
+     */
+    @JsonProperty("writeCoalescing")
+    private WriteCoalescingConfiguration writeCoalescing = new WriteCoalescingConfiguration();
+
+    /**
+     * How to keep track of the UDP "connections". See {@link UdpFlowTableConfiguration}.
+     */
+    @JsonProperty("udpFlowTable")
+    private UdpFlowTableConfiguration udpFlowTable = new UdpFlowTableConfiguration();
+
+    /**
+     * The {@link ExecutionMode} used by all connection contexts that didn't specify one of their own.
+     * See {@link ConnectionContext.Builder#withExecutionMode(ExecutionMode)}.
+     */
+    @JsonProperty("executionMode")
+    private ExecutionMode executionMode = ExecutionMode.EVENT_LOOP;
+
+    /**
+     * The worker pool used by those connection contexts that do not want the application to be invoked
+     * on the event loop. See {@link WorkerPoolConfiguration} and {@link ExecutionMode}.
+     */
+    @JsonProperty("workerPool")
+    private WorkerPoolConfiguration workerPool = new WorkerPoolConfiguration();
+
+    /**
+     * If true, the transport adapters will invoke the application layer directly instead of handing every
+     * message, and event, to the next handler in the pipeline, saving a pipeline hop and an event object
+     * per message. If the protocol stack has an FSM layer, the adapters invoke the FSM layer directly, which
+     * in turn invokes the application layer directly. The FSM layer still remains a handler in the pipeline
+     * though, since it has to see everything that is written to the channel.
+     */
+    @JsonProperty("fusedPipeline")
+    private boolean fusedPipeline = false;
+
+    /**
+     * How to keep track of the FSMs for connectionless transports, where there is one FSM per
+     * remote peer, as opposed to one per channel. See {@link FsmTableConfiguration}.
+     */
+    @JsonProperty("fsmTable")
+    private FsmTableConfiguration fsmTable = new FsmTableConfiguration();
+
+    /**
+     * How often the clock used for time stamping the messages read off of the network is refreshed.
+     * Rather than reading the system clock for every message, the time is read once every tick by a
+     * dedicated thread, see {@link io.snice.networking.common.time.CachedClock}. Zero means that the system
+     * clock is read for every message.
+     */
+    @JsonProperty("clockResolutionMillis")
+    private long clockResolutionMillis = 1;
+
+    /**
+     * If true, the inbound events handed to the application, and the ones wrapping them on their
+     * way through the pipeline, are taken from, and handed back to, per-thread pools as opposed to being
+     * allocated for every message. An event is handed back to the pool as soon as the application
+     * has been invoked with it, which means that if your application holds onto an event after it has
+     * been handed to you, you must copy what you need out of it. Events handed to a worker
+     * (see {@link ExecutionMode}) are never recycled. Hence, off by default.
+     */
+    @JsonProperty("recycleEvents")
+    private boolean recycleEvents = false;
+
     @JsonIgnore
     public List<NetworkInterfaceConfiguration> getNetworkInterfaces() {
         if (networkInterfaces == null) {
@@ -25,4 +113,95 @@ public class NetworkAppConfig {
     public void setNetworkInterfaces(final List<NetworkInterfaceConfiguration> networkInterfaces) {
         this.networkInterfaces = networkInterfaces;
     }
+
+    @JsonIgnore
+    public TransportMode getTransportMode() {
+        return transportMode;
+    }
+
+    public void setTransportMode(final TransportMode transportMode) {
+        this.transportMode = transportMode == null ? TransportMode.NIO : transportMode;
+    }
+
+    @JsonIgnore
+    public boolean isZeroCopyDecoding() {
+        return zeroCopyDecoding;
+    }
+
+    public void setZeroCopyDecoding(final boolean zeroCopyDecoding) {
+        this.zeroCopyDecoding = zeroCopyDecoding;
+    }
+
+    @JsonIgnore
+    public WriteCoalescingConfiguration getWriteCoalescing() {
+        return writeCoalescing;
+    }
+
+    public void setWriteCoalescing(final WriteCoalescingConfiguration writeCoalescing) {
+        this.writeCoalescing = writeCoalescing == null ? new WriteCoalescingConfiguration() : writeCoalescing;
+    }
+
+    @JsonIgnore
+    public UdpFlowTableConfiguration getUdpFlowTable() {
+        return udpFlowTable;
+    }
+
+    public void setUdpFlowTable(final UdpFlowTableConfiguration udpFlowTable) {
+        this.udpFlowTable = udpFlowTable == null ? new UdpFlowTableConfiguration() : udpFlowTable;
+    }
+
+    @JsonIgnore
+    public WorkerPoolConfiguration getWorkerPool() {
+        return workerPool;
+    }
+
+    public void setWorkerPool(final WorkerPoolConfiguration workerPool) {
+        this.workerPool = workerPool == null ? new WorkerPoolConfiguration() : workerPool;
+    }
+
+    @JsonIgnore
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(final ExecutionMode executionMode) {
+        this.executionMode = executionMode == null ? ExecutionMode.EVENT_LOOP : executionMode;
+    }
+
+    @JsonIgnore
+    public boolean isFusedPipeline() {
+        return fusedPipeline;
+    }
+
+    public void setFusedPipeline(final boolean fusedPipeline) {
+        this.fusedPipeline = fusedPipeline;
+    }
+
+    @JsonIgnore
+    public FsmTableConfiguration getFsmTable() {
+        return fsmTable;
+    }
+
+    public void setFsmTable(final FsmTableConfiguration fsmTable) {
+        this.fsmTable = fsmTable == null ? new FsmTableConfiguration() : fsmTable;
+    }
+
+    @JsonIgnore
+    public long getClockResolutionMillis() {
+        return clockResolutionMillis;
+    }
+
+    public void setClockResolutionMillis(final long clockResolutionMillis) {
+        PreConditions.assertArgument(clockResolutionMillis >= 0, "The resolution of the clock cannot be negative");
+        this.clockResolutionMillis = clockResolutionMillis;
+    }
+
+    @JsonIgnore
+    public boolean isRecycleEvents() {
+        return recycleEvents;
+    }
+
+    public void setRecycleEvents(final boolean recycleEvents) {
+        this.recycleEvents = recycleEvents;
+    }
 }
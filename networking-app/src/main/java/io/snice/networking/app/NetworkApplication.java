@@ -50,7 +50,7 @@ public abstract class NetworkApplication<E extends Environment<K, T, C>, K exten
      * of your application.
      */
     public final void run(final C config, final String... args) throws Exception {
-        final GenericBootstrap<K, T, C> bootstrap = new GenericBootstrap<>(config);
+        final GenericBootstrap<K, T, C> bootstrap = new GenericBootstrap<>(config, bundle.getMessageDiscriminator().orElse(null));
         initialize(bootstrap);
         final List<ConnectionContext<K, T>> connectionContexts = bootstrap.getConnectionContexts();
 
@@ -1,14 +1,21 @@
 package io.snice.networking.app.impl;
 
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.snice.networking.common.ChannelContext;
 import io.snice.networking.common.ConnectionId;
 import io.snice.networking.common.event.ApplicationEvent;
 import io.snice.networking.common.event.IOEvent;
 import io.snice.networking.common.event.MessageIOEvent;
+import io.snice.networking.common.timer.Timeout;
+import io.snice.networking.common.timer.Timer;
+import io.snice.time.Clock;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
 
 /**
  * Whenever we invoke any type of user defined code, such as  state machine
@@ -25,34 +32,78 @@ import java.util.List;
  */
 public class BufferingChannelContext<T> implements ChannelContext<T> {
 
+    private static final byte DOWNSTREAM = 0;
+    private static final byte UPSTREAM = 1;
+    private static final byte EVENT = 2;
+    private static final byte CLOSE = 3;
+
     private final ConnectionId connectionId;
     private final ChannelContext<T> actualChannelContext;
 
-    private T downstream;
-    private T upstream;
-    private IOEvent<T> userEvent;
-    private Object applicationEvent;
+    /**
+     * Everything the user code has asked us to do, in the order it asked for it, along with what kind
+     * of operation it is and, for the downstream messages, the promise of the write, if any. These
+     * are plain arrays that are reused for every invocation and only grow in the rare case where the user
+     * code generates more than a handful of operations in one go.
+     */
+    private Object[] pending = new Object[4];
+    private byte[] kinds = new byte[4];
+    private ChannelPromise[] promises = new ChannelPromise[4];
+
+    /**
+     * The event that caused the user code to buffer the operation, which is only known once the operation
+     * is drained, see {@link #drain(ChannelHandlerContext, IOEvent, ChannelPromise, Clock)}.
+     */
+    private IOEvent<T>[] origins = new IOEvent[4];
+
+    /**
+     * The next pending operation to process and the number of pending operations respectively.
+     */
+    private int head;
+    private int count;
+
+    /**
+     * The operations before this index have been given their origin.
+     */
+    private int stamped;
+
+    /**
+     * Whether the connection has been closed through this context, after which everything is ignored.
+     */
+    private boolean closed;
+
+    /**
+     * Whether we are in the middle of draining, see {@link #drain(ChannelHandlerContext, IOEvent, ChannelPromise, Clock)}.
+     */
+    private boolean draining;
+
+    /**
+     * The index of the last buffered downstream message, which is the one that will carry the
+     * promise of the original write, or -1 if nothing has been sent downstream since the last drain.
+     */
+    private int lastDownstream = -1;
 
     /**
-     * If the user wish to send multiple up or downstream messages then we'll
-     * use these lists. Depending on the protocol and the state machines
-     * that this may be powering, it may or may not be very common to have
-     * a single invocation of e.g. a state machine yielding multiple up and
-     * downstreams. This is e.g. true for a SIP Transaction who at most will
-     * generate a single downstream and/or a single upstream for every invocation.
-     * <p>
-     * But Warning: early optimization is the root of all evil! :-)
+     * The execution context of the FSM using this context, which is where the events scheduled
+     * through {@link #schedule(Object, Duration)} are delivered.
      */
-    private final List<T> downstreams = new ArrayList<>(4); // TODO: should be configurable
-    private final List<T> upstreams = new ArrayList<>(4);
-    private final List<IOEvent<T>> userEvents = new ArrayList<>(4);
+    private FsmExecutionContext<T, ?, ?, ?> executionContext;
 
-    // TODO: merge with userEvents
-    private final List<Object> applicationEvents = new ArrayList<>(4);
+    /**
+     * If the pipeline has been fused (see {@link io.snice.networking.app.NetworkAppConfig#isFusedPipeline()}),
+     * the layer everything going upstream is handed to directly, as opposed to firing it through the
+     * pipeline. Otherwise null.
+     */
+    private final FusedLayer<T> fused;
 
     public BufferingChannelContext(final ConnectionId connectionId, final ChannelContext<T> channelContext) {
+        this(connectionId, channelContext, null);
+    }
+
+    public BufferingChannelContext(final ConnectionId connectionId, final ChannelContext<T> channelContext, final FusedLayer<T> fused) {
         this.connectionId = connectionId;
         this.actualChannelContext = channelContext;
+        this.fused = fused;
     }
 
     @Override
@@ -60,31 +111,85 @@ public class BufferingChannelContext<T> implements ChannelContext<T> {
         return connectionId;
     }
 
+    /**
+     * The context of the connection itself, as opposed to this buffering one.
+     */
+    ChannelContext<T> getActualChannelContext() {
+        return actualChannelContext;
+    }
+
+    void bind(final FsmExecutionContext<T, ?, ?, ?> executionContext) {
+        this.executionContext = executionContext;
+    }
+
     @Override
-    public void sendDownstream(final T msg) {
-        if (downstream == null) {
-            downstream = msg;
-        } else {
-            downstreams.add(msg);
+    public Timer getTimer() {
+        return actualChannelContext.getTimer();
+    }
+
+    /**
+     * The event is handed back to the FSM, through its {@link FsmExecutionContext}, on the event loop
+     * of the channel, just like any other event. Hence, the FSM never has to worry about the thread of a timer.
+     * Note that the execution context is only bound once the FSM exists, which is after its context has been
+     * created, so it is looked up when the timer fires.
+     */
+    @Override
+    public Timeout schedule(final Object event, final Duration delay) {
+        assertNotNull(event, "The event to schedule cannot be null");
+        return getTimer().schedule(() -> onTimerEvent(event), delay);
+    }
+
+    private void onTimerEvent(final Object event) {
+        if (executionContext != null) {
+            executionContext.onTimerEvent(event);
         }
     }
 
+    @Override
+    public void sendDownstream(final T msg) {
+        lastDownstream = count;
+        add(DOWNSTREAM, msg);
+    }
+
     @Override
     public void sendUpstream(final T msg) {
-        if (upstream == null) {
-            upstream = msg;
-        } else {
-            upstreams.add(msg);
-        }
+        add(UPSTREAM, msg);
     }
 
     @Override
     public void fireUserEvent(final IOEvent<T> evt) {
-        if (userEvent == null) {
-            userEvent = evt;
-        } else {
-            userEvents.add(evt);
+        add(EVENT, evt);
+    }
+
+    @Override
+    public void close() {
+        add(CLOSE, null);
+    }
+
+    /**
+     * Whether the connection has been closed through this context. Note that the close only takes effect
+     * once drained, just like everything else.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void add(final byte kind, final Object item) {
+        if (closed) {
+            return;
+        }
+
+        if (count == pending.length) {
+            final int length = pending.length * 2;
+            pending = Arrays.copyOf(pending, length);
+            kinds = Arrays.copyOf(kinds, length);
+            promises = Arrays.copyOf(promises, length);
+            origins = Arrays.copyOf(origins, length);
         }
+
+        pending[count] = item;
+        kinds[count] = kind;
+        ++count;
     }
 
     @Override
@@ -95,43 +200,113 @@ public class BufferingChannelContext<T> implements ChannelContext<T> {
         fireUserEvent(appEvent);
     }
 
-    public void processDownstream(final ChannelHandlerContext ctx, final IOEvent<T> originalEvent) {
-        if (downstream == null) {
+    /**
+     * Process everything the user code asked us to do, in the order it was asked for: downstream messages
+     * are written, upstream messages are passed on to the next handler and events are fired as user events.
+     * Once the connection has been closed, everything else is dropped and the writes fail.
+     *
+     * Note that while passing things on to the next handler, or writing to the channel, we may very well
+     * end up invoking the same user code again, which then buffers more operations and drains again. Only the
+     * outermost drain processes the operations, so they are processed in order, and a nested drain only
+     * records what caused the operations it was given, which are then processed as part of the outer drain.
+     *
+     * @param originalEvent the event that caused the user code to be invoked, or null if the user code was
+     *                      invoked because something was written to the channel.
+     * @param promise the promise of the original write, if any, which is handed to the last downstream message,
+     *                which completes after all the others, or completed right away if nothing was sent downstream
+     *                (e.g. the state machine decided to swallow the message).
+     * @param clock only read if we have to create a new upstream event and there is no original event
+     *              to take the arrival time from.
+     */
+    public void drain(final ChannelHandlerContext ctx, final IOEvent<T> originalEvent, final ChannelPromise promise, final Clock clock) {
+        if (closed) {
+            if (promise != null) {
+                promise.tryFailure(new ClosedChannelException());
+            }
             return;
         }
 
-        ctx.write(downstream);
-        downstream = null;
+        if (promise != null) {
+            if (lastDownstream >= head) {
+                promises[lastDownstream] = promise;
+            } else {
+                promise.trySuccess();
+            }
+        }
+        lastDownstream = -1;
 
-        downstreams.forEach(ctx::write);
-        downstreams.clear();
-    }
+        while (stamped < count) {
+            origins[stamped++] = originalEvent;
+        }
 
-    public void processUpstream(final ChannelHandlerContext ctx, final IOEvent<T> originalEvent) {
-        if (upstream == null) {
+        if (draining) {
             return;
         }
 
-        final var evt = wrap(upstream, originalEvent);
-        upstream = null;
-        ctx.fireChannelRead(evt);
-
-        // TODO: may have to clear the upstream list before invoking because
-        // it can interfer it seems like. Will have to think some more...
-        upstreams.forEach(msg -> ctx.fireChannelRead(wrap(msg, originalEvent)));
-        upstreams.clear();
+        draining = true;
+        try {
+            process(ctx, clock);
+        } finally {
+            draining = false;
+        }
     }
 
-    public void processEvents(final ChannelHandlerContext ctx, final IOEvent<T> originalEvent) {
-        if (userEvent == null) {
-            return;
+    private void process(final ChannelHandlerContext ctx, final Clock clock) {
+        while (head < count) {
+            final int i = head++;
+            final Object item = pending[i];
+            final IOEvent<T> originalEvent = origins[i];
+            pending[i] = null;
+            origins[i] = null;
+
+            if (closed) {
+                final var itemPromise = promises[i];
+                if (itemPromise != null) {
+                    promises[i] = null;
+                    itemPromise.tryFailure(new ClosedChannelException());
+                }
+                continue;
+            }
+
+            switch (kinds[i]) {
+                case DOWNSTREAM:
+                    final var itemPromise = promises[i];
+                    if (itemPromise == null) {
+                        ctx.write(item);
+                    } else {
+                        promises[i] = null;
+                        ctx.write(item, itemPromise);
+                    }
+                    break;
+                case UPSTREAM:
+                    if (fused != null) {
+                        fused.processMessage(ctx, channelContextOf(originalEvent), (T) item, PooledMessageIOEvent.bufferOf(originalEvent));
+                    } else {
+                        ctx.fireChannelRead(wrap((T) item, originalEvent, clock));
+                    }
+                    break;
+                case CLOSE:
+                    closed = true;
+                    actualChannelContext.close();
+                    break;
+                default:
+                    if (fused != null) {
+                        fused.processEvent(ctx, item);
+                    } else {
+                        ctx.fireUserEventTriggered(item);
+                    }
+                    break;
+            }
         }
 
-        ctx.fireUserEventTriggered(userEvent);
-        userEvent = null;
+        head = 0;
+        count = 0;
+        stamped = 0;
+    }
 
-        userEvents.forEach(ctx::fireUserEventTriggered);
-        userEvents.clear();
+    private DefaultChannelContext<T> channelContextOf(final IOEvent<T> originalEvent) {
+        final var channelContext = originalEvent != null ? originalEvent.channelContext() : actualChannelContext;
+        return (DefaultChannelContext<T>) channelContext;
     }
 
     /**
@@ -142,12 +317,20 @@ public class BufferingChannelContext<T> implements ChannelContext<T> {
      * we successfully framed the message off of the network socket. We'd like
      * to preserve that arrival time all the way up to the client.
      *
-     * @param msg
-     * @param originalEvent
-     * @return
+     * By far the most common case is that the FSM simply passes the message it was given
+     * on, in which case the original event is passed on as is and no new event is created.
      */
-    private MessageIOEvent<T> wrap(final T msg, final IOEvent<T> originalEvent) {
-        return MessageIOEvent.create(originalEvent.channelContext(), originalEvent.arrivalTime(), msg);
+    private MessageIOEvent<T> wrap(final T msg, final IOEvent<T> originalEvent, final Clock clock) {
+        if (originalEvent == null) {
+            return MessageIOEvent.create(actualChannelContext, clock.getCurrentTimeMillis(), msg);
+        }
+
+        if (originalEvent.isMessageIOEvent() && originalEvent.toMessageIOEvent().getMessage() == msg) {
+            return originalEvent.toMessageIOEvent();
+        }
+
+        return PooledMessageIOEvent.create(originalEvent.channelContext(), originalEvent.arrivalTime(), msg,
+                PooledMessageIOEvent.bufferOf(originalEvent));
     }
 
 }
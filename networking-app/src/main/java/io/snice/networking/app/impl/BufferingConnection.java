@@ -1,6 +1,8 @@
 package io.snice.networking.app.impl;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.Future;
 import io.snice.buffer.Buffer;
 import io.snice.networking.common.Connection;
 import io.snice.networking.common.ConnectionId;
@@ -8,16 +10,76 @@ import io.snice.networking.common.Transport;
 
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * The {@link Connection} handed to the application when it is invoked by the {@link NettyApplicationLayer}.
+ *
+ * Anything the application sends while it is being invoked is buffered up and then written in one go, with
+ * a single flush, once the application returns (see {@link #processMessage(ChannelHandlerContext)}). The
+ * application can send any number of messages.
+ *
+ * If the application holds on to the connection and sends something outside of its invocation, e.g. from
+ * another thread or at a later point in time, there is nothing that will process the buffered messages,
+ * so those are written straight to the channel instead.
+ *
+ * When the application is invoked on the event loop, the same {@link BufferingConnection} is reused
+ * for every invocation on the same channel.
+ */
 public class BufferingConnection<T> implements Connection<T> {
 
     private final ConnectionId connectionId;
 
-    private T msgToSend;
+    /**
+     * The channel the messages eventually will be written to, if known, which is used for checking
+     * the writability of the channel and for those messages sent outside of an invocation.
+     */
+    private final Channel channel;
+
+    /**
+     * The thread currently invoking the application, if any. Only messages sent by this thread
+     * are buffered.
+     */
+    private volatile Thread owner;
+
+    private final List<T> msgsToSend = new ArrayList<>(2);
+
+    /**
+     * For every message in {@link #msgsToSend}, the future to complete once the message has been
+     * written if the application used {@link #sendAsync(Object)}, or null if it didn't.
+     */
+    private final List<CompletableFuture<Void>> sendFutures = new ArrayList<>(2);
 
     public BufferingConnection(final ConnectionId connectionId) {
+        this(connectionId, null);
+    }
+
+    public BufferingConnection(final ConnectionId connectionId, final Channel channel) {
         this.connectionId = connectionId;
+        this.channel = channel;
+    }
+
+    /**
+     * Called just before the application is invoked by the current thread. Anything the application sends
+     * from this thread will be buffered until {@link #processMessage(ChannelHandlerContext)} is called.
+     */
+    void begin() {
+        owner = Thread.currentThread();
+    }
+
+    /**
+     * Called once the application returns.
+     */
+    void end() {
+        owner = null;
+    }
+
+    private boolean isBuffering() {
+        return channel == null || owner == Thread.currentThread();
     }
 
     @Override
@@ -92,15 +154,58 @@ public class BufferingConnection<T> implements Connection<T> {
 
     @Override
     public void send(final T msg) {
-        if (msgToSend == null) {
-            msgToSend = msg;
+        if (!isBuffering()) {
+            channel.writeAndFlush(msg, channel.voidPromise());
+            return;
         }
+
+        msgsToSend.add(msg);
+        sendFutures.add(null);
     }
 
+    @Override
+    public CompletionStage<Void> sendAsync(final T msg) {
+        final var future = new CompletableFuture<Void>();
+        if (!isBuffering()) {
+            channel.writeAndFlush(msg).addListener(f -> complete(future, f));
+            return future;
+        }
+
+        msgsToSend.add(msg);
+        sendFutures.add(future);
+        return future;
+    }
+
+    @Override
+    public boolean isWritable() {
+        return channel == null || channel.isWritable();
+    }
+
+    /**
+     * Write all the buffered messages, if any. Note that they are not flushed.
+     */
     public void processMessage(final ChannelHandlerContext ctx) {
-        if (msgToSend != null) {
-            ctx.write(msgToSend);
-            msgToSend = null;
+        final int count = msgsToSend.size();
+        for (int i = 0; i < count; ++i) {
+            final var future = sendFutures.get(i);
+            if (future == null) {
+                ctx.write(msgsToSend.get(i), ctx.voidPromise());
+            } else {
+                final var promise = ctx.newPromise();
+                promise.addListener(f -> complete(future, f));
+                ctx.write(msgsToSend.get(i), promise);
+            }
+        }
+
+        msgsToSend.clear();
+        sendFutures.clear();
+    }
+
+    private static void complete(final CompletableFuture<Void> future, final Future<? super Void> f) {
+        if (f.isSuccess()) {
+            future.complete(null);
+        } else {
+            future.completeExceptionally(f.cause());
         }
     }
 
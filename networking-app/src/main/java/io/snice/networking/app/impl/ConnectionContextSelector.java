@@ -0,0 +1,160 @@
+package io.snice.networking.app.impl;
+
+import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.ConnectionMatcher;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.Transport;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * Selects which {@link ConnectionContext} a new connection belongs to, which is the first context,
+ * in the order they were registered, whose predicate accepts the {@link ConnectionId} of the new connection.
+ *
+ * The selector is built once and is then shared by all channels (it is immutable after construction).
+ * Contexts whose predicate is a {@link ConnectionMatcher} are indexed by transport, local port and
+ * remote prefix so for those, the cost of selecting a context is a handful of hash lookups no matter
+ * how many there are. Any other predicate is kept in a fallback list and is evaluated in order, but only
+ * those that were registered before the best indexed match, if any, need to be evaluated.
+ */
+public final class ConnectionContextSelector {
+
+    private static final int ANY_PORT = -1;
+
+    private final Map<Long, Bucket> buckets;
+
+    private final Entry[] fallback;
+
+    public static ConnectionContextSelector of(final List<? extends ConnectionContext> ctxs) {
+        assertNotNull(ctxs, "The list of connection contexts cannot be null");
+        final Map<Long, Bucket> buckets = new HashMap<>();
+        final List<Entry> fallback = new ArrayList<>();
+        for (int i = 0; i < ctxs.size(); ++i) {
+            final ConnectionContext ctx = ctxs.get(i);
+            final Entry entry = new Entry(i, ctx);
+            if (ctx.getPredicate() instanceof ConnectionMatcher) {
+                final ConnectionMatcher matcher = (ConnectionMatcher) ctx.getPredicate();
+                buckets.computeIfAbsent(key(matcher.getTransport(), matcher.getLocalPort()), k -> new Bucket())
+                        .add(matcher, entry);
+            } else {
+                fallback.add(entry);
+            }
+        }
+
+        buckets.values().forEach(Bucket::freeze);
+        return new ConnectionContextSelector(buckets, fallback.toArray(new Entry[0]));
+    }
+
+    private ConnectionContextSelector(final Map<Long, Bucket> buckets, final Entry[] fallback) {
+        this.buckets = buckets;
+        this.fallback = fallback;
+    }
+
+    /**
+     * @return the {@link ConnectionContext} the given connection belongs to or null if there is none.
+     */
+    public ConnectionContext select(final ConnectionId id) {
+        Entry best = null;
+        if (!buckets.isEmpty()) {
+            best = find(id.getProtocol(), id.getLocalPort(), id, best);
+            best = find(id.getProtocol(), ANY_PORT, id, best);
+            best = find(null, id.getLocalPort(), id, best);
+            best = find(null, ANY_PORT, id, best);
+        }
+
+        final int limit = best == null ? Integer.MAX_VALUE : best.ordinal;
+        for (int i = 0; i < fallback.length && fallback[i].ordinal < limit; ++i) {
+            if (fallback[i].ctx.test(id)) {
+                return fallback[i].ctx;
+            }
+        }
+
+        return best == null ? null : best.ctx;
+    }
+
+    private Entry find(final Transport transport, final int port, final ConnectionId id, final Entry best) {
+        final Bucket bucket = buckets.get(key(transport, port));
+        return bucket == null ? best : bucket.find(id, best);
+    }
+
+    private static long key(final Transport transport, final int port) {
+        final long t = transport == null ? 0 : transport.ordinal() + 1;
+        return t << 32 | port & 0xFFFFFFFFL;
+    }
+
+    private static Entry min(final Entry a, final Entry b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.ordinal <= b.ordinal ? a : b;
+    }
+
+    /**
+     * All the {@link ConnectionMatcher}s for the same transport and local port.
+     */
+    private static final class Bucket {
+
+        /**
+         * The first context that doesn't care about the remote address.
+         */
+        private Entry any;
+
+        private final Map<IpPrefix, Entry> prefixes = new HashMap<>();
+
+        private final TreeSet<Integer> lengthSet = new TreeSet<>();
+
+        /**
+         * The distinct prefix lengths in use within this bucket.
+         */
+        private int[] lengths;
+
+        private void add(final ConnectionMatcher matcher, final Entry entry) {
+            if (matcher.getRemotePrefix().isEmpty()) {
+                any = min(any, entry);
+                return;
+            }
+
+            // two matchers with the same transport, port and prefix are the same so the
+            // second one can never be selected, which is why we only keep the first.
+            final IpPrefix prefix = matcher.getRemotePrefix().get();
+            prefixes.merge(prefix, entry, ConnectionContextSelector::min);
+            lengthSet.add(prefix.getLength());
+        }
+
+        private void freeze() {
+            lengths = lengthSet.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private Entry find(final ConnectionId id, final Entry best) {
+            Entry result = min(best, any);
+            if (lengths.length == 0) {
+                return result;
+            }
+
+            final byte[] remote = id.getRawRemoteIpAddress();
+            for (int i = 0; i < lengths.length; ++i) {
+                result = min(result, prefixes.get(IpPrefix.of(remote, lengths[i])));
+            }
+            return result;
+        }
+    }
+
+    private static final class Entry {
+        private final int ordinal;
+        private final ConnectionContext ctx;
+
+        private Entry(final int ordinal, final ConnectionContext ctx) {
+            this.ordinal = ordinal;
+            this.ctx = ctx;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package io.snice.networking.app.impl;
 
 import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.ExecutionMode;
+import io.snice.networking.app.MessageDiscriminator;
 import io.snice.networking.app.MessagePipe;
 import io.snice.networking.app.SingleMessagePipe;
 import io.snice.networking.common.Connection;
@@ -17,12 +19,30 @@ import static io.snice.preconditions.PreConditions.assertNotNull;
 public class ConnectionCtxBuilder<K extends Connection<T>, T, R> implements ConnectionContext.Builder<K, T, R> {
 
     private final Predicate<ConnectionId> condition;
+    private final MessageDiscriminator<T> discriminator;
     private Function<K, T> dropFunction;
     private Consumer<ConnectionContext.ConfigurationBuilder<K, T, R>> confBuilderConsumer;
     private Consumer<K> saveFunction;
+    private ExecutionMode executionMode;
+    private boolean indexedMatching;
 
     ConnectionCtxBuilder(final Predicate<ConnectionId> condition) {
+        this(condition, null);
+    }
+
+    ConnectionCtxBuilder(final Predicate<ConnectionId> condition, final MessageDiscriminator<T> discriminator) {
+        this(condition, discriminator, ExecutionMode.EVENT_LOOP);
+    }
+
+    /**
+     * @param executionMode the {@link ExecutionMode} to use unless the user asks for a different one.
+     */
+    ConnectionCtxBuilder(final Predicate<ConnectionId> condition,
+                         final MessageDiscriminator<T> discriminator,
+                         final ExecutionMode executionMode) {
         this.condition = condition;
+        this.discriminator = discriminator;
+        this.executionMode = executionMode;
     }
 
     public ConnectionContext<K, T> build() {
@@ -38,7 +58,8 @@ public class ConnectionCtxBuilder<K extends Connection<T>, T, R> implements Conn
             eventRules = List.of();
         }
 
-        return new DefaultConnectionContext<K, T>(condition, saveFunction, dropFunction, rules, eventRules);
+        final var indexBy = indexedMatching ? discriminator : null;
+        return new DefaultConnectionContext<K, T>(condition, saveFunction, dropFunction, rules, eventRules, indexBy, executionMode);
     }
 
     @Override
@@ -61,6 +82,19 @@ public class ConnectionCtxBuilder<K extends Connection<T>, T, R> implements Conn
         return this;
     }
 
+    @Override
+    public ConnectionContext.Builder<K, T, R> withExecutionMode(final ExecutionMode mode) {
+        assertNotNull(mode, "The execution mode cannot be null");
+        this.executionMode = mode;
+        return this;
+    }
+
+    @Override
+    public ConnectionContext.Builder<K, T, R> withIndexedMatching() {
+        this.indexedMatching = true;
+        return this;
+    }
+
     @Override
     public void drop(final Function<K, T> f) {
         assertArgument(confBuilderConsumer == null, "You have already marked this connection to be accepted, " +
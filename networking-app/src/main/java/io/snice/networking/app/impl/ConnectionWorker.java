@@ -0,0 +1,199 @@
+package io.snice.networking.app.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.snice.networking.config.WorkerPoolConfiguration.OverflowPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Invokes the application, for a single connection, on the worker pool.
+ *
+ * Every connection (for UDP, every "connection" as identified by its {@link io.snice.networking.common.ConnectionId})
+ * has its own {@link ConnectionWorker}, which has its own queue of pending jobs. The jobs are executed on the
+ * worker pool but never more than one at a time, so the application will see the messages for a given connection
+ * in the exact same order as they were read off of the network.
+ *
+ * Anything the application wishes to send (see {@link BufferingConnection}) is not written by the worker thread
+ * but handed back to the event loop of the channel the message came in on, which then writes and
+ * flushes it.
+ *
+ * Jobs are submitted on the event loop only.
+ */
+final class ConnectionWorker implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionWorker.class);
+
+    /**
+     * The max number of jobs we will execute before giving the thread back to the pool, or else
+     * a very busy connection could hog a worker thread forever.
+     */
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private final Executor executor;
+    private final ChannelHandlerContext ctx;
+    private final int maxPending;
+    private final OverflowPolicy overflowPolicy;
+
+    private final Queue<Job> jobs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Whether we have stopped reading from the channel because of {@link OverflowPolicy#PAUSE_READING}.
+     * Only ever changed on the event loop.
+     */
+    private volatile boolean paused;
+
+    ConnectionWorker(final Executor executor, final ChannelHandlerContext ctx, final int maxPending, final OverflowPolicy overflowPolicy) {
+        this.executor = executor;
+        this.ctx = ctx;
+        this.maxPending = maxPending;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Submit a new job, which is expected to invoke the application and return the {@link BufferingConnection}
+     * it gave to the application, if any, so that whatever the application wanted to send can be written.
+     *
+     * @param buffer the pooled buffer the message being processed is a view over, if any, which
+     *               will be retained until the job has been executed (or dropped).
+     */
+    void submit(final Supplier<BufferingConnection<?>> job, final ByteBuf buffer) {
+        if (pending.get() >= maxPending) {
+            switch (overflowPolicy) {
+                case DROP_NEWEST:
+                    logger.warn("Too many pending messages for {}, dropping the latest one", ctx.channel());
+                    return;
+                case DROP_OLDEST:
+                    final Job oldest = jobs.poll();
+                    if (oldest != null) {
+                        pending.decrementAndGet();
+                        oldest.discard();
+                        logger.warn("Too many pending messages for {}, dropping the oldest one", ctx.channel());
+                    }
+                    break;
+                case PAUSE_READING:
+                default:
+                    if (!paused) {
+                        paused = true;
+                        ctx.channel().config().setAutoRead(false);
+                    }
+                    break;
+            }
+        }
+
+        pending.incrementAndGet();
+        jobs.add(new Job(job, buffer));
+        schedule();
+    }
+
+    /**
+     * @return the number of jobs waiting to be executed.
+     */
+    int getPending() {
+        return pending.get();
+    }
+
+    boolean isPaused() {
+        return paused;
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executor.execute(this);
+        } catch (final RejectedExecutionException e) {
+            // we are shutting down so there is no one left to process these.
+            scheduled.set(false);
+            Job job;
+            while ((job = jobs.poll()) != null) {
+                pending.decrementAndGet();
+                job.discard();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        final List<BufferingConnection<?>> replies = new ArrayList<>();
+        try {
+            for (int i = 0; i < MAX_BATCH_SIZE; ++i) {
+                final Job job = jobs.poll();
+                if (job == null) {
+                    break;
+                }
+
+                pending.decrementAndGet();
+                final var reply = job.run();
+                if (reply != null) {
+                    replies.add(reply);
+                }
+            }
+        } finally {
+            if (!replies.isEmpty() || paused) {
+                ctx.executor().execute(() -> writeReplies(replies));
+            }
+
+            scheduled.set(false);
+            if (!jobs.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Executed on the event loop.
+     */
+    private void writeReplies(final List<BufferingConnection<?>> replies) {
+        if (!replies.isEmpty()) {
+            replies.forEach(reply -> reply.processMessage(ctx));
+            ctx.flush();
+        }
+
+        if (paused && pending.get() <= maxPending / 2) {
+            paused = false;
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private static final class Job {
+        private final Supplier<BufferingConnection<?>> job;
+        private final ByteBuf buffer;
+
+        private Job(final Supplier<BufferingConnection<?>> job, final ByteBuf buffer) {
+            this.job = job;
+            this.buffer = buffer == null ? null : buffer.retain();
+        }
+
+        private BufferingConnection<?> run() {
+            try {
+                return job.get();
+            } catch (final Throwable t) {
+                logger.warn("Application threw an exception", t);
+                return null;
+            } finally {
+                discard();
+            }
+        }
+
+        private void discard() {
+            if (buffer != null) {
+                buffer.release();
+            }
+        }
+    }
+}
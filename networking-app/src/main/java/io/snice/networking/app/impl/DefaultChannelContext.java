@@ -4,15 +4,37 @@ import io.snice.networking.app.ConnectionContext;
 import io.snice.networking.common.Connection;
 import io.snice.networking.common.ConnectionId;
 import io.snice.networking.common.event.IOEvent;
+import io.snice.networking.common.timer.Timeout;
+import io.snice.networking.common.timer.Timer;
+
+import java.time.Duration;
 
 public class DefaultChannelContext<T> implements InternalChannelContext<T> {
 
     private final Connection<T> connection;
     private final ConnectionContext<Connection<T>, T> ctx;
+    private final Timer timer;
+
+    /**
+     * Only used if the application is to be invoked on the worker pool and is then lazily created
+     * by the {@link NettyApplicationLayer}. Only ever accessed on the event loop.
+     */
+    private ConnectionWorker worker;
+
+    /**
+     * The connection handed to the application, and the {@link BufferingConnection} it wraps, when the
+     * application is invoked on the event loop. Lazily created by the {@link NettyApplicationLayer} and
+     * then reused for every message. Only ever accessed on the event loop.
+     */
+    private BufferingConnection<T> bufferingConnection;
+    private Connection<T> applicationConnection;
 
-    public DefaultChannelContext(final Connection<T> connection, final ConnectionContext<Connection<T>, T> ctx) {
+    public DefaultChannelContext(final Connection<T> connection,
+                                 final ConnectionContext<Connection<T>, T> ctx,
+                                 final Timer timer) {
         this.connection = connection;
         this.ctx = ctx;
+        this.timer = timer;
     }
 
     @Override
@@ -25,6 +47,27 @@ public class DefaultChannelContext<T> implements InternalChannelContext<T> {
         return ctx;
     }
 
+    ConnectionWorker getWorker() {
+        return worker;
+    }
+
+    void setWorker(final ConnectionWorker worker) {
+        this.worker = worker;
+    }
+
+    BufferingConnection<T> getBufferingConnection() {
+        return bufferingConnection;
+    }
+
+    Connection<T> getApplicationConnection() {
+        return applicationConnection;
+    }
+
+    void setBufferingConnection(final BufferingConnection<T> bufferingConnection, final Connection<T> applicationConnection) {
+        this.bufferingConnection = bufferingConnection;
+        this.applicationConnection = applicationConnection;
+    }
+
     @Override
     public void sendDownstream(final T msg) {
         connection.send(msg);
@@ -44,4 +87,19 @@ public class DefaultChannelContext<T> implements InternalChannelContext<T> {
     public void fireApplicationEvent(final Object evt) {
         throw new RuntimeException("Sorry, not implemented yet but I really wanted to send fire this event" + evt);
     }
+
+    @Override
+    public void close() {
+        connection.close();
+    }
+
+    @Override
+    public Timer getTimer() {
+        return timer;
+    }
+
+    @Override
+    public Timeout schedule(final Object event, final Duration delay) {
+        throw new IllegalStateException("There is no FSM executing within this context");
+    }
 }
@@ -1,6 +1,8 @@
 package io.snice.networking.app.impl;
 
 import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.ExecutionMode;
+import io.snice.networking.app.MessageDiscriminator;
 import io.snice.networking.app.MessagePipe;
 import io.snice.networking.common.Connection;
 import io.snice.networking.common.ConnectionId;
@@ -11,6 +13,8 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
 public class DefaultConnectionContext<K extends Connection<T>, T> implements ConnectionContext<K, T> {
 
     private final Predicate<ConnectionId> condition;
@@ -23,34 +27,83 @@ public class DefaultConnectionContext<K extends Connection<T>, T> implements Con
 
     final List<MessagePipe<K, Object, ?>> eventRules;
 
+    private final MessageDispatcher<K, T> dispatcher;
+
+    private final MessageDispatcher<K, Object> eventDispatcher;
+
+    private final ExecutionMode executionMode;
+
     public DefaultConnectionContext(final Predicate<ConnectionId> condition,
                                     final Consumer<K> saveAction,
                                     final Function<K, T> dropFunction,
                                     final List<MessagePipe<K, T, ?>> rules,
                                     final List<MessagePipe<K, Object, ?>> eventRules) {
+        this(condition, saveAction, dropFunction, rules, eventRules, null);
+    }
+
+    /**
+     * @param discriminator an optional {@link MessageDiscriminator} used to speed up the matching of
+     *                      messages against the rules. May be null.
+     */
+    public DefaultConnectionContext(final Predicate<ConnectionId> condition,
+                                    final Consumer<K> saveAction,
+                                    final Function<K, T> dropFunction,
+                                    final List<MessagePipe<K, T, ?>> rules,
+                                    final List<MessagePipe<K, Object, ?>> eventRules,
+                                    final MessageDiscriminator<T> discriminator) {
+        this(condition, saveAction, dropFunction, rules, eventRules, discriminator, ExecutionMode.EVENT_LOOP);
+    }
+
+    /**
+     * @param executionMode on which thread the application is to be invoked. See {@link ExecutionMode}.
+     */
+    public DefaultConnectionContext(final Predicate<ConnectionId> condition,
+                                    final Consumer<K> saveAction,
+                                    final Function<K, T> dropFunction,
+                                    final List<MessagePipe<K, T, ?>> rules,
+                                    final List<MessagePipe<K, Object, ?>> eventRules,
+                                    final MessageDiscriminator<T> discriminator,
+                                    final ExecutionMode executionMode) {
+        assertNotNull(executionMode, "The execution mode cannot be null");
         this.condition = condition;
         this.saveAction = Optional.ofNullable(saveAction);
         this.dropFunction = Optional.ofNullable(dropFunction);
         this.rules = rules;
         this.eventRules = eventRules;
+        this.dispatcher = MessageDispatcher.of(rules, discriminator);
+        this.eventDispatcher = MessageDispatcher.of(eventRules);
+        this.executionMode = executionMode;
+    }
+
+    @Override
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
     }
 
     @Override
     public MessagePipe<K, T, ?> match(final K connection, final T data) {
         // TODO: insert default rule...
-        return rules.stream().filter(pipe -> pipe.test(connection, data)).findFirst().orElseThrow(RuntimeException::new);
+        final MessagePipe<K, T, ?> pipe = dispatcher.match(connection, data);
+        if (pipe == null) {
+            throw new RuntimeException();
+        }
+        return pipe;
     }
 
     @Override
     public <U extends Object> MessagePipe<K, U, ?> matchEvent(final K connection, final U event) {
         // TODO: insert default rule...
-        return (MessagePipe<K, U, ?>) eventRules.stream().filter(pipe -> pipe.test(connection, event)).findFirst()
-                .orElseThrow(() -> {
+        return tryMatchEvent(connection, event).orElseThrow(() -> {
                     System.err.println(event);
                     return new RuntimeException();
                 });
     }
 
+    @Override
+    public <U extends Object> Optional<MessagePipe<K, U, ?>> tryMatchEvent(final K connection, final U event) {
+        return Optional.ofNullable((MessagePipe<K, U, ?>) eventDispatcher.match(connection, event));
+    }
+
     @Override
     public Predicate<ConnectionId> getPredicate() {
         return condition;
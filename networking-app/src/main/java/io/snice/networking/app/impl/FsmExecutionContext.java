@@ -3,11 +3,12 @@ package io.snice.networking.app.impl;
 import io.hektor.fsm.Data;
 import io.hektor.fsm.FSM;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.snice.networking.common.event.ConnectionInactiveIOEvent;
 import io.snice.networking.common.event.IOEvent;
-import io.snice.networking.common.event.MessageIOEvent;
 import io.snice.networking.common.fsm.NetworkContext;
+import io.snice.networking.common.time.CachedClock;
 import io.snice.time.Clock;
-import io.snice.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,17 +23,61 @@ public class FsmExecutionContext<T, S extends Enum<S>, C extends NetworkContext<
     private final IOEvent<T> initialMsg;
     private final BufferingChannelContext<T> ctx;
     private final FSM<S, C, D> fsm;
+    private final D data;
     private final ChannelHandlerContext nettyCtx;
-    private final Clock clock = new SystemClock();
+    private final Clock clock;
+
+    /**
+     * Once terminated, nothing more is delivered to the FSM.
+     */
+    private boolean terminated;
 
     public FsmExecutionContext(final IOEvent<T> initialMsg,
                                final BufferingChannelContext<T> ctx,
                                final ChannelHandlerContext nettyCtx,
                                final FSM<S, C, D> fsm) {
+        this(initialMsg, ctx, nettyCtx, fsm, CachedClock.getDefault());
+    }
+
+    /**
+     * @param clock only used for time stamping the messages the FSM sends upstream, that aren't the
+     *              result of a message read off of the network, and as such, typically a cached clock.
+     */
+    public FsmExecutionContext(final IOEvent<T> initialMsg,
+                               final BufferingChannelContext<T> ctx,
+                               final ChannelHandlerContext nettyCtx,
+                               final FSM<S, C, D> fsm,
+                               final Clock clock) {
+        this(initialMsg, ctx, nettyCtx, fsm, null, clock);
+    }
+
+    /**
+     * @param data the data bag of the FSM, for those that need to inspect it, see {@link #getData()}.
+     */
+    public FsmExecutionContext(final IOEvent<T> initialMsg,
+                               final BufferingChannelContext<T> ctx,
+                               final ChannelHandlerContext nettyCtx,
+                               final FSM<S, C, D> fsm,
+                               final D data,
+                               final Clock clock) {
         this.initialMsg = initialMsg;
         this.ctx = ctx;
         this.nettyCtx = nettyCtx;
         this.fsm = fsm;
+        this.data = data;
+        this.clock = clock;
+        ctx.bind(this);
+    }
+
+    /**
+     * The data bag of the FSM, if it was given to us, otherwise null.
+     */
+    public D getData() {
+        return data;
+    }
+
+    public boolean isTerminated() {
+        return terminated;
     }
 
     public void start() {
@@ -45,17 +90,60 @@ public class FsmExecutionContext<T, S extends Enum<S>, C extends NetworkContext<
 
 
     public void onDownstreamMessage(final T msg) {
-        final var event = MessageIOEvent.create(ctx, clock.getCurrentTimeMillis(), msg);
+        onDownstreamMessage(msg, null);
+    }
+
+    /**
+     * @param msg the message the application is writing.
+     * @param promise the promise of the original write, which will be completed once whatever the FSM
+     *                decided to send downstream as a result of the message has been written. May be null.
+     */
+    public void onDownstreamMessage(final T msg, final ChannelPromise promise) {
         try {
             fsm.onEvent(msg);
-            ctx.processDownstream(nettyCtx, event);
-            ctx.processEvents(nettyCtx, event);
-            ctx.processUpstream(nettyCtx, event);
+            ctx.drain(nettyCtx, null, promise, clock);
         } catch (final Throwable t) {
+            if (promise != null && !promise.isVoid()) {
+                promise.tryFailure(t);
+            }
             t.printStackTrace();
         }
     }
 
+    /**
+     * Deliver an event the FSM scheduled to itself (see {@link BufferingChannelContext#schedule}), unless
+     * the FSM has been terminated or has closed its connection. Always invoked on the event loop of the channel.
+     */
+    public void onTimerEvent(final Object event) {
+        // the FSM may very well have timers running when it goes away, or closes the connection,
+        // but there is no one to deliver them to and nothing to drain into.
+        if (terminated || ctx.isClosed()) {
+            return;
+        }
+        fsm.onEvent(event);
+        ctx.drain(nettyCtx, null, null, clock);
+    }
+
+    /**
+     * The FSM is going away, without the connection itself necessarily going away, such as when it is
+     * evicted from the {@link FsmTable}. The FSM is told that the connection is no longer active so it gets
+     * a chance to clean up, after which nothing more is delivered to it, including any timers it may still
+     * have running.
+     */
+    public void terminate() {
+        if (terminated) {
+            return;
+        }
+
+        try {
+            invokeFSM(ConnectionInactiveIOEvent.create(ctx.getActualChannelContext(), clock.getCurrentTimeMillis()));
+        } catch (final Throwable t) {
+            logger.warn("Unable to terminate the FSM", t);
+        } finally {
+            terminated = true;
+        }
+    }
+
     private void invokeFSM(final IOEvent<T> event) {
         if (event.isMessageIOEvent()) {
             final var msg = event.toMessageIOEvent();
@@ -63,9 +151,7 @@ public class FsmExecutionContext<T, S extends Enum<S>, C extends NetworkContext<
         } else {
             fsm.onEvent(event);
         }
-        ctx.processDownstream(nettyCtx, event);
-        ctx.processEvents(nettyCtx, event);
-        ctx.processUpstream(nettyCtx, event);
+        ctx.drain(nettyCtx, event, null, clock);
     }
 
 }
@@ -0,0 +1,241 @@
+package io.snice.networking.app.impl;
+
+import io.snice.networking.common.fsm.FsmKey;
+import io.snice.networking.config.FsmTableConfiguration;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * Keeps track of all the FSMs, and their execution contexts, of a single channel, keyed by the
+ * {@link FsmKey} calculated by the {@link io.snice.networking.common.fsm.FsmFactory}. See
+ * {@link FsmTableConfiguration} for the overall behaviour.
+ *
+ * <p>
+ * Just like the {@link UdpFlowTable}, the FSMs are kept in access order so the least recently used
+ * FSM is always at the head of the table, which is where both the idle and the capacity evictions
+ * take place.
+ * </p>
+ *
+ * <p>
+ * An FSM that isn't evictable, e.g. because it is still waiting on the answer to a request, is never
+ * evicted. If it is idle, it is simply given another idle period and if the table is full, the least
+ * recently used FSM that is evictable makes room for the new one instead. If there is none, the table
+ * is allowed to grow beyond its capacity.
+ * </p>
+ *
+ * <p>
+ * Whenever an FSM is evicted, the eviction callback is invoked, once the table is done evicting.
+ * </p>
+ *
+ * This class is NOT thread safe and is only to be accessed by the event loop of the channel, with
+ * the exception of the counters, which can be read by anyone.
+ *
+ * @param <E> the type of the execution context of the FSMs.
+ */
+public final class FsmTable<E> {
+
+    private final int capacity;
+    private final long idleTimeoutMillis;
+    private final Predicate<E> isEvictable;
+    private final BiConsumer<FsmKey, E> onEviction;
+
+    private final LinkedHashMap<FsmKey, Entry<E>> fsms;
+
+    private final List<Entry<E>> evicted = new ArrayList<>();
+    private final List<Entry<E>> kept = new ArrayList<>();
+    private boolean notifying;
+
+    private volatile int size;
+    private volatile long idleEvictions;
+    private volatile long capacityEvictions;
+
+    public static <E> FsmTable<E> of(final FsmTableConfiguration config, final BiConsumer<FsmKey, E> onEviction) {
+        return of(config, e -> true, onEviction);
+    }
+
+    /**
+     * @param isEvictable whether the given FSM may be evicted right now.
+     */
+    public static <E> FsmTable<E> of(final FsmTableConfiguration config,
+                                     final Predicate<E> isEvictable,
+                                     final BiConsumer<FsmKey, E> onEviction) {
+        assertNotNull(config, "The configuration cannot be null");
+        assertNotNull(isEvictable, "The evictable predicate cannot be null");
+        assertNotNull(onEviction, "The eviction callback cannot be null");
+        return new FsmTable<>(config.getCapacity(), config.getIdleTimeoutMillis(), isEvictable, onEviction);
+    }
+
+    private FsmTable(final int capacity,
+                     final long idleTimeoutMillis,
+                     final Predicate<E> isEvictable,
+                     final BiConsumer<FsmKey, E> onEviction) {
+        this.capacity = capacity;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.isEvictable = isEvictable;
+        this.onEviction = onEviction;
+
+        final int initialCapacity = (int) Math.min((long) capacity * 4 / 3 + 1, 1 << 16);
+        this.fsms = new LinkedHashMap<>(initialCapacity, 0.75f, true);
+    }
+
+    /**
+     * Lookup the FSM for the given key and mark it as being active.
+     *
+     * @param now the current time in milliseconds.
+     * @return the execution context of the FSM or null if there is no such FSM.
+     */
+    public E get(final FsmKey key, final long now) {
+        final var entry = fsms.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        entry.lastSeen = now;
+        return entry.value;
+    }
+
+    /**
+     * Add a new FSM to the table. If the table is full, the least recently used FSM that is
+     * evictable will be evicted.
+     */
+    public void put(final FsmKey key, final E value, final long now) {
+        if (fsms.size() >= capacity && !fsms.containsKey(key)) {
+            final var it = fsms.values().iterator();
+            while (it.hasNext()) {
+                final var entry = it.next();
+                if (isEvictable.test(entry.value)) {
+                    evicted.add(entry);
+                    it.remove();
+                    ++capacityEvictions;
+                    break;
+                }
+            }
+        }
+
+        fsms.put(key, new Entry<>(key, value, now));
+        size = fsms.size();
+        notifyEvicted();
+    }
+
+    /**
+     * Remove the FSM for the given key, if any. The eviction callback is not invoked.
+     */
+    public E remove(final FsmKey key) {
+        final var entry = fsms.remove(key);
+        size = fsms.size();
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Evict all FSMs that haven't seen any traffic within the idle timeout, unless they aren't evictable.
+     * This is the "tick" of the table and is expected to be called periodically.
+     *
+     * @param now the current time in milliseconds.
+     * @return the number of FSMs that were evicted.
+     */
+    public int expire(final long now) {
+        if (idleTimeoutMillis == 0) {
+            return 0;
+        }
+
+        final long deadline = now - idleTimeoutMillis;
+        final Iterator<Entry<E>> it = fsms.values().iterator();
+        int count = 0;
+        while (it.hasNext()) {
+            final var entry = it.next();
+            if (entry.lastSeen > deadline) {
+                break;
+            }
+
+            it.remove();
+            if (isEvictable.test(entry.value)) {
+                evicted.add(entry);
+                ++count;
+            } else {
+                entry.lastSeen = now;
+                kept.add(entry);
+            }
+        }
+
+        // the ones that couldn't be evicted go to the back of the line, as if they just saw traffic.
+        for (int i = 0; i < kept.size(); ++i) {
+            final var entry = kept.get(i);
+            fsms.put(entry.key, entry);
+        }
+        kept.clear();
+
+        if (count > 0) {
+            idleEvictions += count;
+            size = fsms.size();
+            notifyEvicted();
+        }
+
+        return count;
+    }
+
+    /**
+     * Remove all FSMs. Note that the eviction callback is not invoked for these FSMs.
+     */
+    public void clear() {
+        fsms.clear();
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * The total number of FSMs that have been evicted because they were idle.
+     */
+    public long getIdleEvictions() {
+        return idleEvictions;
+    }
+
+    /**
+     * The total number of FSMs that have been evicted to make room for a new FSM.
+     */
+    public long getCapacityEvictions() {
+        return capacityEvictions;
+    }
+
+    private void notifyEvicted() {
+        if (notifying || evicted.isEmpty()) {
+            return;
+        }
+
+        notifying = true;
+        try {
+            for (int i = 0; i < evicted.size(); ++i) {
+                final var entry = evicted.get(i);
+                onEviction.accept(entry.key, entry.value);
+            }
+        } finally {
+            evicted.clear();
+            notifying = false;
+        }
+    }
+
+    private static final class Entry<E> {
+        private final FsmKey key;
+        private final E value;
+        private long lastSeen;
+
+        private Entry(final FsmKey key, final E value, final long lastSeen) {
+            this.key = key;
+            this.value = value;
+            this.lastSeen = lastSeen;
+        }
+    }
+}
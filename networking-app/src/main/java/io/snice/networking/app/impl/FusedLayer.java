@@ -0,0 +1,40 @@
+package io.snice.networking.app.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * When the pipeline has been fused (see {@link io.snice.networking.app.NetworkAppConfig#isFusedPipeline()}),
+ * the transport adapters hand the messages and events they'd otherwise fire through the pipeline straight to
+ * the next layer, which is either the {@link NettyApplicationLayer} or, if the protocol stack has one, the
+ * FSM layer, which in turn hands whatever the FSM sends upstream straight to the application layer.
+ *
+ * @param <T> the type of message.
+ */
+public interface FusedLayer<T> {
+
+    /**
+     * @param ctx the netty context of the layer calling us, which is NOT the context of this layer.
+     * @param buffer the pooled buffer the message is a view over or null if it isn't.
+     */
+    void processMessage(ChannelHandlerContext ctx, DefaultChannelContext<T> channelContext, T msg, ByteBuf buffer);
+
+    /**
+     * @param ctx the netty context of the layer calling us, which is NOT the context of this layer.
+     */
+    void processEvent(ChannelHandlerContext ctx, Object evt);
+
+    /**
+     * The transport adapters of a fused pipeline, which are created before the FSM layer of the same
+     * channel and as such, it is up to the FSM layer to step in between the adapter and the application layer.
+     */
+    interface Adapter<T> {
+
+        /**
+         * Have the adapter dispatch to the given layer from now on.
+         *
+         * @return the layer the adapter used to dispatch to, or null if the pipeline isn't fused.
+         */
+        FusedLayer<T> interpose(FusedLayer<T> layer);
+    }
+}
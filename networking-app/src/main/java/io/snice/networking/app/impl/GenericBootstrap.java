@@ -1,6 +1,8 @@
 package io.snice.networking.app.impl;
 
 import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.ExecutionMode;
+import io.snice.networking.app.MessageDiscriminator;
 import io.snice.networking.app.NetworkAppConfig;
 import io.snice.networking.app.NetworkBootstrap;
 import io.snice.networking.common.Connection;
@@ -18,10 +20,22 @@ public class GenericBootstrap<K extends Connection<T>, T, C extends NetworkAppCo
 
     private final C config;
 
+    private final MessageDiscriminator<T> discriminator;
+
     private final List<ConnectionCtxBuilder<K, T, ?>> rules = new ArrayList<>();
 
     public GenericBootstrap(final C config) {
+        this(config, null);
+    }
+
+    /**
+     * @param discriminator an optional {@link MessageDiscriminator}, typically supplied by the
+     *                      {@link io.snice.networking.bundles.ProtocolBundle}, which will be used by all
+     *                      the {@link ConnectionContext}s created through this bootstrap. May be null.
+     */
+    public GenericBootstrap(final C config, final MessageDiscriminator<T> discriminator) {
         this.config = config;
+        this.discriminator = discriminator;
     }
 
     public List<ConnectionContext<K, T>> getConnectionContexts() {
@@ -33,10 +47,17 @@ public class GenericBootstrap<K extends Connection<T>, T, C extends NetworkAppCo
         return config;
     }
 
+    /**
+     * The {@link ExecutionMode} of all contexts that don't explicitly ask for one of their own.
+     */
+    private ExecutionMode getDefaultExecutionMode() {
+        return config == null ? ExecutionMode.EVENT_LOOP : config.getExecutionMode();
+    }
+
     @Override
     public ConnectionContext.Builder<K, T, T> onConnection(final Predicate<ConnectionId> condition) {
         assertNotNull(condition, "The condition cannot be null");
-        final ConnectionCtxBuilder<K, T, T> builder = new ConnectionCtxBuilder<>(condition);
+        final ConnectionCtxBuilder<K, T, T> builder = new ConnectionCtxBuilder<>(condition, discriminator, getDefaultExecutionMode());
         rules.add(builder);
         return builder;
     }
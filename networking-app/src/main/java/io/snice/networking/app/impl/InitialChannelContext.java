@@ -4,6 +4,10 @@ import io.snice.networking.common.ChannelContext;
 import io.snice.networking.common.ConnectionEndpointId;
 import io.snice.networking.common.ConnectionId;
 import io.snice.networking.common.event.IOEvent;
+import io.snice.networking.common.timer.Timeout;
+import io.snice.networking.common.timer.Timer;
+
+import java.time.Duration;
 
 /**
  * While a connection is being established we do not yet have a full contextd since
@@ -39,4 +43,19 @@ public class InitialChannelContext<T> implements ChannelContext<T> {
     public void fireApplicationEvent(final Object evt) {
         throw new IllegalStateException("This ChannelContext has not been fully established yet");
     }
+
+    @Override
+    public void close() {
+        throw new IllegalStateException("This ChannelContext has not been fully established yet");
+    }
+
+    @Override
+    public Timer getTimer() {
+        throw new IllegalStateException("This ChannelContext has not been fully established yet");
+    }
+
+    @Override
+    public Timeout schedule(final Object event, final Duration delay) {
+        throw new IllegalStateException("This ChannelContext has not been fully established yet");
+    }
 }
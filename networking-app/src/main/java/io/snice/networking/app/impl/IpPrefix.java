@@ -0,0 +1,148 @@
+package io.snice.networking.app.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static io.snice.preconditions.PreConditions.assertArgument;
+import static io.snice.preconditions.PreConditions.assertNotEmpty;
+
+/**
+ * An IP prefix (subnet), such as "10.36.0.0/16" or "2001:db8::/32".
+ *
+ * All prefixes are kept in the IPv6 address space, where an IPv4 address is represented as an IPv4-mapped
+ * IPv6 address (::ffff:a.b.c.d) and the length of an IPv4 prefix is adjusted accordingly (i.e., 10.36.0.0/16
+ * is ::ffff:10.36.0.0/112). That way, IPv4 and IPv6 can be treated the same and we can use
+ * the {@link IpPrefix} as a key in a map.
+ */
+public final class IpPrefix {
+
+    private final long high;
+    private final long low;
+    private final int length;
+
+    /**
+     * Parse the given prefix, which is expected to be in CIDR notation. If no length is given,
+     * the prefix is the full address.
+     */
+    public static IpPrefix parse(final String prefix) {
+        assertNotEmpty(prefix, "The prefix cannot be null or the empty string");
+        final int slash = prefix.indexOf('/');
+        final String address = slash == -1 ? prefix : prefix.substring(0, slash);
+
+        // InetAddress.getByName would happily do a DNS lookup for us, which we do not want.
+        assertArgument(Character.digit(address.charAt(0), 16) != -1 || address.charAt(0) == ':',
+                "The prefix must be an IP address, not a host name");
+
+        final byte[] raw;
+        try {
+            raw = InetAddress.getByName(address).getAddress();
+        } catch (final UnknownHostException e) {
+            throw new IllegalArgumentException("Illegal prefix \"" + prefix + "\"", e);
+        }
+
+        final int maxLength = raw.length * 8;
+        final int length;
+        try {
+            length = slash == -1 ? maxLength : Integer.parseInt(prefix.substring(slash + 1));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Illegal prefix length in \"" + prefix + "\"", e);
+        }
+        assertArgument(length >= 0 && length <= maxLength, "The prefix length must be between 0 - " + maxLength);
+
+        return of(raw, raw.length == 4 ? length + 96 : length);
+    }
+
+    /**
+     * Create the prefix of the given length for the given raw IPv4 or IPv6 address.
+     *
+     * @param length the length of the prefix in the IPv6 address space.
+     */
+    public static IpPrefix of(final byte[] address, final int length) {
+        assertArgument(address != null && (address.length == 4 || address.length == 16),
+                "The address must be 4 (IPv4) or 16 (IPv6) bytes");
+        assertArgument(length >= 0 && length <= 128, "The prefix length must be between 0 - 128");
+        return new IpPrefix(maskHigh(high(address), length), maskLow(low(address), length), length);
+    }
+
+    private IpPrefix(final long high, final long low, final int length) {
+        this.high = high;
+        this.low = low;
+        this.length = length;
+    }
+
+    /**
+     * @return the length of the prefix in the IPv6 address space.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Check whether the given raw IPv4 or IPv6 address is within this prefix.
+     */
+    public boolean contains(final byte[] address) {
+        return maskHigh(high(address), length) == high && maskLow(low(address), length) == low;
+    }
+
+    private static long high(final byte[] address) {
+        return address.length == 4 ? 0L : getLong(address, 0);
+    }
+
+    private static long low(final byte[] address) {
+        if (address.length == 4) {
+            return 0x0000FFFF00000000L
+                    | (address[0] & 0xFFL) << 24
+                    | (address[1] & 0xFFL) << 16
+                    | (address[2] & 0xFFL) << 8
+                    | address[3] & 0xFFL;
+        }
+        return getLong(address, 8);
+    }
+
+    private static long getLong(final byte[] bytes, final int index) {
+        long value = 0;
+        for (int i = index; i < index + 8; ++i) {
+            value = value << 8 | bytes[i] & 0xFF;
+        }
+        return value;
+    }
+
+    private static long maskHigh(final long high, final int length) {
+        if (length >= 64) {
+            return high;
+        }
+        return length == 0 ? 0L : high & -1L << 64 - length;
+    }
+
+    private static long maskLow(final long low, final int length) {
+        if (length <= 64) {
+            return 0L;
+        }
+        return length == 128 ? low : low & -1L << 128 - length;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final IpPrefix other = (IpPrefix) o;
+        return high == other.high && low == other.low && length == other.length;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(high);
+        result = 31 * result + Long.hashCode(low);
+        result = 31 * result + length;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x/%d", high, low, length);
+    }
+}
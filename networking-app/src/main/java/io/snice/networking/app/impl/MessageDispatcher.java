@@ -0,0 +1,121 @@
+package io.snice.networking.app.impl;
+
+import io.snice.networking.app.MessageDiscriminator;
+import io.snice.networking.app.MessagePipe;
+
+import java.util.List;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * The "compiled" version of the {@link MessagePipe}s configured for a given
+ * {@link io.snice.networking.app.ConnectionContext}. It is built once, when the context is built, and
+ * its only job is to find the first {@link MessagePipe} that accepts a given message.
+ *
+ * The rules are kept in a plain array and are tested in the order they were registered. If
+ * there is a {@link MessageDiscriminator}, we also keep a small index of the rule that matched
+ * the last message with a given key so that we typically only have to test a single rule,
+ * no matter how many there are. See {@link MessageDiscriminator} for the contract.
+ *
+ * The dispatcher is shared by all connections matching the same context and as such, will be
+ * accessed by many threads. The index is racy on purpose: every slot holds an immutable
+ * {@link IndexEntry} so the worst thing that can happen is that a thread doesn't see an entry another thread
+ * just put there, or overwrites it, in which case we just do the scan again.
+ */
+final class MessageDispatcher<C, T> {
+
+    /**
+     * Must be a power of two. Protocols typically have a handful of message types that are
+     * in use by any given application so we do not need many slots.
+     */
+    private static final int INDEX_SIZE = 256;
+
+    private final MessagePipe<C, T, ?>[] pipes;
+
+    private final MessageDiscriminator<T> discriminator;
+
+    private final IndexEntry[] index;
+
+    static <C, T> MessageDispatcher<C, T> of(final List<? extends MessagePipe<C, T, ?>> pipes) {
+        return of(pipes, null);
+    }
+
+    /**
+     * @param discriminator an optional {@link MessageDiscriminator}, may be null.
+     */
+    static <C, T> MessageDispatcher<C, T> of(final List<? extends MessagePipe<C, T, ?>> pipes,
+                                             final MessageDiscriminator<T> discriminator) {
+        assertNotNull(pipes, "The list of message pipes cannot be null");
+        return new MessageDispatcher<>(pipes.toArray(new MessagePipe[0]), discriminator);
+    }
+
+    private MessageDispatcher(final MessagePipe<C, T, ?>[] pipes, final MessageDiscriminator<T> discriminator) {
+        this.pipes = pipes;
+
+        // with a single rule (a very common case, see e.g. how the diameter stack
+        // is setting things up) there is nothing the index can help us with.
+        this.discriminator = pipes.length > 1 ? discriminator : null;
+        this.index = this.discriminator != null ? new IndexEntry[INDEX_SIZE] : null;
+    }
+
+    /**
+     * Find the first {@link MessagePipe} accepting the given message.
+     *
+     * @return the matching {@link MessagePipe} or null if none of them accepted the message.
+     */
+    MessagePipe<C, T, ?> match(final C connection, final T msg) {
+        if (discriminator == null) {
+            return scan(connection, msg);
+        }
+
+        final int key = discriminator.discriminate(msg);
+        if (key < 0) {
+            return scan(connection, msg);
+        }
+
+        final int slot = (key ^ key >>> 16) & (INDEX_SIZE - 1);
+        final IndexEntry entry = index[slot];
+        if (entry != null && entry.key == key) {
+            final MessagePipe<C, T, ?> pipe = pipes[entry.pipe];
+            if (pipe.test(connection, msg)) {
+                return pipe;
+            }
+        }
+
+        final int i = indexOf(connection, msg);
+        if (i == -1) {
+            return null;
+        }
+
+        index[slot] = new IndexEntry(key, i);
+        return pipes[i];
+    }
+
+    int size() {
+        return pipes.length;
+    }
+
+    private MessagePipe<C, T, ?> scan(final C connection, final T msg) {
+        final int i = indexOf(connection, msg);
+        return i == -1 ? null : pipes[i];
+    }
+
+    private int indexOf(final C connection, final T msg) {
+        for (int i = 0; i < pipes.length; ++i) {
+            if (pipes[i].test(connection, msg)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class IndexEntry {
+        private final int key;
+        private final int pipe;
+
+        private IndexEntry(final int key, final int pipe) {
+            this.key = key;
+            this.pipe = pipe;
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package io.snice.networking.app.impl;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.ExecutionMode;
 import io.snice.networking.app.NetworkAppConfig;
 import io.snice.networking.app.NetworkBootstrap;
 import io.snice.networking.bundles.ProtocolBundle;
@@ -12,56 +14,245 @@ import io.snice.networking.common.ConnectionId;
 import io.snice.networking.common.event.ConnectionAttemptCompletedIOEvent;
 import io.snice.networking.common.event.IOEvent;
 import io.snice.networking.common.event.MessageIOEvent;
+import io.snice.networking.common.event.Recyclable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @ChannelHandler.Sharable
-public class NettyApplicationLayer<K extends Connection<T>, T, C extends NetworkAppConfig> extends ChannelInboundHandlerAdapter {
+public class NettyApplicationLayer<K extends Connection<T>, T, C extends NetworkAppConfig> extends ChannelInboundHandlerAdapter implements FusedLayer<T> {
 
     private static final Logger logger = LoggerFactory.getLogger(NettyApplicationLayer.class);
     private final ProtocolBundle<K, T, C> bundle;
 
+    /**
+     * The pool to invoke the application on for those connection contexts that don't want to be
+     * invoked on the {@link ExecutionMode#EVENT_LOOP}. May be null, in which case everything
+     * will be executed on the event loop.
+     */
+    private final WorkerPool workerPool;
+
+    /**
+     * If true, the messages that are {@link Recyclable} are handed back to their pool as soon as the
+     * application has been invoked on the event loop. See {@link NetworkAppConfig#isRecycleEvents()}.
+     */
+    private final boolean recycleEvents;
+
     public NettyApplicationLayer(final ProtocolBundle<K, T, C> bundle) {
+        this(bundle, null);
+    }
+
+    public NettyApplicationLayer(final ProtocolBundle<K, T, C> bundle, final WorkerPool workerPool) {
+        this(bundle, workerPool, false);
+    }
+
+    public NettyApplicationLayer(final ProtocolBundle<K, T, C> bundle, final WorkerPool workerPool, final boolean recycleEvents) {
         this.bundle = bundle;
+        this.workerPool = workerPool;
+        this.recycleEvents = recycleEvents;
     }
 
     @Override
     public void channelRead(final ChannelHandlerContext ctx, final Object object) throws Exception {
         final var event = (MessageIOEvent<T>) object;
-        final var msg = event.getMessage();
-        final var channelContext = (DefaultChannelContext<T>) event.channelContext();
+        processMessage(ctx, (DefaultChannelContext<T>) event.channelContext(), event.getMessage(), PooledMessageIOEvent.bufferOf(event));
+    }
+
+    /**
+     * Invoke the application for the given message.
+     *
+     * This is what {@link #channelRead(ChannelHandlerContext, Object)} ends up calling but when running with a
+     * fused pipeline (see {@link NetworkAppConfig#isFusedPipeline()}), the transport adapters call this method
+     * directly, without going through the pipeline and without first wrapping the message in a {@link MessageIOEvent}.
+     *
+     * @param buffer the pooled buffer the message is a view over or null if it isn't.
+     */
+    @Override
+    public void processMessage(final ChannelHandlerContext ctx, final DefaultChannelContext<T> channelContext, final T msg, final ByteBuf buffer) {
+        final var appRules = channelContext.getConnectionContext();
+
+        if (isOffloaded(appRules)) {
+            offload(ctx, channelContext, buffer, () -> {
+                // the previous replies may not have been written yet so every invocation gets its own.
+                final var connection = newConnection(ctx, channelContext);
+                invokeApplication(msg, connection, bundle.wrapConnection(connection), appRules);
+                return connection;
+            });
+            return;
+        }
+
+        var connection = channelContext.getBufferingConnection();
+        if (connection == null) {
+            connection = newConnection(ctx, channelContext);
+            channelContext.setBufferingConnection(connection, bundle.wrapConnection(connection));
+        }
+
+        invokeApplication(msg, connection, channelContext.getApplicationConnection(), appRules);
+        connection.processMessage(ctx);
+
+        // the end of the line for the message, unless it was handed off to a worker above, in
+        // which case it simply isn't recycled.
+        if (recycleEvents) {
+            Recyclable.recycle(msg);
+        }
+    }
+
+    private BufferingConnection<T> newConnection(final ChannelHandlerContext ctx, final DefaultChannelContext<T> channelContext) {
+        return new BufferingConnection<>(channelContext.getConnectionId(), ctx.channel());
+    }
+
+    /**
+     * Run the given job, which is invoking the application, either straight here on the event loop or
+     * on the worker pool, depending on the {@link ExecutionMode} of the {@link ConnectionContext}.
+     * Either way, whatever the application decided to send is written on the event loop.
+     */
+    private void dispatch(final ChannelHandlerContext ctx,
+                          final DefaultChannelContext<T> channelContext,
+                          final Supplier<BufferingConnection<?>> job) {
+        if (isOffloaded(channelContext.getConnectionContext())) {
+            offload(ctx, channelContext, null, job);
+            return;
+        }
+
+        processReply(ctx, job.get());
+    }
+
+    private boolean isOffloaded(final ConnectionContext<Connection<T>, T> appRules) {
+        return workerPool != null && appRules.getExecutionMode() != ExecutionMode.EVENT_LOOP;
+    }
+
+    /**
+     * @param buffer the pooled buffer the message, if any, is a view over or null if it isn't.
+     */
+    private void offload(final ChannelHandlerContext ctx,
+                         final DefaultChannelContext<T> channelContext,
+                         final ByteBuf buffer,
+                         final Supplier<BufferingConnection<?>> job) {
+        if (channelContext.getConnectionContext().getExecutionMode() == ExecutionMode.WORKER) {
+            worker(ctx, channelContext).submit(job, buffer);
+        } else {
+            executeUnordered(ctx, buffer, job);
+        }
+    }
 
-        invokeApplication(msg, channelContext.getConnectionId(), ctx, channelContext.getConnectionContext());
+    /**
+     * For {@link ExecutionMode#VIRTUAL_THREAD}, every job runs on its own so there is no queue
+     * and no ordering, just a hand-off to the executor and then back to the event loop for the reply.
+     */
+    private void executeUnordered(final ChannelHandlerContext ctx, final ByteBuf buffer, final Supplier<BufferingConnection<?>> job) {
+        if (buffer != null) {
+            buffer.retain();
+        }
+
+        try {
+            workerPool.getVirtualThreadExecutor().execute(() -> {
+                final BufferingConnection<?> reply;
+                try {
+                    reply = job.get();
+                } catch (final Throwable t) {
+                    logger.warn("Application threw an exception", t);
+                    return;
+                } finally {
+                    if (buffer != null) {
+                        buffer.release();
+                    }
+                }
+
+                if (reply != null) {
+                    ctx.executor().execute(() -> {
+                        reply.processMessage(ctx);
+                        ctx.flush();
+                    });
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            // shutting down
+            if (buffer != null) {
+                buffer.release();
+            }
+        }
     }
 
-    private void invokeApplication(final T msg, final ConnectionId id, final ChannelHandlerContext ctx, final ConnectionContext<Connection<T>, T> appRules) {
-        // TODO: this needs to take place in a different thread pool!
-        // TODO: make it configurable and even allow the customer to use the same thread pool with
-        //       a big WARNING sign
+    private static void processReply(final ChannelHandlerContext ctx, final BufferingConnection<?> reply) {
+        if (reply != null) {
+            reply.processMessage(ctx);
+        }
+    }
+
+    private ConnectionWorker worker(final ChannelHandlerContext ctx, final DefaultChannelContext<T> channelContext) {
+        var worker = channelContext.getWorker();
+        if (worker == null) {
+            final var config = workerPool.getConfiguration();
+            worker = new ConnectionWorker(workerPool.getExecutor(), ctx, config.getMaxPendingPerConnection(), config.getOverflowPolicy());
+            channelContext.setWorker(worker);
+        }
+        return worker;
+    }
+
+    private void invokeApplication(final T msg,
+                                   final BufferingConnection<T> connection,
+                                   final Connection<T> appConnection,
+                                   final ConnectionContext<Connection<T>, T> appRules) {
+        connection.begin();
         try {
-            final var bufferingConnection = new BufferingConnection<T>(id);
-            final var appConnection = bundle.wrapConnection(bufferingConnection);
             appRules.match(appConnection, msg).apply(appConnection, msg);
-            bufferingConnection.processMessage(ctx);
         } catch (final Throwable t) {
             System.err.println("Application threw an exception. Wiill have to deal with it somehow");
             t.printStackTrace();
+        } finally {
+            connection.end();
         }
     }
 
-    private void invokeApplicationForEvent(final Object event, final ChannelHandlerContext ctx, final ConnectionContext<Connection<T>, T> appRules) {
-        // TODO: this needs to take place in a different thread pool!
-        final var bufferingConnection = new BufferingConnection<T>(null);
-        final var appConnection = bundle.wrapConnection(bufferingConnection);
-        appRules.matchEvent(appConnection, event).apply(appConnection, event);
-        bufferingConnection.processMessage(ctx);
+    private BufferingConnection<?> invokeApplicationForEvent(final Object event, final ChannelHandlerContext ctx, final DefaultChannelContext<T> channelContext) {
+        final var connection = newConnection(ctx, channelContext);
+        final var appConnection = bundle.wrapConnection(connection);
+        connection.begin();
+        try {
+            channelContext.getConnectionContext().matchEvent(appConnection, event).apply(appConnection, event);
+        } finally {
+            connection.end();
+        }
+        return connection;
+    }
+
+    /**
+     * Some events, such as the writability of the connection changing or a UDP "connection" being
+     * evicted because it has been idle, are purely informational and the application does not have
+     * to care about them. So unlike other events, it is perfectly fine if there is no rule matching them.
+     */
+    private BufferingConnection<?> invokeApplicationForOptionalEvent(final IOEvent<T> event, final ChannelHandlerContext ctx, final DefaultChannelContext<T> channelContext) {
+        final var connection = newConnection(ctx, channelContext);
+        final var appConnection = bundle.wrapConnection(connection);
+        final var pipe = channelContext.getConnectionContext().tryMatchEvent(appConnection, event);
+        if (pipe.isEmpty()) {
+            return null;
+        }
+
+        connection.begin();
+        try {
+            pipe.get().apply(appConnection, event);
+        } finally {
+            connection.end();
+        }
+        return connection;
     }
 
     @Override
     public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) throws Exception {
+        processEvent(ctx, evt);
+    }
+
+    /**
+     * See {@link #processMessage(ChannelHandlerContext, DefaultChannelContext, Object, ByteBuf)}, same thing
+     * but for the events.
+     */
+    @Override
+    public void processEvent(final ChannelHandlerContext ctx, final Object evt) {
         try {
             final IOEvent<T> ioEvent = (IOEvent<T>) evt;
             if (ioEvent.isConnectionAttemptCompletedIOEvent()) {
@@ -69,7 +260,10 @@ public class NettyApplicationLayer<K extends Connection<T>, T, C extends Network
             } else if (ioEvent.isApplicationEvent()) {
                 final var appEvent = ioEvent.toApplicationEvent();
                 final var channelContext = (DefaultChannelContext<T>) ioEvent.channelContext();
-                invokeApplicationForEvent(appEvent.getApplicationEvent(), ctx, channelContext.getConnectionContext());
+                dispatch(ctx, channelContext, () -> invokeApplicationForEvent(appEvent.getApplicationEvent(), ctx, channelContext));
+            } else if (ioEvent.isConnectionWritabilityChangedIOEvent() || ioEvent.isConnectionInactiveIOEvent()) {
+                final var channelContext = (DefaultChannelContext<T>) ioEvent.channelContext();
+                dispatch(ctx, channelContext, () -> invokeApplicationForOptionalEvent(ioEvent, ctx, channelContext));
             } else if (ioEvent.isConnectionActiveIOEvent()) {
                 // Not sure we need to do anything here... so for now, not doing anything...
                 logger.info("Connection is now active " + ioEvent.channelContext().getConnectionId());
@@ -77,7 +271,7 @@ public class NettyApplicationLayer<K extends Connection<T>, T, C extends Network
                 // TODO: log warn with an AlertCode etc...
                 logger.warn("Unhandled IOEvent " + ioEvent);
                 final var channelContext = (DefaultChannelContext<T>) ioEvent.channelContext();
-                invokeApplicationForEvent(evt, ctx, channelContext.getConnectionContext());
+                dispatch(ctx, channelContext, () -> invokeApplicationForEvent(evt, ctx, channelContext));
             }
         } catch (final ClassCastException e) {
             // TODO: log warn...
@@ -1,14 +1,19 @@
 package io.snice.networking.app.impl;
 
 import io.hektor.fsm.Data;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOutboundHandler;
 import io.netty.channel.ChannelPromise;
+import io.snice.networking.common.ChannelContext;
+import io.snice.networking.common.ConnectionId;
 import io.snice.networking.common.event.IOEvent;
 import io.snice.networking.common.event.MessageIOEvent;
 import io.snice.networking.common.fsm.FsmFactory;
 import io.snice.networking.common.fsm.NetworkContext;
+import io.snice.networking.common.time.CachedClock;
+import io.snice.time.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,7 +51,7 @@ import java.util.Optional;
  * that deals with so-called Flows (RFC5626)
  * </p>
  */
-public class NettyFsmLayer<T, S extends Enum<S>, C extends NetworkContext<T>, D extends Data> extends ChannelInboundHandlerAdapter implements ChannelOutboundHandler {
+public class NettyFsmLayer<T, S extends Enum<S>, C extends NetworkContext<T>, D extends Data> extends ChannelInboundHandlerAdapter implements ChannelOutboundHandler, FusedLayer<T> {
 
     private static final Logger logger = LoggerFactory.getLogger(NettyFsmLayer.class);
 
@@ -57,13 +62,46 @@ public class NettyFsmLayer<T, S extends Enum<S>, C extends NetworkContext<T>, D
      */
     private FsmExecutionContext<T, S, C, D> fsmExecutionContext;
     private final FsmFactory<T, S, C, D> fsmFactory;
+    private final Clock clock;
 
+    /**
+     * Our own netty context, which is what the FSMs write through, also when invoked directly by the
+     * transport adapter of a fused pipeline.
+     */
+    private ChannelHandlerContext nettyCtx;
+
+    /**
+     * If the pipeline has been fused (see {@link io.snice.networking.app.NetworkAppConfig#isFusedPipeline()}),
+     * the transport adapter calls us directly and whatever the FSMs send upstream is handed straight to
+     * this layer, which is the application layer. Otherwise null.
+     */
+    private FusedLayer<T> next;
 
     public NettyFsmLayer(final FsmFactory<T, S, C, D> fsmFactory) {
+        this(fsmFactory, CachedClock.getDefault());
+    }
+
+    public NettyFsmLayer(final FsmFactory<T, S, C, D> fsmFactory, final Clock clock) {
         this.fsmFactory = fsmFactory;
+        this.clock = clock;
     }
 
 
+    /**
+     * If the pipeline has been fused, the transport adapter, which is already in the pipeline, dispatches
+     * straight to the application layer, which would bypass us, so we step in between the two.
+     */
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) throws Exception {
+        nettyCtx = ctx;
+        for (final var entry : ctx.pipeline()) {
+            if (entry.getValue() instanceof FusedLayer.Adapter) {
+                next = ((FusedLayer.Adapter<T>) entry.getValue()).interpose(this);
+                break;
+            }
+        }
+    }
+
     @Override
     public void channelRead(final ChannelHandlerContext ctx, final Object object) throws Exception {
         final var event = (MessageIOEvent<T>) object;
@@ -73,30 +111,76 @@ public class NettyFsmLayer<T, S extends Enum<S>, C extends NetworkContext<T>, D
         }
     }
 
+    @Override
+    public void processMessage(final ChannelHandlerContext ctx, final DefaultChannelContext<T> channelContext, final T msg, final ByteBuf buffer) {
+        try {
+            channelRead(nettyCtx, PooledMessageIOEvent.create(channelContext, clock.getCurrentTimeMillis(), msg, buffer));
+        } catch (final Exception e) {
+            nettyCtx.fireExceptionCaught(e);
+        }
+    }
+
+    @Override
+    public void processEvent(final ChannelHandlerContext ctx, final Object evt) {
+        try {
+            userEventTriggered(nettyCtx, evt);
+        } catch (final Exception e) {
+            nettyCtx.fireExceptionCaught(e);
+        }
+    }
+
+    /**
+     * Pass the event on to the next layer, without involving the FSM.
+     */
+    protected void fireUserEvent(final ChannelHandlerContext ctx, final Object evt) {
+        if (next != null) {
+            next.processEvent(ctx, evt);
+        } else {
+            ctx.fireUserEventTriggered(evt);
+        }
+    }
+
+    /**
+     * The context the FSMs of this layer buffer everything they do in.
+     */
+    protected BufferingChannelContext<T> newBufferingContext(final ConnectionId connectionId, final ChannelContext<T> channelCtx) {
+        return new BufferingChannelContext<>(connectionId, channelCtx, next);
+    }
+
     /**
      * Invoked when the application writes something to the channel. As is, this is a message on its
      * way out.
      */
     @Override
     public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) throws Exception {
-        final var event = (T) msg;
         if (fsmExecutionContext == null) {
             logger.warn("Unable to write message because the execution context hasn't been created. Dropping write");
+            if (!promise.isVoid()) {
+                promise.tryFailure(new IllegalStateException("The FSM execution context hasn't been created"));
+            }
             return;
         }
 
-        fsmExecutionContext.onDownstreamMessage((T) msg);
+        fsmExecutionContext.onDownstreamMessage((T) msg, promise);
     }
 
 
     @Override
     public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) throws Exception {
         final var ioEvent = (IOEvent<T>) evt;
+
+        // the writability of the channel is of no concern to the state machine, it is for the
+        // application (the producer) to decide what to do about it.
+        if (ioEvent.isConnectionWritabilityChangedIOEvent()) {
+            fireUserEvent(ctx, ioEvent);
+            return;
+        }
+
         final var executionCtx = ensureExecutionContext(ioEvent, ctx);
         if (executionCtx != null) {
             executionCtx.onUpstreamMessage(ioEvent);
         } else {
-            ctx.fireUserEventTriggered(ioEvent);
+            fireUserEvent(ctx, ioEvent);
         }
 
         // Note: keeping this one as a comment to point out the following.
@@ -116,7 +200,7 @@ public class NettyFsmLayer<T, S extends Enum<S>, C extends NetworkContext<T>, D
 
         final var channelCtx = event.channelContext();
         final var connectionId = channelCtx.getConnectionId();
-        final var bufferingCtx = new BufferingChannelContext<T>(connectionId, event.channelContext());
+        final var bufferingCtx = newBufferingContext(connectionId, event.channelContext());
 
         final Optional<T> optionalMsg = event.isMessageIOEvent() ? Optional.of(event.toMessageIOEvent().getMessage()) : Optional.empty();
         final var fsmKey = fsmFactory.calculateKey(connectionId, optionalMsg);
@@ -128,7 +212,7 @@ public class NettyFsmLayer<T, S extends Enum<S>, C extends NetworkContext<T>, D
         final var data = fsmFactory.createNewDataBag(fsmKey);
         final var fsm = fsmFactory.createNewFsm(fsmKey, ctx, data);
 
-        fsmExecutionContext = new FsmExecutionContext<>(event, bufferingCtx, nettyCtx, fsm);
+        fsmExecutionContext = new FsmExecutionContext<>(event, bufferingCtx, nettyCtx, fsm, clock);
         fsmExecutionContext.start();
         return fsmExecutionContext;
     }
@@ -0,0 +1,220 @@
+package io.snice.networking.app.impl;
+
+import io.hektor.fsm.Data;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.snice.networking.common.ChannelContext;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.event.IOEvent;
+import io.snice.networking.common.event.MessageIOEvent;
+import io.snice.networking.common.fsm.FsmFactory;
+import io.snice.networking.common.fsm.FsmKey;
+import io.snice.networking.common.fsm.NetworkContext;
+import io.snice.networking.config.FsmTableConfiguration;
+import io.snice.time.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * The {@link NettyFsmLayer} keeps a single FSM per netty pipeline, which is what you want for connection
+ * oriented protocols, such as TCP, where the pipeline is the connection. For connectionless protocols,
+ * such as UDP, a single pipeline is carrying the traffic of every remote peer and as such, this layer
+ * keeps one FSM per {@link FsmKey}, as calculated by {@link FsmFactory#calculateKey(io.snice.networking.common.ConnectionId, Optional)},
+ * in a bounded {@link FsmTable}.
+ *
+ * Messages written by the application are routed to the FSM given by
+ * {@link FsmFactory#calculateDownstreamKey(Object)}. If that FSM no longer exists, e.g. because it was
+ * evicted for being idle, a new one is created for the flow given by
+ * {@link FsmFactory#calculateDownstreamConnectionId(Object)}, as long as the {@link NettyUdpInboundAdapter}
+ * still knows about that flow.
+ *
+ * An FSM is only evicted if {@link FsmFactory#isEvictable(Data)} says so, and once evicted, it is
+ * terminated (see {@link FsmExecutionContext#terminate()}).
+ *
+ * Same as the {@link NettyFsmLayer}, this handler is NOT THREAD SAFE and is only to be accessed by the
+ * event loop of the channel.
+ */
+public class NettyMultiplexedFsmLayer<T, S extends Enum<S>, C extends NetworkContext<T>, D extends Data> extends NettyFsmLayer<T, S, C, D> {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyMultiplexedFsmLayer.class);
+
+    private final FsmFactory<T, S, C, D> fsmFactory;
+    private final FsmTableConfiguration config;
+    private final Clock clock;
+    private final FsmTable<FsmExecutionContext<T, S, C, D>> fsms;
+
+    private ScheduledFuture<?> expiryTask;
+
+    /**
+     * The adapter keeping track of the flows of the channel, if there is one, which is where we find the
+     * flow of a message written by the application when its FSM has to be re-created.
+     */
+    private NettyUdpInboundAdapter<T> adapter;
+
+    public NettyMultiplexedFsmLayer(final FsmFactory<T, S, C, D> fsmFactory, final FsmTableConfiguration config, final Clock clock) {
+        super(fsmFactory, clock);
+        assertNotNull(config, "The FSM table configuration cannot be null");
+        assertNotNull(clock, "The clock cannot be null");
+        this.fsmFactory = fsmFactory;
+        this.config = config;
+        this.clock = clock;
+        fsms = FsmTable.of(config, this::isEvictable, this::onFsmEvicted);
+    }
+
+    /**
+     * The FSM table of this channel. Mainly for getting the size and eviction counters.
+     */
+    public FsmTable<FsmExecutionContext<T, S, C, D>> getFsmTable() {
+        return fsms;
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        adapter = ctx.pipeline().get(NettyUdpInboundAdapter.class);
+        if (config.getIdleTimeoutMillis() > 0) {
+            final long tick = config.getTickMillis();
+            expiryTask = ctx.executor().scheduleAtFixedRate(this::expireIdleFsms, tick, tick, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) throws Exception {
+        if (expiryTask != null) {
+            expiryTask.cancel(false);
+            expiryTask = null;
+        }
+        fsms.clear();
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object object) throws Exception {
+        final var event = (MessageIOEvent<T>) object;
+        final var executionCtx = ensureExecutionContext(event, ctx);
+        if (executionCtx != null) {
+            executionCtx.onUpstreamMessage(event);
+        }
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) throws Exception {
+        final var key = fsmFactory.calculateDownstreamKey((T) msg);
+        if (key == null) {
+            ctx.write(msg, promise);
+            return;
+        }
+
+        var executionCtx = fsms.get(key, clock.getCurrentTimeMillis());
+        if (executionCtx == null) {
+            executionCtx = recreateExecutionContext(key, (T) msg, ctx);
+        }
+
+        if (executionCtx == null) {
+            logger.warn("No FSM for key {}, it may have been evicted. Dropping write", key);
+            if (!promise.isVoid()) {
+                promise.tryFailure(new IllegalStateException("No FSM for key " + key));
+            }
+            return;
+        }
+
+        executionCtx.onDownstreamMessage((T) msg, promise);
+    }
+
+    @Override
+    public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) throws Exception {
+        final var ioEvent = (IOEvent<T>) evt;
+
+        if (ioEvent.isConnectionWritabilityChangedIOEvent()) {
+            fireUserEvent(ctx, ioEvent);
+            return;
+        }
+
+        final var executionCtx = ensureExecutionContext(ioEvent, ctx);
+        if (executionCtx != null) {
+            executionCtx.onUpstreamMessage(ioEvent);
+        } else {
+            fireUserEvent(ctx, ioEvent);
+        }
+    }
+
+    private FsmExecutionContext<T, S, C, D> ensureExecutionContext(final IOEvent<T> event,
+                                                                   final ChannelHandlerContext nettyCtx) {
+        final var channelCtx = event.channelContext();
+        final var connectionId = channelCtx.getConnectionId();
+
+        final Optional<T> optionalMsg = event.isMessageIOEvent() ? Optional.of(event.toMessageIOEvent().getMessage()) : Optional.empty();
+        final var fsmKey = fsmFactory.calculateKey(connectionId, optionalMsg);
+        if (fsmKey == null) {
+            return null;
+        }
+
+        final long now = clock.getCurrentTimeMillis();
+        final var existing = fsms.get(fsmKey, now);
+        if (existing != null) {
+            return existing;
+        }
+
+        return createExecutionContext(fsmKey, connectionId, channelCtx, event, nettyCtx, now);
+    }
+
+    /**
+     * The application is writing to a flow whose FSM no longer exists, so create a new one, as long as the
+     * flow itself still exists.
+     */
+    private FsmExecutionContext<T, S, C, D> recreateExecutionContext(final FsmKey fsmKey,
+                                                                     final T msg,
+                                                                     final ChannelHandlerContext nettyCtx) {
+        final var connectionId = fsmFactory.calculateDownstreamConnectionId(msg);
+        if (connectionId == null || adapter == null) {
+            return null;
+        }
+
+        final long now = clock.getCurrentTimeMillis();
+        final var channelCtx = adapter.getFlowTable().get(connectionId, now);
+        if (channelCtx == null) {
+            return null;
+        }
+
+        return createExecutionContext(fsmKey, connectionId, channelCtx, null, nettyCtx, now);
+    }
+
+    private FsmExecutionContext<T, S, C, D> createExecutionContext(final FsmKey fsmKey,
+                                                                   final ConnectionId connectionId,
+                                                                   final ChannelContext<T> channelCtx,
+                                                                   final IOEvent<T> event,
+                                                                   final ChannelHandlerContext nettyCtx,
+                                                                   final long now) {
+        final var bufferingCtx = newBufferingContext(connectionId, channelCtx);
+        final var ctx = fsmFactory.createNewContext(fsmKey, bufferingCtx);
+        final var data = fsmFactory.createNewDataBag(fsmKey);
+        final var fsm = fsmFactory.createNewFsm(fsmKey, ctx, data);
+
+        final var executionCtx = new FsmExecutionContext<>(event, bufferingCtx, nettyCtx, fsm, data, clock);
+        fsms.put(fsmKey, executionCtx, now);
+        executionCtx.start();
+        return executionCtx;
+    }
+
+    private boolean isEvictable(final FsmExecutionContext<T, S, C, D> executionCtx) {
+        return fsmFactory.isEvictable(executionCtx.getData());
+    }
+
+    private void onFsmEvicted(final FsmKey key, final FsmExecutionContext<T, S, C, D> executionCtx) {
+        logger.debug("Evicted the FSM for key {}", key);
+        executionCtx.terminate();
+    }
+
+    private void expireIdleFsms() {
+        final int evicted = fsms.expire(clock.getCurrentTimeMillis());
+        if (evicted > 0 && logger.isDebugEnabled()) {
+            logger.debug("Evicted {} idle FSMs. FSMs: {}, idle evictions: {}, capacity evictions: {}",
+                    evicted, fsms.size(), fsms.getIdleEvictions(), fsms.getCapacityEvictions());
+        }
+    }
+}
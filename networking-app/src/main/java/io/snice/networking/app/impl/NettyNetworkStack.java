@@ -3,6 +3,7 @@ package io.snice.networking.app.impl;
 import io.netty.channel.ChannelHandler;
 import io.snice.networking.app.ConnectionContext;
 import io.snice.networking.app.Environment;
+import io.snice.networking.app.ExecutionMode;
 import io.snice.networking.app.NetworkAppConfig;
 import io.snice.networking.app.NetworkApplication;
 import io.snice.networking.app.NetworkStack;
@@ -10,12 +11,16 @@ import io.snice.networking.bundles.ProtocolBundle;
 import io.snice.networking.common.Connection;
 import io.snice.networking.common.IllegalTransportException;
 import io.snice.networking.common.Transport;
+import io.snice.networking.common.time.CachedClock;
+import io.snice.networking.common.time.PreciseClock;
 import io.snice.networking.core.NetworkInterface;
 import io.snice.networking.netty.NettyNetworkLayer;
 import io.snice.time.Clock;
-import io.snice.time.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletionStage;
@@ -27,13 +32,21 @@ import static io.snice.preconditions.PreConditions.ensureNotNull;
 @ChannelHandler.Sharable
 public class NettyNetworkStack<E extends Environment<K, T, C>, K extends Connection<T>, T, C extends NetworkAppConfig> implements NetworkStack<K, T, C> {
 
+    private static final Logger logger = LoggerFactory.getLogger(NettyNetworkStack.class);
+
     private final C config;
     private final NetworkApplication<E, K, T, C> app;
     private final List<ConnectionContext<K, T>> ctxs;
     private NettyNetworkLayer network;
-    private final Clock clock = new SystemClock();
+    private final Clock clock;
     private final ProtocolBundle<K, T, C> protocolBundle;
 
+    /**
+     * Only created if there is at least one {@link ConnectionContext} that doesn't want to be
+     * invoked on the {@link ExecutionMode#EVENT_LOOP}.
+     */
+    private WorkerPool workerPool;
+
     private NettyNetworkStack(final C config,
                               final NetworkApplication<E, K, T, C> app,
                               final ProtocolBundle<K, T, C> protocolBundle,
@@ -42,6 +55,11 @@ public class NettyNetworkStack<E extends Environment<K, T, C>, K extends Connect
         this.app = app;
         this.protocolBundle = protocolBundle;
         this.ctxs = ctxs;
+
+        // the clock is only used for time stamping the messages and events, so the cached one
+        // unless the user explicitly asked for the system clock to be read every time.
+        final long resolution = config.getClockResolutionMillis();
+        this.clock = resolution > 0 ? CachedClock.of(Duration.ofMillis(resolution)) : PreciseClock.getInstance();
     }
 
     public static <E extends Environment<K, T, C>, K extends Connection<T>, T, C extends NetworkAppConfig> Builder<E, K, T, C> ofConfiguration(final C config) {
@@ -50,7 +68,24 @@ public class NettyNetworkStack<E extends Environment<K, T, C>, K extends Connect
 
     @Override
     public void start() {
-        final var appLayer = new NettyApplicationLayer(protocolBundle);
+        if (ctxs.stream().anyMatch(ctx -> ctx.getExecutionMode() != ExecutionMode.EVENT_LOOP)) {
+            workerPool = WorkerPool.of(config.getWorkerPool());
+        }
+
+        // without virtual threads, every blocked application thread is a pool thread that can't process the
+        // very answer it is waiting for, so rather than deadlocking once the pool is exhausted, refuse to start.
+        if (ctxs.stream().anyMatch(ctx -> ctx.getExecutionMode() == ExecutionMode.VIRTUAL_THREAD)
+                && !workerPool.supportsVirtualThreads()) {
+            throw new IllegalStateException("One or more connection contexts asked for "
+                    + ExecutionMode.VIRTUAL_THREAD + " but virtual threads are not supported by this JVM");
+        }
+        final var appLayer = new NettyApplicationLayer(protocolBundle, workerPool, config.isRecycleEvents());
+
+        // when fused, the transport adapters call the app layer directly and it is never added to the pipeline.
+        // The FSM layer has to see all outbound messages though so it stays in the pipeline but steps in
+        // between the adapter and the app layer, which it then calls directly too.
+        final boolean fused = config.isFusedPipeline();
+        final NettyApplicationLayer fusedAppLayer = fused ? appLayer : null;
 
         // TODO: the network bundle should probably be loaded by looking at the
         // TODO: schema of the listening addresses.
@@ -62,12 +97,16 @@ public class NettyNetworkStack<E extends Environment<K, T, C>, K extends Connect
         // TODO: so perhaps
         // TODO: config.getNetworkInterfaces().stream().groupBy(schema).collect();
         // TODO: and then
+        // the selector is immutable and as such shared by all the channels.
+        final var selector = ConnectionContextSelector.of(ctxs);
         final var builder = NettyNetworkLayer.with(config.getNetworkInterfaces())
+                .withTransportMode(config.getTransportMode())
+                .withWriteCoalescing(config.getWriteCoalescing())
                 .withHandler(protocolBundle.getProtocolEncoders())
                 .withHandler(protocolBundle.getProtocolDecoders())
-                .withHandler("udp-adapter", () -> new NettyUdpInboundAdapter(clock, Optional.empty(), ctxs), Transport.udp)
-                .withHandler("tcp-adapter", () -> new NettyTcpInboundAdapter(clock, Optional.empty(), ctxs), Transport.tcp)
-                .withHandler("sctp-adapter", () -> new NettySctpInboundAdapter(clock, Optional.empty(), ctxs), Transport.sctp);
+                .withHandler("udp-adapter", () -> new NettyUdpInboundAdapter(clock, Optional.empty(), selector, config.getUdpFlowTable(), fusedAppLayer, config.isRecycleEvents()), Transport.udp)
+                .withHandler("tcp-adapter", () -> new NettyTcpInboundAdapter(clock, Optional.empty(), selector, fusedAppLayer, config.isRecycleEvents()), Transport.tcp)
+                .withHandler("sctp-adapter", () -> new NettySctpInboundAdapter(clock, Optional.empty(), selector, fusedAppLayer, config.isRecycleEvents()), Transport.sctp);
 
         // the optional fsm layer - will also be injected dynamically depending on whether
         // the user actually wants an FSM layer or not.
@@ -75,18 +114,21 @@ public class NettyNetworkStack<E extends Environment<K, T, C>, K extends Connect
         // one for the entire stack will be dependent on the actual need of the implementation.
         // TODO: need to ensure that the FSM factory is for a particular transport too
         protocolBundle.getFsmFactory().ifPresent(fsmFactory -> {
-            builder.withHandler("fsm-layer", () -> new NettyFsmLayer(fsmFactory), Transport.udp);
-            builder.withHandler("fsm-layer", () -> new NettyFsmLayer(fsmFactory), Transport.tcp);
-            builder.withHandler("fsm-layer", () -> new NettyFsmLayer(fsmFactory), Transport.sctp);
+            // a UDP channel carries the traffic of every remote peer so one FSM per key rather than per channel.
+            builder.withHandler("fsm-layer", () -> new NettyMultiplexedFsmLayer(fsmFactory, config.getFsmTable(), clock), Transport.udp);
+            builder.withHandler("fsm-layer", () -> new NettyFsmLayer(fsmFactory, clock), Transport.tcp);
+            builder.withHandler("fsm-layer", () -> new NettyFsmLayer(fsmFactory, clock), Transport.sctp);
         });
 
         // App layer is not optional so it will always be injected but it will need to be configured by
         // the NetworkApplication etc in order to inject the message pipelines and whatnot.
-        network = builder
-                .withHandler("app-layer", () -> appLayer, Transport.udp)
-                .withHandler("app-layer", () -> appLayer, Transport.tcp)
-                .withHandler("app-layer", () -> appLayer, Transport.sctp)
-                .build();
+        if (!fused) {
+            builder.withHandler("app-layer", () -> appLayer, Transport.udp)
+                    .withHandler("app-layer", () -> appLayer, Transport.tcp)
+                    .withHandler("app-layer", () -> appLayer, Transport.sctp);
+        }
+
+        network = builder.build();
 
         network.start();
     }
@@ -139,6 +181,9 @@ public class NettyNetworkStack<E extends Environment<K, T, C>, K extends Connect
     @Override
     public void stop() {
         network.stop();
+        if (workerPool != null) {
+            workerPool.shutdown();
+        }
     }
 
     private static class Builder<E extends Environment<K, T, C>, K extends Connection<T>, T, C extends NetworkAppConfig> implements NetworkStack.Builder<E, K, T, C> {
@@ -1,6 +1,7 @@
 package io.snice.networking.app.impl;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.snice.buffer.Buffer;
 import io.snice.buffer.ByteNotFoundException;
 import io.snice.buffer.ReadableBuffer;
@@ -8,7 +9,27 @@ import io.snice.buffer.WritableBuffer;
 
 import java.io.IOException;
 import java.io.OutputStream;
-
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link ReadableBuffer} that is a view over a Netty {@link ByteBuf}, which allows us
+ * to frame inbound messages straight off of the (pooled) buffer Netty read the data into
+ * without first copying it into a new byte-array.
+ *
+ * <p>
+ * Note that this buffer, nor any of the slices you create off of it, does NOT manage the
+ * reference count of the underlying {@link ByteBuf}. Whoever handed the {@link ByteBuf}
+ * to this view owns it and is responsible for releasing it once the message
+ * is no longer in use (see {@link PooledMessage}). Once released, the content of this buffer
+ * is undefined.
+ * </p>
+ *
+ * <p>
+ * All indexes are relative to the start of the given {@link ByteBuf}, which
+ * therefore is expected to be a slice starting at index zero (which is what
+ * e.g. {@link ByteBuf#retainedSlice()} gives you).
+ * </p>
+ */
 public class NettyReadableBuffer implements ReadableBuffer {
 
     private final ByteBuf buffer;
@@ -17,6 +38,52 @@ public class NettyReadableBuffer implements ReadableBuffer {
         return new NettyReadableBuffer(buffer);
     }
 
+    /**
+     * A message framed over a {@link NettyReadableBuffer} is only valid for as long as the inbound event
+     * it arrived in is being processed. Anything that holds onto the message beyond that must either detach
+     * it from the underlying {@link ByteBuf}, or {@link #retain(Buffer)} the {@link ByteBuf} for as long as it does.
+     *
+     * @return a copy of the entire content of the given buffer if it is a view over a {@link ByteBuf}, or
+     * the very same buffer if it isn't, in which case there is nothing to detach it from.
+     */
+    public static Buffer detach(final Buffer buffer) {
+        if (!(buffer instanceof NettyReadableBuffer)) {
+            return buffer;
+        }
+
+        final var byteBuf = ((NettyReadableBuffer) buffer).buffer;
+        final byte[] b = new byte[byteBuf.writerIndex()];
+        byteBuf.getBytes(0, b);
+        return Buffer.of(b);
+    }
+
+    /**
+     * Keep the {@link ByteBuf} the given buffer is a view over alive beyond the inbound event it arrived in
+     * without copying anything, as opposed to {@link #detach(Buffer)}. Every successful call must be matched
+     * by a call to {@link #release(Buffer)}, with the same buffer, once it no longer is in use.
+     *
+     * @return true if the given buffer is a view over a {@link ByteBuf}, which now has been retained, or false
+     * if it isn't, in which case there is nothing to retain.
+     */
+    public static boolean retain(final Buffer buffer) {
+        if (!(buffer instanceof NettyReadableBuffer)) {
+            return false;
+        }
+
+        ((NettyReadableBuffer) buffer).buffer.retain();
+        return true;
+    }
+
+    /**
+     * Release the {@link ByteBuf} the given buffer is a view over, which must have been retained
+     * through {@link #retain(Buffer)}. A buffer that isn't a view over a {@link ByteBuf} is simply ignored.
+     */
+    public static void release(final Buffer buffer) {
+        if (buffer instanceof NettyReadableBuffer) {
+            ((NettyReadableBuffer) buffer).buffer.release();
+        }
+    }
+
     private NettyReadableBuffer(final ByteBuf buffer) {
         this.buffer = buffer;
     }
@@ -82,7 +149,7 @@ public class NettyReadableBuffer implements ReadableBuffer {
 
     @Override
     public Buffer readBytes(final int length) throws IndexOutOfBoundsException {
-        return NettyReadableBuffer.of(buffer.readBytes(length));
+        return NettyReadableBuffer.of(buffer.readSlice(length));
     }
 
     @Override
@@ -155,6 +222,11 @@ public class NettyReadableBuffer implements ReadableBuffer {
         throw new RuntimeException("not yet implemented");
     }
 
+    /**
+     * Just like for the other {@link ReadableBuffer}s, this is an immutable {@link Buffer} and as such, it
+     * is a copy of the readable bytes, which, unlike this view, remains valid once the underlying
+     * {@link ByteBuf} has been released.
+     */
     @Override
     public Buffer toBuffer() {
         return Buffer.of(sliceToSize());
@@ -162,7 +234,7 @@ public class NettyReadableBuffer implements ReadableBuffer {
 
     @Override
     public byte[] getContent() {
-        throw new RuntimeException("not yet implemented");
+        return sliceToSize();
     }
 
     private byte[] sliceToSize() {
@@ -176,7 +248,7 @@ public class NettyReadableBuffer implements ReadableBuffer {
 
     @Override
     public ReadableBuffer toReadableBuffer() {
-        return toBuffer().toReadableBuffer();
+        return NettyReadableBuffer.of(buffer.slice());
     }
 
     @Override
@@ -223,34 +295,46 @@ public class NettyReadableBuffer implements ReadableBuffer {
 
     @Override
     public int indexOf(final byte b) throws ByteNotFoundException, IllegalArgumentException {
-        throw new RuntimeException("not yet implemented");
+        final int index = buffer.indexOf(buffer.readerIndex(), buffer.writerIndex(), b);
+        if (index == -1) {
+            throw new ByteNotFoundException(b);
+        }
+        return index;
     }
 
     @Override
     public int countOccurences(final int startIndex, final int maxBytes, final byte b) throws IndexOutOfBoundsException {
-        throw new RuntimeException("not yet implemented");
+        final int stop = Math.min(startIndex + maxBytes, buffer.writerIndex());
+        int count = 0;
+        for (int i = startIndex; i < stop; ++i) {
+            if (buffer.getByte(i) == b) {
+                ++count;
+            }
+        }
+        return count;
     }
 
     @Override
     public void writeTo(final OutputStream out) throws IOException {
-        throw new RuntimeException("not yet implemented");
+        buffer.getBytes(buffer.readerIndex(), out, buffer.readableBytes());
     }
 
     @Override
     public void writeTo(final WritableBuffer out) {
-        throw new RuntimeException("not yet implemented");
+        out.write(sliceToSize());
     }
 
     @Override
     public Buffer slice(final int start, final int stop) throws IndexOutOfBoundsException, IllegalArgumentException {
-        return NettyReadableBuffer.of(buffer.slice(start, stop));
-        // throw new RuntimeException("not yet implemented");
+        if (start > stop) {
+            throw new IllegalArgumentException("The start index (" + start + ") must be less or equal to the stop index (" + stop + ")");
+        }
+        return NettyReadableBuffer.of(buffer.slice(start, stop - start));
     }
 
     @Override
     public Buffer slice(final int stop) {
-        return NettyReadableBuffer.of(buffer.slice(buffer.readerIndex(), stop));
-
+        return slice(buffer.readerIndex(), stop);
     }
 
     @Override
@@ -283,7 +367,7 @@ public class NettyReadableBuffer implements ReadableBuffer {
 
     @Override
     public long getLongFromFiveOctets(final int index) throws IndexOutOfBoundsException {
-        throw new RuntimeException("Not implemented");
+        return ((long) buffer.getUnsignedByte(index) << 32) | buffer.getUnsignedInt(index + 1);
     }
 
     @Override
@@ -343,12 +427,12 @@ public class NettyReadableBuffer implements ReadableBuffer {
 
     @Override
     public String dumpAsHex() {
-        throw new RuntimeException("not yet implemented");
+        return ByteBufUtil.prettyHexDump(buffer);
     }
 
     @Override
     public String toHexString() {
-        throw new RuntimeException("not yet implemented");
+        return ByteBufUtil.hexDump(buffer);
     }
 
     @Override
@@ -358,6 +442,53 @@ public class NettyReadableBuffer implements ReadableBuffer {
 
     @Override
     public String toUTF8String() {
-        throw new RuntimeException("not yet implemented");
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Same as for the other {@link Buffer}s, two buffers are equal if their readable
+     * content is equal, irrespective of how they are backed. Since {@link #toBuffer()} is an immutable
+     * {@link Buffer}, this also holds when the other buffer is the one asked.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (!(other instanceof Buffer)) {
+            return false;
+        }
+
+        if (other instanceof NettyReadableBuffer) {
+            return ByteBufUtil.equals(buffer, ((NettyReadableBuffer) other).buffer);
+        }
+
+        final byte[] content = ((Buffer) other).getContent();
+        if (content.length != buffer.readableBytes()) {
+            return false;
+        }
+
+        final int offset = buffer.readerIndex();
+        for (int i = 0; i < content.length; ++i) {
+            if (buffer.getByte(offset + i) != content[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = buffer.readerIndex(); i < buffer.writerIndex(); ++i) {
+            result = 31 * result + buffer.getByte(i);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return toUTF8String();
     }
 }
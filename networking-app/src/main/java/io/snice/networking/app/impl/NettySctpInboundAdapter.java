@@ -2,6 +2,7 @@ package io.snice.networking.app.impl;
 
 import com.sun.nio.sctp.AssociationChangeNotification;
 import com.sun.nio.sctp.Notification;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandler;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
@@ -12,11 +13,13 @@ import io.snice.networking.common.ConnectionId;
 import io.snice.networking.common.Transport;
 import io.snice.networking.common.event.ConnectionActiveIOEvent;
 import io.snice.networking.common.event.ConnectionAttemptCompletedIOEvent;
+import io.snice.networking.common.event.ConnectionInactiveIOEvent;
 import io.snice.networking.common.event.IOEvent;
-import io.snice.networking.common.event.MessageIOEvent;
+import io.snice.networking.common.event.ConnectionWritabilityChangedIOEvent;
 import io.snice.networking.core.event.ConnectionAttempt;
 import io.snice.networking.core.event.ConnectionAttemptFailed;
 import io.snice.networking.core.event.NetworkEvent;
+import io.snice.networking.netty.EventLoopTimer;
 import io.snice.networking.netty.SctpConnection;
 import io.snice.time.Clock;
 import org.slf4j.Logger;
@@ -37,7 +40,7 @@ import static io.snice.preconditions.PreConditions.assertNull;
  * channel will have it's own handler because it stores states that is unique
  * to only that channel and as such, it cannot be shared...
  */
-public class NettySctpInboundAdapter<T> extends ChannelOutboundHandlerAdapter implements ChannelInboundHandler {
+public class NettySctpInboundAdapter<T> extends ChannelOutboundHandlerAdapter implements ChannelInboundHandler, FusedLayer.Adapter<T> {
 
     private static final Logger logger = LoggerFactory.getLogger(NettySctpInboundAdapter.class);
 
@@ -47,7 +50,7 @@ public class NettySctpInboundAdapter<T> extends ChannelOutboundHandlerAdapter im
     // TODO: don't really need this one.
     private final UUID uuid = UUID.randomUUID();
 
-    private final List<ConnectionContext> ctxs;
+    private final ConnectionContextSelector selector;
     private final int exceptionCounter = 0;
 
     /**
@@ -65,6 +68,19 @@ public class NettySctpInboundAdapter<T> extends ChannelOutboundHandlerAdapter im
     private SctpConnection<T> connection;
     private DefaultChannelContext<T> channelContext;
 
+    /**
+     * If the pipeline has been fused (see {@link io.snice.networking.app.NetworkAppConfig#isFusedPipeline()}),
+     * this is the layer we dispatch to directly instead of going through the rest of the pipeline,
+     * which is the application layer unless the FSM layer has stepped in between us. Otherwise null.
+     */
+    private FusedLayer<T> fused;
+
+    /**
+     * Whether the {@link io.snice.networking.common.event.MessageIOEvent}s fired through the rest of the pipeline
+     * are recycled. See {@link io.snice.networking.app.NetworkAppConfig#isRecycleEvents()}.
+     */
+    private final boolean recycleEvents;
+
     /**
      * We'll hold on to the connection attempt event until we've seen the
      * {@link ConnectionActiveIOEvent} event.
@@ -74,9 +90,41 @@ public class NettySctpInboundAdapter<T> extends ChannelOutboundHandlerAdapter im
     private boolean hasProcessedConnectionActiveIOEvent = false;
 
     public NettySctpInboundAdapter(final Clock clock, final Optional<URI> vipAddress, final List<ConnectionContext> ctxs) {
+        this(clock, vipAddress, ConnectionContextSelector.of(ctxs));
+    }
+
+    public NettySctpInboundAdapter(final Clock clock, final Optional<URI> vipAddress, final ConnectionContextSelector selector) {
+        this(clock, vipAddress, selector, null);
+    }
+
+    /**
+     * @param fused the application layer to dispatch to directly, without going through the rest of the
+     *              pipeline, or null if the application layer is its own handler in the pipeline. If the
+     *              pipeline also has an FSM layer, it will step in between us and the application layer.
+     */
+    public NettySctpInboundAdapter(final Clock clock,
+                                   final Optional<URI> vipAddress,
+                                   final ConnectionContextSelector selector,
+                                   final FusedLayer<T> fused) {
+        this(clock, vipAddress, selector, fused, false);
+    }
+
+    /**
+     * @param fused the application layer to dispatch to directly, without going through the rest of the
+     *              pipeline, or null if the application layer is its own handler in the pipeline. If the
+     *              pipeline also has an FSM layer, it will step in between us and the application layer.
+     * @param recycleEvents whether to recycle the events fired through the rest of the pipeline.
+     */
+    public NettySctpInboundAdapter(final Clock clock,
+                                   final Optional<URI> vipAddress,
+                                   final ConnectionContextSelector selector,
+                                   final FusedLayer<T> fused,
+                                   final boolean recycleEvents) {
+        this.fused = fused;
+        this.recycleEvents = recycleEvents;
         this.clock = clock;
         this.vipAddress = vipAddress;
-        this.ctxs = ctxs;
+        this.selector = selector;
 
         // TODO
         defaultCtx = null;
@@ -124,7 +172,8 @@ public class NettySctpInboundAdapter<T> extends ChannelOutboundHandlerAdapter im
     }
 
     private ConnectionContext<Connection<T>, T> findContext(final ConnectionId id) {
-        return ctxs.stream().filter(ctx -> ctx.test(id)).findFirst().orElse(defaultCtx);
+        final ConnectionContext ctx = selector.select(id);
+        return ctx != null ? ctx : defaultCtx;
     }
 
     /**
@@ -133,18 +182,38 @@ public class NettySctpInboundAdapter<T> extends ChannelOutboundHandlerAdapter im
     @Override
     public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
         logger.debug("Channel is Inactive {}", ctx.channel());
-        if (ctx.channel().localAddress() != null) {
-            // final ConnectionIOEvent event = create(ctx, ConnectionInactiveIOEvent::create);
-            // ctx.fireUserEventTriggered(event);
+
+        // the connection may have been dropped before it ever was handed to anyone
+        // and if so, there is no one to tell.
+        if (channelContext != null) {
+            fireUserEvent(ctx, ConnectionInactiveIOEvent.create(channelContext, clock.getCurrentTimeMillis()));
         }
     }
 
     @Override
     public void channelRead(final ChannelHandlerContext ctx, final Object object) throws Exception {
+        if (object instanceof PooledMessage) {
+            final var pooled = (PooledMessage<T>) object;
+            try {
+                processMessage(ctx, pooled.getMessage(), pooled.getBuffer());
+            } finally {
+                pooled.release();
+            }
+            return;
+        }
+
+        processMessage(ctx, object, null);
+    }
+
+    private void processMessage(final ChannelHandlerContext ctx, final Object object, final ByteBuf buffer) {
         try {
             final var msg = (T) object;
-            final var evt = MessageIOEvent.create(channelContext, clock.getCurrentTimeMillis(), msg);
-            ctx.fireChannelRead(evt);
+            if (fused != null) {
+                fused.processMessage(ctx, channelContext, msg, buffer);
+                return;
+            }
+
+            PooledMessageIOEvent.fire(ctx, channelContext, clock.getCurrentTimeMillis(), msg, buffer, recycleEvents);
         } catch (final ClassCastException e) {
             // TODO: this means that the underlying decoder isn't doing it's job...
             e.printStackTrace();
@@ -156,7 +225,13 @@ public class NettySctpInboundAdapter<T> extends ChannelOutboundHandlerAdapter im
      */
     @Override
     public void channelWritabilityChanged(final ChannelHandlerContext ctx) throws Exception {
-        log("writability changed");
+        final boolean isWritable = ctx.channel().isWritable();
+        log("writability changed. IsWritable: " + isWritable);
+        if (channelContext != null) {
+            final var evt = ConnectionWritabilityChangedIOEvent.create(channelContext, isWritable, clock.getCurrentTimeMillis());
+            fireUserEvent(ctx, evt);
+        }
+        ctx.fireChannelWritabilityChanged();
     }
 
     @Override
@@ -199,7 +274,7 @@ public class NettySctpInboundAdapter<T> extends ChannelOutboundHandlerAdapter im
             }
 
 
-            events.forEach(ctx::fireUserEventTriggered);
+            events.forEach(e -> fireUserEvent(ctx, e));
             ctx.flush();
 
         } catch (final ClassCastException e) {
@@ -250,7 +325,7 @@ public class NettySctpInboundAdapter<T> extends ChannelOutboundHandlerAdapter im
         }
 
         connection = new SctpConnection<T>(channel, id, vipAddress);
-        channelContext = new DefaultChannelContext<T>(connection, connCtx);
+        channelContext = new DefaultChannelContext<T>(connection, connCtx, EventLoopTimer.of(channel.eventLoop()));
         final var connectionEvt = ConnectionActiveIOEvent.create(channelContext, isInbound, clock.getCurrentTimeMillis());
         final var completedEvt = processConnectionAttemptCompleted(false, ctx, connectionAttempt);
         if (completedEvt.isPresent()) {
@@ -301,4 +376,24 @@ public class NettySctpInboundAdapter<T> extends ChannelOutboundHandlerAdapter im
         ctx.connect(remoteAddress, localAddress, promise);
     }
 
+    @Override
+    public FusedLayer<T> interpose(final FusedLayer<T> layer) {
+        final var previous = fused;
+        if (previous != null) {
+            fused = layer;
+        }
+        return previous;
+    }
+
+    /**
+     * Hand the event over to the next layer, either directly, if the pipeline has been fused,
+     * or by firing it down the pipeline.
+     */
+    private void fireUserEvent(final ChannelHandlerContext ctx, final Object evt) {
+        if (fused != null) {
+            fused.processEvent(ctx, evt);
+        } else {
+            ctx.fireUserEventTriggered(evt);
+        }
+    }
 }
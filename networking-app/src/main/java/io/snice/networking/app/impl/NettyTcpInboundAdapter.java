@@ -1,5 +1,6 @@
 package io.snice.networking.app.impl;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandler;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
@@ -10,10 +11,12 @@ import io.snice.networking.common.ConnectionId;
 import io.snice.networking.common.Transport;
 import io.snice.networking.common.event.ConnectionActiveIOEvent;
 import io.snice.networking.common.event.ConnectionAttemptCompletedIOEvent;
-import io.snice.networking.common.event.MessageIOEvent;
+import io.snice.networking.common.event.ConnectionInactiveIOEvent;
+import io.snice.networking.common.event.ConnectionWritabilityChangedIOEvent;
 import io.snice.networking.core.event.ConnectionAttempt;
 import io.snice.networking.core.event.ConnectionAttemptFailed;
 import io.snice.networking.core.event.NetworkEvent;
+import io.snice.networking.netty.EventLoopTimer;
 import io.snice.networking.netty.TcpConnection;
 import io.snice.time.Clock;
 import org.slf4j.Logger;
@@ -35,7 +38,7 @@ import static io.snice.preconditions.PreConditions.assertNull;
  * to only that channel and as such, it cannot be shared...
  *
  */
-public class NettyTcpInboundAdapter<T> extends ChannelOutboundHandlerAdapter implements ChannelInboundHandler {
+public class NettyTcpInboundAdapter<T> extends ChannelOutboundHandlerAdapter implements ChannelInboundHandler, FusedLayer.Adapter<T> {
 
     private static final Logger logger = LoggerFactory.getLogger(NettyTcpInboundAdapter.class);
 
@@ -45,7 +48,7 @@ public class NettyTcpInboundAdapter<T> extends ChannelOutboundHandlerAdapter imp
     // TODO: don't really need this one.
     private final UUID uuid = UUID.randomUUID();
 
-    private final List<ConnectionContext> ctxs;
+    private final ConnectionContextSelector selector;
     private final int exceptionCounter = 0;
 
     /**
@@ -63,6 +66,19 @@ public class NettyTcpInboundAdapter<T> extends ChannelOutboundHandlerAdapter imp
     private TcpConnection<T> connection;
     private DefaultChannelContext<T> channelContext;
 
+    /**
+     * If the pipeline has been fused (see {@link io.snice.networking.app.NetworkAppConfig#isFusedPipeline()}),
+     * this is the layer we dispatch to directly instead of going through the rest of the pipeline,
+     * which is the application layer unless the FSM layer has stepped in between us. Otherwise null.
+     */
+    private FusedLayer<T> fused;
+
+    /**
+     * Whether the {@link io.snice.networking.common.event.MessageIOEvent}s fired through the rest of the pipeline
+     * are recycled. See {@link io.snice.networking.app.NetworkAppConfig#isRecycleEvents()}.
+     */
+    private final boolean recycleEvents;
+
     /**
      * We'll hold on to the connection attempt event until we've seen the
      * {@link ConnectionActiveIOEvent} event.
@@ -72,9 +88,41 @@ public class NettyTcpInboundAdapter<T> extends ChannelOutboundHandlerAdapter imp
     private boolean hasProcessedConnectionActiveIOEvent = false;
 
     public NettyTcpInboundAdapter(final Clock clock, final Optional<URI> vipAddress, final List<ConnectionContext> ctxs) {
+        this(clock, vipAddress, ConnectionContextSelector.of(ctxs));
+    }
+
+    public NettyTcpInboundAdapter(final Clock clock, final Optional<URI> vipAddress, final ConnectionContextSelector selector) {
+        this(clock, vipAddress, selector, null);
+    }
+
+    /**
+     * @param fused the application layer to dispatch to directly, without going through the rest of the
+     *              pipeline, or null if the application layer is its own handler in the pipeline. If the
+     *              pipeline also has an FSM layer, it will step in between us and the application layer.
+     */
+    public NettyTcpInboundAdapter(final Clock clock,
+                                  final Optional<URI> vipAddress,
+                                  final ConnectionContextSelector selector,
+                                  final FusedLayer<T> fused) {
+        this(clock, vipAddress, selector, fused, false);
+    }
+
+    /**
+     * @param fused the application layer to dispatch to directly, without going through the rest of the
+     *              pipeline, or null if the application layer is its own handler in the pipeline. If the
+     *              pipeline also has an FSM layer, it will step in between us and the application layer.
+     * @param recycleEvents whether to recycle the events fired through the rest of the pipeline.
+     */
+    public NettyTcpInboundAdapter(final Clock clock,
+                                  final Optional<URI> vipAddress,
+                                  final ConnectionContextSelector selector,
+                                  final FusedLayer<T> fused,
+                                  final boolean recycleEvents) {
+        this.fused = fused;
+        this.recycleEvents = recycleEvents;
         this.clock = clock;
         this.vipAddress = vipAddress;
-        this.ctxs = ctxs;
+        this.selector = selector;
 
         // TODO
         defaultCtx = null;
@@ -154,9 +202,9 @@ public class NettyTcpInboundAdapter<T> extends ChannelOutboundHandlerAdapter imp
         // have any upstream handlers and as such, you can only write.
         // Way better!
         connection = new TcpConnection<T>(channel, id, vipAddress);
-        channelContext = new DefaultChannelContext<T>(connection, connCtx);
+        channelContext = new DefaultChannelContext<T>(connection, connCtx, EventLoopTimer.of(channel.eventLoop()));
         final var evt = ConnectionActiveIOEvent.create(channelContext, isInbound, clock.getCurrentTimeMillis());
-        ctx.fireUserEventTriggered(evt);
+        fireUserEvent(ctx, evt);
 
         // we have to flush "manually" here because we "made" the connection active event up and is
         // not something that has some kind of corresponding readComplete, where we normally are flushing.
@@ -166,7 +214,8 @@ public class NettyTcpInboundAdapter<T> extends ChannelOutboundHandlerAdapter imp
     }
 
     private ConnectionContext<Connection<T>, T> findContext(final ConnectionId id) {
-        return ctxs.stream().filter(ctx -> ctx.test(id)).findFirst().orElse(defaultCtx);
+        final ConnectionContext ctx = selector.select(id);
+        return ctx != null ? ctx : defaultCtx;
     }
 
     /**
@@ -175,18 +224,38 @@ public class NettyTcpInboundAdapter<T> extends ChannelOutboundHandlerAdapter imp
     @Override
     public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
         logger.debug("Channel is Inactive {}", ctx.channel());
-        if (ctx.channel().localAddress() != null) {
-            // final ConnectionIOEvent event = create(ctx, ConnectionInactiveIOEvent::create);
-            // ctx.fireUserEventTriggered(event);
+
+        // the connection may have been dropped before it ever was handed to anyone
+        // and if so, there is no one to tell.
+        if (channelContext != null) {
+            fireUserEvent(ctx, ConnectionInactiveIOEvent.create(channelContext, clock.getCurrentTimeMillis()));
         }
     }
 
     @Override
     public void channelRead(final ChannelHandlerContext ctx, final Object object) throws Exception {
+        if (object instanceof PooledMessage) {
+            final var pooled = (PooledMessage<T>) object;
+            try {
+                processMessage(ctx, pooled.getMessage(), pooled.getBuffer());
+            } finally {
+                pooled.release();
+            }
+            return;
+        }
+
+        processMessage(ctx, object, null);
+    }
+
+    private void processMessage(final ChannelHandlerContext ctx, final Object object, final ByteBuf buffer) {
         try {
-            final var msg = (T)object;
-            final var evt = MessageIOEvent.create(channelContext, clock.getCurrentTimeMillis(), msg);
-            ctx.fireChannelRead(evt);
+            final var msg = (T) object;
+            if (fused != null) {
+                fused.processMessage(ctx, channelContext, msg, buffer);
+                return;
+            }
+
+            PooledMessageIOEvent.fire(ctx, channelContext, clock.getCurrentTimeMillis(), msg, buffer, recycleEvents);
         } catch (final ClassCastException e) {
             // TODO: this means that the underlying decoder isn't doing it's job...
             e.printStackTrace();
@@ -199,7 +268,13 @@ public class NettyTcpInboundAdapter<T> extends ChannelOutboundHandlerAdapter imp
      */
     @Override
     public void channelWritabilityChanged(final ChannelHandlerContext ctx) throws Exception {
-        log("writability changed");
+        final boolean isWritable = ctx.channel().isWritable();
+        log("writability changed. IsWritable: " + isWritable);
+        if (channelContext != null) {
+            final var evt = ConnectionWritabilityChangedIOEvent.create(channelContext, isWritable, clock.getCurrentTimeMillis());
+            fireUserEvent(ctx, evt);
+        }
+        ctx.fireChannelWritabilityChanged();
     }
 
     @Override
@@ -264,7 +339,7 @@ public class NettyTcpInboundAdapter<T> extends ChannelOutboundHandlerAdapter imp
             connectionAttempt = evt;
         } else {
             final var e = ConnectionAttemptCompletedIOEvent.create(channelContext, evt.getUserConnectionFuture(), connection, evt.getArrivalTime());
-            ctx.fireUserEventTriggered(e);
+            fireUserEvent(ctx, e);
             connectionAttempt = null;
         }
     }
@@ -279,4 +354,24 @@ public class NettyTcpInboundAdapter<T> extends ChannelOutboundHandlerAdapter imp
         ctx.connect(remoteAddress, localAddress, promise);
     }
 
+    @Override
+    public FusedLayer<T> interpose(final FusedLayer<T> layer) {
+        final var previous = fused;
+        if (previous != null) {
+            fused = layer;
+        }
+        return previous;
+    }
+
+    /**
+     * Hand the event over to the next layer, either directly, if the pipeline has been fused,
+     * or by firing it down the pipeline.
+     */
+    private void fireUserEvent(final ChannelHandlerContext ctx, final Object evt) {
+        if (fused != null) {
+            fused.processEvent(ctx, evt);
+        } else {
+            ctx.fireUserEventTriggered(evt);
+        }
+    }
 }
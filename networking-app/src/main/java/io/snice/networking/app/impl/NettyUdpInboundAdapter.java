@@ -1,5 +1,6 @@
 package io.snice.networking.app.impl;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
@@ -7,24 +8,32 @@ import io.snice.networking.app.ConnectionContext;
 import io.snice.networking.common.ChannelContext;
 import io.snice.networking.common.Connection;
 import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.ConnectionIdProbe;
 import io.snice.networking.common.Transport;
 import io.snice.networking.common.event.ConnectionActiveIOEvent;
 import io.snice.networking.common.event.ConnectionAttemptCompletedIOEvent;
-import io.snice.networking.common.event.MessageIOEvent;
+import io.snice.networking.common.event.ConnectionInactiveIOEvent;
+import io.snice.networking.common.event.ConnectionWritabilityChangedIOEvent;
 import io.snice.networking.core.event.ConnectionAttemptSuccess;
 import io.snice.networking.core.event.NetworkEvent;
+import io.snice.networking.config.UdpFlowTableConfiguration;
+import io.snice.networking.netty.EventLoopTimer;
+import io.snice.networking.netty.ReusePortFlows;
 import io.snice.networking.netty.UdpConnection;
 import io.snice.time.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.URI;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Adapter to handle all incoming UDP traffic for a particular channel. Since
@@ -33,35 +42,118 @@ import java.util.concurrent.CompletableFuture;
  * from remote peers so in some sense, this {@link UdpConnection} represents
  * a "flow of udp packets between two ip:port pairs".
  *
+ * The flows are kept in a bounded {@link UdpFlowTable} and a flow that has been idle for too long
+ * is evicted, at which point a {@link ConnectionInactiveIOEvent} is fired for that flow.
+ *
  * NOTE: this class is not sharable. If you do not know what that means, read up on
  * the Netty ChannelHandlers and @Sharable (the netty annotation). In short, each
  * channel will have it's own handler because it stores states that is unique
  * to only that channel and as such, it cannot be shared...
  */
-public class NettyUdpInboundAdapter<T> extends ChannelDuplexHandler {
+public class NettyUdpInboundAdapter<T> extends ChannelDuplexHandler implements FusedLayer.Adapter<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyUdpInboundAdapter.class);
 
     private final Clock clock;
     private final Optional<URI> vipAddress;
     private final UUID uuid = UUID.randomUUID();
-    private final List<ConnectionContext> ctxs;
+    private final ConnectionContextSelector selector;
 
-    private final Map<ConnectionId, ChannelContext<T>> channels;
+    private final UdpFlowTableConfiguration flowTableConfig;
+    private final UdpFlowTable<T> channels;
+
+    /**
+     * Used for looking up the flow of every incoming packet without creating a new {@link ConnectionId}.
+     */
+    private final ConnectionIdProbe probe = ConnectionId.probe();
 
     private final ConnectionContext defaultCtx;
 
     private InetSocketAddress localAddress;
 
+    /**
+     * The context of this handler, which we need when a flow is evicted from the flow table
+     * since that doesn't happen as part of processing any particular event.
+     */
+    private ChannelHandlerContext handlerCtx;
+
+    private ScheduledFuture<?> expiryTask;
+
+    /**
+     * If the listening point is bound to more than one socket, the flows of all of those sockets, since
+     * any given flow only lives on one of them. Otherwise null. See {@link ReusePortFlows}.
+     */
+    private ReusePortFlows flows;
+
+    /**
+     * If the pipeline has been fused (see {@link io.snice.networking.app.NetworkAppConfig#isFusedPipeline()}),
+     * this is the layer we dispatch to directly instead of going through the rest of the pipeline,
+     * which is the application layer unless the FSM layer has stepped in between us. Otherwise null.
+     */
+    private FusedLayer<T> fused;
+
+    /**
+     * Whether the {@link io.snice.networking.common.event.MessageIOEvent}s fired through the rest of the pipeline
+     * are recycled. See {@link io.snice.networking.app.NetworkAppConfig#isRecycleEvents()}.
+     */
+    private final boolean recycleEvents;
+
     public NettyUdpInboundAdapter(final Clock clock , final Optional<URI> vipAddress, final List<ConnectionContext> ctxs) {
+        this(clock, vipAddress, ConnectionContextSelector.of(ctxs), new UdpFlowTableConfiguration());
+    }
+
+    public NettyUdpInboundAdapter(final Clock clock,
+                                  final Optional<URI> vipAddress,
+                                  final ConnectionContextSelector selector,
+                                  final UdpFlowTableConfiguration flowTableConfig) {
+        this(clock, vipAddress, selector, flowTableConfig, null);
+    }
+
+    /**
+     * @param fused the application layer to dispatch to directly, without going through the rest of the
+     *              pipeline, or null if the application layer is its own handler in the pipeline. If the
+     *              pipeline also has an FSM layer, it will step in between us and the application layer.
+     */
+    public NettyUdpInboundAdapter(final Clock clock,
+                                  final Optional<URI> vipAddress,
+                                  final ConnectionContextSelector selector,
+                                  final UdpFlowTableConfiguration flowTableConfig,
+                                  final FusedLayer<T> fused) {
+        this(clock, vipAddress, selector, flowTableConfig, fused, false);
+    }
+
+    /**
+     * @param fused the application layer to dispatch to directly, without going through the rest of the
+     *              pipeline, or null if the application layer is its own handler in the pipeline. If the
+     *              pipeline also has an FSM layer, it will step in between us and the application layer.
+     * @param recycleEvents whether to recycle the events fired through the rest of the pipeline.
+     */
+    public NettyUdpInboundAdapter(final Clock clock,
+                                  final Optional<URI> vipAddress,
+                                  final ConnectionContextSelector selector,
+                                  final UdpFlowTableConfiguration flowTableConfig,
+                                  final FusedLayer<T> fused,
+                                  final boolean recycleEvents) {
+        this.fused = fused;
+        this.recycleEvents = recycleEvents;
         this.clock = clock;
         this.vipAddress = vipAddress;
-        this.ctxs = ctxs;
+        this.selector = selector;
+        this.flowTableConfig = flowTableConfig;
 
-        channels = allocateInitialMapSize();
+        channels = UdpFlowTable.of(flowTableConfig, this::onFlowEvicted);
 
         // TODO
         defaultCtx = null;
     }
 
+    /**
+     * The flow table of this channel. Mainly for getting the size and eviction counters.
+     */
+    public UdpFlowTable<T> getFlowTable() {
+        return channels;
+    }
+
     @Override
     public void connect(final ChannelHandlerContext ctx, final SocketAddress remoteAddress,
                         final SocketAddress localAddress, final ChannelPromise promise) throws Exception {
@@ -76,20 +168,6 @@ public class NettyUdpInboundAdapter<T> extends ChannelDuplexHandler {
         ctx.bind(localAddress, promise);
     }
 
-    /**
-     * We really do not want to re-hash the connection map so it is important
-     * that you can configure the initial size of this map from the beginning.
-     * <p>
-     * Also, unlike e.g. TCP, the UDP connections do not have a "natural" end so they
-     * will have to be purged somehow... perhaps I shouldn't store them and just
-     * create them everytime. Wonder what is more expensive...
-     * <p>
-     * TODO: pass in some configuration object...
-     */
-    private Map<ConnectionId, ChannelContext<T>> allocateInitialMapSize() {
-        return new HashMap<>();
-    }
-
     private void log(final String msg) {
         // System.out.println("[ " + uuid + " UDP ]: " + msg);
     }
@@ -101,13 +179,21 @@ public class NettyUdpInboundAdapter<T> extends ChannelDuplexHandler {
     @Override
     public void channelRead(final ChannelHandlerContext ctx, final Object msg) throws Exception {
         final var udp = (UdpReadEvent<T>) msg;
-        final var remote = udp.getRaw().sender();
-
+        boolean handedOver = false;
 
         try {
-
-            final var id = ConnectionId.create(Transport.udp, udp.getRaw().recipient(), remote);
-            final var channelContext = ensureContext(ctx, id, null, udp.getArrivalTime());
+            // the vast majority of packets belong to a flow we already know about so
+            // probe for it first and only create a new ConnectionId if we have to.
+            final long arrivalTime = udp.getArrivalTime();
+            probe.set(Transport.udp, udp.getRaw().recipient(), udp.getRaw().sender());
+            var channelContext = channels.get(probe, arrivalTime);
+            if (channelContext == null) {
+                if (flows != null && handOver(ctx, udp)) {
+                    handedOver = true;
+                    return;
+                }
+                channelContext = ensureContext(ctx, probe.toConnectionId(), null, arrivalTime);
+            }
 
             // null context if e.g. the user has decided to drop the connection.
             // TODO: if the user has a function to run on the drop, it isn't being executed right tnow...
@@ -116,17 +202,52 @@ public class NettyUdpInboundAdapter<T> extends ChannelDuplexHandler {
                 return;
             }
 
-            final var evt = MessageIOEvent.create(channelContext, clock.getCurrentTimeMillis(), udp.getMessage());
-            ctx.fireChannelRead(evt);
-        } catch (final ArrayIndexOutOfBoundsException e) {
-            // TODO: because the ConnectionId.create assumes it's an IPv4 address.
-            throw new RuntimeException("Sorry, currently the internal ConnectionId assumes everything is IPv4 and as such " +
-                    "this isn't working. Please restart your application with the JVM argument " +
-                    "\"-Djava.net.preferIPv4Stack=true\" and it'll be fine");
+            if (fused != null) {
+                fused.processMessage(ctx, (DefaultChannelContext<T>) channelContext, udp.getMessage(), udp.getPooledBuffer());
+                return;
+            }
+
+            PooledMessageIOEvent.fire(ctx, channelContext, clock.getCurrentTimeMillis(), udp.getMessage(), udp.getPooledBuffer(), recycleEvents);
         } catch (final ClassCastException e) {
             // TODO: this means that the underlying decoder isn't doing it's job...
             e.printStackTrace();
+        } finally {
+            if (!handedOver) {
+                udp.release();
+            }
+        }
+    }
+
+    /**
+     * The kernel may very well hand us a datagram belonging to a flow that lives on another socket of the same
+     * listening point, in which case the datagram is handed over to the pipeline of that socket, on its event
+     * loop. If the flow isn't pinned to any socket yet, it is pinned to this one.
+     *
+     * @return true if the datagram was handed over, in which case it is up to the other socket to release it.
+     */
+    private boolean handOver(final ChannelHandlerContext ctx, final UdpReadEvent<T> udp) {
+        final var remoteAddress = udp.getRaw().sender();
+        final Channel owner = flows.pin(remoteAddress, ctx.channel());
+        if (owner == ctx.channel()) {
+            return false;
         }
+
+        final var ownerCtx = owner.pipeline().context(NettyUdpInboundAdapter.class);
+        if (ownerCtx == null) {
+            // the other socket is going away so the flow is ours from now on.
+            flows.unpin(remoteAddress, owner);
+            return handOver(ctx, udp);
+        }
+
+        final var adapter = (NettyUdpInboundAdapter<T>) ownerCtx.handler();
+        owner.eventLoop().execute(() -> {
+            try {
+                adapter.channelRead(ownerCtx, udp);
+            } catch (final Exception e) {
+                logger.warn("Unable to process datagram from {} handed over to {}", remoteAddress, owner, e);
+            }
+        });
+        return true;
     }
 
     /**
@@ -146,68 +267,93 @@ public class NettyUdpInboundAdapter<T> extends ChannelDuplexHandler {
                                             final CompletableFuture<Connection<T>> connectionFuture,
                                             final long arrivalTime) {
         final boolean isInbound = connectionFuture == null;
-        final var udpConnection = new UdpConnection(ctx.channel(), id, vipAddress);
-
-        final var cCtx = channels.computeIfAbsent(id, cId -> {
-
-            // System.err.println("NettyUdpInboundAdapter: Compute if absent " + id);
 
+        // note that the UdpConnection is only needed for a new flow, or when a user is waiting on it,
+        // so don't create it up front.
+        final var existing = channels.get(id, arrivalTime);
+        if (existing == null) {
             // if we do not have a connection future then this connection was NOT initiated by
             // the application and as such, this is an "inbound" connection, as opposed to an "outbound"
-
             final var connCtx = findContext(id);
+
             // only drop if this is an inbound connection attempt. For outbound, the user
             // obviously requested it so we need to let it through.
+            // Note that the socket is shared by every flow, and possibly by other sockets of the same listening
+            // point, so it is only this flow that is dropped. It was pinned when its first datagram came in
+            // and since there is no flow to ever be evicted, the pin has to go now.
             if (isInbound && connCtx.isDrop()) {
-                ctx.close();
-                // Dead adapter so we stop other attempts?
+                if (flows != null) {
+                    flows.unpin(id.getRemoteAddress(), ctx.channel());
+                }
                 return null;
             }
 
-            try {
-                final var channelCtx = new DefaultChannelContext<T>(udpConnection, connCtx);
-                final var connectionActiveIOEvent = ConnectionActiveIOEvent.create(channelCtx, isInbound, arrivalTime);
-                ctx.fireUserEventTriggered(connectionActiveIOEvent);
-
-                // Note that for this inbound UDP "connection", there is no future waiting to be completed since
-                // this is not a connection the user initiated. However, the user may have specified a
-                // "save" function, which will be called by the NettyApplicationLayer in order to invoke the app.
-                final var e = ConnectionAttemptCompletedIOEvent.create(channelCtx, connectionFuture, udpConnection, arrivalTime);
-                ctx.fireUserEventTriggered(e);
-                return channelCtx;
-            } catch (final Throwable th) {
-                th.printStackTrace();
-                throw th;
-            }
-        });
+            final var udpConnection = new UdpConnection<T>(ctx.channel(), id, vipAddress);
+            final var channelCtx = new DefaultChannelContext<T>(udpConnection, connCtx, EventLoopTimer.of(ctx.channel().eventLoop()));
+
+            // note that the flow is added to the table before the events are fired so that the
+            // application is free to e.g. send on the new connection while processing those events.
+            channels.put(id, channelCtx, arrivalTime, !isInbound);
+            fireConnectionEstablished(ctx, channelCtx, udpConnection, connectionFuture, isInbound, arrivalTime);
+            return channelCtx;
+        }
 
-        // TODO: need to re-work.
         // These events are being fired to maintain the same contract as with
-        // connection oriented protocols, such as TCP and SCTP. However, the below
-        // approach is "dangerous" in that it takes place within the lock of
-        // the concurrent hash map and as such, if the user holds onto anything
-        // it has the potential of blocking network traffic.
-        //
-
-        // don't fire these events for inbound messages
-        // but we do want to fire them for the first time... ah!!!
-        // but now they are fired twice for the first time if it is an outbound connection!
-        // Ah! need to re-work this stuff...
+        // connection oriented protocols, such as TCP and SCTP. For inbound messages on an
+        // existing flow there is nothing new to report but if the user asked to "connect"
+        // to a flow we already know about, the user is still waiting on the future.
         if (!isInbound) {
-            final var connectionActiveIOEvent = ConnectionActiveIOEvent.create(cCtx, isInbound, arrivalTime);
-            ctx.fireUserEventTriggered(connectionActiveIOEvent);
-
-            // Note that for this inbound UDP "connection", there is no future waiting to be completed since
-            // this is not a connection the user initiated. However, the user may have specified a
-            // "save" function, which will be called by the NettyApplicationLayer in order to invoke the app.
-            final var e = ConnectionAttemptCompletedIOEvent.create(cCtx, connectionFuture, udpConnection, arrivalTime);
-            ctx.fireUserEventTriggered(e);
+            channels.markApplicationInitiated(id);
+            final var udpConnection = new UdpConnection<T>(ctx.channel(), id, vipAddress);
+            fireConnectionEstablished(ctx, existing, udpConnection, connectionFuture, isInbound, arrivalTime);
+        }
+        return existing;
+    }
+
+    private void fireConnectionEstablished(final ChannelHandlerContext ctx,
+                                           final ChannelContext<T> channelCtx,
+                                           final Connection<T> udpConnection,
+                                           final CompletableFuture<Connection<T>> connectionFuture,
+                                           final boolean isInbound,
+                                           final long arrivalTime) {
+        final var connectionActiveIOEvent = ConnectionActiveIOEvent.create(channelCtx, isInbound, arrivalTime);
+        fireUserEvent(ctx, connectionActiveIOEvent);
+
+        // Note that for an inbound UDP "connection", there is no future waiting to be completed since
+        // this is not a connection the user initiated. However, the user may have specified a
+        // "save" function, which will be called by the NettyApplicationLayer in order to invoke the app.
+        final var e = ConnectionAttemptCompletedIOEvent.create(channelCtx, connectionFuture, udpConnection, arrivalTime);
+        fireUserEvent(ctx, e);
+    }
+
+    /**
+     * Since there is no natural end to a UDP "connection", this is as close as we get, the flow
+     * has been idle for too long, or had to make room for a new one, and as such we'll let everyone
+     * know that it is no longer active. If traffic is seen again, it'll be treated as a new connection.
+     */
+    private void onFlowEvicted(final ChannelContext<T> channelCtx) {
+        if (handlerCtx == null) {
+            return;
+        }
+
+        if (flows != null) {
+            flows.unpin(channelCtx.getConnectionId().getRemoteAddress(), handlerCtx.channel());
+        }
+
+        fireUserEvent(handlerCtx, ConnectionInactiveIOEvent.create(channelCtx, clock.getCurrentTimeMillis()));
+    }
+
+    private void expireIdleFlows() {
+        final int evicted = channels.expire(clock.getCurrentTimeMillis());
+        if (evicted > 0 && logger.isDebugEnabled()) {
+            logger.debug("Evicted {} idle UDP flows on {}. Flows: {}, idle evictions: {}, capacity evictions: {}",
+                    evicted, localAddress, channels.size(), channels.getIdleEvictions(), channels.getCapacityEvictions());
         }
-        return cCtx;
     }
 
     private ConnectionContext<Connection<T>, T> findContext(final ConnectionId id) {
-        return ctxs.stream().filter(ctx -> ctx.test(id)).findFirst().orElse(defaultCtx);
+        final ConnectionContext ctx = selector.select(id);
+        return ctx != null ? ctx : defaultCtx;
     }
 
     @Override
@@ -260,7 +406,8 @@ public class NettyUdpInboundAdapter<T> extends ChannelDuplexHandler {
 
     @Override
     public void handlerAdded(final ChannelHandlerContext ctx) throws Exception {
-
+        handlerCtx = ctx;
+        flows = ctx.channel().attr(ReusePortFlows.KEY).get();
     }
 
     @Override
@@ -292,6 +439,11 @@ public class NettyUdpInboundAdapter<T> extends ChannelDuplexHandler {
     public void channelActive(final ChannelHandlerContext ctx) throws Exception {
         log("Channel active " + ctx.channel());
         localAddress = (InetSocketAddress)ctx.channel().localAddress();
+
+        if (flowTableConfig.getIdleTimeoutMillis() > 0) {
+            final long tick = flowTableConfig.getTickMillis();
+            expiryTask = ctx.executor().scheduleAtFixedRate(this::expireIdleFlows, tick, tick, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -302,14 +454,62 @@ public class NettyUdpInboundAdapter<T> extends ChannelDuplexHandler {
         // TODO: this would be the closing event. Need to push an event up the stack
         // TODO: so everyone can cleanup along the way
         log("Channel in-active " + ctx.channel());
+        if (expiryTask != null) {
+            expiryTask.cancel(false);
+            expiryTask = null;
+        }
         channels.clear();
+        if (flows != null) {
+            flows.unpinAll(ctx.channel());
+        }
     }
 
     /**
      * From ChannelInboundHandler
+     *
+     * All UDP "connections" are sharing the same underlying socket so if the socket isn't writable,
+     * none of them are. Telling every single flow about it would be a storm of events for what
+     * is a single change of the socket so the application is told once, through whatever flow
+     * it is handed, since {@link Connection#isWritable()} is the same for all of them anyway. The only
+     * exception is if the flows of this socket belong to different {@link ConnectionContext}s, i.e., different
+     * sets of application rules, in which case every one of those is told once.
      */
     @Override
     public void channelWritabilityChanged(final ChannelHandlerContext ctx) throws Exception {
-        // ctx.fireChannelWritabilityChanged();
+        final boolean isWritable = ctx.channel().isWritable();
+        final long now = clock.getCurrentTimeMillis();
+        final List<ConnectionContext> notified = new ArrayList<>(1);
+        channels.forEach(channelContext -> {
+            final var connectionContext = ((DefaultChannelContext<T>) channelContext).getConnectionContext();
+            for (final var c : notified) {
+                if (c == connectionContext) {
+                    return;
+                }
+            }
+            notified.add(connectionContext);
+            fireUserEvent(ctx, ConnectionWritabilityChangedIOEvent.create(channelContext, isWritable, now));
+        });
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public FusedLayer<T> interpose(final FusedLayer<T> layer) {
+        final var previous = fused;
+        if (previous != null) {
+            fused = layer;
+        }
+        return previous;
+    }
+
+    /**
+     * Hand the event over to the next layer, either directly, if the pipeline has been fused,
+     * or by firing it down the pipeline.
+     */
+    private void fireUserEvent(final ChannelHandlerContext ctx, final Object evt) {
+        if (fused != null) {
+            fused.processEvent(ctx, evt);
+        } else {
+            ctx.fireUserEventTriggered(evt);
+        }
     }
 }
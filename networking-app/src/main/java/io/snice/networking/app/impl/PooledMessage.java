@@ -0,0 +1,77 @@
+package io.snice.networking.app.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * When a decoder frames a message as a view straight over the pooled {@link ByteBuf} Netty read the data
+ * into (see {@link NettyReadableBuffer}) the {@link ByteBuf} must be kept alive for as long as the message is
+ * being processed and then be released, or we will leak it.
+ *
+ * <p>
+ * The decoder will retain the {@link ByteBuf}, wrap the framed message in a {@link PooledMessage}
+ * and pass it up the pipeline. The inbound adapter for the given transport (see e.g. {@link NettyTcpInboundAdapter})
+ * will unwrap it, push the message through the rest of the stack (FSM layer, application layer) and
+ * once that returns, release the {@link ByteBuf}. As such, the lifetime of the message is the same as the
+ * lifetime of the inbound event and anything that holds onto the message beyond that, such as the
+ * transactions of an FSM, has to either retain the {@link ByteBuf} for as long as it does
+ * (see {@link NettyReadableBuffer#retain(io.snice.buffer.Buffer)}) or copy the message
+ * (see {@link NettyReadableBuffer#detach(io.snice.buffer.Buffer)}).
+ * </p>
+ *
+ * <p>
+ * Just like the message, the {@link PooledMessage} itself never outlives the inbound event and as such,
+ * it is taken from, and handed back to, a per-thread pool as opposed to being allocated for every message.
+ * </p>
+ *
+ * @param <T> the type of the framed message.
+ */
+public final class PooledMessage<T> {
+
+    private static final Recycler<PooledMessage<?>> RECYCLER = new Recycler<PooledMessage<?>>() {
+        @Override
+        protected PooledMessage<?> newObject(final Handle<PooledMessage<?>> handle) {
+            return new PooledMessage<>(handle);
+        }
+    };
+
+    private final Recycler.Handle<PooledMessage<?>> handle;
+
+    private T message;
+    private ByteBuf buffer;
+
+    public static <T> PooledMessage<T> of(final T message, final ByteBuf buffer) {
+        assertNotNull(message, "The message cannot be null");
+        assertNotNull(buffer, "The buffer cannot be null");
+        final var pooled = (PooledMessage<T>) RECYCLER.get();
+        pooled.message = message;
+        pooled.buffer = buffer;
+        return pooled;
+    }
+
+    private PooledMessage(final Recycler.Handle<PooledMessage<?>> handle) {
+        this.handle = handle;
+    }
+
+    public T getMessage() {
+        return message;
+    }
+
+    ByteBuf getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Release the underlying {@link ByteBuf} and hand this {@link PooledMessage} back to its pool.
+     * After this, neither the message nor this {@link PooledMessage} must be accessed anymore.
+     */
+    public void release() {
+        final var buffer = this.buffer;
+        message = null;
+        this.buffer = null;
+        handle.recycle(this);
+        buffer.release();
+    }
+}
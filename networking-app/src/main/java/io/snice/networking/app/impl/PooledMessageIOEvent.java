@@ -0,0 +1,148 @@
+package io.snice.networking.app.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Recycler;
+import io.snice.networking.common.ChannelContext;
+import io.snice.networking.common.Connection;
+import io.snice.networking.common.event.IOEvent;
+import io.snice.networking.common.event.MessageIOEvent;
+import io.snice.networking.common.event.Recyclable;
+
+/**
+ * A {@link MessageIOEvent} whose message is a view over a pooled {@link ByteBuf} (see {@link PooledMessage}).
+ *
+ * As long as the message is processed on the event loop, the inbound adapter takes care of releasing
+ * the {@link ByteBuf} once the event has gone through the pipeline. However, if the processing of the message
+ * is handed off to another thread (see {@link io.snice.networking.app.ExecutionMode#WORKER}) the
+ * {@link ByteBuf} has to be retained until that thread is done with it, which is why the event
+ * needs to carry it.
+ *
+ * If the events are recycled (see {@link io.snice.networking.app.NetworkAppConfig#isRecycleEvents()}), the
+ * event itself is also taken from a per-thread pool, whether or not there is a pooled buffer, and handed back by
+ * the inbound adapter once the event has gone through the pipeline. This is safe since the application layer
+ * unwraps the message and never hands the event itself on to the application or to a worker.
+ */
+final class PooledMessageIOEvent<T> implements MessageIOEvent<T>, Recyclable {
+
+    private static final Recycler<PooledMessageIOEvent<?>> RECYCLER = new Recycler<PooledMessageIOEvent<?>>() {
+        @Override
+        protected PooledMessageIOEvent<?> newObject(final Handle<PooledMessageIOEvent<?>> handle) {
+            return new PooledMessageIOEvent<>(handle);
+        }
+    };
+
+    /**
+     * The handle to hand this event back to its pool or null if this event isn't recycled.
+     */
+    private final Recycler.Handle<PooledMessageIOEvent<?>> handle;
+
+    private ChannelContext<T> ctx;
+    private long arrivalTime;
+    private T msg;
+    private ByteBuf buffer;
+
+    /**
+     * Create a new {@link MessageIOEvent}, which will be a {@link PooledMessageIOEvent} only if
+     * there is a pooled buffer.
+     *
+     * @param buffer the pooled buffer the message is a view over, or null if it isn't.
+     */
+    static <T> MessageIOEvent<T> create(final ChannelContext<T> ctx, final long arrivalTime, final T msg, final ByteBuf buffer) {
+        if (buffer == null) {
+            return MessageIOEvent.create(ctx, arrivalTime, msg);
+        }
+        return new PooledMessageIOEvent<T>(null).set(ctx, arrivalTime, msg, buffer);
+    }
+
+    /**
+     * Get a {@link PooledMessageIOEvent} from the pool of the current thread. The event must be
+     * handed back through {@link #recycle()} once it has gone through the pipeline.
+     *
+     * @param buffer the pooled buffer the message is a view over, or null if it isn't.
+     */
+    static <T> PooledMessageIOEvent<T> recycled(final ChannelContext<T> ctx, final long arrivalTime, final T msg, final ByteBuf buffer) {
+        final var event = (PooledMessageIOEvent<T>) RECYCLER.get();
+        return event.set(ctx, arrivalTime, msg, buffer);
+    }
+
+    /**
+     * Fire the given message through the rest of the pipeline, wrapped in a {@link MessageIOEvent}, which,
+     * if the events are recycled, is handed back to its pool once it has gone through the pipeline.
+     *
+     * @param buffer the pooled buffer the message is a view over, or null if it isn't.
+     * @param recycle whether to take the event from the pool of the current thread.
+     */
+    static <T> void fire(final ChannelHandlerContext ctx,
+                         final ChannelContext<T> channelContext,
+                         final long arrivalTime,
+                         final T msg,
+                         final ByteBuf buffer,
+                         final boolean recycle) {
+        if (!recycle) {
+            ctx.fireChannelRead(create(channelContext, arrivalTime, msg, buffer));
+            return;
+        }
+
+        final var event = recycled(channelContext, arrivalTime, msg, buffer);
+        try {
+            ctx.fireChannelRead(event);
+        } finally {
+            event.recycle();
+        }
+    }
+
+    /**
+     * @return the pooled buffer the message of the given event is a view over or null if it isn't.
+     */
+    static ByteBuf bufferOf(final IOEvent<?> event) {
+        return event instanceof PooledMessageIOEvent ? ((PooledMessageIOEvent<?>) event).buffer : null;
+    }
+
+    private PooledMessageIOEvent(final Recycler.Handle<PooledMessageIOEvent<?>> handle) {
+        this.handle = handle;
+    }
+
+    private PooledMessageIOEvent<T> set(final ChannelContext<T> ctx, final long arrivalTime, final T msg, final ByteBuf buffer) {
+        this.ctx = ctx;
+        this.arrivalTime = arrivalTime;
+        this.msg = msg;
+        this.buffer = buffer;
+        return this;
+    }
+
+    @Deprecated
+    @Override
+    public Connection<T> connection() {
+        throw new RuntimeException("Deprecated");
+    }
+
+    @Override
+    public ChannelContext<T> channelContext() {
+        return ctx;
+    }
+
+    @Override
+    public long arrivalTime() {
+        return arrivalTime;
+    }
+
+    @Override
+    public T getMessage() {
+        return msg;
+    }
+
+    /**
+     * Hand this event back to its pool. Note that the pooled buffer, if any, is not released, that
+     * is still up to whomever retained it.
+     */
+    @Override
+    public void recycle() {
+        if (handle == null) {
+            return;
+        }
+
+        set(null, 0, null, null);
+        handle.recycle(this);
+    }
+}
@@ -0,0 +1,262 @@
+package io.snice.networking.app.impl;
+
+import io.snice.networking.common.ChannelContext;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.ConnectionIdProbe;
+import io.snice.networking.config.UdpFlowTableConfiguration;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * Keeps track of all the UDP "connections", or flows, for a single UDP channel. See
+ * {@link UdpFlowTableConfiguration} for the overall behaviour.
+ *
+ * <p>
+ * The flows are kept in access order, i.e., every time a flow is looked up it is moved to the end
+ * of the table, which means that the least recently used flow is always at the head of the table.
+ * As such, expiring idle flows is just a matter of walking from the head until we find a flow
+ * that has seen traffic within the idle timeout, so every tick only ever touches the flows that
+ * actually expire, and there are no per-flow timer objects to allocate or cancel when traffic comes in.
+ * The same goes for when the table is full, the head is the one to go.
+ * </p>
+ *
+ * <p>
+ * The flows the application initiated, by "connecting" to a remote address, are never evicted. The application
+ * is holding onto those connections and expects them to work for as long as it does, irrespective of how much
+ * traffic they see. There typically are only a handful of those so the expiry and eviction simply skip over them.
+ * </p>
+ *
+ * <p>
+ * Whenever a flow is evicted, the eviction callback is invoked. Note that the callbacks are invoked
+ * once the table is done evicting so the callback is free to do whatever it wants with the table.
+ * </p>
+ *
+ * This class is NOT thread safe and is only to be accessed by the event loop of the channel, with
+ * the exception of the counters, which can be read by anyone.
+ */
+public final class UdpFlowTable<T> {
+
+    private final int capacity;
+    private final long idleTimeoutMillis;
+    private final Consumer<ChannelContext<T>> onEviction;
+
+    private final LinkedHashMap<ConnectionId, Flow<T>> flows;
+
+    /**
+     * The evicted flows, waiting for their eviction callback to be invoked. Kept around
+     * so we do not have to allocate a new list on every tick.
+     */
+    private final List<ChannelContext<T>> evicted = new ArrayList<>();
+    private boolean notifying;
+
+    private volatile int size;
+    private volatile long idleEvictions;
+    private volatile long capacityEvictions;
+
+    public static <T> UdpFlowTable<T> of(final UdpFlowTableConfiguration config, final Consumer<ChannelContext<T>> onEviction) {
+        assertNotNull(config, "The configuration cannot be null");
+        assertNotNull(onEviction, "The eviction callback cannot be null");
+        return new UdpFlowTable<>(config.getCapacity(), config.getIdleTimeoutMillis(), onEviction);
+    }
+
+    private UdpFlowTable(final int capacity, final long idleTimeoutMillis, final Consumer<ChannelContext<T>> onEviction) {
+        this.capacity = capacity;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.onEviction = onEviction;
+
+        // we never want to re-hash so size it for the max capacity right away (but not
+        // for crazy large ones since that memory then would be allocated up front)
+        final int initialCapacity = (int) Math.min((long) capacity * 4 / 3 + 1, 1 << 16);
+        this.flows = new LinkedHashMap<>(initialCapacity, 0.75f, true);
+    }
+
+    /**
+     * Lookup the flow for the given {@link ConnectionId} and mark it as being active.
+     *
+     * @param now the current time in milliseconds.
+     * @return the {@link ChannelContext} of the flow or null if there is no such flow.
+     */
+    public ChannelContext<T> get(final ConnectionId id, final long now) {
+        return touch(flows.get(id), now);
+    }
+
+    /**
+     * Same as {@link #get(ConnectionId, long)} but without having to create a new {@link ConnectionId}
+     * for the lookup.
+     */
+    public ChannelContext<T> get(final ConnectionIdProbe probe, final long now) {
+        return touch(flows.get(probe), now);
+    }
+
+    private ChannelContext<T> touch(final Flow<T> flow, final long now) {
+        if (flow == null) {
+            return null;
+        }
+
+        flow.lastSeen = now;
+        return flow.ctx;
+    }
+
+    /**
+     * Add a new flow, which the remote side initiated, to the table. If the table is full, the least
+     * recently used flow will be evicted.
+     */
+    public void put(final ConnectionId id, final ChannelContext<T> ctx, final long now) {
+        put(id, ctx, now, false);
+    }
+
+    /**
+     * Add a new flow to the table. If the table is full, the least recently used flow that the application
+     * didn't initiate will be evicted. If the application initiated all of them, the table grows beyond its capacity.
+     *
+     * @param applicationInitiated whether the application initiated the flow, in which case it is never evicted.
+     */
+    public void put(final ConnectionId id, final ChannelContext<T> ctx, final long now, final boolean applicationInitiated) {
+        if (flows.size() >= capacity && !flows.containsKey(id)) {
+            evictLeastRecentlyUsed();
+        }
+
+        flows.put(id, new Flow<>(ctx, now, applicationInitiated));
+        size = flows.size();
+        notifyEvicted();
+    }
+
+    /**
+     * Mark an existing flow as initiated by the application, which is when the application "connects" to
+     * a remote address that we already have a flow for. From then on, the flow is never evicted.
+     */
+    public void markApplicationInitiated(final ConnectionId id) {
+        final var flow = flows.get(id);
+        if (flow != null) {
+            flow.applicationInitiated = true;
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        final var it = flows.values().iterator();
+        while (it.hasNext()) {
+            final var flow = it.next();
+            if (!flow.applicationInitiated) {
+                evicted.add(flow.ctx);
+                it.remove();
+                ++capacityEvictions;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Evict all flows that haven't seen any traffic within the idle timeout. This is the "tick"
+     * of the table and is expected to be called periodically.
+     *
+     * @param now the current time in milliseconds.
+     * @return the number of flows that were evicted.
+     */
+    public int expire(final long now) {
+        if (idleTimeoutMillis == 0) {
+            return 0;
+        }
+
+        final long deadline = now - idleTimeoutMillis;
+        final Iterator<Flow<T>> it = flows.values().iterator();
+        int count = 0;
+        while (it.hasNext()) {
+            final var flow = it.next();
+            if (flow.lastSeen > deadline) {
+                break;
+            }
+
+            if (flow.applicationInitiated) {
+                continue;
+            }
+
+            evicted.add(flow.ctx);
+            it.remove();
+            ++count;
+        }
+
+        if (count > 0) {
+            idleEvictions += count;
+            size = flows.size();
+            notifyEvicted();
+        }
+
+        return count;
+    }
+
+    /**
+     * Iterate over all the flows without affecting the access order.
+     */
+    public void forEach(final Consumer<ChannelContext<T>> consumer) {
+        for (final Map.Entry<ConnectionId, Flow<T>> entry : flows.entrySet()) {
+            consumer.accept(entry.getValue().ctx);
+        }
+    }
+
+    /**
+     * Remove all flows. Note that the eviction callback is not invoked for these flows.
+     */
+    public void clear() {
+        flows.clear();
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * The total number of flows that have been evicted because they were idle.
+     */
+    public long getIdleEvictions() {
+        return idleEvictions;
+    }
+
+    /**
+     * The total number of flows that have been evicted to make room for a new flow.
+     */
+    public long getCapacityEvictions() {
+        return capacityEvictions;
+    }
+
+    private void notifyEvicted() {
+        if (notifying || evicted.isEmpty()) {
+            return;
+        }
+
+        // the callback may very well add new flows, which in turn may evict more flows. Those
+        // will be appended to the list and picked up by this loop.
+        notifying = true;
+        try {
+            for (int i = 0; i < evicted.size(); ++i) {
+                onEviction.accept(evicted.get(i));
+            }
+        } finally {
+            evicted.clear();
+            notifying = false;
+        }
+    }
+
+    private static final class Flow<T> {
+        private final ChannelContext<T> ctx;
+        private long lastSeen;
+        private boolean applicationInitiated;
+
+        private Flow(final ChannelContext<T> ctx, final long lastSeen, final boolean applicationInitiated) {
+            this.ctx = ctx;
+            this.lastSeen = lastSeen;
+            this.applicationInitiated = applicationInitiated;
+        }
+    }
+}
@@ -1,17 +1,37 @@
 package io.snice.networking.app.impl;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.Recycler;
 
 import static io.snice.preconditions.PreConditions.assertNotNull;
 
+/**
+ * What the UDP decoders hand to the {@link NettyUdpInboundAdapter}. The event never leaves the adapter,
+ * which releases it once the message has been processed, and as such, the events are always
+ * taken from, and handed back to, a per-thread pool as opposed to being allocated for every packet.
+ */
 public interface UdpReadEvent<T> {
 
     static <T> UdpReadEvent<T> create(final ChannelHandlerContext ctx, final DatagramPacket raw, final T message, final long arrivalTime) {
         assertNotNull(ctx);
         assertNotNull(raw);
         assertNotNull(message);
-        return new DefaultUdpReadEvent<>(ctx, raw, message, arrivalTime);
+        return DefaultUdpReadEvent.get(ctx, raw, message, arrivalTime, null);
+    }
+
+    /**
+     * Create a new {@link UdpReadEvent} where the message has been framed as a view over the given
+     * (retained) {@link ByteBuf}, which will be released once the event has been processed.
+     * See {@link PooledMessage}.
+     */
+    static <T> UdpReadEvent<T> create(final ChannelHandlerContext ctx, final DatagramPacket raw, final T message, final long arrivalTime, final ByteBuf pooled) {
+        assertNotNull(ctx);
+        assertNotNull(raw);
+        assertNotNull(message);
+        assertNotNull(pooled);
+        return DefaultUdpReadEvent.get(ctx, raw, message, arrivalTime, pooled);
     }
 
     ChannelHandlerContext getCtx();
@@ -22,17 +42,47 @@ public interface UdpReadEvent<T> {
 
     long getArrivalTime();
 
+    /**
+     * @return the pooled buffer the message is a view over or null if it isn't.
+     */
+    ByteBuf getPooledBuffer();
+
+    /**
+     * Release the underlying pooled buffer, if any, which the message may be a view over, and hand
+     * this event back to its pool. Called by the {@link NettyUdpInboundAdapter} once the event has
+     * been processed and after that, the event must not be accessed anymore.
+     */
+    void release();
+
     class DefaultUdpReadEvent<T> implements UdpReadEvent<T> {
-        private final ChannelHandlerContext ctx;
-        private final DatagramPacket raw;
-        private final T message;
-        private final long arrivalTime;
 
-        private DefaultUdpReadEvent(final ChannelHandlerContext ctx, final DatagramPacket raw, final T message, final long arrivalTime) {
-            this.ctx = ctx;
-            this.raw = raw;
-            this.message = message;
-            this.arrivalTime = arrivalTime;
+        private static final Recycler<DefaultUdpReadEvent<?>> RECYCLER = new Recycler<DefaultUdpReadEvent<?>>() {
+            @Override
+            protected DefaultUdpReadEvent<?> newObject(final Handle<DefaultUdpReadEvent<?>> handle) {
+                return new DefaultUdpReadEvent<>(handle);
+            }
+        };
+
+        private final Recycler.Handle<DefaultUdpReadEvent<?>> handle;
+
+        private ChannelHandlerContext ctx;
+        private DatagramPacket raw;
+        private T message;
+        private long arrivalTime;
+        private ByteBuf pooled;
+
+        private static <T> DefaultUdpReadEvent<T> get(final ChannelHandlerContext ctx, final DatagramPacket raw, final T message, final long arrivalTime, final ByteBuf pooled) {
+            final var event = (DefaultUdpReadEvent<T>) RECYCLER.get();
+            event.ctx = ctx;
+            event.raw = raw;
+            event.message = message;
+            event.arrivalTime = arrivalTime;
+            event.pooled = pooled;
+            return event;
+        }
+
+        private DefaultUdpReadEvent(final Recycler.Handle<DefaultUdpReadEvent<?>> handle) {
+            this.handle = handle;
         }
 
         @Override
@@ -54,6 +104,24 @@ public interface UdpReadEvent<T> {
         public long getArrivalTime() {
             return arrivalTime;
         }
+
+        @Override
+        public ByteBuf getPooledBuffer() {
+            return pooled;
+        }
+
+        @Override
+        public void release() {
+            if (pooled != null) {
+                pooled.release();
+            }
+
+            ctx = null;
+            raw = null;
+            message = null;
+            pooled = null;
+            handle.recycle(this);
+        }
     }
 
 }
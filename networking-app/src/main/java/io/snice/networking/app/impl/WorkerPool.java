@@ -0,0 +1,97 @@
+package io.snice.networking.app.impl;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.snice.networking.config.WorkerPoolConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * The pool of threads the application is invoked on for those connection contexts that have asked for
+ * {@link io.snice.networking.app.ExecutionMode#WORKER} or {@link io.snice.networking.app.ExecutionMode#VIRTUAL_THREAD}.
+ * See {@link WorkerPoolConfiguration}.
+ */
+public final class WorkerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerPool.class);
+
+    private final WorkerPoolConfiguration config;
+    private final ExecutorService executor;
+    private final Optional<ExecutorService> virtualThreadExecutor;
+
+    public static WorkerPool of(final WorkerPoolConfiguration config) {
+        assertNotNull(config, "The worker pool configuration cannot be null");
+        final var virtualThreads = newVirtualThreadExecutor();
+        final ExecutorService executor;
+        if (config.isVirtualThreads() && virtualThreads.isPresent()) {
+            executor = virtualThreads.get();
+        } else {
+            if (config.isVirtualThreads()) {
+                logger.warn("Virtual threads were asked for but are not supported by this JVM. " +
+                        "Falling back to a pool of {} worker threads", config.getThreads());
+            }
+            executor = newFixedThreadPool(config.getThreads());
+        }
+        return new WorkerPool(config, executor, virtualThreads);
+    }
+
+    /**
+     * Virtual threads are only available from Java 21 and onwards but we're still targeting Java 11
+     * so we have to look them up through reflection.
+     *
+     * @return an {@link ExecutorService} that starts a new virtual thread per task or an empty optional
+     * if the JVM doesn't support virtual threads.
+     */
+    public static Optional<ExecutorService> newVirtualThreadExecutor() {
+        try {
+            final var method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return Optional.of((ExecutorService) method.invoke(null));
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static ExecutorService newFixedThreadPool(final int threads) {
+        return Executors.newFixedThreadPool(threads, new DefaultThreadFactory("snice-worker", true));
+    }
+
+    private WorkerPool(final WorkerPoolConfiguration config, final ExecutorService executor, final Optional<ExecutorService> virtualThreadExecutor) {
+        this.config = config;
+        this.executor = executor;
+        this.virtualThreadExecutor = virtualThreadExecutor;
+    }
+
+    public WorkerPoolConfiguration getConfiguration() {
+        return config;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return true if the JVM supports virtual threads, which {@link io.snice.networking.app.ExecutionMode#VIRTUAL_THREAD}
+     * requires.
+     */
+    public boolean supportsVirtualThreads() {
+        return virtualThreadExecutor.isPresent();
+    }
+
+    /**
+     * @return the {@link ExecutorService} that starts a new virtual thread for every task.
+     * @throws IllegalStateException in case the JVM doesn't support virtual threads.
+     */
+    public ExecutorService getVirtualThreadExecutor() {
+        return virtualThreadExecutor.orElseThrow(() -> new IllegalStateException("Virtual threads are not supported by this JVM"));
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        virtualThreadExecutor.filter(vt -> vt != executor).ifPresent(ExecutorService::shutdown);
+    }
+}
@@ -3,6 +3,7 @@ package io.snice.networking.bundles;
 import com.fasterxml.jackson.databind.Module;
 import io.hektor.fsm.Data;
 import io.snice.networking.app.Environment;
+import io.snice.networking.app.MessageDiscriminator;
 import io.snice.networking.app.NetworkAppConfig;
 import io.snice.networking.app.NetworkBootstrap;
 import io.snice.networking.app.NetworkStack;
@@ -116,4 +117,16 @@ public interface ProtocolBundle<K extends Connection<T>, T, C extends NetworkApp
 
     <S extends Enum<S>, C extends NetworkContext<T>, D extends Data> Optional<FsmFactory<T, S, C, D>> getFsmFactory();
 
+    /**
+     * A bundle that knows what the typical rules for its protocol look at, such as the command code
+     * of a diameter message, can supply a {@link MessageDiscriminator} so that matching incoming
+     * messages against the rules of the application doesn't get more expensive the more rules there are.
+     * See {@link MessageDiscriminator} for the contract a discriminator must fulfill.
+     *
+     * Default is to not have one, in which case every message is tested against every rule, in order.
+     */
+    default Optional<MessageDiscriminator<T>> getMessageDiscriminator() {
+        return Optional.empty();
+    }
+
 }
@@ -12,9 +12,9 @@ import io.snice.networking.app.NetworkAppConfig;
 import io.snice.networking.app.impl.UdpReadEvent;
 import io.snice.networking.common.Connection;
 import io.snice.networking.common.Transport;
+import io.snice.networking.common.time.CachedClock;
 import io.snice.networking.netty.ProtocolHandler;
 import io.snice.time.Clock;
-import io.snice.time.SystemClock;
 
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
@@ -78,7 +78,7 @@ public class StringBundle<C extends NetworkAppConfig> extends BundleSupport<Conn
 
         private StringDatagramDecoder(final Charset charset) {
             this.charset = charset;
-            this.clock = new SystemClock();
+            this.clock = CachedClock.getDefault();
         }
 
         @Override
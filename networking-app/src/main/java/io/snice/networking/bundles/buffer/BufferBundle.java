@@ -21,9 +21,9 @@ import io.snice.networking.common.Connection;
 import io.snice.networking.common.ConnectionId;
 import io.snice.networking.common.ConnectionSupport;
 import io.snice.networking.common.Transport;
+import io.snice.networking.common.time.CachedClock;
 import io.snice.networking.netty.ProtocolHandler;
 import io.snice.time.Clock;
-import io.snice.time.SystemClock;
 
 import java.net.InetSocketAddress;
 import java.util.List;
@@ -83,7 +83,7 @@ public class BufferBundle<C extends NetworkAppConfig> extends BundleSupport<Buff
         private final Clock clock;
 
         private BufferDatagramDecoder() {
-            this.clock = new SystemClock();
+            this.clock = CachedClock.getDefault();
         }
 
         @Override
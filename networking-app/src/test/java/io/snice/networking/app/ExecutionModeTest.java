@@ -0,0 +1,45 @@
+package io.snice.networking.app;
+
+import io.netty.channel.DefaultEventLoop;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ExecutionModeTest {
+
+    private DefaultEventLoop eventLoop;
+
+    @Before
+    public void setUp() {
+        eventLoop = new DefaultEventLoop();
+    }
+
+    @After
+    public void tearDown() {
+        eventLoop.shutdownGracefully();
+    }
+
+    @Test
+    public void testMayBlockOffEventLoop() {
+        ExecutionMode.assertMayBlock();
+    }
+
+    /**
+     * Blocking on the event loop would stall, or deadlock, the very thread that is to process the answer.
+     */
+    @Test(timeout = 5000)
+    public void testMayNotBlockOnEventLoop() throws Exception {
+        try {
+            eventLoop.submit(ExecutionMode::assertMayBlock).get();
+            fail("Expected an IllegalStateException");
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+    }
+}
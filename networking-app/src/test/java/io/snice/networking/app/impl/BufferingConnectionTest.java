@@ -0,0 +1,85 @@
+package io.snice.networking.app.impl;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BufferingConnectionTest {
+
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext ctx;
+
+    private final List<String> written = new ArrayList<>();
+    private int flushes;
+
+    @Before
+    public void setUp() {
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
+                written.add((String) msg);
+                promise.trySuccess();
+            }
+
+            @Override
+            public void flush(final ChannelHandlerContext ctx) {
+                ++flushes;
+            }
+        }, new ChannelInboundHandlerAdapter());
+        ctx = channel.pipeline().lastContext();
+    }
+
+    /**
+     * Every message sent during an invocation should be written, in order, and the same
+     * connection should be possible to use again for the next invocation.
+     */
+    @Test
+    public void testSendMultipleMessages() {
+        final var connection = new BufferingConnection<String>(null, channel);
+
+        connection.begin();
+        connection.send("echo");
+        final var future = connection.sendAsync("response");
+        connection.send("another");
+        connection.end();
+        assertThat(written.isEmpty(), is(true));
+
+        connection.processMessage(ctx);
+        ctx.flush();
+        assertThat(written, is(List.of("echo", "response", "another")));
+        assertThat(flushes, is(1));
+        assertThat(future.toCompletableFuture().isDone(), is(true));
+
+        written.clear();
+        connection.begin();
+        connection.send("second");
+        connection.end();
+        connection.processMessage(ctx);
+        assertThat(written, is(List.of("second")));
+    }
+
+    /**
+     * If the application holds onto the connection and sends outside of an invocation, there will be
+     * no one processing the buffered messages so it has to be written straight away.
+     */
+    @Test
+    public void testSendOutsideOfInvocation() {
+        final var connection = new BufferingConnection<String>(null, channel);
+        connection.send("late");
+        assertThat(written, is(List.of("late")));
+        assertThat(flushes, is(1));
+
+        connection.processMessage(ctx);
+        assertThat(written, is(List.of("late")));
+    }
+}
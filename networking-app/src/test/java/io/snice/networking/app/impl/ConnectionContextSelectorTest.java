@@ -0,0 +1,74 @@
+package io.snice.networking.app.impl;
+
+import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.ConnectionMatcher;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.Transport;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConnectionContextSelectorTest {
+
+    private static ConnectionContext ctx(final Predicate<ConnectionId> predicate) {
+        return new DefaultConnectionContext<>(predicate, null, null, List.of(), List.of());
+    }
+
+    private static ConnectionId id(final Transport transport, final int localPort, final String remote) {
+        return ConnectionId.create(transport, new InetSocketAddress("127.0.0.1", localPort), new InetSocketAddress(remote, 5555));
+    }
+
+    @Test
+    public void testIndexedSelection() {
+        final var sctp = ctx(ConnectionMatcher.of().withTransport(Transport.sctp).withLocalPort(36412).build());
+        final var subnet = ctx(ConnectionMatcher.of().withTransport(Transport.udp).withRemotePrefix("10.36.0.0/16").build());
+        final var host = ctx(ConnectionMatcher.of().withRemotePrefix("10.36.10.10").build());
+        final var v6 = ctx(ConnectionMatcher.of().withRemotePrefix("2001:db8::/32").build());
+        final var selector = ConnectionContextSelector.of(List.of(sctp, subnet, host, v6));
+
+        assertThat(selector.select(id(Transport.sctp, 36412, "192.168.0.1")), is(sctp));
+        assertThat(selector.select(id(Transport.sctp, 36413, "192.168.0.1")), nullValue());
+        assertThat(selector.select(id(Transport.udp, 2123, "10.36.10.10")), is(subnet));
+        assertThat(selector.select(id(Transport.tcp, 2123, "10.36.10.10")), is(host));
+        assertThat(selector.select(id(Transport.tcp, 2123, "10.36.10.11")), nullValue());
+        assertThat(selector.select(id(Transport.tcp, 2123, "2001:db8::10")), is(v6));
+        assertThat(selector.select(id(Transport.tcp, 2123, "2001:db9::10")), nullValue());
+    }
+
+    /**
+     * Regardless of the index, it is always the first context, in the order they were
+     * registered, that should be selected.
+     */
+    @Test
+    public void testRegistrationOrderIsHonored() {
+        final var first = ctx(ConnectionMatcher.of().withRemotePrefix("10.0.0.0/8").build());
+        final var lambda = ctx(ConnectionId::isUDP);
+        final var second = ctx(ConnectionMatcher.of().withTransport(Transport.udp).withLocalPort(2123).build());
+        final var catchAll = ctx(id -> true);
+        final var selector = ConnectionContextSelector.of(List.of(first, lambda, second, catchAll));
+
+        assertThat(selector.select(id(Transport.udp, 2123, "10.36.10.10")), is(first));
+        assertThat(selector.select(id(Transport.udp, 2123, "192.168.0.1")), is(lambda));
+        assertThat(selector.select(id(Transport.tcp, 2123, "192.168.0.1")), is(catchAll));
+
+        final var reversed = ConnectionContextSelector.of(List.of(catchAll, second, first));
+        assertThat(reversed.select(id(Transport.udp, 2123, "10.36.10.10")), is(catchAll));
+    }
+
+    @Test
+    public void testIpPrefix() {
+        final var prefix = IpPrefix.parse("10.36.0.0/16");
+        assertThat(prefix.getLength(), is(112));
+        assertThat(prefix.contains(new byte[]{10, 36, 1, 2}), is(true));
+        assertThat(prefix.contains(new byte[]{10, 37, 1, 2}), is(false));
+        assertThat(IpPrefix.parse("10.36.99.1/16"), is(prefix));
+        assertThat(IpPrefix.parse("0.0.0.0/0").contains(new byte[]{1, 2, 3, 4}), is(true));
+        assertThat(IpPrefix.parse("::/0").contains(new byte[16]), is(true));
+    }
+}
@@ -0,0 +1,141 @@
+package io.snice.networking.app.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.snice.networking.config.WorkerPoolConfiguration.OverflowPolicy;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConnectionWorkerTest {
+
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext ctx;
+
+    /**
+     * Everything that has been written to the channel, in order.
+     */
+    private final List<String> written = new ArrayList<>();
+
+    /**
+     * Our "worker pool", which only executes when we tell it to.
+     */
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final Executor executor = tasks::add;
+
+    @Before
+    public void setUp() {
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
+                written.add((String) msg);
+                promise.setSuccess();
+            }
+        }, new ChannelInboundHandlerAdapter());
+        ctx = channel.pipeline().lastContext();
+    }
+
+    private void submit(final ConnectionWorker worker, final String msg) {
+        submit(worker, msg, null);
+    }
+
+    private void submit(final ConnectionWorker worker, final String msg, final ByteBuf buffer) {
+        worker.submit(() -> {
+            final var connection = new BufferingConnection<String>(null);
+            connection.send(msg);
+            return connection;
+        }, buffer);
+    }
+
+    private void runWorker() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+        channel.runPendingTasks();
+    }
+
+    private List<String> written() {
+        final var result = new ArrayList<>(written);
+        written.clear();
+        return result;
+    }
+
+    @Test
+    public void testOrdering() {
+        final var worker = new ConnectionWorker(executor, ctx, 1000, OverflowPolicy.PAUSE_READING);
+        for (int i = 0; i < 200; ++i) {
+            submit(worker, "msg" + i);
+        }
+
+        // only ever one job scheduled on the pool per connection
+        assertThat(tasks.size(), is(1));
+        assertThat(written().isEmpty(), is(true));
+
+        runWorker();
+        final var result = written();
+        assertThat(result.size(), is(200));
+        for (int i = 0; i < 200; ++i) {
+            assertThat(result.get(i), is("msg" + i));
+        }
+        assertThat(worker.getPending(), is(0));
+    }
+
+    @Test
+    public void testDropNewest() {
+        final var worker = new ConnectionWorker(executor, ctx, 2, OverflowPolicy.DROP_NEWEST);
+        final ByteBuf buffer = Unpooled.buffer(10);
+        submit(worker, "a");
+        submit(worker, "b");
+        submit(worker, "c", buffer);
+        assertThat(buffer.refCnt(), is(1));
+
+        runWorker();
+        assertThat(written(), is(List.of("a", "b")));
+    }
+
+    @Test
+    public void testDropOldest() {
+        final var worker = new ConnectionWorker(executor, ctx, 2, OverflowPolicy.DROP_OLDEST);
+        final ByteBuf buffer = Unpooled.buffer(10);
+        submit(worker, "a", buffer);
+        assertThat(buffer.refCnt(), is(2));
+        submit(worker, "b");
+        submit(worker, "c");
+
+        // the oldest was dropped so its buffer should have been released.
+        assertThat(buffer.refCnt(), is(1));
+        runWorker();
+        assertThat(written(), is(List.of("b", "c")));
+    }
+
+    @Test
+    public void testPauseReading() {
+        final var worker = new ConnectionWorker(executor, ctx, 2, OverflowPolicy.PAUSE_READING);
+        submit(worker, "a");
+        submit(worker, "b");
+        assertThat(channel.config().isAutoRead(), is(true));
+
+        submit(worker, "c");
+        assertThat(worker.isPaused(), is(true));
+        assertThat(channel.config().isAutoRead(), is(false));
+
+        runWorker();
+        assertThat(written(), is(List.of("a", "b", "c")));
+        assertThat(worker.isPaused(), is(false));
+        assertThat(channel.config().isAutoRead(), is(true));
+    }
+}
@@ -0,0 +1,47 @@
+package io.snice.networking.app.impl;
+
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Runs the {@link FsmExecutionContextBenchmark} with the GC profiler and makes sure that pushing a
+ * message through the {@link FsmExecutionContext} doesn't allocate. The benchmark is only run for a short
+ * period of time, and within this JVM, so this is not about the numbers, only about the allocations.
+ */
+public class FsmExecutionContextAllocationTest {
+
+    /**
+     * Some slack for the profiler itself, which isn't perfectly accurate when it isn't forked.
+     */
+    private static final double MAX_BYTES_PER_OP = 8.0;
+
+    @Test(timeout = 60_000)
+    public void testNoAllocationsPerMessage() throws Exception {
+        final var options = new OptionsBuilder()
+                .include(FsmExecutionContextBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .forks(0)
+                .warmupIterations(2)
+                .warmupTime(TimeValue.milliseconds(500))
+                .measurementIterations(2)
+                .measurementTime(TimeValue.milliseconds(500))
+                .build();
+
+        final Collection<RunResult> results = new Runner(options).run();
+        assertThat(results.size(), is(2));
+        for (final RunResult result : results) {
+            final var name = result.getParams().getBenchmark();
+            final var allocated = result.getSecondaryResults().get("\u00b7gc.alloc.rate.norm").getScore();
+            assertThat(name + " allocated " + allocated + " bytes per message", allocated < MAX_BYTES_PER_OP, is(true));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package io.snice.networking.app.impl;
+
+import io.hektor.fsm.Data;
+import io.hektor.fsm.FSM;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.Transport;
+import io.snice.networking.common.event.IOEvent;
+import io.snice.networking.common.event.MessageIOEvent;
+import io.snice.networking.common.fsm.NetworkContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost, and in particular the allocations, of pushing a message through the {@link FsmExecutionContext},
+ * both upstream and downstream, where the FSM simply passes the message on, which is what e.g. the
+ * Diameter peer FSM does for the vast majority of the messages once the peer is up.
+ *
+ * Run it from your IDE or through the main method below, which also turns on the GC profiler
+ * so you get the bytes allocated per operation ("gc.alloc.rate.norm").
+ * See {@link FsmExecutionContextAllocationTest}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FsmExecutionContextBenchmark {
+
+    private enum PassThroughState {
+        OPEN
+    }
+
+    private EmbeddedChannel channel;
+    private BufferingChannelContext<String> bufferingCtx;
+    private FsmExecutionContext<String, PassThroughState, NetworkContext<String>, Data> executionCtx;
+    private MessageIOEvent<String> upstream;
+    private ChannelPromise promise;
+
+    private int written;
+    private int read;
+
+    /**
+     * What reached the network and the application respectively. Kept around so that the JIT can't
+     * pretend that the events were never created, which it otherwise is quite good at in a benchmark
+     * this small, but which never happens in a real pipeline.
+     */
+    private Object lastWritten;
+    private Object lastRead;
+
+    @Setup
+    public void setup() {
+        // the FSM layer sits between the network, where we swallow everything written, and the
+        // application layer, which only counts what it is given.
+        final var fsmLayer = new ChannelInboundHandlerAdapter();
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
+                ++written;
+                lastWritten = msg;
+            }
+        }, fsmLayer, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+                ++read;
+                lastRead = msg;
+            }
+        });
+
+        final var id = ConnectionId.create(Transport.tcp,
+                new InetSocketAddress("127.0.0.1", 3868),
+                new InetSocketAddress("10.36.10.10", 3868));
+        bufferingCtx = new BufferingChannelContext<>(id, null);
+
+        final var nettyCtx = channel.pipeline().context(fsmLayer);
+        executionCtx = new FsmExecutionContext<>(null, bufferingCtx, nettyCtx, new PassThroughFsm());
+        executionCtx.start();
+
+        upstream = MessageIOEvent.create(bufferingCtx, 0, "upstream");
+        promise = channel.voidPromise();
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int upstream() {
+        executionCtx.onUpstreamMessage(upstream);
+        return read;
+    }
+
+    @Benchmark
+    public int downstream() {
+        executionCtx.onDownstreamMessage("downstream", promise);
+        return written;
+    }
+
+    /**
+     * Sends everything it sees on in the same direction it was going.
+     */
+    private class PassThroughFsm implements FSM<PassThroughState, NetworkContext<String>, Data> {
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void onEvent(final Object event) {
+            if (event instanceof IOEvent) {
+                return;
+            }
+
+            // the FsmExecutionContext hands us the raw message in both directions so we
+            // keep track of which one it is by looking at what we were just handed.
+            if (event == upstream.getMessage()) {
+                bufferingCtx.sendUpstream((String) event);
+            } else {
+                bufferingCtx.sendDownstream((String) event);
+            }
+        }
+
+        @Override
+        public PassThroughState getState() {
+            return PassThroughState.OPEN;
+        }
+    }
+
+    public static void main(final String... args) throws Exception {
+        new Runner(new OptionsBuilder().include(FsmExecutionContextBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,126 @@
+package io.snice.networking.app.impl;
+
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.Transport;
+import io.snice.networking.common.fsm.ConnectionIdFsmKey;
+import io.snice.networking.common.fsm.FsmKey;
+import io.snice.networking.config.FsmTableConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class FsmTableTest {
+
+    private FsmTableConfiguration config;
+    private List<String> evicted;
+
+    @Before
+    public void setUp() {
+        config = new FsmTableConfiguration();
+        config.setCapacity(3);
+        config.setIdleTimeoutMillis(1000);
+        evicted = new ArrayList<>();
+    }
+
+    private FsmTable<String> table() {
+        return FsmTable.of(config, (key, fsm) -> evicted.add(fsm));
+    }
+
+    private static FsmKey key(final int remotePort) {
+        final var local = new InetSocketAddress("127.0.0.1", 2123);
+        final var remote = new InetSocketAddress("10.36.10.10", remotePort);
+        return ConnectionIdFsmKey.of(ConnectionId.create(Transport.udp, local, remote));
+    }
+
+    @Test
+    public void testOneFsmPerKey() {
+        final var table = table();
+        table.put(key(1), "one", 0);
+        table.put(key(2), "two", 0);
+
+        assertThat(table.get(key(1), 10), is("one"));
+        assertThat(table.get(key(2), 10), is("two"));
+        assertThat(table.get(key(3), 10), nullValue());
+        assertThat(table.size(), is(2));
+
+        assertThat(table.remove(key(1)), is("one"));
+        assertThat(table.size(), is(1));
+        assertThat(evicted.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testExpireIdleFsms() {
+        final var table = table();
+        table.put(key(1), "one", 0);
+        table.put(key(2), "two", 500);
+
+        assertThat(table.expire(999), is(0));
+        assertThat(table.expire(1000), is(1));
+        assertThat(evicted, is(List.of("one")));
+
+        // traffic keeps the second one alive
+        assertThat(table.get(key(2), 1400), is("two"));
+        assertThat(table.expire(1600), is(0));
+        assertThat(table.expire(2400), is(1));
+        assertThat(table.getIdleEvictions(), is(2L));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedWhenFull() {
+        final var table = table();
+        table.put(key(1), "one", 0);
+        table.put(key(2), "two", 0);
+        table.put(key(3), "three", 0);
+
+        table.get(key(1), 10);
+        table.put(key(4), "four", 20);
+
+        assertThat(evicted, is(List.of("two")));
+        assertThat(table.size(), is(3));
+        assertThat(table.getCapacityEvictions(), is(1L));
+    }
+
+    /**
+     * An FSM that isn't evictable is given another idle period, as opposed to being evicted.
+     */
+    @Test
+    public void testNeverExpireBusyFsms() {
+        final var table = FsmTable.<String>of(config, s -> !s.equals("busy"), (key, fsm) -> evicted.add(fsm));
+        table.put(key(1), "busy", 0);
+        table.put(key(2), "two", 0);
+
+        assertThat(table.expire(1000), is(1));
+        assertThat(evicted, is(List.of("two")));
+        assertThat(table.get(key(1), 1000), is("busy"));
+
+        assertThat(table.expire(1999), is(0));
+        assertThat(table.size(), is(1));
+    }
+
+    /**
+     * A full table makes room by evicting the least recently used FSM that is evictable and if there is none,
+     * the table grows beyond its capacity.
+     */
+    @Test
+    public void testNeverEvictBusyFsmsWhenFull() {
+        final var table = FsmTable.<String>of(config, s -> !s.startsWith("busy"), (key, fsm) -> evicted.add(fsm));
+        table.put(key(1), "busy1", 0);
+        table.put(key(2), "two", 0);
+        table.put(key(3), "busy3", 0);
+
+        table.put(key(4), "busy4", 0);
+        assertThat(evicted, is(List.of("two")));
+
+        table.put(key(5), "five", 0);
+        assertThat(evicted, is(List.of("two")));
+        assertThat(table.size(), is(4));
+        assertThat(table.getCapacityEvictions(), is(1L));
+    }
+}
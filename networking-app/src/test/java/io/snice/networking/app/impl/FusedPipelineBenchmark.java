@@ -0,0 +1,126 @@
+package io.snice.networking.app.impl;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.MessagePipe;
+import io.snice.networking.app.NetworkAppConfig;
+import io.snice.networking.bundles.StringBundle;
+import io.snice.networking.common.Connection;
+import io.snice.networking.config.UdpFlowTableConfiguration;
+import io.snice.time.Clock;
+import io.snice.time.SystemClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per message cost of going from the transport adapter to the application, which is
+ * either through the pipeline, with a new {@link io.snice.networking.common.event.MessageIOEvent} for
+ * every message, or, with a fused pipeline (see {@link NetworkAppConfig#isFusedPipeline()}),
+ * through a direct call into the {@link NettyApplicationLayer}, or through the pipeline but with the
+ * events recycled (see {@link NetworkAppConfig#isRecycleEvents()}).
+ *
+ * Run it from your IDE or through the main method below, which also turns on the GC profiler
+ * so you get the bytes allocated per message ("gc.alloc.rate.norm").
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusedPipelineBenchmark {
+
+    private final Clock clock = new SystemClock();
+
+    private EmbeddedChannel pipelined;
+    private ChannelHandlerContext pipelinedCtx;
+
+    private EmbeddedChannel fused;
+    private ChannelHandlerContext fusedCtx;
+
+    private EmbeddedChannel recycled;
+    private ChannelHandlerContext recycledCtx;
+
+    private DatagramPacket raw;
+
+    private int received;
+
+    @Setup
+    public void setup() {
+        final var bundle = new StringBundle<NetworkAppConfig>();
+
+        pipelined = new EmbeddedChannel(newAdapter(null, false), new NettyApplicationLayer<>(bundle));
+        pipelinedCtx = pipelined.pipeline().firstContext();
+
+        fused = new EmbeddedChannel(newAdapter(new NettyApplicationLayer<>(bundle), false));
+        fusedCtx = fused.pipeline().firstContext();
+
+        recycled = new EmbeddedChannel(newAdapter(null, true), new NettyApplicationLayer<>(bundle, null, true));
+        recycledCtx = recycled.pipeline().firstContext();
+
+        raw = new DatagramPacket(Unpooled.EMPTY_BUFFER,
+                new InetSocketAddress("127.0.0.1", 2123),
+                new InetSocketAddress("10.36.10.10", 2123));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pipelined.finishAndReleaseAll();
+        fused.finishAndReleaseAll();
+        recycled.finishAndReleaseAll();
+    }
+
+    private NettyUdpInboundAdapter<String> newAdapter(final NettyApplicationLayer<Connection<String>, String, NetworkAppConfig> appLayer,
+                                                      final boolean recycleEvents) {
+        final MessagePipe<Connection<String>, String, String> rule = MessagePipe.<Connection<String>, String>match((c, s) -> true)
+                .consume((c, s) -> ++received);
+        final MessagePipe<Connection<String>, Object, Object> eventRule = MessagePipe.<Connection<String>, Object>match((c, o) -> true)
+                .consume((c, o) -> { });
+        final ConnectionContext ctx = new DefaultConnectionContext<>(id -> true, null, null, List.of(rule), List.of(eventRule));
+
+        return new NettyUdpInboundAdapter<>(clock, Optional.empty(), ConnectionContextSelector.of(List.of(ctx)),
+                new UdpFlowTableConfiguration(), appLayer, recycleEvents);
+    }
+
+    @Benchmark
+    public int pipelined() {
+        pipelined.pipeline().fireChannelRead(UdpReadEvent.create(pipelinedCtx, raw, "hello", 0));
+        return received;
+    }
+
+    @Benchmark
+    public int fused() {
+        fused.pipeline().fireChannelRead(UdpReadEvent.create(fusedCtx, raw, "hello", 0));
+        return received;
+    }
+
+    @Benchmark
+    public int recycled() {
+        recycled.pipeline().fireChannelRead(UdpReadEvent.create(recycledCtx, raw, "hello", 0));
+        return received;
+    }
+
+    public static void main(final String... args) throws Exception {
+        new Runner(new OptionsBuilder().include(FusedPipelineBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -2,12 +2,16 @@ package io.snice.networking.app.impl;
 
 import io.snice.buffer.Buffer;
 import io.snice.buffer.Buffers;
+import io.snice.networking.app.ExecutionMode;
 import io.snice.networking.app.NetworkAppConfig;
 import io.snice.networking.common.Connection;
 import io.snice.networking.common.ConnectionId;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -37,4 +41,43 @@ public class GenericBootstrapTest {
         assertThat(ctxs.get(0).isDrop(), is(true));
 
     }
+
+    /**
+     * The execution mode in the config is the default for every context, unless the context
+     * explicitly asks for something else.
+     */
+    @Test
+    public void testDefaultExecutionMode() throws Exception {
+        conf.setExecutionMode(ExecutionMode.VIRTUAL_THREAD);
+        bootstrap.onConnection(ConnectionId::isUDP).accept(rules -> rules.match(Buffer::isEmpty).consume(b -> {}));
+        bootstrap.onConnection(ConnectionId::isTCP).withExecutionMode(ExecutionMode.EVENT_LOOP).accept(rules -> {});
+
+        final var ctxs = bootstrap.getConnectionContexts();
+        assertThat(ctxs.get(0).getExecutionMode(), is(ExecutionMode.VIRTUAL_THREAD));
+        assertThat(ctxs.get(1).getExecutionMode(), is(ExecutionMode.EVENT_LOOP));
+    }
+
+    /**
+     * The discriminator only looks at the first byte but the first rule also looks at the length, i.e., beyond
+     * the key, so unless the application opts in, every message must be matched against the rules in order.
+     */
+    @Test
+    public void testDiscriminatorIsOptIn() throws Exception {
+        final List<String> matched = new ArrayList<>();
+        final GenericBootstrap<Connection<Buffer>, Buffer, NetworkAppConfig> bootstrap =
+                new GenericBootstrap<>(conf, b -> b.isEmpty() ? -1 : b.getByte(0));
+
+        bootstrap.onConnection(ConnectionId::isTCP).accept(rules -> {
+            rules.match(b -> b.getByte(0) == 'a' && b.capacity() > 3).consume(b -> matched.add("long"));
+            rules.match(b -> b.getByte(0) == 'a').consume(b -> matched.add("short"));
+        });
+
+        final var ctx = bootstrap.getConnectionContexts().get(0);
+        for (final var msg : List.of("abcd", "ab", "abcd")) {
+            final var buffer = Buffers.wrap(msg);
+            ctx.match(null, buffer).apply(null, buffer);
+        }
+
+        assertThat(matched, is(List.of("long", "short", "long")));
+    }
 }
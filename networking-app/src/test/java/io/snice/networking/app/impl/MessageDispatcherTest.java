@@ -0,0 +1,93 @@
+package io.snice.networking.app.impl;
+
+import io.snice.networking.app.MessageDiscriminator;
+import io.snice.networking.app.MessagePipe;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MessageDispatcherTest {
+
+    /**
+     * Counts the number of times any of the rules has been evaluated.
+     */
+    private AtomicInteger evaluations;
+
+    private MessagePipe<String, String, String> hello;
+    private MessagePipe<String, String, String> bye;
+    private MessagePipe<String, String, String> other;
+    private List<MessagePipe<String, String, String>> pipes;
+
+    @Before
+    public void setUp() throws Exception {
+        evaluations = new AtomicInteger();
+        hello = rule("hello");
+        bye = rule("bye");
+        other = MessagePipe.match((c, s) -> evaluations.incrementAndGet() > 0 && !s.isEmpty());
+        pipes = List.of(hello, bye, other);
+    }
+
+    private MessagePipe<String, String, String> rule(final String prefix) {
+        return MessagePipe.match((c, s) -> evaluations.incrementAndGet() > 0 && s.startsWith(prefix));
+    }
+
+    /**
+     * Our discriminator is simply the first character of the message, which is all
+     * the rules above really look at.
+     */
+    private static int discriminate(final String msg) {
+        return msg.isEmpty() ? MessageDiscriminator.NO_KEY : msg.charAt(0);
+    }
+
+    @Test
+    public void testMatchInOrder() {
+        final var dispatcher = MessageDispatcher.of(pipes);
+        assertThat(dispatcher.match("c", "hello world"), is(hello));
+        assertThat(dispatcher.match("c", "bye world"), is(bye));
+        assertThat(dispatcher.match("c", "hello bye"), is(hello));
+        assertThat(dispatcher.match("c", "whatever"), is(other));
+        assertThat(dispatcher.match("c", ""), nullValue());
+    }
+
+    @Test
+    public void testMatchWithDiscriminator() {
+        final var dispatcher = MessageDispatcher.of(pipes, MessageDispatcherTest::discriminate);
+        assertThat(dispatcher.match("c", "whatever"), is(other));
+        assertThat(evaluations.get(), is(3));
+
+        // the same key again should only cause a single rule to be evaluated.
+        evaluations.set(0);
+        assertThat(dispatcher.match("c", "what now"), is(other));
+        assertThat(evaluations.get(), is(1));
+
+        assertThat(dispatcher.match("c", "bye"), is(bye));
+        evaluations.set(0);
+        assertThat(dispatcher.match("c", "bye bye"), is(bye));
+        assertThat(evaluations.get(), is(1));
+
+        // no key, no index, so everything is tested
+        evaluations.set(0);
+        assertThat(dispatcher.match("c", ""), nullValue());
+        assertThat(evaluations.get(), is(3));
+    }
+
+    /**
+     * Even if the discriminator isn't living up to its contract, the rule
+     * we pick must still accept the message.
+     */
+    @Test
+    public void testIndexedRuleNoLongerMatching() {
+        final MessageDiscriminator<String> everythingIsTheSame = msg -> 1;
+        final var dispatcher = MessageDispatcher.of(pipes, everythingIsTheSame);
+        assertThat(dispatcher.match("c", "bye"), is(bye));
+        assertThat(dispatcher.match("c", "hello"), is(hello));
+        assertThat(dispatcher.match("c", "something else"), is(other));
+        assertThat(dispatcher.match("c", ""), nullValue());
+    }
+}
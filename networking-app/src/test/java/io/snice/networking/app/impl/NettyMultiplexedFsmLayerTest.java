@@ -0,0 +1,287 @@
+package io.snice.networking.app.impl;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.MessagePipe;
+import io.snice.networking.app.NetworkAppConfig;
+import io.snice.networking.bundles.StringBundle;
+import io.snice.networking.common.Connection;
+import io.snice.networking.common.event.ConnectionInactiveIOEvent;
+import io.snice.networking.common.event.ConnectionWritabilityChangedIOEvent;
+import io.snice.networking.common.event.MessageIOEvent;
+import io.snice.networking.config.FsmTableConfiguration;
+import io.snice.networking.config.UdpFlowTableConfiguration;
+import io.snice.time.Clock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class NettyMultiplexedFsmLayerTest {
+
+    private static final InetSocketAddress LOCAL = new InetSocketAddress("10.36.10.10", 2123);
+    private static final InetSocketAddress REMOTE = new InetSocketAddress("10.36.10.20", 2123);
+    private static final InetSocketAddress OTHER = new InetSocketAddress("10.36.10.21", 2123);
+
+    private EmbeddedChannel channel;
+    private PassThroughFsmFactory fsmFactory;
+    private List<String> received;
+    private List<Object> events;
+    private BiConsumer<Connection<String>, String> onMessage;
+
+    @Before
+    public void setUp() throws Exception {
+        received = new ArrayList<>();
+        events = new ArrayList<>();
+        fsmFactory = new PassThroughFsmFactory(LOCAL);
+        onMessage = (c, s) -> { };
+    }
+
+    @After
+    public void tearDown() {
+        if (channel != null) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private EmbeddedChannel createChannel(final boolean fused, final FsmTableConfiguration config) {
+        final MessagePipe<Connection<String>, String, String> rule = MessagePipe.<Connection<String>, String>match((c, s) -> true)
+                .consume((c, s) -> {
+                    received.add(s);
+                    onMessage.accept(c, s);
+                });
+        final MessagePipe<Connection<String>, Object, Object> eventRule = MessagePipe.<Connection<String>, Object>match((c, o) -> true)
+                .consume((c, o) -> events.add(o));
+        final ConnectionContext ctx = new DefaultConnectionContext<>(id -> true, null, null, List.of(rule), List.of(eventRule));
+
+        // every reading of the clock is a new millisecond, so it is obvious when a time stamp is re-used.
+        final var ticks = new AtomicLong();
+        final Clock clock = ticks::incrementAndGet;
+        final var appLayer = new NettyApplicationLayer<>(new StringBundle<NetworkAppConfig>());
+        final var fsmLayer = new NettyMultiplexedFsmLayer<>(fsmFactory, config, clock);
+
+        if (fused) {
+            final var adapter = new NettyUdpInboundAdapter<String>(clock, Optional.empty(),
+                    ConnectionContextSelector.of(List.of(ctx)), new UdpFlowTableConfiguration(), appLayer);
+            return new EmbeddedChannel(adapter, fsmLayer);
+        }
+
+        final var adapter = new NettyUdpInboundAdapter<String>(clock, Optional.empty(),
+                ConnectionContextSelector.of(List.of(ctx)), new UdpFlowTableConfiguration());
+        return new EmbeddedChannel(adapter, fsmLayer, appLayer);
+    }
+
+    private void read(final InetSocketAddress remote, final String msg) {
+        final var raw = new DatagramPacket(Unpooled.EMPTY_BUFFER, LOCAL, remote);
+        channel.pipeline().fireChannelRead(UdpReadEvent.create(channel.pipeline().firstContext(), raw, msg, 0));
+    }
+
+    @Test
+    public void testReadThroughFsm() {
+        channel = createChannel(false, new FsmTableConfiguration());
+        read(REMOTE, "hello");
+
+        assertThat(fsmFactory.created, is(List.of(PassThroughFsmFactory.key("10.36.10.20"))));
+        assertThat(fsmFactory.seen.contains("hello"), is(true));
+        assertThat(received, is(List.of("hello")));
+    }
+
+    /**
+     * With a fused pipeline, the adapter dispatches to the FSM layer, which in turn dispatches what the FSM
+     * sends upstream straight to the application layer, which is not part of the pipeline at all.
+     */
+    @Test
+    public void testFusedReadThroughFsm() {
+        channel = createChannel(true, new FsmTableConfiguration());
+        assertThat(channel.pipeline().get(NettyApplicationLayer.class), nullValue());
+
+        read(REMOTE, "hello");
+        read(REMOTE, "world");
+
+        assertThat(fsmFactory.created, is(List.of(PassThroughFsmFactory.key("10.36.10.20"))));
+        assertThat(fsmFactory.seen.contains("hello"), is(true));
+        assertThat(fsmFactory.seen.contains("world"), is(true));
+        assertThat(received, is(List.of("hello", "world")));
+    }
+
+    /**
+     * The events the FSM layer passes on, without going through any FSM, also make it to the application
+     * layer of a fused pipeline.
+     */
+    @Test
+    public void testFusedWritabilityChanged() {
+        channel = createChannel(true, new FsmTableConfiguration());
+        read(REMOTE, "hello");
+
+        events.clear();
+        channel.pipeline().fireChannelWritabilityChanged();
+
+        assertThat(events.size(), is(1));
+        assertThat(events.get(0) instanceof ConnectionWritabilityChangedIOEvent, is(true));
+    }
+
+    private static FsmTableConfiguration capacity(final int capacity) {
+        final var config = new FsmTableConfiguration();
+        config.setCapacity(capacity);
+        return config;
+    }
+
+    /**
+     * The FSM of an application write is found by its downstream key and gets to decide what is written.
+     */
+    @Test
+    public void testWriteThroughFsm() {
+        channel = createChannel(false, new FsmTableConfiguration());
+        read(REMOTE, "hello");
+
+        channel.writeOutbound("10.36.10.20>hi");
+
+        assertThat(fsmFactory.seen.contains("10.36.10.20>hi"), is(true));
+        assertThat(channel.readOutbound(), is("10.36.10.20>hi"));
+        assertThat(fsmFactory.created.size(), is(1));
+    }
+
+    /**
+     * An evicted FSM is terminated, which it learns about through a connection inactive event.
+     */
+    @Test
+    public void testEvictedFsmIsTerminated() {
+        channel = createChannel(false, capacity(1));
+        read(REMOTE, "hello");
+        read(OTHER, "world");
+
+        assertThat(fsmFactory.created, is(List.of(PassThroughFsmFactory.key("10.36.10.20"), PassThroughFsmFactory.key("10.36.10.21"))));
+        assertThat(fsmFactory.seen.stream().filter(o -> o instanceof ConnectionInactiveIOEvent).count(), is(1L));
+        assertThat(events.stream().filter(o -> o instanceof ConnectionInactiveIOEvent).count(), is(1L));
+    }
+
+    /**
+     * Writing to a flow whose FSM has been evicted creates a new FSM, as opposed to dropping the write.
+     */
+    @Test
+    public void testWriteRecreatesEvictedFsm() {
+        channel = createChannel(false, capacity(1));
+        read(REMOTE, "hello");
+        read(OTHER, "world");
+
+        channel.writeOutbound("10.36.10.20>hi");
+
+        assertThat(fsmFactory.created.size(), is(3));
+        assertThat(fsmFactory.created.get(2), is(PassThroughFsmFactory.key("10.36.10.20")));
+        assertThat(channel.readOutbound(), is("10.36.10.20>hi"));
+    }
+
+    /**
+     * A write to a flow we know nothing about still fails.
+     */
+    @Test
+    public void testWriteToUnknownFlowFails() {
+        channel = createChannel(false, new FsmTableConfiguration());
+        final var future = channel.writeAndFlush("10.36.10.99>hi");
+
+        assertThat(future.isSuccess(), is(false));
+        assertThat(fsmFactory.created.isEmpty(), is(true));
+        assertThat(channel.readOutbound(), nullValue());
+    }
+
+    /**
+     * An FSM with something outstanding is never evicted, even if that means going over capacity.
+     */
+    @Test
+    public void testBusyFsmNeverEvicted() {
+        fsmFactory.busy.add(PassThroughFsmFactory.key("10.36.10.20"));
+        channel = createChannel(false, capacity(1));
+        final var fsmLayer = channel.pipeline().get(NettyMultiplexedFsmLayer.class);
+
+        read(REMOTE, "hello");
+        read(OTHER, "world");
+
+        assertThat(fsmLayer.getFsmTable().size(), is(2));
+        assertThat(fsmLayer.getFsmTable().getCapacityEvictions(), is(0L));
+        assertThat(fsmFactory.seen.stream().anyMatch(o -> o instanceof ConnectionInactiveIOEvent), is(false));
+    }
+
+    /**
+     * The application writing while processing a message from the FSM invokes the same FSM again, which drains
+     * again, which must leave the rest of what the FSM sent upstream to the outer drain, or those messages are
+     * passed on without the event they originated from.
+     */
+    @Test
+    public void testWriteWhileDraining() {
+        onMessage = (c, s) -> {
+            if (s.equals("a")) {
+                c.send("10.36.10.20>x");
+            }
+        };
+
+        channel = createChannel(false, new FsmTableConfiguration());
+        final List<Long> arrivalTimes = new ArrayList<>();
+        final var appLayer = channel.pipeline().context(NettyApplicationLayer.class).name();
+        channel.pipeline().addBefore(appLayer, "arrival-times", new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+                arrivalTimes.add(((MessageIOEvent<String>) msg).arrivalTime());
+                ctx.fireChannelRead(msg);
+            }
+        });
+
+        read(REMOTE, "a+b");
+
+        assertThat(received, is(List.of("a", "b")));
+        assertThat(fsmFactory.seen.contains("10.36.10.20>x"), is(true));
+        assertThat(arrivalTimes.size(), is(2));
+        assertThat(arrivalTimes.get(1), is(arrivalTimes.get(0)));
+    }
+
+    /**
+     * Once the FSM has closed its connection, the timers it may still have running are no longer delivered.
+     */
+    @Test
+    public void testNoTimersAfterClose() {
+        channel = createChannel(false, new FsmTableConfiguration());
+        final NettyMultiplexedFsmLayer<String, ?, ?, ?> fsmLayer = channel.pipeline().get(NettyMultiplexedFsmLayer.class);
+
+        read(REMOTE, "hello");
+        final var executionCtx = fsmLayer.getFsmTable().get(PassThroughFsmFactory.key("10.36.10.20"), 0);
+        executionCtx.onTimerEvent("early");
+        assertThat(received, is(List.of("hello", "early")));
+
+        read(REMOTE, "close");
+        assertThat(channel.isOpen(), is(false));
+
+        executionCtx.onTimerEvent("late");
+        assertThat(fsmFactory.seen.contains("late"), is(false));
+        assertThat(received, is(List.of("hello", "early")));
+    }
+
+    /**
+     * An evicted FSM doesn't get its timers either.
+     */
+    @Test
+    public void testNoTimersAfterEviction() {
+        channel = createChannel(false, capacity(1));
+        final NettyMultiplexedFsmLayer<String, ?, ?, ?> fsmLayer = channel.pipeline().get(NettyMultiplexedFsmLayer.class);
+
+        read(REMOTE, "hello");
+        final var executionCtx = fsmLayer.getFsmTable().get(PassThroughFsmFactory.key("10.36.10.20"), 0);
+        read(OTHER, "world");
+        assertThat(executionCtx.isTerminated(), is(true));
+
+        executionCtx.onTimerEvent("late");
+        assertThat(fsmFactory.seen.contains("late"), is(false));
+    }
+}
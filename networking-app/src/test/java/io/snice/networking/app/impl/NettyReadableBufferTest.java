@@ -0,0 +1,114 @@
+package io.snice.networking.app.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.snice.buffer.Buffers;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class NettyReadableBufferTest {
+
+    private static NettyReadableBuffer wrap(final String s) {
+        return NettyReadableBuffer.of(Unpooled.copiedBuffer(s, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadBytes() throws Exception {
+        final var buffer = wrap("hello world");
+        final var hello = buffer.readBytes(5);
+        assertThat(hello.toUTF8String(), is("hello"));
+        assertThat(hello.capacity(), is(5));
+        assertThat(buffer.getReadableBytes(), is(6));
+        assertThat(buffer.readBytes(6).toUTF8String(), is(" world"));
+        assertThat(buffer.hasReadableBytes(), is(false));
+    }
+
+    @Test
+    public void testSlice() throws Exception {
+        final var buffer = wrap("hello world");
+        assertThat(buffer.slice(6, 11).toUTF8String(), is("world"));
+        assertThat(buffer.slice(0, 0).isEmpty(), is(true));
+
+        // slice(stop) is from the reader index
+        buffer.readBytes(2);
+        assertThat(buffer.slice(5).toUTF8String(), is("llo"));
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        assertThat(wrap("hello").equals(wrap("hello")), is(true));
+        assertThat(wrap("hello").equals(Buffers.wrap("hello")), is(true));
+        assertThat(wrap("hello").equals(Buffers.wrap("world")), is(false));
+        assertThat(wrap("hello").hashCode(), is(wrap("hello").hashCode()));
+    }
+
+    /**
+     * The other {@link io.snice.buffer.Buffer}s must agree, or the view cannot be used as e.g. the key of a map
+     * that also has regular buffers in it.
+     */
+    @Test
+    public void testEqualsSymmetric() throws Exception {
+        assertThat(Buffers.wrap("hello").equals(wrap("hello")), is(true));
+        assertThat(Buffers.wrap("world").equals(wrap("hello")), is(false));
+        assertThat(wrap("hello").hashCode(), is(Buffers.wrap("hello").hashCode()));
+
+        final var buffer = wrap("hello world");
+        buffer.readBytes(6);
+        assertThat(Buffers.wrap("world").equals(buffer), is(true));
+        assertThat(buffer.hashCode(), is(Buffers.wrap("world").hashCode()));
+    }
+
+    @Test
+    public void testDetach() throws Exception {
+        final ByteBuf pooled = Unpooled.copiedBuffer("hello", StandardCharsets.UTF_8);
+        final var view = NettyReadableBuffer.of(pooled);
+        final var detached = NettyReadableBuffer.detach(view);
+        pooled.setByte(0, 'j');
+
+        assertThat(detached.toUTF8String(), is("hello"));
+        assertThat(view.toBuffer().toUTF8String(), is("jello"));
+
+        final var regular = Buffers.wrap("hello");
+        assertThat(NettyReadableBuffer.detach(regular) == regular, is(true));
+    }
+
+    @Test
+    public void testRetainAndRelease() throws Exception {
+        final ByteBuf pooled = Unpooled.copiedBuffer("hello", StandardCharsets.UTF_8);
+        final var view = NettyReadableBuffer.of(pooled).slice(1, 3);
+
+        assertThat(NettyReadableBuffer.retain(view), is(true));
+        pooled.release();
+        assertThat(pooled.refCnt(), is(1));
+        assertThat(view.toUTF8String(), is("el"));
+
+        NettyReadableBuffer.release(view);
+        assertThat(pooled.refCnt(), is(0));
+
+        final var regular = Buffers.wrap("hello");
+        assertThat(NettyReadableBuffer.retain(regular), is(false));
+        NettyReadableBuffer.release(regular);
+    }
+
+    @Test
+    public void testWriteTo() throws Exception {
+        final var buffer = wrap("hello world");
+        buffer.readBytes(6);
+
+        final ByteBuf out = Unpooled.buffer();
+        buffer.writeTo(new ByteBufOutputStream(out));
+        assertThat(out.toString(StandardCharsets.UTF_8), is("world"));
+    }
+
+    @Test
+    public void testCountOccurences() throws Exception {
+        final var buffer = NettyReadableBuffer.of(Unpooled.wrappedBuffer(new byte[20]));
+        assertThat(buffer.countOccurences(0, 20, (byte) 0x00), is(20));
+        assertThat(wrap("hello").indexOf((byte) 'l'), is(2));
+    }
+}
@@ -0,0 +1,81 @@
+package io.snice.networking.app.impl;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.MessagePipe;
+import io.snice.networking.app.NetworkAppConfig;
+import io.snice.networking.bundles.StringBundle;
+import io.snice.networking.common.Connection;
+import io.snice.networking.common.event.ConnectionWritabilityChangedIOEvent;
+import io.snice.networking.config.UdpFlowTableConfiguration;
+import io.snice.time.SystemClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class NettyUdpInboundAdapterTest {
+
+    private static final InetSocketAddress LOCAL = new InetSocketAddress("10.36.10.10", 2123);
+
+    private EmbeddedChannel channel;
+    private List<String> received;
+    private List<Object> events;
+
+    @Before
+    public void setUp() throws Exception {
+        received = new ArrayList<>();
+        events = new ArrayList<>();
+        channel = createChannel(new UdpFlowTableConfiguration());
+    }
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private EmbeddedChannel createChannel(final UdpFlowTableConfiguration config) throws Exception {
+        final MessagePipe<Connection<String>, String, String> rule = MessagePipe.<Connection<String>, String>match((c, s) -> true)
+                .consume((c, s) -> received.add(s));
+        final MessagePipe<Connection<String>, Object, Object> eventRule = MessagePipe.<Connection<String>, Object>match((c, o) -> true)
+                .consume((c, o) -> events.add(o));
+        final ConnectionContext ctx = new DefaultConnectionContext<>(id -> true, null, null, List.of(rule), List.of(eventRule));
+
+        final var adapter = new NettyUdpInboundAdapter<String>(new SystemClock(), Optional.empty(),
+                ConnectionContextSelector.of(List.of(ctx)), config);
+
+        return new EmbeddedChannel(adapter, new NettyApplicationLayer<>(new StringBundle<NetworkAppConfig>()));
+    }
+
+    private void read(final InetSocketAddress remote, final String msg) {
+        final var raw = new DatagramPacket(Unpooled.EMPTY_BUFFER, LOCAL, remote);
+        channel.pipeline().fireChannelRead(UdpReadEvent.create(channel.pipeline().firstContext(), raw, msg, 0));
+    }
+
+    /**
+     * All the flows share the one socket so a change in writability of the socket is a single event,
+     * not one event per flow.
+     */
+    @Test
+    public void testWritabilityChangedOncePerChannel() {
+        read(new InetSocketAddress("10.36.10.20", 2123), "one");
+        read(new InetSocketAddress("10.36.10.21", 2123), "two");
+        read(new InetSocketAddress("10.36.10.22", 2123), "three");
+        assertThat(received, is(List.of("one", "two", "three")));
+
+        events.clear();
+        channel.pipeline().fireChannelWritabilityChanged();
+
+        assertThat(events.size(), is(1));
+        assertThat(events.get(0) instanceof ConnectionWritabilityChangedIOEvent, is(true));
+    }
+}
@@ -0,0 +1,178 @@
+package io.snice.networking.app.impl;
+
+import io.hektor.fsm.Data;
+import io.hektor.fsm.FSM;
+import io.snice.networking.common.ChannelContext;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.Transport;
+import io.snice.networking.common.event.IOEvent;
+import io.snice.networking.common.fsm.FsmFactory;
+import io.snice.networking.common.fsm.FsmKey;
+import io.snice.networking.common.fsm.NetworkContext;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Creates one FSM per remote IP address, each of which simply passes everything it is given on, in the
+ * direction it was going. Messages written by the application are addressed as "&lt;remote ip&gt;&gt;&lt;payload&gt;",
+ * "close" closes the connection and everything else is considered to be going upstream, where "a+b" is sent
+ * upstream as two messages.
+ */
+class PassThroughFsmFactory implements FsmFactory<String, PassThroughFsmFactory.State, NetworkContext<String>, PassThroughFsmFactory.Bag> {
+
+    enum State {
+        OPEN, TERMINATED
+    }
+
+    /**
+     * The FSMs that are busy, and as such not evictable, by their key.
+     */
+    final Set<FsmKey> busy = new HashSet<>();
+
+    /**
+     * Everything handed to any of the FSMs, in order.
+     */
+    final List<Object> seen = new ArrayList<>();
+
+    /**
+     * The keys of the FSMs that have been created, in order.
+     */
+    final List<FsmKey> created = new ArrayList<>();
+
+    private final InetSocketAddress local;
+
+    /**
+     * @param local the local address of the flows, which is needed to figure out the connection a message
+     *              written by the application belongs to. All the flows use the same port as the local one.
+     */
+    PassThroughFsmFactory(final InetSocketAddress local) {
+        this.local = local;
+    }
+
+    static FsmKey key(final String remoteIp) {
+        return new Key(remoteIp);
+    }
+
+    @Override
+    public FsmKey calculateKey(final ConnectionId connectionId, final Optional<String> msg) {
+        return new Key(connectionId.getRemoteIpAddress());
+    }
+
+    @Override
+    public FsmKey calculateDownstreamKey(final String msg) {
+        final int index = msg.indexOf('>');
+        return index == -1 ? null : new Key(msg.substring(0, index));
+    }
+
+    @Override
+    public ConnectionId calculateDownstreamConnectionId(final String msg) {
+        final int index = msg.indexOf('>');
+        if (index == -1) {
+            return null;
+        }
+        final var remote = new InetSocketAddress(msg.substring(0, index), local.getPort());
+        return ConnectionId.create(Transport.udp, local, remote);
+    }
+
+    @Override
+    public boolean isEvictable(final Bag data) {
+        return !busy.contains(data.key);
+    }
+
+    @Override
+    public Bag createNewDataBag(final FsmKey key) {
+        return new Bag(key);
+    }
+
+    @Override
+    public NetworkContext<String> createNewContext(final FsmKey key, final ChannelContext<String> ctx) {
+        return new NetworkContext<>() {
+            @Override
+            public ChannelContext<String> getChannelContext() {
+                return ctx;
+            }
+        };
+    }
+
+    @Override
+    public FSM<State, NetworkContext<String>, Bag> createNewFsm(final FsmKey key, final NetworkContext<String> context, final Bag data) {
+        created.add(key);
+        return new PassThroughFsm(context);
+    }
+
+    static final class Bag implements Data {
+
+        private final FsmKey key;
+
+        private Bag(final FsmKey key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Key implements FsmKey {
+
+        private final String remoteIp;
+
+        private Key(final String remoteIp) {
+            this.remoteIp = remoteIp;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return remoteIp.equals(((Key) o).remoteIp);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(remoteIp);
+        }
+
+        @Override
+        public String toString() {
+            return remoteIp;
+        }
+    }
+
+    private class PassThroughFsm implements FSM<State, NetworkContext<String>, Bag> {
+
+        private final NetworkContext<String> ctx;
+
+        private PassThroughFsm(final NetworkContext<String> ctx) {
+            this.ctx = ctx;
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void onEvent(final Object event) {
+            seen.add(event);
+            final var channelCtx = ctx.getChannelContext();
+            if (event instanceof IOEvent) {
+                channelCtx.fireUserEvent((IOEvent<String>) event);
+            } else if ("close".equals(event)) {
+                channelCtx.close();
+            } else if (((String) event).indexOf('>') != -1) {
+                channelCtx.sendDownstream((String) event);
+            } else {
+                for (final String part : ((String) event).split("\\+")) {
+                    channelCtx.sendUpstream(part);
+                }
+            }
+        }
+
+        @Override
+        public State getState() {
+            return State.OPEN;
+        }
+    }
+}
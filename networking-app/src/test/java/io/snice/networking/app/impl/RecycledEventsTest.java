@@ -0,0 +1,104 @@
+package io.snice.networking.app.impl;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.MessagePipe;
+import io.snice.networking.app.NetworkAppConfig;
+import io.snice.networking.bundles.StringBundle;
+import io.snice.networking.common.Connection;
+import io.snice.networking.common.event.MessageIOEvent;
+import io.snice.networking.config.UdpFlowTableConfiguration;
+import io.snice.time.SystemClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RecycledEventsTest {
+
+    private EmbeddedChannel channel;
+    private List<String> received;
+    private List<MessageIOEvent<String>> events;
+    private DatagramPacket raw;
+
+    @Before
+    public void setUp() {
+        received = new ArrayList<>();
+        events = new ArrayList<>();
+
+        final MessagePipe<Connection<String>, String, String> rule = MessagePipe.<Connection<String>, String>match((c, s) -> true)
+                .consume((c, s) -> received.add(s));
+        final MessagePipe<Connection<String>, Object, Object> eventRule = MessagePipe.<Connection<String>, Object>match((c, o) -> true)
+                .consume((c, o) -> { });
+        final ConnectionContext ctx = new DefaultConnectionContext<>(id -> true, null, null, List.of(rule), List.of(eventRule));
+
+        final var adapter = new NettyUdpInboundAdapter<String>(new SystemClock(), Optional.empty(),
+                ConnectionContextSelector.of(List.of(ctx)), new UdpFlowTableConfiguration(), null, true);
+
+        // sits between the adapter and the application layer and keeps track of the events going by.
+        final var spy = new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+                events.add((MessageIOEvent<String>) msg);
+                ctx.fireChannelRead(msg);
+            }
+        };
+
+        channel = new EmbeddedChannel(adapter, spy, new NettyApplicationLayer<>(new StringBundle<NetworkAppConfig>(), null, true));
+
+        raw = new DatagramPacket(Unpooled.EMPTY_BUFFER,
+                new InetSocketAddress("127.0.0.1", 2123),
+                new InetSocketAddress("10.36.10.10", 2123));
+    }
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private void read(final String msg) {
+        channel.pipeline().fireChannelRead(UdpReadEvent.create(channel.pipeline().firstContext(), raw, msg, 0));
+    }
+
+    /**
+     * The events are handed back to the pool once they have gone through the pipeline so the very
+     * same event is used for every message and once back in the pool, it no longer references the message.
+     */
+    @Test
+    public void testRecycleMessageIOEvents() {
+        read("one");
+        read("two");
+
+        assertThat(received, is(List.of("one", "two")));
+        assertThat(events.size(), is(2));
+        assertThat(events.get(0), sameInstance(events.get(1)));
+        assertThat(events.get(1).getMessage(), nullValue());
+    }
+
+    @Test
+    public void testRecycleUdpReadEvents() {
+        final var first = UdpReadEvent.create(channel.pipeline().firstContext(), raw, "one", 0);
+        channel.pipeline().fireChannelRead(first);
+        assertThat(first.getMessage(), nullValue());
+
+        final var second = UdpReadEvent.create(channel.pipeline().firstContext(), raw, "two", 0);
+        assertThat(second, sameInstance(first));
+        assertThat(second.getMessage(), is("two"));
+        channel.pipeline().fireChannelRead(second);
+
+        assertThat(received, is(List.of("one", "two")));
+    }
+}
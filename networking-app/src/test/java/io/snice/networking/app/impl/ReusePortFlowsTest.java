@@ -0,0 +1,143 @@
+package io.snice.networking.app.impl;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.snice.networking.app.ConnectionContext;
+import io.snice.networking.app.MessagePipe;
+import io.snice.networking.app.NetworkAppConfig;
+import io.snice.networking.bundles.StringBundle;
+import io.snice.networking.common.Connection;
+import io.snice.networking.config.UdpFlowTableConfiguration;
+import io.snice.networking.netty.ReusePortFlows;
+import io.snice.time.SystemClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Two sockets bound to the same address through SO_REUSEPORT, where the kernel is free to hand a datagram
+ * to either one of them, but the flow must always be processed by the socket it is pinned to.
+ */
+public class ReusePortFlowsTest {
+
+    private static final InetSocketAddress LOCAL = new InetSocketAddress("10.36.10.10", 2123);
+
+    private ReusePortFlows flows;
+
+    private EmbeddedChannel first;
+    private EmbeddedChannel second;
+    private List<String> receivedByFirst;
+    private List<String> receivedBySecond;
+
+    @Before
+    public void setUp() throws Exception {
+        flows = new ReusePortFlows();
+        receivedByFirst = new ArrayList<>();
+        receivedBySecond = new ArrayList<>();
+        first = createChannel(receivedByFirst);
+        second = createChannel(receivedBySecond);
+    }
+
+    @After
+    public void tearDown() {
+        first.finishAndReleaseAll();
+        second.finishAndReleaseAll();
+    }
+
+    private EmbeddedChannel createChannel(final List<String> received) throws Exception {
+        return createChannel(received, false);
+    }
+
+    private EmbeddedChannel createChannel(final List<String> received, final boolean drop) throws Exception {
+        final MessagePipe<Connection<String>, String, String> rule = MessagePipe.<Connection<String>, String>match((c, s) -> true)
+                .consume((c, s) -> received.add(s));
+        final MessagePipe<Connection<String>, Object, Object> eventRule = MessagePipe.<Connection<String>, Object>match((c, o) -> true)
+                .consume((c, o) -> { });
+        final Function<Connection<String>, String> dropFunction = drop ? c -> null : null;
+        final ConnectionContext ctx = new DefaultConnectionContext<>(id -> true, null, dropFunction, List.of(rule), List.of(eventRule));
+
+        final var adapter = new NettyUdpInboundAdapter<String>(new SystemClock(), Optional.empty(),
+                ConnectionContextSelector.of(List.of(ctx)), new UdpFlowTableConfiguration());
+
+        // just like the bootstrap of the listening point, the flows are attached before the pipeline is set up.
+        final var channel = new EmbeddedChannel(false, false, adapter, new NettyApplicationLayer<>(new StringBundle<NetworkAppConfig>()));
+        channel.attr(ReusePortFlows.KEY).set(flows);
+        channel.register();
+        return channel;
+    }
+
+    private static void read(final EmbeddedChannel channel, final InetSocketAddress remote, final String msg) {
+        final var raw = new DatagramPacket(Unpooled.EMPTY_BUFFER, LOCAL, remote);
+        channel.pipeline().fireChannelRead(UdpReadEvent.create(channel.pipeline().firstContext(), raw, msg, 0));
+    }
+
+    @Test
+    public void testFlowPinnedToFirstSocketToSeeIt() {
+        final var remote = new InetSocketAddress("10.36.10.20", 2123);
+        read(first, remote, "one");
+        assertThat(flows.get(remote), sameInstance(first));
+
+        // the kernel decided to hand the next datagram of the same flow to the other socket...
+        read(second, remote, "two");
+        assertThat(receivedBySecond, is(List.of()));
+
+        // ... which hands it over to the event loop of the socket the flow is pinned to
+        first.runPendingTasks();
+        assertThat(receivedByFirst, is(List.of("one", "two")));
+    }
+
+    /**
+     * When the application "connects" to a remote peer, the flow is pinned to the socket the application sends
+     * over and the replies must end up on that very same socket.
+     */
+    @Test
+    public void testRepliesToOutboundFlow() {
+        final var remote = new InetSocketAddress("10.36.10.30", 2123);
+        flows.pin(remote, second);
+
+        read(first, remote, "reply");
+        second.runPendingTasks();
+
+        assertThat(receivedByFirst, is(List.of()));
+        assertThat(receivedBySecond, is(List.of("reply")));
+    }
+
+    @Test
+    public void testUnpinOnClose() {
+        final var remote = new InetSocketAddress("10.36.10.40", 2123);
+        read(first, remote, "one");
+        first.close();
+        assertThat(flows.size(), is(0));
+
+        read(second, remote, "two");
+        assertThat(flows.get(remote), sameInstance(second));
+        assertThat(receivedBySecond, is(List.of("two")));
+    }
+
+    /**
+     * A flow the application drops never becomes a flow, so it mustn't stay pinned, and the socket, which
+     * is shared with every other flow, stays open.
+     */
+    @Test
+    public void testDroppedFlowIsUnpinned() throws Exception {
+        final var dropping = createChannel(new ArrayList<>(), true);
+        try {
+            read(dropping, new InetSocketAddress("10.36.10.50", 2123), "one");
+            assertThat(flows.size(), is(0));
+            assertThat(dropping.isOpen(), is(true));
+        } finally {
+            dropping.finishAndReleaseAll();
+        }
+    }
+}
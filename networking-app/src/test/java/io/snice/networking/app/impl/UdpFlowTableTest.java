@@ -0,0 +1,140 @@
+package io.snice.networking.app.impl;
+
+import io.snice.networking.common.ChannelContext;
+import io.snice.networking.common.ConnectionId;
+import io.snice.networking.common.Transport;
+import io.snice.networking.config.UdpFlowTableConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class UdpFlowTableTest {
+
+    private UdpFlowTableConfiguration config;
+    private List<ChannelContext<String>> evicted;
+
+    @Before
+    public void setUp() {
+        config = new UdpFlowTableConfiguration();
+        config.setCapacity(3);
+        config.setIdleTimeoutMillis(1000);
+        evicted = new ArrayList<>();
+    }
+
+    private UdpFlowTable<String> table() {
+        return UdpFlowTable.of(config, evicted::add);
+    }
+
+    private static ConnectionId id(final int remotePort) {
+        final var local = new InetSocketAddress("127.0.0.1", 2123);
+        final var remote = new InetSocketAddress("10.36.10.10", remotePort);
+        return ConnectionId.create(Transport.udp, local, remote);
+    }
+
+    private static ChannelContext<String> ctx() {
+        return new BufferingChannelContext<>(null, null);
+    }
+
+    @Test
+    public void testExpireIdleFlows() {
+        final var table = table();
+        final var one = ctx();
+        final var two = ctx();
+        table.put(id(1), one, 0);
+        table.put(id(2), two, 500);
+
+        assertThat(table.expire(999), is(0));
+        assertThat(table.expire(1000), is(1));
+        assertThat(evicted, is(List.of(one)));
+        assertThat(table.get(id(1), 1000), nullValue());
+
+        // traffic on the second flow keeps it alive
+        assertThat(table.get(id(2), 1400), is(two));
+        assertThat(table.expire(1600), is(0));
+        assertThat(table.expire(2400), is(1));
+
+        assertThat(table.size(), is(0));
+        assertThat(table.getIdleEvictions(), is(2L));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedWhenFull() {
+        final var table = table();
+        final var one = ctx();
+        final var two = ctx();
+        final var three = ctx();
+        table.put(id(1), one, 0);
+        table.put(id(2), two, 0);
+        table.put(id(3), three, 0);
+
+        // "one" is now the most recently used so "two" is the one to go
+        table.get(id(1), 10);
+        table.put(id(4), ctx(), 20);
+
+        assertThat(evicted, is(List.of(two)));
+        assertThat(table.size(), is(3));
+        assertThat(table.getCapacityEvictions(), is(1L));
+        assertThat(table.get(id(1), 30), is(one));
+    }
+
+    /**
+     * The application is holding onto the flows it "connected" to so those must never be evicted.
+     */
+    @Test
+    public void testApplicationInitiatedFlowsNotEvicted() {
+        final var table = table();
+        final var outbound = ctx();
+        final var inbound = ctx();
+        table.put(id(1), outbound, 0, true);
+        table.put(id(2), inbound, 0);
+
+        assertThat(table.expire(5000), is(1));
+        assertThat(evicted, is(List.of(inbound)));
+        assertThat(table.get(id(1), 5000), is(outbound));
+
+        // an inbound flow the application later "connects" to is no longer evicted either
+        final var connected = ctx();
+        table.put(id(3), connected, 5000);
+        table.markApplicationInitiated(id(3));
+        assertThat(table.expire(10_000), is(0));
+        assertThat(table.size(), is(2));
+    }
+
+    @Test
+    public void testApplicationInitiatedFlowsNotEvictedWhenFull() {
+        final var table = table();
+        final var one = ctx();
+        final var two = ctx();
+        table.put(id(1), one, 0, true);
+        table.put(id(2), two, 0);
+        table.put(id(3), ctx(), 0, true);
+        final var four = ctx();
+        table.put(id(4), four, 0);
+        assertThat(evicted, is(List.of(two)));
+
+        table.put(id(5), ctx(), 0, true);
+        assertThat(evicted, is(List.of(two, four)));
+
+        // nothing left that can be evicted so the table grows
+        table.put(id(6), ctx(), 0, true);
+        assertThat(evicted, is(List.of(two, four)));
+        assertThat(table.size(), is(4));
+        assertThat(table.get(id(1), 0), is(one));
+    }
+
+    @Test
+    public void testNoIdleTimeout() {
+        config.setIdleTimeoutMillis(0);
+        final var table = table();
+        table.put(id(1), ctx(), 0);
+        assertThat(table.expire(Long.MAX_VALUE), is(0));
+        assertThat(table.size(), is(1));
+    }
+}
@@ -0,0 +1,43 @@
+package io.snice.networking.app.impl;
+
+import io.snice.networking.config.WorkerPoolConfiguration;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class WorkerPoolTest {
+
+    private WorkerPool pool;
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Without virtual threads there is no executor to hand out for {@link io.snice.networking.app.ExecutionMode#VIRTUAL_THREAD},
+     * as opposed to silently falling back to the fixed pool where blocking applications would starve it.
+     */
+    @Test
+    public void testVirtualThreadExecutor() {
+        pool = WorkerPool.of(new WorkerPoolConfiguration());
+        assertThat(pool.supportsVirtualThreads(), is(WorkerPool.newVirtualThreadExecutor().isPresent()));
+
+        if (pool.supportsVirtualThreads()) {
+            assertThat(pool.getVirtualThreadExecutor(), notNullValue());
+        } else {
+            try {
+                pool.getVirtualThreadExecutor();
+                fail("Expected an IllegalStateException");
+            } catch (final IllegalStateException e) {
+                // expected
+            }
+        }
+    }
+}
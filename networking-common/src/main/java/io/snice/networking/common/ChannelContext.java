@@ -1,6 +1,10 @@
 package io.snice.networking.common;
 
 import io.snice.networking.common.event.IOEvent;
+import io.snice.networking.common.timer.Timeout;
+import io.snice.networking.common.timer.Timer;
+
+import java.time.Duration;
 
 public interface ChannelContext<T> {
 
@@ -30,4 +34,29 @@ public interface ChannelContext<T> {
     void fireUserEvent(IOEvent<T> evt);
 
     void fireApplicationEvent(Object evt);
+
+    /**
+     * Close the underlying connection, see {@link Connection#close()}.
+     *
+     * If there is an FSM executing within this context, everything the FSM asked for before closing the
+     * connection is processed first, and anything after, including the events the FSM has scheduled to
+     * itself, is ignored.
+     */
+    void close();
+
+    /**
+     * The {@link Timer} of the event loop this channel is running on. Any task scheduled
+     * on this timer is executed on that very same event loop.
+     */
+    Timer getTimer();
+
+    /**
+     * If there is an FSM executing within this context, schedule the given event to be delivered to
+     * that FSM once the delay has passed. The event is delivered on the event loop of the channel, just
+     * like any other event, and is backed by the {@link #getTimer()} of the channel.
+     *
+     * @return the {@link Timeout} through which the event can be cancelled.
+     * @throws IllegalStateException in case there is no FSM executing within this context.
+     */
+    Timeout schedule(Object event, Duration delay);
 }
@@ -8,6 +8,8 @@ import io.snice.buffer.Buffer;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Represents a connection between two end-points and its primary purpose is to
@@ -174,6 +176,40 @@ public interface Connection<T> {
      */
     void send(T msg);
 
+    /**
+     * Send an Object over this connection and get notified once it has actually been written
+     * to the underlying socket (or failed to be written).
+     *
+     * Together with {@link #isWritable()}, this allows a producer to throttle itself instead of
+     * buffering up messages without bound when the remote side, or the network, cannot keep up.
+     *
+     * Note that not every {@link Connection} is able to tell when the message has been written, in which
+     * case the returned {@link CompletionStage} is completed as soon as the message has been handed off
+     * to the connection, which is what the default implementation does.
+     *
+     * @param msg
+     * @return a {@link CompletionStage} that is completed once the message has been written.
+     */
+    default CompletionStage<Void> sendAsync(final T msg) {
+        send(msg);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Check whether this {@link Connection} is able to accept more writes without them piling up
+     * in the outbound buffer. A connection becomes un-writable once the number of bytes waiting
+     * to be written goes above the high water mark of the network interface and becomes writable
+     * again once it drops below the low water mark.
+     *
+     * Note that this is advisory only, you can still send even if the connection isn't writable, the
+     * message will just be queued up.
+     *
+     * @return
+     */
+    default boolean isWritable() {
+        return true;
+    }
+
     boolean connect();
 
     void close();
@@ -3,7 +3,9 @@ package io.snice.networking.common;
 
 import io.snice.buffer.Buffer;
 
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
 import java.util.Arrays;
 
 import static io.snice.net.IPv4.convertToStringIP;
@@ -67,19 +69,30 @@ public interface ConnectionEndpointId {
 
         final byte[] rawAddress = address.getAddress().getAddress();
         final int port = address.getPort();
-        return new IPv4ConnectionEndpointId(transport, address, rawAddress, port);
+        return create(transport, address, rawAddress, port);
     }
 
     static ConnectionEndpointId create(final Transport transport, final byte[] rawAddress, final int port) {
-        final InetSocketAddress address = new InetSocketAddress(convertToStringIP(rawAddress), port);
-        return new IPv4ConnectionEndpointId(transport, address, rawAddress, port);
+        assertArgument(rawAddress != null && (rawAddress.length == 4 || rawAddress.length == 16),
+                "The raw address cannot be null and must be exactly 4 (IPv4) or 16 (IPv6) bytes");
+        if (rawAddress.length == 4) {
+            final InetSocketAddress address = new InetSocketAddress(convertToStringIP(rawAddress), port);
+            return new IPv4ConnectionEndpointId(transport, address, rawAddress, port);
+        }
+
+        return new IPv6ConnectionEndpointId(transport, toSocketAddress(rawAddress, port), rawAddress, port);
     }
 
     static ConnectionEndpointId create(final Transport transport, final Buffer rawAddress, final int port) {
-        // Note: this only assumes IPv4 addresses.
-        assertArgument(rawAddress != null && rawAddress.capacity() == 4, "The raw address cannot be null and must be exactly 4 bytes");
-        final InetSocketAddress address = new InetSocketAddress(rawAddress.toIPv4String(0), port);
-        return new IPv4ConnectionEndpointId(transport, address, rawAddress.getContent(), port);
+        assertArgument(rawAddress != null && (rawAddress.capacity() == 4 || rawAddress.capacity() == 16),
+                "The raw address cannot be null and must be exactly 4 (IPv4) or 16 (IPv6) bytes");
+        if (rawAddress.capacity() == 4) {
+            final InetSocketAddress address = new InetSocketAddress(rawAddress.toIPv4String(0), port);
+            return new IPv4ConnectionEndpointId(transport, address, rawAddress.getContent(), port);
+        }
+
+        final byte[] raw = rawAddress.getContent();
+        return new IPv6ConnectionEndpointId(transport, toSocketAddress(raw, port), raw, port);
     }
 
     static ConnectionEndpointId create(final Transport transport,
@@ -88,9 +101,21 @@ public interface ConnectionEndpointId {
                                        final int port) {
         ensureNotNull(transport);
         ensureNotNull(address);
+        if (rawAddress != null && rawAddress.length == 16) {
+            return new IPv6ConnectionEndpointId(transport, address, rawAddress, port);
+        }
         return new IPv4ConnectionEndpointId(transport, address, rawAddress, port);
     }
 
+    private static InetSocketAddress toSocketAddress(final byte[] rawAddress, final int port) {
+        try {
+            return new InetSocketAddress(InetAddress.getByAddress(rawAddress), port);
+        } catch (final UnknownHostException e) {
+            // only thrown if the address is of illegal length, which we have already checked
+            throw new IllegalArgumentException("Illegal IP address", e);
+        }
+    }
+
     class IPv4ConnectionEndpointId implements ConnectionEndpointId {
 
         private final InetSocketAddress address;
@@ -187,4 +212,102 @@ public interface ConnectionEndpointId {
         }
     }
 
+    /**
+     * The address is kept as two longs so that hashing and comparing is as cheap as for IPv4.
+     */
+    class IPv6ConnectionEndpointId implements ConnectionEndpointId {
+
+        private final InetSocketAddress address;
+        private final Transport protocol;
+        private final int port;
+        private final byte[] ip;
+        private final long high;
+        private final long low;
+
+        private final int hashCode;
+        private String humanReadableString;
+
+        private IPv6ConnectionEndpointId(final Transport protocol,
+                                         final InetSocketAddress address,
+                                         final byte[] ip,
+                                         final int port) {
+            this.address = address;
+            this.protocol = protocol;
+            this.ip = ip;
+            this.port = port;
+            this.high = ConnectionId.IPv6ConnectionId.high(ip);
+            this.low = ConnectionId.IPv6ConnectionId.low(ip);
+            this.hashCode = calculateHashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        private int calculateHashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + this.protocol.hashCode();
+            result = prime * result + Long.hashCode(this.high);
+            result = prime * result + Long.hashCode(this.low);
+            result = prime * result + this.port;
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            if (humanReadableString == null) {
+                final StringBuilder sb = new StringBuilder(protocol.toString());
+                sb.append(":[").append(getIpAddress()).append("]");
+                sb.append(":").append(port);
+                humanReadableString = sb.toString();
+            }
+            return this.humanReadableString;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            final IPv6ConnectionEndpointId other = (IPv6ConnectionEndpointId) obj;
+            return this.protocol == other.protocol
+                    && this.port == other.port
+                    && this.low == other.low
+                    && this.high == other.high;
+        }
+
+        @Override
+        public int getPort() {
+            return port;
+        }
+
+        @Override
+        public byte[] getRawIpAddress() {
+            return ip;
+        }
+
+        @Override
+        public String getIpAddress() {
+            return address.getAddress().getHostAddress();
+        }
+
+        @Override
+        public Transport getProtocol() {
+            return protocol;
+        }
+
+        @Override
+        public InetSocketAddress getAddress() {
+            return address;
+        }
+    }
+
 }
@@ -6,8 +6,10 @@ package io.snice.networking.common;
 import io.snice.buffer.Buffer;
 import io.snice.buffer.Buffers;
 
+import java.net.Inet4Address;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.util.Arrays;
+import java.net.UnknownHostException;
 
 import static io.snice.net.IPv4.convertToStringIP;
 import static io.snice.preconditions.PreConditions.assertArgument;
@@ -80,16 +82,38 @@ public interface ConnectionId {
         return getProtocol() == Transport.wss;
     }
 
+    /**
+     * Create a new {@link ConnectionId}. If both the local and the remote addresses are IPv4 addresses,
+     * the id will be an IPv4 id. Otherwise it is an IPv6 id, in which case any of the two addresses
+     * that is an IPv4 address is represented as an IPv4-mapped IPv6 address (which is what you'll
+     * get on a dual-stack socket).
+     */
     static ConnectionId create(final Transport transport, final InetSocketAddress local, final InetSocketAddress remote) {
         ensureNotNull(transport);
         ensureNotNull(local);
         ensureNotNull(remote);
 
-        final byte[] rawLocal = local.getAddress().getAddress();
-        final byte[] rawRemote = remote.getAddress().getAddress();
-        final int localPort = local.getPort();
-        final int remotePort = remote.getPort();
-        return new IPv4ConnectionId(transport, local, rawLocal, localPort, remote, rawRemote, remotePort);
+        final InetAddress localAddress = local.getAddress();
+        final InetAddress remoteAddress = remote.getAddress();
+        if (localAddress instanceof Inet4Address && remoteAddress instanceof Inet4Address) {
+            final int localIp = IPv4ConnectionId.toInt(localAddress);
+            final int remoteIp = IPv4ConnectionId.toInt(remoteAddress);
+            return new IPv4ConnectionId(transport, local, localIp, local.getPort(), remote, remoteIp, remote.getPort());
+        }
+
+        final byte[] rawLocal = localAddress.getAddress();
+        final byte[] rawRemote = remoteAddress.getAddress();
+        return new IPv6ConnectionId(transport,
+                local, IPv6ConnectionId.high(rawLocal), IPv6ConnectionId.low(rawLocal), local.getPort(),
+                remote, IPv6ConnectionId.high(rawRemote), IPv6ConnectionId.low(rawRemote), remote.getPort());
+    }
+
+    /**
+     * Create a new, re-usable, {@link ConnectionIdProbe}, which can be used to lookup a {@link ConnectionId}
+     * in a hash based structure without having to create a new {@link ConnectionId} for every lookup.
+     */
+    static ConnectionIdProbe probe() {
+        return new ConnectionIdProbe();
     }
 
     static ConnectionId decode(final Buffer encoded) {
@@ -97,6 +121,16 @@ public interface ConnectionId {
         return decode(encoded.toString());
     }
 
+    /**
+     * The encoded format is the same for both IPv4 and IPv6, it is just that the addresses are
+     * 16 bytes instead of 4:
+     *
+     * <pre>
+     *     remote ip | remote port (4 bytes) | local ip | local port (4 bytes) | transport (1 byte)
+     * </pre>
+     *
+     * which is then encoded using a 16 character alphabet, two characters per byte.
+     */
     static ConnectionId decode(final String encoded) {
         final byte[] decoded = new byte[encoded.length() / 2];
         for (int i = 0; i < decoded.length; ++i) {
@@ -105,167 +139,121 @@ public interface ConnectionId {
             decoded[i] = (byte) ((l << 4 | h) & 0xFF);
         }
 
-        final byte[] remoteIp = new byte[4];
-        System.arraycopy(decoded, 0, remoteIp, 0, 4);
-
-        final int remotePort = (decoded[4] & 0xFF) << 24 | (decoded[5] & 0xFF) << 16 | (decoded[6] & 0xFF) << 8
-                | decoded[7] & 0xFF;
-
-        final byte[] localIp = new byte[4];
-        System.arraycopy(decoded, 8, localIp, 0, 4);
-
-        final int localPort = (decoded[12] & 0xFF) << 24 | (decoded[13] & 0xFF) << 16 | (decoded[14] & 0xFF) << 8
-                | decoded[15] & 0xFF;
-
-        Transport protocol = null;
-        switch (decoded[16]) {
-            case 0x01:
-                protocol = Transport.udp;
-                break;
-            case 0x02:
-                protocol = Transport.tcp;
-                break;
-            case 0x03:
-                protocol = Transport.tls;
-                break;
-            case 0x04:
-                protocol = Transport.ws;
-                break;
-            case 0x05:
-                protocol = Transport.wss;
-                break;
-            case 0x06:
-                protocol = Transport.sctp;
-                break;
-        }
-        final String localIpAsString = convertToStringIP(localIp);
-        final String remoteIpAsString = convertToStringIP(remoteIp);
-
-        // TODO: see if creating these InetSocketAddresses all the time is expensive.
-        // We don't want to resolve them all the time but rather be in full control
-        // of that ourselves.
-        //
-        // This attempt to create an unresolved unfortunately doens't work straight off
-        // because we attempt to access the address to get the raw bytes and that blows
-        // up because they were never created. We could probably avoid this by actually
-        // calculating the byte[] array ourselves. There is a helper class
-        // IPAddressUtil.textToNumericFormatV4() that the InetSocketAddress is using too.
-        // Just step debug through it and you'll see...
-        // final InetSocketAddress localAddress = InetSocketAddress.createUnresolved(localIpAsString, localPort);
-        // final InetSocketAddress remoteAddress = InetSocketAddress.createUnresolved(remoteIpAsString, remotePort);
-
-        final InetSocketAddress localAddress = new InetSocketAddress(localIpAsString, localPort);
-        final InetSocketAddress remoteAddress = new InetSocketAddress(remoteIpAsString, remotePort);
-
-        return new IPv4ConnectionId(protocol, localAddress, localIpAsString, localIp, localPort, remoteAddress, remoteIpAsString, remoteIp, remotePort);
+        if (decoded.length == IPv6ConnectionId.ENCODED_LENGTH) {
+            return IPv6ConnectionId.decode(decoded);
+        }
+
+        assertArgument(decoded.length == IPv4ConnectionId.ENCODED_LENGTH, "Unable to decode the ConnectionId, illegal length");
+        final int remoteIp = getInt(decoded, 0);
+        final int remotePort = getInt(decoded, 4);
+        final int localIp = getInt(decoded, 8);
+        final int localPort = getInt(decoded, 12);
+        final Transport protocol = IPv4ConnectionId.decodeTransport(decoded[16]);
+
+        // the socket addresses will be created lazily if anyone asks for them.
+        return new IPv4ConnectionId(protocol, null, localIp, localPort, null, remoteIp, remotePort);
+    }
+
+    static int getInt(final byte[] bytes, final int index) {
+        return (bytes[index] & 0xFF) << 24 | (bytes[index + 1] & 0xFF) << 16 | (bytes[index + 2] & 0xFF) << 8
+                | bytes[index + 3] & 0xFF;
     }
 
-    class IPv4ConnectionId implements ConnectionId {
+    /**
+     * A compact {@link ConnectionId} for IPv4 where the addresses are kept as plain ints, which means
+     * that calculating the hash code and comparing two ids doesn't allocate anything. All the other
+     * representations, such as the encoded and human readable versions, are only created
+     * if someone asks for them (and then cached).
+     */
+    final class IPv4ConnectionId implements ConnectionId {
+
+        static final int ENCODED_LENGTH = 17;
 
         private final Transport protocol;
-        private final InetSocketAddress localAddress;
-        private final byte[] localIp;
+        private final int localIp;
         private final int localPort;
-
-        private final InetSocketAddress remoteAddress;
-        private final byte[] remoteIp;
+        private final int remoteIp;
         private final int remotePort;
+        private final int hashCode;
 
         /**
-         * The encoded version of this connection id.
-         * <p>
-         * Performance testing showed that there was actually
-         * a slight benefit keeping these cached.
+         * Lazily created. Note that Strings and Buffers are immutable so the worst thing that can happen
+         * if two threads race is that they are created twice, the byte-arrays and socket
+         * addresses on the other hand have to be volatile so they are safely published.
          */
-        private final String encodedAsString;
-        private final Buffer encodedAsBuffer;
-        private final int hashCode;
-        private final String humanReadableString;
-
-        private IPv4ConnectionId(final Transport protocol,
-                final byte[] localIp,
-                final int localPort,
-                final byte[] remoteIp,
-                final int remotePort) {
-            this(protocol,
-                    InetSocketAddress.createUnresolved(convertToStringIP(localIp), localPort),
-                    convertToStringIP(localIp),
-                    localIp,
-                    localPort,
-                    InetSocketAddress.createUnresolved(convertToStringIP(remoteIp), remotePort),
-                    convertToStringIP(remoteIp),
-                    remoteIp,
-                    remotePort);
-        }
-
-        private IPv4ConnectionId(final Transport protocol,
-                final InetSocketAddress localAddress,
-                final byte[] localIp,
-                final int localPort,
-                final InetSocketAddress remoteAddress,
-                final byte[] remoteIp,
-                final int remotePort) {
-            this(protocol,
-                    localAddress,
-                    convertToStringIP(localIp),
-                    localIp,
-                    localPort,
-                    remoteAddress,
-                    convertToStringIP(remoteIp),
-                    remoteIp,
-                    remotePort);
-        }
+        private String encodedAsString;
+        private Buffer encodedAsBuffer;
+        private String humanReadableString;
+        private volatile byte[] rawLocalIp;
+        private volatile byte[] rawRemoteIp;
+        private volatile InetSocketAddress localAddress;
+        private volatile InetSocketAddress remoteAddress;
 
         private IPv4ConnectionId(final Transport protocol,
-                final InetSocketAddress localAddress,
-                final String localIpAsString,
-                final byte[] localIp,
-                final int localPort,
-                final InetSocketAddress remoteAddress,
-                final String remoteIpAsString,
-                final byte[] remoteIp,
-                final int remotePort) {
+                                 final InetSocketAddress localAddress,
+                                 final int localIp,
+                                 final int localPort,
+                                 final InetSocketAddress remoteAddress,
+                                 final int remoteIp,
+                                 final int remotePort) {
+            this.protocol = protocol;
             this.localAddress = localAddress;
             this.localIp = localIp;
             this.localPort = localPort;
-
             this.remoteAddress = remoteAddress;
             this.remoteIp = remoteIp;
             this.remotePort = remotePort;
-
-            this.protocol = protocol;
-
-            this.hashCode = calculateHashCode();
-            this.encodedAsString = encodeConnection();
-            this.encodedAsBuffer = Buffers.wrap(encodedAsString);
-            final StringBuilder sb = new StringBuilder(localIpAsString);
-            sb.append(":").append(localPort);
-            sb.append(":").append(protocol);
-            sb.append(":").append(remoteIpAsString);
-            sb.append(":").append(remotePort);
-            this.humanReadableString = sb.toString();
+            this.hashCode = hash(protocol, localIp, localPort, remoteIp, remotePort);
         }
 
+        /**
+         * Get the IPv4 address as an int without having to go through {@link InetAddress#getAddress()},
+         * which always allocates a new array. The hash code of an {@link Inet4Address} is
+         * the address itself, and has been ever since the beginning of time.
+         */
+        static int toInt(final InetAddress address) {
+            if (address instanceof Inet4Address) {
+                return address.hashCode();
+            }
 
-        @Override
-        public int hashCode() {
-            return this.hashCode;
+            throw new IllegalArgumentException("Not an IPv4 address: " + address);
         }
 
-        private int calculateHashCode() {
+        static int hash(final Transport protocol, final int localIp, final int localPort, final int remoteIp, final int remotePort) {
             final int prime = 31;
             int result = 1;
-            result = prime * result + this.protocol.hashCode();
-            result = prime * result + Arrays.hashCode(this.localIp);
-            result = prime * result + this.localPort;
-            result = prime * result + Arrays.hashCode(this.remoteIp);
-            result = prime * result + this.remotePort;
+            result = prime * result + protocol.ordinal();
+            result = prime * result + localIp;
+            result = prime * result + localPort;
+            result = prime * result + remoteIp;
+            result = prime * result + remotePort;
             return result;
         }
 
+        boolean matches(final Transport protocol, final int localIp, final int localPort, final int remoteIp, final int remotePort) {
+            return this.protocol == protocol
+                    && this.localPort == localPort
+                    && this.remotePort == remotePort
+                    && this.localIp == localIp
+                    && this.remoteIp == remoteIp;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
         @Override
         public String toString() {
-            return this.humanReadableString;
+            if (humanReadableString == null) {
+                final StringBuilder sb = new StringBuilder(getLocalIpAddress());
+                sb.append(":").append(localPort);
+                sb.append(":").append(protocol);
+                sb.append(":").append(getRemoteIpAddress());
+                sb.append(":").append(remotePort);
+                humanReadableString = sb.toString();
+            }
+            return humanReadableString;
         }
 
         @Override
@@ -273,87 +261,100 @@ public interface ConnectionId {
             if (this == obj) {
                 return true;
             }
-            if (obj == null) {
-                return false;
-            }
-            if (getClass() != obj.getClass()) {
-                return false;
-            }
-            final IPv4ConnectionId other = (IPv4ConnectionId) obj;
-            if (this.protocol != other.protocol) {
-                return false;
-            }
 
-            if (this.localPort != other.localPort) {
-                return false;
-            }
-            if (this.remotePort != other.remotePort) {
-                return false;
+            if (obj instanceof IPv4ConnectionId) {
+                final IPv4ConnectionId other = (IPv4ConnectionId) obj;
+                return other.hashCode == hashCode && matches(other.protocol, other.localIp, other.localPort, other.remoteIp, other.remotePort);
             }
-            if (!Arrays.equals(this.localIp, other.localIp)) {
-                return false;
-            }
-            if (!Arrays.equals(this.remoteIp, other.remoteIp)) {
-                return false;
+
+            if (obj instanceof ConnectionIdProbe) {
+                return obj.equals(this);
             }
-            return true;
+
+            return false;
         }
 
         @Override
         public String encodeAsString() {
-            return this.encodedAsString;
+            if (encodedAsString == null) {
+                encodedAsString = encodeConnection();
+            }
+            return encodedAsString;
         }
 
+
         @Override
         public Buffer encode() {
-            return this.encodedAsBuffer;
+            if (encodedAsBuffer == null) {
+                encodedAsBuffer = Buffers.wrap(encodeAsString());
+            }
+            return encodedAsBuffer;
         }
 
         @Override
         public ConnectionEndpointId getRemoteConnectionEndpointId() {
-            return ConnectionEndpointId.create(protocol, remoteAddress, remoteIp, remotePort);
+            return ConnectionEndpointId.create(protocol, getRemoteAddress(), getRawRemoteIpAddress(), remotePort);
         }
 
         @Override
         public ConnectionEndpointId getLocalConnectionEndpointId() {
-            return ConnectionEndpointId.create(protocol, localAddress, localIp, localPort);
+            return ConnectionEndpointId.create(protocol, getLocalAddress(), getRawLocalIpAddress(), localPort);
         }
 
         private String encodeConnection() {
-            final byte[] toEncode = new byte[17];
-            System.arraycopy(this.remoteIp, 0, toEncode, 0, this.remoteIp.length);
-
-            toEncode[4] = (byte) (this.remotePort >>> 24);
-            toEncode[5] = (byte) (this.remotePort >>> 16);
-            toEncode[6] = (byte) (this.remotePort >>> 8);
-            toEncode[7] = (byte) this.remotePort;
-
-            System.arraycopy(this.localIp, 0, toEncode, 8, this.localIp.length);
-
-            toEncode[12] = (byte) (this.localPort >>> 24);
-            toEncode[13] = (byte) (this.localPort >>> 16);
-            toEncode[14] = (byte) (this.localPort >>> 8);
-            toEncode[15] = (byte) this.localPort;
-            if (Transport.udp == this.protocol) {
-                toEncode[16] = 0x01;
-            } else if (Transport.tcp == this.protocol) {
-                toEncode[16] = 0x02;
-            } else if (Transport.tls == this.protocol) {
-                toEncode[16] = 0x03;
-            } else if (Transport.ws == this.protocol) {
-                toEncode[16] = 0x04;
-            } else if (Transport.wss == this.protocol) {
-                toEncode[16] = 0x05;
-            } else if (Transport.sctp == this.protocol) {
-                toEncode[16] = 0x06;
-            } else {
-                toEncode[16] = 0x00;
+            final byte[] toEncode = new byte[ENCODED_LENGTH];
+            putInt(toEncode, 0, this.remoteIp);
+            putInt(toEncode, 4, this.remotePort);
+            putInt(toEncode, 8, this.localIp);
+            putInt(toEncode, 12, this.localPort);
+            toEncode[16] = encodeTransport(this.protocol);
+            return new String(translate(toEncode));
+        }
+
+        static void putInt(final byte[] bytes, final int index, final int value) {
+            bytes[index] = (byte) (value >>> 24);
+            bytes[index + 1] = (byte) (value >>> 16);
+            bytes[index + 2] = (byte) (value >>> 8);
+            bytes[index + 3] = (byte) value;
+        }
+
+        static byte encodeTransport(final Transport protocol) {
+            if (Transport.udp == protocol) {
+                return 0x01;
+            } else if (Transport.tcp == protocol) {
+                return 0x02;
+            } else if (Transport.tls == protocol) {
+                return 0x03;
+            } else if (Transport.ws == protocol) {
+                return 0x04;
+            } else if (Transport.wss == protocol) {
+                return 0x05;
+            } else if (Transport.sctp == protocol) {
+                return 0x06;
             }
+            return 0x00;
+        }
 
-            return new String(translate(toEncode));
+        static Transport decodeTransport(final byte encoded) {
+            switch (encoded) {
+                case 0x01:
+                    return Transport.udp;
+                case 0x02:
+                    return Transport.tcp;
+                case 0x03:
+                    return Transport.tls;
+                case 0x04:
+                    return Transport.ws;
+                case 0x05:
+                    return Transport.wss;
+                case 0x06:
+                    return Transport.sctp;
+                default:
+                    return null;
+            }
         }
 
-        private static char[] translate(final byte[] values) {
+        static char[] translate(final byte[] values) {
             int pos = 0;
             final char[] array = new char[values.length * 2];
             for (final byte value : values) {
@@ -372,6 +373,20 @@ public interface ConnectionId {
         private static final char[] ALPHABET = {'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N',
                 'O', 'P'};
 
+        private static byte[] toBytes(final int ip) {
+            return new byte[]{(byte) (ip >>> 24), (byte) (ip >>> 16), (byte) (ip >>> 8), (byte) ip};
+        }
+
+        static InetSocketAddress toSocketAddress(final byte[] ip, final int port) {
+            try {
+                // no name service lookup will take place when given the raw address
+                return new InetSocketAddress(InetAddress.getByAddress(ip), port);
+            } catch (final UnknownHostException e) {
+                // only thrown if the array is of an illegal length, which it isn't.
+                throw new IllegalStateException(e);
+            }
+        }
+
         @Override
         public int getLocalPort() {
             return this.localPort;
@@ -379,17 +394,22 @@ public interface ConnectionId {
 
         @Override
         public byte[] getRawLocalIpAddress() {
-            return this.localIp;
+            if (rawLocalIp == null) {
+                rawLocalIp = toBytes(localIp);
+            }
+            return rawLocalIp;
         }
 
         @Override
         public String getLocalIpAddress() {
-            return convertToStringIP(this.localIp);
+            return convertToStringIP(getRawLocalIpAddress());
         }
 
-
         @Override
         public InetSocketAddress getLocalAddress() {
+            if (localAddress == null) {
+                localAddress = toSocketAddress(getRawLocalIpAddress(), localPort);
+            }
             return localAddress;
         }
 
@@ -400,16 +420,22 @@ public interface ConnectionId {
 
         @Override
         public byte[] getRawRemoteIpAddress() {
-            return this.remoteIp;
+            if (rawRemoteIp == null) {
+                rawRemoteIp = toBytes(remoteIp);
+            }
+            return rawRemoteIp;
         }
 
         @Override
         public String getRemoteIpAddress() {
-            return convertToStringIP(this.remoteIp);
+            return convertToStringIP(getRawRemoteIpAddress());
         }
 
         @Override
         public InetSocketAddress getRemoteAddress() {
+            if (remoteAddress == null) {
+                remoteAddress = toSocketAddress(getRawRemoteIpAddress(), remotePort);
+            }
             return this.remoteAddress;
         }
 
@@ -420,5 +446,269 @@ public interface ConnectionId {
 
     }
 
+    /**
+     * A compact {@link ConnectionId} for IPv6 where each address is kept as two longs, so just as with the
+     * {@link IPv4ConnectionId}, hashing and comparing doesn't allocate anything and all the other
+     * representations are created lazily.
+     */
+    final class IPv6ConnectionId implements ConnectionId {
+
+        static final int ENCODED_LENGTH = 41;
+
+        private final Transport protocol;
+        private final long localHigh;
+        private final long localLow;
+        private final int localPort;
+        private final long remoteHigh;
+        private final long remoteLow;
+        private final int remotePort;
+        private final int hashCode;
+
+        /**
+         * Lazily created, see {@link IPv4ConnectionId}.
+         */
+        private String encodedAsString;
+        private Buffer encodedAsBuffer;
+        private String humanReadableString;
+        private volatile byte[] rawLocalIp;
+        private volatile byte[] rawRemoteIp;
+        private volatile InetSocketAddress localAddress;
+        private volatile InetSocketAddress remoteAddress;
+
+        private IPv6ConnectionId(final Transport protocol,
+                                 final InetSocketAddress localAddress,
+                                 final long localHigh,
+                                 final long localLow,
+                                 final int localPort,
+                                 final InetSocketAddress remoteAddress,
+                                 final long remoteHigh,
+                                 final long remoteLow,
+                                 final int remotePort) {
+            this.protocol = protocol;
+            this.localAddress = localAddress;
+            this.localHigh = localHigh;
+            this.localLow = localLow;
+            this.localPort = localPort;
+            this.remoteAddress = remoteAddress;
+            this.remoteHigh = remoteHigh;
+            this.remoteLow = remoteLow;
+            this.remotePort = remotePort;
+            this.hashCode = hash(protocol, localHigh, localLow, localPort, remoteHigh, remoteLow, remotePort);
+        }
+
+        private static ConnectionId decode(final byte[] decoded) {
+            final long remoteHigh = getLong(decoded, 0);
+            final long remoteLow = getLong(decoded, 8);
+            final int remotePort = getInt(decoded, 16);
+            final long localHigh = getLong(decoded, 20);
+            final long localLow = getLong(decoded, 28);
+            final int localPort = getInt(decoded, 36);
+            final Transport protocol = IPv4ConnectionId.decodeTransport(decoded[40]);
+            return new IPv6ConnectionId(protocol, null, localHigh, localLow, localPort, null, remoteHigh, remoteLow, remotePort);
+        }
+
+        /**
+         * The high 64 bits of the address. If given an IPv4 address, it is treated as
+         * an IPv4-mapped IPv6 address, i.e., ::ffff:a.b.c.d
+         */
+        static long high(final byte[] address) {
+            if (address.length == 4) {
+                return 0L;
+            }
+            assertArgument(address.length == 16, "An IP address must be 4 or 16 bytes");
+            return getLong(address, 0);
+        }
+
+        /**
+         * The low 64 bits of the address. See {@link #high(byte[])}.
+         */
+        static long low(final byte[] address) {
+            if (address.length == 4) {
+                return 0x0000FFFF00000000L | getInt(address, 0) & 0xFFFFFFFFL;
+            }
+            assertArgument(address.length == 16, "An IP address must be 4 or 16 bytes");
+            return getLong(address, 8);
+        }
+
+        static long getLong(final byte[] bytes, final int index) {
+            return (getInt(bytes, index) & 0xFFFFFFFFL) << 32 | getInt(bytes, index + 4) & 0xFFFFFFFFL;
+        }
+
+        static void putLong(final byte[] bytes, final int index, final long value) {
+            IPv4ConnectionId.putInt(bytes, index, (int) (value >>> 32));
+            IPv4ConnectionId.putInt(bytes, index + 4, (int) value);
+        }
+
+        static byte[] toBytes(final long high, final long low) {
+            final byte[] bytes = new byte[16];
+            putLong(bytes, 0, high);
+            putLong(bytes, 8, low);
+            return bytes;
+        }
+
+        static int hash(final Transport protocol,
+                        final long localHigh,
+                        final long localLow,
+                        final int localPort,
+                        final long remoteHigh,
+                        final long remoteLow,
+                        final int remotePort) {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + protocol.ordinal();
+            result = prime * result + Long.hashCode(localHigh);
+            result = prime * result + Long.hashCode(localLow);
+            result = prime * result + localPort;
+            result = prime * result + Long.hashCode(remoteHigh);
+            result = prime * result + Long.hashCode(remoteLow);
+            result = prime * result + remotePort;
+            return result;
+        }
+
+        boolean matches(final Transport protocol,
+                        final long localHigh,
+                        final long localLow,
+                        final int localPort,
+                        final long remoteHigh,
+                        final long remoteLow,
+                        final int remotePort) {
+            return this.protocol == protocol
+                    && this.localPort == localPort
+                    && this.remotePort == remotePort
+                    && this.localLow == localLow
+                    && this.remoteLow == remoteLow
+                    && this.localHigh == localHigh
+                    && this.remoteHigh == remoteHigh;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (obj instanceof IPv6ConnectionId) {
+                final IPv6ConnectionId other = (IPv6ConnectionId) obj;
+                return other.hashCode == hashCode && matches(other.protocol,
+                        other.localHigh, other.localLow, other.localPort,
+                        other.remoteHigh, other.remoteLow, other.remotePort);
+            }
+
+            if (obj instanceof ConnectionIdProbe) {
+                return obj.equals(this);
+            }
+
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            if (humanReadableString == null) {
+                final StringBuilder sb = new StringBuilder("[").append(getLocalIpAddress()).append("]");
+                sb.append(":").append(localPort);
+                sb.append(":").append(protocol);
+                sb.append(":[").append(getRemoteIpAddress()).append("]");
+                sb.append(":").append(remotePort);
+                humanReadableString = sb.toString();
+            }
+            return humanReadableString;
+        }
+
+        @Override
+        public String encodeAsString() {
+            if (encodedAsString == null) {
+                final byte[] toEncode = new byte[ENCODED_LENGTH];
+                putLong(toEncode, 0, remoteHigh);
+                putLong(toEncode, 8, remoteLow);
+                IPv4ConnectionId.putInt(toEncode, 16, remotePort);
+                putLong(toEncode, 20, localHigh);
+                putLong(toEncode, 28, localLow);
+                IPv4ConnectionId.putInt(toEncode, 36, localPort);
+                toEncode[40] = IPv4ConnectionId.encodeTransport(protocol);
+                encodedAsString = new String(IPv4ConnectionId.translate(toEncode));
+            }
+            return encodedAsString;
+        }
+
+        @Override
+        public Buffer encode() {
+            if (encodedAsBuffer == null) {
+                encodedAsBuffer = Buffers.wrap(encodeAsString());
+            }
+            return encodedAsBuffer;
+        }
+
+        @Override
+        public ConnectionEndpointId getLocalConnectionEndpointId() {
+            return ConnectionEndpointId.create(protocol, getLocalAddress(), getRawLocalIpAddress(), localPort);
+        }
+
+        @Override
+        public ConnectionEndpointId getRemoteConnectionEndpointId() {
+            return ConnectionEndpointId.create(protocol, getRemoteAddress(), getRawRemoteIpAddress(), remotePort);
+        }
+
+        @Override
+        public int getLocalPort() {
+            return localPort;
+        }
+
+        @Override
+        public byte[] getRawLocalIpAddress() {
+            if (rawLocalIp == null) {
+                rawLocalIp = toBytes(localHigh, localLow);
+            }
+            return rawLocalIp;
+        }
+
+        @Override
+        public String getLocalIpAddress() {
+            return getLocalAddress().getAddress().getHostAddress();
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            if (localAddress == null) {
+                localAddress = IPv4ConnectionId.toSocketAddress(getRawLocalIpAddress(), localPort);
+            }
+            return localAddress;
+        }
+
+        @Override
+        public int getRemotePort() {
+            return remotePort;
+        }
+
+        @Override
+        public byte[] getRawRemoteIpAddress() {
+            if (rawRemoteIp == null) {
+                rawRemoteIp = toBytes(remoteHigh, remoteLow);
+            }
+            return rawRemoteIp;
+        }
+
+        @Override
+        public String getRemoteIpAddress() {
+            return getRemoteAddress().getAddress().getHostAddress();
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            if (remoteAddress == null) {
+                remoteAddress = IPv4ConnectionId.toSocketAddress(getRawRemoteIpAddress(), remotePort);
+            }
+            return remoteAddress;
+        }
+
+        @Override
+        public Transport getProtocol() {
+            return protocol;
+        }
+    }
 
 }
@@ -0,0 +1,119 @@
+package io.snice.networking.common;
+
+import io.snice.networking.common.ConnectionId.IPv4ConnectionId;
+import io.snice.networking.common.ConnectionId.IPv6ConnectionId;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * A mutable "key" used for looking up a {@link ConnectionId} in a hash based structure, such as a {@link java.util.Map}
+ * keyed by {@link ConnectionId}, without having to create a new {@link ConnectionId} for every lookup. The
+ * typical use case is the UDP receive path where every packet needs to be mapped to its "connection" but where
+ * the connection, in the vast majority of cases, already exists.
+ *
+ * <pre>
+ *     probe.set(Transport.udp, packet.recipient(), packet.sender());
+ *     var ctx = map.get(probe);
+ *     if (ctx == null) {
+ *         final ConnectionId id = probe.toConnectionId();
+ *         ...
+ *     }
+ * </pre>
+ *
+ * A {@link ConnectionIdProbe} has the same hash code as, and is equal to, the {@link ConnectionId} it is
+ * currently representing. However, since it is mutable, it must never ever be stored as a key itself, use
+ * {@link #toConnectionId()} for that. Also note that it is not thread safe, which is fine since the intended use is to
+ * have one per e.g. netty handler.
+ *
+ * For IPv4 the probe doesn't allocate anything at all. For IPv6, the only allocation is the copy of the raw
+ * addresses that {@link java.net.InetAddress#getAddress()} hands out.
+ */
+public final class ConnectionIdProbe {
+
+    private Transport protocol;
+    private InetSocketAddress local;
+    private InetSocketAddress remote;
+    private int localIp;
+    private int localPort;
+    private int remoteIp;
+    private int remotePort;
+    private long localHigh;
+    private long localLow;
+    private long remoteHigh;
+    private long remoteLow;
+    private boolean ipv6;
+    private int hashCode;
+
+    ConnectionIdProbe() {
+        // use ConnectionId.probe()
+    }
+
+    public ConnectionIdProbe set(final Transport protocol, final InetSocketAddress local, final InetSocketAddress remote) {
+        assertNotNull(protocol);
+        assertNotNull(local);
+        assertNotNull(remote);
+        this.protocol = protocol;
+        this.local = local;
+        this.remote = remote;
+        this.localPort = local.getPort();
+        this.remotePort = remote.getPort();
+
+        if (local.getAddress() instanceof Inet4Address && remote.getAddress() instanceof Inet4Address) {
+            this.ipv6 = false;
+            this.localIp = IPv4ConnectionId.toInt(local.getAddress());
+            this.remoteIp = IPv4ConnectionId.toInt(remote.getAddress());
+            this.hashCode = IPv4ConnectionId.hash(protocol, localIp, localPort, remoteIp, remotePort);
+            return this;
+        }
+
+        final byte[] rawLocal = local.getAddress().getAddress();
+        final byte[] rawRemote = remote.getAddress().getAddress();
+        this.ipv6 = true;
+        this.localHigh = IPv6ConnectionId.high(rawLocal);
+        this.localLow = IPv6ConnectionId.low(rawLocal);
+        this.remoteHigh = IPv6ConnectionId.high(rawRemote);
+        this.remoteLow = IPv6ConnectionId.low(rawRemote);
+        this.hashCode = IPv6ConnectionId.hash(protocol, localHigh, localLow, localPort, remoteHigh, remoteLow, remotePort);
+        return this;
+    }
+
+    /**
+     * Create a new, immutable, {@link ConnectionId} out of what this probe is currently representing.
+     */
+    public ConnectionId toConnectionId() {
+        return ConnectionId.create(protocol, local, remote);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!ipv6 && obj instanceof IPv4ConnectionId) {
+            final IPv4ConnectionId other = (IPv4ConnectionId) obj;
+            return other.hashCode() == hashCode && other.matches(protocol, localIp, localPort, remoteIp, remotePort);
+        }
+
+        if (ipv6 && obj instanceof IPv6ConnectionId) {
+            final IPv6ConnectionId other = (IPv6ConnectionId) obj;
+            return other.hashCode() == hashCode
+                    && other.matches(protocol, localHigh, localLow, localPort, remoteHigh, remoteLow, remotePort);
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionIdProbe[" + local + ":" + protocol + ":" + remote + "]";
+    }
+}
@@ -5,6 +5,7 @@ import io.snice.buffer.Buffer;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 
 /**
  * There are many cases when a particular network protocol want to wrap the actual
@@ -91,6 +92,20 @@ public abstract class ConnectionSupport<T> implements Connection<T> {
         return actualConnection.getTransport();
     }
 
+    @Override
+    public boolean isWritable() {
+        return actualConnection.isWritable();
+    }
+
+    /**
+     * Delegates to the actual connection, which is the one that knows when the message has been written.
+     * Note that if your wrapper transforms the message in {@link #send(Object)}, it must do the same here.
+     */
+    @Override
+    public CompletionStage<Void> sendAsync(final T msg) {
+        return actualConnection.sendAsync(msg);
+    }
+
     @Override
     public boolean connect() {
         return actualConnection.connect();
@@ -0,0 +1,56 @@
+package io.snice.networking.common.event;
+
+import io.snice.networking.common.ChannelContext;
+import io.snice.networking.common.Connection;
+import io.snice.networking.common.event.impl.IOEventImpl;
+
+/**
+ * Fired whenever the writability of the underlying channel changes, i.e., when the amount of data
+ * waiting to be written goes above the high water mark or falls back below the low water mark.
+ * See {@link Connection#isWritable()}.
+ *
+ * Note that for UDP, every "connection" shares the same underlying socket and as such, the writability
+ * of one is the writability of all of them. The event is therefore fired once per socket, through
+ * whichever of its connections happens to be at hand, and not for every one of them (or rather, once
+ * for every set of application rules the connections of that socket belong to).
+ */
+public interface ConnectionWritabilityChangedIOEvent<T> extends ConnectionIOEvent<T> {
+
+    @Override
+    default boolean isConnectionWritabilityChangedIOEvent() {
+        return true;
+    }
+
+    @Override
+    default ConnectionWritabilityChangedIOEvent<T> toConnectionWritabilityChangedIOEvent() {
+        return this;
+    }
+
+    /**
+     * Whether the connection is writable after this change.
+     */
+    boolean isWritable();
+
+    static <T> ConnectionWritabilityChangedIOEvent<T> create(final ChannelContext<T> ctx, final boolean isWritable, final long arrivalTime) {
+        return new ConnectionWritabilityChangedIOEventImpl<>(ctx, isWritable, arrivalTime);
+    }
+
+    class ConnectionWritabilityChangedIOEventImpl<T> extends IOEventImpl<T> implements ConnectionWritabilityChangedIOEvent<T> {
+        private final boolean isWritable;
+
+        private ConnectionWritabilityChangedIOEventImpl(final ChannelContext<T> ctx, final boolean isWritable, final long arrivalTime) {
+            super(ctx, arrivalTime);
+            this.isWritable = isWritable;
+        }
+
+        @Override
+        public boolean isWritable() {
+            return isWritable;
+        }
+
+        @Override
+        public String toString() {
+            return "ConnectionWritabilityChangedIOEvent[" + channelContext().getConnectionId() + ", writable=" + isWritable + "]";
+        }
+    }
+}
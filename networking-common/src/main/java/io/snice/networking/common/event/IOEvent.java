@@ -82,6 +82,10 @@ public interface IOEvent<T> {
         return false;
     }
 
+    default boolean isConnectionWritabilityChangedIOEvent() {
+        return false;
+    }
+
     default ConnectionIOEvent toConnectionIOEvent() {
         throw new ClassCastException("Cannot cast " + getClass().getName() + " into a " + ConnectionIOEvent.class.getName());
     }
@@ -106,4 +110,8 @@ public interface IOEvent<T> {
         throw new ClassCastException("Cannot cast " + getClass().getName() + " into a " + ConnectionAttemptCompletedIOEvent.class.getName());
     }
 
+    default ConnectionWritabilityChangedIOEvent<T> toConnectionWritabilityChangedIOEvent() {
+        throw new ClassCastException("Cannot cast " + getClass().getName() + " into a " + ConnectionWritabilityChangedIOEvent.class.getName());
+    }
+
 }
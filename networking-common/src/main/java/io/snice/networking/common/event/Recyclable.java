@@ -0,0 +1,22 @@
+package io.snice.networking.common.event;
+
+/**
+ * An event that has been taken from a pool and that is to be handed back to that pool once
+ * it has been fully processed. After that, the event must not be accessed anymore since it will
+ * be handed out again, carrying a different message.
+ *
+ * See the <code>recycleEvents</code> option of the <code>NetworkAppConfig</code>.
+ */
+public interface Recyclable {
+
+    /**
+     * Hand the given object back to its pool, if it is {@link Recyclable}, otherwise do nothing.
+     */
+    static void recycle(final Object object) {
+        if (object instanceof Recyclable) {
+            ((Recyclable) object).recycle();
+        }
+    }
+
+    void recycle();
+}
@@ -29,6 +29,49 @@ public interface FsmFactory<T, S extends Enum<S>, C extends NetworkContext<T>, D
      */
     FsmKey calculateKey(ConnectionId connectionId, Optional<T> msg);
 
+    /**
+     * For connectionless transports, such as UDP, there is one FSM per key, as calculated by
+     * {@link #calculateKey(ConnectionId, Optional)}, sharing the same underlying channel. When the application
+     * then writes a message to that channel, the message itself has to tell which FSM it belongs to.
+     * <p>
+     * Return null if the message doesn't belong to any particular FSM, in which case it will be written
+     * to the channel as is, without going through an FSM. This is also the default.
+     *
+     * @param msg the message being written by the application.
+     * @return the key of the FSM the message belongs to or null.
+     */
+    default FsmKey calculateDownstreamKey(final T msg) {
+        return null;
+    }
+
+    /**
+     * The FSM a message written by the application belongs to, as given by {@link #calculateDownstreamKey(Object)},
+     * may no longer exist, e.g. because it was evicted for being idle. In that case, a new FSM is created for the
+     * connection returned here, as long as the underlying transport still knows about it.
+     * <p>
+     * Return null if a new FSM cannot be created from the message alone, in which case the write fails. This is
+     * also the default.
+     *
+     * @param msg the message being written by the application.
+     * @return the id of the connection the message is written to, or null.
+     */
+    default ConnectionId calculateDownstreamConnectionId(final T msg) {
+        return null;
+    }
+
+    /**
+     * For connectionless transports, the FSMs are evicted once they have been idle for too long, or have to make
+     * room for new ones. An FSM that still has something outstanding, such as a request waiting for its answer,
+     * must not be evicted, or the answer has nowhere to go, and this is where the FSM gets to say so.
+     * <p>
+     * The default is that any FSM can be evicted.
+     *
+     * @param data the data bag of the FSM, as created by {@link #createNewDataBag(FsmKey)}.
+     */
+    default boolean isEvictable(final D data) {
+        return true;
+    }
+
     D createNewDataBag(FsmKey key);
 
     C createNewContext(FsmKey key, ChannelContext<T> ctx);
@@ -3,6 +3,10 @@ package io.snice.networking.common.fsm;
 import io.hektor.fsm.Context;
 import io.snice.networking.common.ChannelContext;
 import io.snice.networking.common.Connection;
+import io.snice.networking.common.timer.Timeout;
+import io.snice.networking.common.timer.Timer;
+
+import java.time.Duration;
 
 /**
  * Snice Networking provides an execution environment for those protocols that wish to
@@ -31,4 +35,19 @@ public interface NetworkContext<T> extends Context {
 
     ChannelContext<T> getChannelContext();
 
+    /**
+     * Schedule an event to be delivered to the FSM itself, which is backed by the {@link Timer} of the
+     * channel. See {@link ChannelContext#schedule(Object, Duration)}.
+     */
+    default Timeout schedule(final Object event, final Duration delay) {
+        return getChannelContext().schedule(event, delay);
+    }
+
+    /**
+     * See {@link ChannelContext#getTimer()}.
+     */
+    default Timer getTimer() {
+        return getChannelContext().getTimer();
+    }
+
 }
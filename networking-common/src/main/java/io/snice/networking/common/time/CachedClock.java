@@ -0,0 +1,82 @@
+package io.snice.networking.common.time;
+
+import io.snice.time.Clock;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static io.snice.preconditions.PreConditions.assertArgument;
+
+/**
+ * A {@link Clock} that doesn't actually read the system clock when asked for the time but rather returns
+ * the time as last read by a dedicated ticker thread, which reads the system clock once every "resolution".
+ *
+ * This is the clock used for stamping the arrival time of every message read off of the network and,
+ * in general, anything on the per-message path. Reading the cached time is a single volatile read and all
+ * messages read within the same tick, which typically is an entire batch of messages, get the very same
+ * time stamp. The price is that the time may be up to one resolution behind, which is more than good enough
+ * for an arrival time in milliseconds. If you need to measure latencies, use the {@link PreciseClock}.
+ *
+ * There is one ticker thread, and one {@link CachedClock}, per resolution and they live for as long
+ * as the JVM does.
+ */
+public final class CachedClock implements Clock {
+
+    public static final Duration DEFAULT_RESOLUTION = Duration.ofMillis(1);
+
+    private static final ConcurrentMap<Long, CachedClock> clocks = new ConcurrentHashMap<>();
+
+    private final long resolutionNanos;
+
+    private volatile long now;
+
+    /**
+     * The {@link CachedClock} with the {@link #DEFAULT_RESOLUTION}.
+     */
+    public static CachedClock getDefault() {
+        return of(DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * Get the {@link CachedClock} with the given resolution, which is started the first
+     * time it is asked for.
+     *
+     * @param resolution how often the time is refreshed. Must be at least 1 ms.
+     */
+    public static CachedClock of(final Duration resolution) {
+        assertArgument(resolution != null && resolution.toMillis() >= 1, "The resolution of the clock must be at least 1 ms");
+        return clocks.computeIfAbsent(resolution.toNanos(), CachedClock::start);
+    }
+
+    private static CachedClock start(final long resolutionNanos) {
+        final var clock = new CachedClock(resolutionNanos);
+        final var ticker = new Thread(clock::tick, "snice-clock-" + TimeUnit.NANOSECONDS.toMillis(resolutionNanos) + "ms");
+        ticker.setDaemon(true);
+        ticker.start();
+        return clock;
+    }
+
+    private CachedClock(final long resolutionNanos) {
+        this.resolutionNanos = resolutionNanos;
+        this.now = System.currentTimeMillis();
+    }
+
+    private void tick() {
+        while (true) {
+            now = System.currentTimeMillis();
+            LockSupport.parkNanos(resolutionNanos);
+        }
+    }
+
+    public Duration getResolution() {
+        return Duration.ofNanos(resolutionNanos);
+    }
+
+    @Override
+    public long getCurrentTimeMillis() {
+        return now;
+    }
+}
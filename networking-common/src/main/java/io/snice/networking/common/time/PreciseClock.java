@@ -0,0 +1,35 @@
+package io.snice.networking.common.time;
+
+import io.snice.time.Clock;
+
+/**
+ * A {@link Clock} that reads the system clock every time it is asked, which also has a monotonic
+ * nanosecond time for measuring latencies, e.g. the time from a request was sent until the answer arrived.
+ *
+ * For time stamping messages on the per-message path, use the {@link CachedClock}.
+ */
+public final class PreciseClock implements Clock {
+
+    private static final PreciseClock INSTANCE = new PreciseClock();
+
+    public static PreciseClock getInstance() {
+        return INSTANCE;
+    }
+
+    private PreciseClock() {
+        // singleton
+    }
+
+    @Override
+    public long getCurrentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * A monotonic time in nanoseconds, which is only meaningful when compared with
+     * another value from this very method. See {@link System#nanoTime()}.
+     */
+    public long getNanoTime() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,22 @@
+package io.snice.networking.common.timer;
+
+/**
+ * A handle to a task scheduled by a {@link Timer}.
+ */
+public interface Timeout {
+
+    /**
+     * Cancel the task, which is safe to do from any thread.
+     *
+     * @return true if the task was cancelled, false if the task had already been executed, or
+     * is currently executing, or if the task had already been cancelled.
+     */
+    boolean cancel();
+
+    boolean isCancelled();
+
+    /**
+     * Whether or not the timer has expired, in which case the task has been, or is about to be, executed.
+     */
+    boolean isExpired();
+}
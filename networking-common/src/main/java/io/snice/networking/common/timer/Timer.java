@@ -0,0 +1,27 @@
+package io.snice.networking.common.timer;
+
+import java.time.Duration;
+
+/**
+ * A timer for scheduling tasks some time in the future, such as the timeout of a transaction or
+ * the various timers of a protocol state machine.
+ *
+ * The timer is owned by the event loop of a channel and every task is executed on that event loop,
+ * which is the very same thread that executes the FSMs and the handlers of the channel. As such, a task
+ * can safely touch the state of e.g. an FSM without any locking what so ever.
+ *
+ * The timer is optimized for scheduling a large number of timers that typically never fire, i.e., they
+ * are cancelled long before they expire, which is what most protocol timers do. The price for this is
+ * that the timer is not very precise and a task may fire up to one "tick" late (~10 ms by default).
+ */
+public interface Timer {
+
+    /**
+     * Schedule the given task to be executed once the given delay has elapsed.
+     *
+     * @param task the task to execute, which will always be executed on the event loop owning this timer.
+     * @param delay the delay. Zero, or a negative delay, will execute the task on the next tick.
+     * @return a {@link Timeout} through which the task can be cancelled.
+     */
+    Timeout schedule(Runnable task, Duration delay);
+}
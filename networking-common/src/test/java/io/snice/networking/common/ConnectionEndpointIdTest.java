@@ -4,6 +4,8 @@ import io.snice.buffer.Buffer;
 import io.snice.buffer.Buffers;
 import org.junit.Test;
 
+import java.net.InetAddress;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.fail;
@@ -21,6 +23,17 @@ public class ConnectionEndpointIdTest {
         assertThat(id.toString(), is("udp:10.11.12.13:1111"));
     }
 
+    @Test
+    public void testCreateIPv6EndpointIdWithBuffer() throws Exception {
+        final var raw = InetAddress.getByName("2001:db8::1").getAddress();
+        final var id = ConnectionEndpointId.create(Transport.tcp, Buffer.of(raw), 3868);
+        assertThat(id.getIpAddress(), is("2001:db8:0:0:0:0:0:1"));
+        assertThat(id.getPort(), is(3868));
+        assertThat(id.toString(), is("tcp:[2001:db8:0:0:0:0:0:1]:3868"));
+        assertThat(id, is(ConnectionEndpointId.create(Transport.tcp, raw, 3868)));
+        assertThat(id.hashCode(), is(ConnectionEndpointId.create(Transport.tcp, raw, 3868).hashCode()));
+    }
+
     @Test
     public void testBadInputs() {
         ensureBadInput(null);
@@ -30,6 +43,10 @@ public class ConnectionEndpointIdTest {
 
         // jumping to 5 bytes since 4 is what we want
         ensureBadInput(Buffer.of((byte) 0x00, (byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04));
+
+        // and 16 is IPv6
+        ensureBadInput(Buffer.of(new byte[15]));
+        ensureBadInput(Buffer.of(new byte[17]));
     }
 
     private void ensureBadInput(final Buffer buffer) {
@@ -0,0 +1,128 @@
+package io.snice.networking.common;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConnectionIdTest {
+
+    private static final InetSocketAddress local = new InetSocketAddress("10.36.10.10", 2123);
+    private static final InetSocketAddress remote = new InetSocketAddress("192.168.0.100", 34567);
+
+    @Test
+    public void testEncodeDecode() {
+        final var id = ConnectionId.create(Transport.udp, local, remote);
+        final var decoded = ConnectionId.decode(id.encode());
+        assertThat(decoded, is(id));
+        assertThat(decoded.hashCode(), is(id.hashCode()));
+        assertThat(decoded.encodeAsString(), is(id.encodeAsString()));
+        assertThat(decoded.getLocalAddress(), is(local));
+        assertThat(decoded.getRemoteAddress(), is(remote));
+        assertThat(decoded.getProtocol(), is(Transport.udp));
+        assertThat(decoded.toString(), is("10.36.10.10:2123:udp:192.168.0.100:34567"));
+    }
+
+    /**
+     * The encoded format must stay the same since it may very well have been
+     * stored away somewhere.
+     */
+    @Test
+    public void testEncodedFormat() {
+        final var id = ConnectionId.create(Transport.tcp, new InetSocketAddress("127.0.0.1", 5060),
+                new InetSocketAddress("10.0.0.1", 5061));
+        assertThat(id.encodeAsString(), is("AKAAAAABAAAABDMFHPAAAAABAAAABDMEAC"));
+    }
+
+    @Test
+    public void testRawAddresses() {
+        final var id = ConnectionId.create(Transport.tcp, local, remote);
+        assertThat(id.getRawLocalIpAddress(), is(new byte[]{10, 36, 10, 10}));
+        assertThat(id.getRawRemoteIpAddress(), is(new byte[]{(byte) 192, (byte) 168, 0, 100}));
+        assertThat(id.getLocalIpAddress(), is("10.36.10.10"));
+        assertThat(id.getRemoteIpAddress(), is("192.168.0.100"));
+        assertThat(id.getRemoteConnectionEndpointId().toString(), is("tcp:192.168.0.100:34567"));
+    }
+
+    @Test
+    public void testEquals() {
+        final var id = ConnectionId.create(Transport.udp, local, remote);
+        assertThat(id, is(ConnectionId.create(Transport.udp, local, remote)));
+        assertThat(id, not(ConnectionId.create(Transport.tcp, local, remote)));
+        assertThat(id, not(ConnectionId.create(Transport.udp, remote, local)));
+        assertThat(id, not(ConnectionId.create(Transport.udp, local, new InetSocketAddress("192.168.0.100", 34568))));
+    }
+
+    @Test
+    public void testProbe() {
+        final var map = new HashMap<ConnectionId, String>();
+        map.put(ConnectionId.create(Transport.udp, local, remote), "hello");
+
+        final var probe = ConnectionId.probe();
+        assertThat(map.get(probe.set(Transport.udp, local, remote)), is("hello"));
+        assertThat(map.containsKey(probe.set(Transport.tcp, local, remote)), is(false));
+        assertThat(map.containsKey(probe.set(Transport.udp, local, local)), is(false));
+
+        probe.set(Transport.udp, local, remote);
+        final var id = probe.toConnectionId();
+        assertThat(id.hashCode(), is(probe.hashCode()));
+        assertThat(probe.equals(id), is(true));
+        assertThat(id.equals(probe), is(true));
+    }
+
+    @Test
+    public void testEncodeDecodeIPv6() {
+        final var local6 = new InetSocketAddress("2001:db8::1", 3868);
+        final var remote6 = new InetSocketAddress("fe80::a:b:c:d", 45678);
+        final var id = ConnectionId.create(Transport.sctp, local6, remote6);
+        assertThat(id.encodeAsString().length(), is(82));
+
+        final var decoded = ConnectionId.decode(id.encode());
+        assertThat(decoded, is(id));
+        assertThat(decoded.hashCode(), is(id.hashCode()));
+        assertThat(decoded.getLocalAddress(), is(local6));
+        assertThat(decoded.getRemoteAddress(), is(remote6));
+        assertThat(decoded.getProtocol(), is(Transport.sctp));
+        assertThat(decoded.toString(), is("[2001:db8:0:0:0:0:0:1]:3868:sctp:[fe80:0:0:0:a:b:c:d]:45678"));
+        assertThat(decoded.getRemoteConnectionEndpointId().toString(), is("sctp:[fe80:0:0:0:a:b:c:d]:45678"));
+        assertThat(decoded.getRemoteConnectionEndpointId(), is(id.getRemoteConnectionEndpointId()));
+    }
+
+    /**
+     * Mixing IPv4 and IPv6, as you would on a dual-stack socket, turns the IPv4 address
+     * into an IPv4-mapped IPv6 address.
+     */
+    @Test
+    public void testMixedIPv4AndIPv6() {
+        final var local6 = new InetSocketAddress("::", 2123);
+        final var id = ConnectionId.create(Transport.udp, local6, remote);
+        assertThat(id.getRawRemoteIpAddress(),
+                is(new byte[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 192, (byte) 168, 0, 100}));
+        assertThat(id.getRemoteIpAddress(), is("192.168.0.100"));
+        assertThat(ConnectionId.decode(id.encodeAsString()), is(id));
+    }
+
+    @Test
+    public void testProbeIPv6() {
+        final var local6 = new InetSocketAddress("2001:db8::1", 3868);
+        final var remote6 = new InetSocketAddress("2001:db8::2", 3868);
+        final var map = new HashMap<ConnectionId, String>();
+        map.put(ConnectionId.create(Transport.udp, local6, remote6), "hello");
+        map.put(ConnectionId.create(Transport.udp, local, remote), "world");
+
+        final var probe = ConnectionId.probe();
+        assertThat(map.get(probe.set(Transport.udp, local6, remote6)), is("hello"));
+        assertThat(map.get(probe.set(Transport.udp, local, remote)), is("world"));
+        assertThat(map.containsKey(probe.set(Transport.udp, remote6, local6)), is(false));
+        assertThat(map.containsKey(probe.set(Transport.udp, local6, remote)), is(false));
+
+        probe.set(Transport.udp, local6, remote6);
+        final var id = probe.toConnectionId();
+        assertThat(id.hashCode(), is(probe.hashCode()));
+        assertThat(id.equals(probe), is(true));
+    }
+}
@@ -0,0 +1,36 @@
+package io.snice.networking.common.time;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CachedClockTest {
+
+    @Test
+    public void testOneClockPerResolution() {
+        assertThat(CachedClock.of(Duration.ofMillis(1)), sameInstance(CachedClock.getDefault()));
+        assertThat(CachedClock.of(Duration.ofMillis(5)).getResolution(), is(Duration.ofMillis(5)));
+    }
+
+    @Test(timeout = 5000)
+    public void testTimeIsRefreshed() throws Exception {
+        final var clock = CachedClock.of(Duration.ofMillis(2));
+        final long start = clock.getCurrentTimeMillis();
+
+        Thread.sleep(20);
+
+        // the cached time can only ever lag behind the system clock.
+        final long now = clock.getCurrentTimeMillis();
+        assertThat(now > start, is(true));
+        assertThat(now <= System.currentTimeMillis(), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResolutionTooSmall() {
+        CachedClock.of(Duration.ofNanos(500));
+    }
+}
@@ -0,0 +1,65 @@
+package io.snice.networking.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import static io.snice.preconditions.PreConditions.assertArgument;
+
+/**
+ * For connectionless transports, such as UDP, a single channel is carrying the traffic of every remote
+ * peer and as such, the FSM layer keeps one FSM per key, as calculated by the
+ * {@link io.snice.networking.common.fsm.FsmFactory}, as opposed to one FSM per channel. Those FSMs are kept
+ * in a bounded table where:
+ *
+ * <ul>
+ *     <li>An FSM that hasn't seen any traffic for {@link #getIdleTimeoutMillis()} is evicted.
+ *     Zero means that FSMs are never evicted because of being idle.</li>
+ *     <li>If the table has reached its {@link #getCapacity()}, the least recently used FSM is evicted
+ *     to make room for the new one.</li>
+ * </ul>
+ *
+ * The idle FSMs are checked for every {@link #getTickMillis()}, which then is the resolution of
+ * the idle timeout. Note that an FSM that still has something outstanding, as decided by
+ * {@link io.snice.networking.common.fsm.FsmFactory#isEvictable(io.hektor.fsm.Data)}, is never evicted.
+ */
+public class FsmTableConfiguration {
+
+    @JsonProperty("capacity")
+    private int capacity = 50_000;
+
+    @JsonProperty("idleTimeoutMillis")
+    private long idleTimeoutMillis = 300_000;
+
+    @JsonProperty("tickMillis")
+    private long tickMillis = 1_000;
+
+    @JsonIgnore
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(final int capacity) {
+        assertArgument(capacity >= 1, "The capacity of the FSM table must be at least 1");
+        this.capacity = capacity;
+    }
+
+    @JsonIgnore
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(final long idleTimeoutMillis) {
+        assertArgument(idleTimeoutMillis >= 0, "The idle timeout cannot be negative");
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    @JsonIgnore
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    public void setTickMillis(final long tickMillis) {
+        assertArgument(tickMillis >= 1, "The tick must be at least 1 ms");
+        this.tickMillis = tickMillis;
+    }
+}
@@ -11,6 +11,8 @@ import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
 
+import static io.snice.preconditions.PreConditions.assertArgument;
+
 /**
  * @author jonas@jonasborjesson.com
  *
@@ -31,13 +33,56 @@ public class NetworkInterfaceConfiguration {
 
     private final List<Transport> transports;
 
+    /**
+     * The number of UDP sockets to bind to the listen address. If more than one, each socket
+     * is bound using SO_REUSEPORT and will be handled by its own event loop, which allows
+     * the UDP traffic for this interface to be spread across multiple cores. Note that SO_REUSEPORT
+     * is only available when running with the native epoll transport.
+     */
+    @JsonProperty
+    private final int udpSockets;
+
+    /**
+     * Once the number of bytes queued up for writing on a channel goes above the high water mark,
+     * the channel, and as such the {@link io.snice.networking.common.Connection}, is marked as not writable
+     * and it stays that way until the number of queued up bytes drops below the low water mark.
+     *
+     * Zero means that the defaults of the underlying network layer will be used.
+     */
+    @JsonProperty
+    private final int writeBufferHighWaterMark;
+
+    @JsonProperty
+    private final int writeBufferLowWaterMark;
+
     /**
      * 
      */
     public NetworkInterfaceConfiguration(final String name, final URI listen, final URI vipAddress, final List<Transport> transports) {
+        this(name, listen, vipAddress, 1, transports);
+    }
+
+    public NetworkInterfaceConfiguration(final String name, final URI listen, final URI vipAddress, final int udpSockets, final List<Transport> transports) {
+        this(name, listen, vipAddress, udpSockets, 0, 0, transports);
+    }
+
+    public NetworkInterfaceConfiguration(final String name,
+                                         final URI listen,
+                                         final URI vipAddress,
+                                         final int udpSockets,
+                                         final int writeBufferLowWaterMark,
+                                         final int writeBufferHighWaterMark,
+                                         final List<Transport> transports) {
+        assertArgument(writeBufferLowWaterMark >= 0 && writeBufferHighWaterMark >= 0,
+                "The write buffer water marks cannot be negative");
+        assertArgument(writeBufferLowWaterMark <= writeBufferHighWaterMark,
+                "The low write buffer water mark cannot be greater than the high water mark");
         this.name = name;
         this.listen = listen;
         this.vipAddress = vipAddress;
+        this.udpSockets = Math.max(1, udpSockets);
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
         this.transports = transports;
     }
 
@@ -87,4 +132,24 @@ public class NetworkInterfaceConfiguration {
         return this.vipAddress;
     }
 
+    public int getUdpSockets() {
+        return this.udpSockets;
+    }
+
+    /**
+     * Whether custom write buffer water marks have been configured for this interface.
+     */
+    @JsonIgnore
+    public boolean hasWriteBufferWaterMarks() {
+        return this.writeBufferHighWaterMark > 0;
+    }
+
+    public int getWriteBufferHighWaterMark() {
+        return this.writeBufferHighWaterMark;
+    }
+
+    public int getWriteBufferLowWaterMark() {
+        return this.writeBufferLowWaterMark;
+    }
+
 }
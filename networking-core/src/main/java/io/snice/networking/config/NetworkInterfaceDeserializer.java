@@ -38,6 +38,9 @@ public class NetworkInterfaceDeserializer extends JsonDeserializer<NetworkInterf
         final JsonNode listenNode = node.get("listen");
         final JsonNode vipNode = node.get("vipAddress");
         final JsonNode transportNode = node.get("transport");
+        final JsonNode udpSocketsNode = node.get("udpSockets");
+        final JsonNode highWaterMarkNode = node.get("writeBufferHighWaterMark");
+        final JsonNode lowWaterMarkNode = node.get("writeBufferLowWaterMark");
 
         if (nameNode == null) {
             throw new IllegalArgumentException("You must specify the name of the Network Interface");
@@ -68,8 +71,23 @@ public class NetworkInterfaceDeserializer extends JsonDeserializer<NetworkInterf
                 }
             }
 
-            return new NetworkInterfaceConfiguration(nameNode.asText(), listenAddress, vipAddress,
-                    Collections.unmodifiableList(transports));
+            final int udpSockets = udpSocketsNode != null ? udpSocketsNode.asInt(1) : 1;
+            if (udpSockets < 1) {
+                throw new IllegalArgumentException("The number of UDP sockets must be at least one");
+            }
+
+            final int highWaterMark = highWaterMarkNode != null ? highWaterMarkNode.asInt(0) : 0;
+            final int lowWaterMark = lowWaterMarkNode != null ? lowWaterMarkNode.asInt(0) : highWaterMark / 2;
+            if (highWaterMark < 0 || lowWaterMark < 0) {
+                throw new IllegalArgumentException("The write buffer water marks cannot be negative");
+            }
+
+            if (lowWaterMark > highWaterMark) {
+                throw new IllegalArgumentException("The writeBufferLowWaterMark cannot be greater than the writeBufferHighWaterMark");
+            }
+
+            return new NetworkInterfaceConfiguration(nameNode.asText(), listenAddress, vipAddress, udpSockets,
+                    lowWaterMark, highWaterMark, Collections.unmodifiableList(transports));
     }
 
     private static URI parseURI(final String paramName, final String uri) {
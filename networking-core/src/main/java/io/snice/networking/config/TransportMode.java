@@ -0,0 +1,32 @@
+package io.snice.networking.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import static io.snice.preconditions.PreConditions.assertNotEmpty;
+
+/**
+ * The I/O transport used by the underlying network layer for the event loops and the
+ * UDP, TCP channels.
+ *
+ * <ul>
+ *     <li>{@link #NIO} - the JDK based NIO selector, which works on every platform and is the default.</li>
+ *     <li>{@link #EPOLL} - the native Linux epoll transport, which has a lower per packet syscall and wakeup
+ *     cost than NIO. If the native library isn't available (e.g. not running on Linux) we will fall back
+ *     to {@link #NIO}.</li>
+ * </ul>
+ *
+ * Note that SCTP has no native transport and will always be running on NIO.
+ */
+public enum TransportMode {
+    NIO, EPOLL;
+
+    @JsonCreator
+    public static TransportMode of(final String mode) {
+        assertNotEmpty(mode, "The transport mode cannot be null or the empty string");
+        return TransportMode.valueOf(mode.trim().toUpperCase());
+    }
+
+    public boolean isEpoll() {
+        return this == EPOLL;
+    }
+}
@@ -0,0 +1,67 @@
+package io.snice.networking.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import static io.snice.preconditions.PreConditions.assertArgument;
+
+/**
+ * UDP isn't connection oriented but every "flow" of UDP packets between two ip:port pairs is still
+ * presented as a connection to the application and as such, we have to keep track of those flows. Unlike
+ * e.g. TCP, there is no natural end to such a flow so the flows are kept in a bounded table where:
+ *
+ * <ul>
+ *     <li>A flow that hasn't seen any traffic for {@link #getIdleTimeoutMillis()} is evicted.
+ *     Zero means that flows are never evicted because of being idle.</li>
+ *     <li>If the table has reached its {@link #getCapacity()}, the least recently used flow is evicted
+ *     to make room for the new one.</li>
+ * </ul>
+ *
+ * The idle flows are checked for every {@link #getTickMillis()}, which then is the resolution of
+ * the idle timeout.
+ *
+ * Note that only the flows initiated by the remote side are ever evicted. The flows the application
+ * "connected" to are kept for as long as the channel is around since the application is expected to hold
+ * onto those connections.
+ */
+public class UdpFlowTableConfiguration {
+
+    @JsonProperty("capacity")
+    private int capacity = 100_000;
+
+    @JsonProperty("idleTimeoutMillis")
+    private long idleTimeoutMillis = 300_000;
+
+    @JsonProperty("tickMillis")
+    private long tickMillis = 1_000;
+
+    @JsonIgnore
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(final int capacity) {
+        assertArgument(capacity >= 1, "The capacity of the UDP flow table must be at least 1");
+        this.capacity = capacity;
+    }
+
+    @JsonIgnore
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(final long idleTimeoutMillis) {
+        assertArgument(idleTimeoutMillis >= 0, "The idle timeout cannot be negative");
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    @JsonIgnore
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    public void setTickMillis(final long tickMillis) {
+        assertArgument(tickMillis >= 1, "The tick must be at least 1 ms");
+        this.tickMillis = tickMillis;
+    }
+}
@@ -0,0 +1,98 @@
+package io.snice.networking.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import static io.snice.preconditions.PreConditions.assertArgument;
+import static io.snice.preconditions.PreConditions.assertNotEmpty;
+
+/**
+ * By default, the application is invoked straight on the event loop that read the message, which is the
+ * fastest option, as long as the application never blocks. If it does, e.g. by doing a database lookup,
+ * every other connection on that event loop is stalled too. A connection context can therefore
+ * choose to have the application invoked on a worker pool instead, which is configured here.
+ *
+ * <ul>
+ *     <li>The pool is either a fixed size pool of {@link #getThreads()} threads or, if {@link #isVirtualThreads()}
+ *     is set and the JVM supports it, a virtual thread per task. If the JVM doesn't support virtual threads,
+ *     we fall back to the fixed size pool.</li>
+ *     <li>Messages, and events, for the same connection are always processed one at a time and in the order
+ *     they were received.</li>
+ *     <li>At most {@link #getMaxPendingPerConnection()} messages can be waiting to be processed per connection.
+ *     What happens when that limit is reached is decided by the {@link OverflowPolicy}.</li>
+ * </ul>
+ */
+public class WorkerPoolConfiguration {
+
+    /**
+     * What to do when a connection has more messages waiting to be processed than allowed.
+     *
+     * <ul>
+     *     <li>{@link #PAUSE_READING} - stop reading from the socket until the worker has caught up (half of
+     *     the max pending messages). Nothing is lost, the remote side is simply slowed down. Note that for UDP,
+     *     this pauses the entire socket and not just the one "connection". This is the default.</li>
+     *     <li>{@link #DROP_NEWEST} - drop the message that just came in.</li>
+     *     <li>{@link #DROP_OLDEST} - drop the oldest message that is still waiting to be processed.</li>
+     * </ul>
+     */
+    public enum OverflowPolicy {
+        PAUSE_READING, DROP_NEWEST, DROP_OLDEST;
+
+        @JsonCreator
+        public static OverflowPolicy of(final String policy) {
+            assertNotEmpty(policy, "The overflow policy cannot be null or the empty string");
+            return OverflowPolicy.valueOf(policy.trim().toUpperCase());
+        }
+    }
+
+    @JsonProperty("threads")
+    private int threads = Runtime.getRuntime().availableProcessors() * 2;
+
+    @JsonProperty("virtualThreads")
+    private boolean virtualThreads = false;
+
+    @JsonProperty("maxPendingPerConnection")
+    private int maxPendingPerConnection = 1024;
+
+    @JsonProperty("overflowPolicy")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.PAUSE_READING;
+
+    @JsonIgnore
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(final int threads) {
+        assertArgument(threads >= 1, "The worker pool must have at least 1 thread");
+        this.threads = threads;
+    }
+
+    @JsonIgnore
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    @JsonIgnore
+    public int getMaxPendingPerConnection() {
+        return maxPendingPerConnection;
+    }
+
+    public void setMaxPendingPerConnection(final int maxPendingPerConnection) {
+        assertArgument(maxPendingPerConnection >= 1, "The max number of pending messages must be at least 1");
+        this.maxPendingPerConnection = maxPendingPerConnection;
+    }
+
+    @JsonIgnore
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.PAUSE_READING : overflowPolicy;
+    }
+}
@@ -0,0 +1,62 @@
+package io.snice.networking.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import static io.snice.preconditions.PreConditions.assertArgument;
+
+/**
+ * By default, every message written to a connection is flushed to the socket straight away, which means
+ * one syscall per message. When write coalescing is enabled, the writes are buffered up
+ * and flushed together:
+ *
+ * <ul>
+ *     <li>Writes issued on the event loop (e.g. while processing a batch of incoming messages)
+ *     are flushed once at the end of the current event loop iteration.</li>
+ *     <li>Writes issued from any other thread are queued up and written, and flushed, in one go
+ *     by a single task on the event loop.</li>
+ * </ul>
+ *
+ * In both cases, a flush is forced once {@link #getMaxPendingWrites()} writes are pending or
+ * the oldest pending write has waited for {@link #getMaxDelayMicros()}.
+ */
+public class WriteCoalescingConfiguration {
+
+    @JsonProperty("enable")
+    private boolean enable = false;
+
+    @JsonProperty("maxPendingWrites")
+    private int maxPendingWrites = 64;
+
+    @JsonProperty("maxDelayMicros")
+    private long maxDelayMicros = 250;
+
+    @JsonIgnore
+    public boolean isEnable() {
+        return enable;
+    }
+
+    public void setEnable(final boolean enable) {
+        this.enable = enable;
+    }
+
+    @JsonIgnore
+    public int getMaxPendingWrites() {
+        return maxPendingWrites;
+    }
+
+    public void setMaxPendingWrites(final int maxPendingWrites) {
+        assertArgument(maxPendingWrites >= 1, "The max number of pending writes must be at least 1");
+        this.maxPendingWrites = maxPendingWrites;
+    }
+
+    @JsonIgnore
+    public long getMaxDelayMicros() {
+        return maxDelayMicros;
+    }
+
+    public void setMaxDelayMicros(final long maxDelayMicros) {
+        assertArgument(maxDelayMicros >= 0, "The max delay cannot be negative");
+        this.maxDelayMicros = maxDelayMicros;
+    }
+}
@@ -5,6 +5,7 @@ package io.snice.networking.netty;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelPromise;
 import io.netty.util.AttributeKey;
 import io.snice.buffer.Buffer;
 import io.snice.buffer.Buffers;
@@ -17,6 +18,8 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * @author jonas@jonasborjesson.com
@@ -137,17 +140,51 @@ public abstract class AbstractConnection<T> implements Connection<T> {
         return this.remote.getPort();
     }
 
+    @Override
+    public boolean isWritable() {
+        return channel.isWritable();
+    }
+
+    @Override
+    public CompletionStage<Void> sendAsync(final T msg) {
+        final var future = new CompletableFuture<Void>();
+        final var promise = channel.newPromise();
+        promise.addListener(f -> {
+            if (f.isSuccess()) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(f.cause());
+            }
+        });
+
+        write(msg, promise);
+        return future;
+    }
+
+    /**
+     * Write the object to the channel. If write coalescing has been configured for the channel,
+     * the flush is left to the {@link WriteCoalescer}, otherwise every write is flushed right away.
+     */
     protected void write(final Object o) {
-        channel.write(o, channel.voidPromise());
+        write(o, channel.voidPromise());
+    }
+
+    /**
+     * Same as {@link #write(Object)} but the given promise will be notified once the
+     * object has been written to the socket.
+     */
+    protected void write(final Object o, final ChannelPromise promise) {
+        final WriteCoalescer coalescer = channel.attr(WriteCoalescer.KEY).get();
+        if (coalescer != null) {
+            coalescer.write(o, promise);
+            return;
+        }
+
+        channel.write(o, promise);
         channel.flush();
     }
 
     protected ByteBuf toByteBuf(final Buffer msg) {
-        final int capacity = msg.capacity();
-        final ByteBuf buffer = channel.alloc().buffer(capacity, capacity);
-        for (int i = 0; i < msg.capacity(); ++i) {
-            buffer.writeByte(msg.getByte(i));
-        }
-        return buffer;
+        return NettyBuffers.toByteBuf(channel.alloc(), msg);
     }
 }
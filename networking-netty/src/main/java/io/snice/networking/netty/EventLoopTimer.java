@@ -0,0 +1,348 @@
+package io.snice.networking.netty;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.snice.networking.common.timer.Timeout;
+import io.snice.networking.common.timer.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static io.snice.preconditions.PreConditions.assertArgument;
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * A hashed timing wheel owned by, and only ever ticking on, a single event loop. There is one
+ * {@link EventLoopTimer} per event loop (see {@link #of(EventExecutor)}), which is shared by all the
+ * channels, FSMs and transactions on that event loop.
+ *
+ * <p>
+ * The wheel is an array of buckets where each bucket is a doubly linked list of timers and every "tick"
+ * the timers of the next bucket that are due are expired. Arming and cancelling a timer are both O(1) and
+ * the only allocation is the timer itself, which also is the {@link Timeout} handed back to the caller.
+ * Timers that are further out than one revolution of the wheel simply stay in their bucket until their
+ * deadline comes around. This is the same design as the netty <code>HashedWheelTimer</code> but without
+ * the extra thread, the queues between that thread and the event loop, and the locking that comes with it.
+ * </p>
+ *
+ * <p>
+ * The wheel only ticks while there are timers armed so an idle event loop is never woken up by it.
+ * </p>
+ *
+ * Every task is executed on the event loop and so is all the book keeping of the wheel. Timers can be
+ * scheduled, and cancelled, from any thread but in that case, the actual arming or unlinking of the timer
+ * is handed over to the event loop.
+ */
+public final class EventLoopTimer implements Timer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventLoopTimer.class);
+
+    public static final Duration DEFAULT_TICK = Duration.ofMillis(10);
+
+    /**
+     * With the default tick, one revolution of the wheel is ~20 seconds, which covers most
+     * protocol timers without them ever going around the wheel more than once.
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 2048;
+
+    private static final ConcurrentMap<EventExecutor, EventLoopTimer> timers = new ConcurrentHashMap<>();
+
+    private final EventExecutor executor;
+    private final long tickNanos;
+    private final long startTime;
+
+    private final Entry[] heads;
+    private final Entry[] tails;
+    private final int mask;
+
+    private final Runnable tickTask = this::onTick;
+
+    /**
+     * The last tick that has been processed.
+     */
+    private long tick;
+
+    /**
+     * The number of consecutive ticks without any timers armed. Once the wheel
+     * has been empty for a full revolution, we stop ticking.
+     */
+    private int idleTicks;
+
+    private ScheduledFuture<?> ticker;
+
+    private volatile int size;
+
+    /**
+     * Get the {@link EventLoopTimer} of the given event loop, which will be created if this is the
+     * first time it is asked for. The timer goes away with the event loop.
+     */
+    public static EventLoopTimer of(final EventExecutor executor) {
+        assertNotNull(executor, "The event loop cannot be null");
+        final var existing = timers.get(executor);
+        if (existing != null) {
+            return existing;
+        }
+
+        final var timer = new EventLoopTimer(executor, DEFAULT_TICK.toNanos(), DEFAULT_WHEEL_SIZE);
+
+        // some executors, such as the one of the EmbeddedChannel, never terminate and won't tell
+        // us when they do so there is no way of cleaning up after them. Those don't get to share.
+        final Future<?> terminationFuture;
+        try {
+            terminationFuture = executor.terminationFuture();
+        } catch (final UnsupportedOperationException e) {
+            return timer;
+        }
+
+        final var raced = timers.putIfAbsent(executor, timer);
+        if (raced != null) {
+            return raced;
+        }
+
+        terminationFuture.addListener(f -> timers.remove(executor));
+        return timer;
+    }
+
+    /**
+     * Create a new, non-shared, {@link EventLoopTimer}. Unless you have a very good reason
+     * not to, use the shared one as given by {@link #of(EventExecutor)}.
+     *
+     * @param tick the resolution of the timer.
+     * @param wheelSize the number of buckets of the wheel, which will be rounded up to the nearest power of two.
+     */
+    public static EventLoopTimer create(final EventExecutor executor, final Duration tick, final int wheelSize) {
+        assertNotNull(executor, "The event loop cannot be null");
+        assertArgument(tick != null && tick.toNanos() >= TimeUnit.MILLISECONDS.toNanos(1), "The tick must be at least 1 ms");
+        assertArgument(wheelSize >= 1 && wheelSize <= 1 << 20, "The size of the wheel must be between 1 and 2^20");
+        return new EventLoopTimer(executor, tick.toNanos(), wheelSize);
+    }
+
+    private EventLoopTimer(final EventExecutor executor, final long tickNanos, final int wheelSize) {
+        this.executor = executor;
+        this.tickNanos = tickNanos;
+        this.startTime = System.nanoTime();
+
+        final int buckets = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        heads = new Entry[buckets];
+        tails = new Entry[buckets];
+        mask = buckets - 1;
+    }
+
+    @Override
+    public Timeout schedule(final Runnable task, final Duration delay) {
+        assertNotNull(task, "The task cannot be null");
+        assertNotNull(delay, "The delay cannot be null");
+
+        final long deadline = System.nanoTime() - startTime + Math.max(0, delay.toNanos());
+        final var entry = new Entry(this, task, deadline);
+        if (executor.inEventLoop()) {
+            arm(entry);
+        } else {
+            executor.execute(() -> arm(entry));
+        }
+        return entry;
+    }
+
+    /**
+     * The number of timers currently armed.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void arm(final Entry entry) {
+        if (entry.state != Entry.ARMED) {
+            // cancelled before we even got to it.
+            return;
+        }
+
+        if (ticker == null) {
+            startTicking();
+        }
+
+        // the deadline is rounded up to the next tick and if that is already
+        // in the past, because the event loop is lagging behind, it'll expire on the next tick.
+        long deadlineTick = (entry.deadline + tickNanos - 1) / tickNanos;
+        if (deadlineTick <= tick) {
+            deadlineTick = tick + 1;
+        }
+
+        final int bucket = (int) (deadlineTick & mask);
+        entry.deadlineTick = deadlineTick;
+        entry.bucket = bucket;
+
+        final var tail = tails[bucket];
+        if (tail == null) {
+            heads[bucket] = entry;
+        } else {
+            tail.next = entry;
+            entry.prev = tail;
+        }
+        tails[bucket] = entry;
+        ++size;
+    }
+
+    private void unlink(final Entry entry) {
+        final int bucket = entry.bucket;
+        if (bucket < 0) {
+            return;
+        }
+
+        final var prev = entry.prev;
+        final var next = entry.next;
+        if (prev == null) {
+            heads[bucket] = next;
+        } else {
+            prev.next = next;
+        }
+
+        if (next == null) {
+            tails[bucket] = prev;
+        } else {
+            next.prev = prev;
+        }
+
+        entry.prev = null;
+        entry.next = null;
+        entry.bucket = -1;
+        --size;
+    }
+
+    private void onCancelled(final Entry entry) {
+        if (executor.inEventLoop()) {
+            unlink(entry);
+        } else {
+            executor.execute(() -> unlink(entry));
+        }
+    }
+
+    private void startTicking() {
+        // nothing is armed so all the buckets are empty and we can simply
+        // fast forward to the current time.
+        tick = (System.nanoTime() - startTime) / tickNanos;
+        idleTicks = 0;
+        ticker = executor.scheduleAtFixedRate(tickTask, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void onTick() {
+        // if the event loop has been busy, we may be more than one tick behind so catch up.
+        final long now = (System.nanoTime() - startTime) / tickNanos;
+        while (tick < now) {
+            ++tick;
+            expire((int) (tick & mask), tick);
+        }
+
+        if (size > 0) {
+            idleTicks = 0;
+        } else if (++idleTicks > mask) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+    }
+
+    /**
+     * Expire all the timers in the given bucket that are due. The due timers are first unlinked and
+     * collected, and only then are the tasks executed, since a task may very well arm, or cancel, other
+     * timers in the very same bucket. Hence, a timer isn't marked as expired until right before its task
+     * is executed, so that it still can be cancelled by the tasks executed before it.
+     */
+    private void expire(final int bucket, final long tick) {
+        Entry due = null;
+        Entry last = null;
+
+        var entry = heads[bucket];
+        while (entry != null) {
+            final var next = entry.next;
+            if (entry.deadlineTick <= tick) {
+                unlink(entry);
+                if (last == null) {
+                    due = entry;
+                } else {
+                    last.next = entry;
+                }
+                last = entry;
+            }
+            entry = next;
+        }
+
+        while (due != null) {
+            final var current = due;
+            due = current.next;
+            current.next = null;
+            if (!current.expire()) {
+                // cancelled by one of the tasks before it.
+                continue;
+            }
+
+            try {
+                current.task.run();
+            } catch (final Throwable t) {
+                logger.warn("Timer task {} threw an exception", current.task, t);
+            }
+        }
+    }
+
+    /**
+     * A single timer, which is linked into a bucket of the wheel while it is armed.
+     * The links are only ever touched by the event loop.
+     */
+    private static final class Entry implements Timeout {
+
+        private static final int ARMED = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Entry> STATE = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        private final EventLoopTimer timer;
+        private final Runnable task;
+
+        /**
+         * The deadline in nanoseconds relative to the start of the timer.
+         */
+        private final long deadline;
+
+        private long deadlineTick;
+        private int bucket = -1;
+        private Entry prev;
+        private Entry next;
+
+        private volatile int state;
+
+        private Entry(final EventLoopTimer timer, final Runnable task, final long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        private boolean expire() {
+            return STATE.compareAndSet(this, ARMED, EXPIRED);
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, ARMED, CANCELLED)) {
+                return false;
+            }
+
+            timer.onCancelled(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.snice.networking.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.snice.buffer.Buffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * Helper functions for converting a snice {@link Buffer} into a Netty {@link ByteBuf}, which
+ * is what every encoder is doing for every single outbound message.
+ *
+ * <p>
+ * The {@link Buffer} doesn't expose its backing array but it does expose
+ * {@link Buffer#writeTo(OutputStream)}, which writes the entire backing array region
+ * in one go. As such, we can either copy the content with a single bulk operation into
+ * a {@link ByteBuf} from the channel's allocator ({@link #toByteBuf(ByteBufAllocator, Buffer)})
+ * or we can wrap the backing array without copying it at all ({@link #wrap(Buffer)}).
+ * </p>
+ *
+ * <p>
+ * Which one is better depends on the transport. When writing to a socket, Netty needs a direct buffer
+ * so a wrapped heap array will be copied into a direct buffer at flush time anyway. Hence, for the
+ * encoders writing straight to the network, {@link #toByteBuf(ByteBufAllocator, Buffer)} is the preferred
+ * choice since the (pooled, direct) buffer can be handed to the socket as is, i.e., a single copy in total.
+ * </p>
+ */
+public final class NettyBuffers {
+
+    private NettyBuffers() {
+        // helper class only
+    }
+
+    /**
+     * Allocate a new {@link ByteBuf}, of exactly the same size as the given {@link Buffer}, from the
+     * given allocator and bulk copy the content of the {@link Buffer} into it.
+     */
+    public static ByteBuf toByteBuf(final ByteBufAllocator allocator, final Buffer buffer) {
+        assertNotNull(buffer, "The buffer cannot be null");
+        final int capacity = buffer.capacity();
+        final ByteBuf byteBuf = allocator.buffer(capacity, capacity);
+        write(buffer, byteBuf);
+        return byteBuf;
+    }
+
+    /**
+     * Bulk write the entire content of the given {@link Buffer} into the given {@link ByteBuf}.
+     */
+    public static void write(final Buffer buffer, final ByteBuf byteBuf) {
+        try {
+            buffer.writeTo(new ByteBufOutputStream(byteBuf));
+        } catch (final IOException e) {
+            // writing to a ByteBuf doesn't actually throw any IOExceptions
+            throw new IllegalStateException("Unable to write the buffer to the ByteBuf", e);
+        }
+    }
+
+    /**
+     * Wrap the backing array of the given {@link Buffer} in a {@link ByteBuf} without copying it.
+     * Since the {@link Buffer} is immutable, it is safe to share the backing array with the
+     * returned {@link ByteBuf} but you must NOT write to the returned {@link ByteBuf}.
+     */
+    public static ByteBuf wrap(final Buffer buffer) {
+        assertNotNull(buffer, "The buffer cannot be null");
+        if (buffer.isEmpty()) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+
+        final WrappingOutputStream out = new WrappingOutputStream();
+        try {
+            buffer.writeTo(out);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Unable to wrap the buffer", e);
+        }
+        return out.wrapped;
+    }
+
+    /**
+     * Captures the array regions written to it and wraps them as a {@link ByteBuf}. If
+     * the {@link Buffer} writes itself in more than one chunk, the chunks will be
+     * stitched together as a composite buffer, still without copying.
+     */
+    private static final class WrappingOutputStream extends OutputStream {
+
+        private ByteBuf wrapped;
+
+        @Override
+        public void write(final int b) {
+            append(Unpooled.wrappedBuffer(new byte[]{(byte) b}));
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            append(Unpooled.wrappedBuffer(b, off, len));
+        }
+
+        private void append(final ByteBuf buf) {
+            wrapped = wrapped == null ? buf : Unpooled.wrappedBuffer(wrapped, buf);
+        }
+    }
+}
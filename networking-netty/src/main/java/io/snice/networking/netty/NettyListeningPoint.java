@@ -6,14 +6,18 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.snice.networking.common.Connection;
 import io.snice.networking.common.ConnectionEndpointId;
 import io.snice.networking.common.IllegalTransportException;
 import io.snice.networking.common.Transport;
+import io.snice.networking.common.time.CachedClock;
 import io.snice.networking.core.ListeningPoint;
 import io.snice.networking.core.event.ConnectionAttempt;
 import io.snice.time.Clock;
-import io.snice.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -98,59 +102,120 @@ public abstract class NettyListeningPoint<T> implements ListeningPoint<T> {
     }
 
     /**
-     * Listening point for UDP
+     * Listening point for UDP.
+     *
+     * <p>
+     * By default, a single UDP socket is bound to the listen address, which means that all
+     * traffic for this listening point is handled by a single event loop (thread). If configured
+     * with more than one socket, each socket is bound to the same listen address using SO_REUSEPORT
+     * and since every bind registers the new channel with the next event loop in the group, the traffic
+     * will be spread across the event loops. The kernel distributes the inbound traffic between the sockets
+     * based on its own hash, which we cannot reproduce, so every flow is pinned to the socket that saw it first
+     * (see {@link ReusePortFlows}) and all outbound traffic for that flow goes out over that very socket.
+     * </p>
      */
     private static class NettyUdpListeningPoint<T> extends NettyListeningPoint<T> {
 
         private final Bootstrap bootstrap;
 
+        private final int sockets;
+
+        /**
+         * For UDP we will use these channels for all Connections we create
+         * since we won't actually connect for real. Only when configured with
+         * multiple sockets will there be more than one.
+         */
+        private final AtomicReference<Channel[]> udpChannels = new AtomicReference<>();
+
         /**
-         * For UDP we will use this channel for all Connections we create
-         * since we won't actually connect for real.
+         * The socket every flow is pinned to, which we only need to keep track of if there is more than one socket.
          */
-        private final AtomicReference<Channel> udpChannel = new AtomicReference<>();
+        private final ReusePortFlows flows = new ReusePortFlows();
 
         private NettyUdpListeningPoint(final URI listenAddress,
                                        final URI vipAddress,
                                        final Bootstrap bootstrap,
+                                       final int sockets,
                                        final Clock clock) {
             super(Transport.udp, listenAddress, vipAddress, clock);
             this.bootstrap = bootstrap;
-        }
-
-        private void setChannel(final Channel channel) {
-            this.udpChannel.set(channel);
+            this.sockets = sockets;
         }
 
         @Override
         public CompletableFuture<Void> up() {
-            final CompletableFuture<Void> future = new CompletableFuture<>();
-
-            final ChannelFuture channelFuture = this.bootstrap.bind(getLocalAddress());
-            channelFuture.addListener(new ChannelFutureListener() {
-
-                @Override
-                public void operationComplete(final ChannelFuture channelFuture) throws Exception {
+            final int count = ensureSocketCount();
+            final Bootstrap b = count > 1
+                    ? bootstrap.clone().option(EpollChannelOption.SO_REUSEPORT, true).attr(ReusePortFlows.KEY, flows)
+                    : bootstrap;
+
+            final Channel[] channels = new Channel[count];
+            final CompletableFuture<Void>[] futures = new CompletableFuture[count];
+            for (int i = 0; i < count; ++i) {
+                final int index = i;
+                final CompletableFuture<Void> future = new CompletableFuture<>();
+                futures[i] = future;
+                b.bind(getLocalAddress()).addListener((ChannelFutureListener) channelFuture -> {
                     if (channelFuture.isSuccess()) {
-                        setChannel(channelFuture.channel());
-                        NettyListeningPoint.logger.info("Successfully bound to listening point: " + getListenAddress());
+                        channels[index] = channelFuture.channel();
                         future.complete(null);
                     } else {
-                        NettyListeningPoint.logger.info("Unable to bind to listening point: " + getListenAddress());
                         future.completeExceptionally(channelFuture.cause());
                     }
+                });
+            }
+
+            return CompletableFuture.allOf(futures).whenComplete((v, t) -> {
+                if (t == null) {
+                    udpChannels.set(channels);
+                    NettyListeningPoint.logger.info("Successfully bound to listening point: " + getListenAddress()
+                            + (count > 1 ? " using " + count + " sockets" : ""));
+                } else {
+                    NettyListeningPoint.logger.info("Unable to bind to listening point: " + getListenAddress());
+
+                    // the listening point as a whole failed so don't leave the sockets that did manage
+                    // to bind behind, no one would ever close them.
+                    for (final var channel : channels) {
+                        if (channel != null) {
+                            channel.close();
+                        }
+                    }
                 }
             });
-            return future;
+        }
+
+        /**
+         * SO_REUSEPORT is only available through the native epoll transport so if we are
+         * running on NIO, we'll bind a single socket only.
+         */
+        private int ensureSocketCount() {
+            if (sockets <= 1) {
+                return 1;
+            }
+
+            if (bootstrap.config().group() instanceof EpollEventLoopGroup) {
+                return sockets;
+            }
+
+            NettyListeningPoint.logger.warn("Listening point {} is configured with {} UDP sockets but SO_REUSEPORT " +
+                    "requires the native epoll transport. Binding a single socket only", getListenAddress(), sockets);
+            return 1;
         }
 
         @Override
         public CompletableFuture<Void> down() {
-            final var closeFuture = new CompletableFuture<Void>();
-            udpChannel.get().close().addListener(f -> {
-                closeFuture.complete(null);
-            });
-            return closeFuture;
+            final var channels = udpChannels.get();
+            if (channels == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            final CompletableFuture<Void>[] futures = new CompletableFuture[channels.length];
+            for (int i = 0; i < channels.length; ++i) {
+                final var closeFuture = new CompletableFuture<Void>();
+                futures[i] = closeFuture;
+                channels[i].close().addListener(f -> closeFuture.complete(null));
+            }
+            return CompletableFuture.allOf(futures);
         }
 
         @Override
@@ -165,12 +230,30 @@ public abstract class NettyListeningPoint<T> implements ListeningPoint<T> {
             return internalConnect(new CompletableFuture<>(), remoteAddress);
         }
 
+        /**
+         * Select the socket to use for the given remote address, which is the socket the flow is pinned to. If
+         * we have yet to see the flow, it is pinned to a socket picked based on the remote address.
+         */
+        private Channel selectChannel(final InetSocketAddress remoteAddress) {
+            final var channels = udpChannels.get();
+            if (channels.length == 1) {
+                return channels[0];
+            }
+
+            final var pinned = flows.get(remoteAddress);
+            if (pinned != null) {
+                return pinned;
+            }
+
+            return flows.pin(remoteAddress, channels[(remoteAddress.hashCode() & Integer.MAX_VALUE) % channels.length]);
+        }
+
         private Connection<T> internalConnect(final CompletableFuture<Connection<T>> future, final InetSocketAddress remoteAddress) {
             // Since we don't actually connect when using UDP we will be firing off
             // a success event right away and then we have to rely on the NettyUdpInboundAdapter
             // to do the right thing. It will also have to complete the future we created
             // above.
-            final Channel channel = udpChannel.get();
+            final Channel channel = selectChannel(remoteAddress);
             final ChannelHandlerContext ctx = channel.pipeline().firstContext();
             final Connection<T> connection = new UdpConnection(channel, remoteAddress, getVipAddress());
             final Long arrivalTime = clock.getCurrentTimeMillis();
@@ -358,6 +441,10 @@ public abstract class NettyListeningPoint<T> implements ListeningPoint<T> {
 
         private ServerBootstrap sctpServerBootstrap;
 
+        private int udpSockets = 1;
+
+        private WriteBufferWaterMark writeBufferWaterMark;
+
         private Clock clock;
 
         private Builder(final URI address) {
@@ -384,6 +471,20 @@ public abstract class NettyListeningPoint<T> implements ListeningPoint<T> {
             return this;
         }
 
+        public Builder withUdpSockets(final int sockets) {
+            this.udpSockets = sockets;
+            return this;
+        }
+
+        /**
+         * Configure the write buffer water marks for all channels created through this listening point.
+         * If not specified, the water marks of the bootstraps are left as is.
+         */
+        public Builder withWriteBufferWaterMark(final int low, final int high) {
+            this.writeBufferWaterMark = new WriteBufferWaterMark(low, high);
+            return this;
+        }
+
         public Builder withUdpBootstrap(final Bootstrap bootstrap) {
             this.udpBootstrap = bootstrap;
             return this;
@@ -411,22 +512,40 @@ public abstract class NettyListeningPoint<T> implements ListeningPoint<T> {
 
         public NettyListeningPoint build() {
             assertNotNull(transport, "You must specify a transport");
-            final Clock clock = this.clock != null ? this.clock : new SystemClock();
+            final Clock clock = this.clock != null ? this.clock : CachedClock.getDefault();
             if (transport.isTCP()) {
                 assertNotNull(tcpBootstrap, "You must specify the TCP bootstrap");
                 assertNotNull(tcpServerBootstrap, "You must specify the TCP server bootstrap");
-                return new NettyTcpListeningPoint(listenAddress, vipAddress, tcpBootstrap, tcpServerBootstrap, clock);
+                return new NettyTcpListeningPoint(listenAddress, vipAddress, configure(tcpBootstrap), configure(tcpServerBootstrap), clock);
             } else if (transport.isUDP()) {
                 assertNotNull(udpBootstrap, "You must specify the UDP bootstrap");
-                return new NettyUdpListeningPoint(listenAddress, vipAddress, udpBootstrap, clock);
+                return new NettyUdpListeningPoint(listenAddress, vipAddress, configure(udpBootstrap), udpSockets, clock);
             } else if (transport.isSCTP()) {
                 assertNotNull(sctpBootstrap, "You must specify the SCTP bootstrap");
                 assertNotNull(sctpServerBootstrap, "You must specify the SCTP server bootstrap");
-                return new NettySctpListeningPoint(listenAddress, vipAddress, sctpBootstrap, sctpServerBootstrap, clock);
+                return new NettySctpListeningPoint(listenAddress, vipAddress, configure(sctpBootstrap), configure(sctpServerBootstrap), clock);
             }
 
             throw new IllegalTransportException("Currently we only support UDP and TCP");
         }
+
+        /**
+         * The bootstraps are shared between all the network interfaces so if this interface has
+         * its own water marks, it gets its own copy of the bootstrap.
+         */
+        private Bootstrap configure(final Bootstrap bootstrap) {
+            if (writeBufferWaterMark == null) {
+                return bootstrap;
+            }
+            return bootstrap.clone().option(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark);
+        }
+
+        private ServerBootstrap configure(final ServerBootstrap bootstrap) {
+            if (writeBufferWaterMark == null) {
+                return bootstrap;
+            }
+            return bootstrap.clone().childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark);
+        }
     }
 
 }
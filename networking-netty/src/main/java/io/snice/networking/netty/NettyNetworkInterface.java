@@ -251,16 +251,21 @@ public final class NettyNetworkInterface<T> implements NetworkInterface<T>, Chan
             final List<ListeningPoint> lps = new ArrayList<>();
             this.config.getTransports().forEach(t -> {
                 // final URI listen = SipURI.withTemplate(listenAddress).withTransport(t).build();
-                final NettyListeningPoint lp = NettyListeningPoint.withListenAddress(listenAddress)
+                final NettyListeningPoint.Builder builder = NettyListeningPoint.withListenAddress(listenAddress)
                         .withTransport(t)
                         .withVipAddress(vipAddress)
                         .withTcpBootstrap(tcpBootstrap)
                         .withTcpServerBootstrap(tcpServerBootstrap)
                         .withUdpBootstrap(udpBootstrap)
+                        .withUdpSockets(config.getUdpSockets())
                         .withSctpBootstrap(sctpBootstrap)
-                        .withSctpServerBootstrap(sctpServerBootstrap)
-                        .build();
-                lps.add(lp);
+                        .withSctpServerBootstrap(sctpServerBootstrap);
+
+                if (config.hasWriteBufferWaterMarks()) {
+                    builder.withWriteBufferWaterMark(config.getWriteBufferLowWaterMark(), config.getWriteBufferHighWaterMark());
+                }
+
+                lps.add(builder.build());
             });
 
             return new NettyNetworkInterface(this.config.getName(),
@@ -5,11 +5,18 @@ package io.snice.networking.netty;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.sctp.SctpChannelOption;
 import io.netty.channel.sctp.nio.NioSctpChannel;
@@ -21,12 +28,14 @@ import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.snice.networking.common.Connection;
 import io.snice.networking.common.Transport;
+import io.snice.networking.common.time.CachedClock;
 import io.snice.networking.config.NetworkInterfaceConfiguration;
+import io.snice.networking.config.TransportMode;
+import io.snice.networking.config.WriteCoalescingConfiguration;
 import io.snice.networking.core.ListeningPoint;
 import io.snice.networking.core.NetworkInterface;
 import io.snice.networking.core.NetworkLayer;
 import io.snice.time.Clock;
-import io.snice.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,6 +59,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static io.snice.preconditions.PreConditions.assertArgument;
 import static io.snice.preconditions.PreConditions.assertNotNull;
 import static io.snice.preconditions.PreConditions.ensureNotEmpty;
 import static io.snice.preconditions.PreConditions.ensureNotNull;
@@ -176,6 +186,10 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
         return builder.build();
     }
 
+    Bootstraps getBootstraps() {
+        return bootstraps;
+    }
+
     @Override
     public CompletionStage<Void> sync() {
         return shutdownStage;
@@ -274,6 +288,24 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
         private EventLoopGroup sctpGroup;
         private Clock clock;
 
+        /**
+         * The requested transport mode. Note that if e.g. {@link TransportMode#EPOLL} is requested
+         * but the native library isn't available, we will fall back to NIO.
+         */
+        private TransportMode transportMode = TransportMode.NIO;
+
+        /**
+         * Whether we actually ended up using the native epoll transport for the event loop groups we
+         * create ourselves. Resolved when the network layer is built. Note that the groups given to us
+         * are used as is and the channels are always of the same kind as the group they are registered with.
+         */
+        private boolean epoll;
+
+        /**
+         * If enabled, every channel gets a {@link WriteCoalescer} installed.
+         */
+        private WriteCoalescingConfiguration writeCoalescing = new WriteCoalescingConfiguration();
+
         /**
          * The TCP based bootstrap.
          */
@@ -345,6 +377,16 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
             return this;
         }
 
+        public Builder withTransportMode(final TransportMode mode) {
+            this.transportMode = mode == null ? TransportMode.NIO : mode;
+            return this;
+        }
+
+        public Builder withWriteCoalescing(final WriteCoalescingConfiguration config) {
+            this.writeCoalescing = config == null ? new WriteCoalescingConfiguration() : config;
+            return this;
+        }
+
         public Builder withBossEventLoopGroup(final EventLoopGroup group) {
             this.bossGroup = group;
             return this;
@@ -369,16 +411,28 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
 
             // TODO: check that if you e.g. specify dialog layer then you must also specify transaction layer
 
+            epoll = resolveEpoll();
+
             // TOOD: need to re-work all of the default values for the various event loop groups...
+            workerGroup = workerGroup == null ? newEventLoopGroup() : workerGroup;
+            udpGroup = udpGroup == null ? workerGroup : udpGroup;
+
+            // the TCP server channel hands the connections it accepts over to the worker group, which
+            // means that the two must be of the same kind.
             if (bossGroup == null) {
-                bossGroup = new NioEventLoopGroup();
+                bossGroup = isEpoll(workerGroup) ? new EpollEventLoopGroup() : new NioEventLoopGroup();
             }
 
-            workerGroup = workerGroup == null ? new NioEventLoopGroup() : workerGroup;
-            udpGroup = udpGroup == null ? workerGroup : udpGroup;
-            sctpGroup = sctpGroup == null ? workerGroup : sctpGroup;
+            // there is no native SCTP transport so the SCTP channels always need a NIO event loop
+            if (sctpGroup == null) {
+                sctpGroup = isEpoll(workerGroup) ? new NioEventLoopGroup() : workerGroup;
+            }
+
+            assertArgument(isEpoll(bossGroup) == isEpoll(workerGroup),
+                    "The boss and the TCP event loop groups must either both be epoll or both be NIO based");
+            assertArgument(!isEpoll(sctpGroup), "There is no native SCTP transport, the SCTP event loop group must be NIO based");
 
-            final Clock clock = this.clock != null ? this.clock : new SystemClock();
+            final Clock clock = this.clock != null ? this.clock : CachedClock.getDefault();
 
             final var udpBootstrap = ensureUDPBootstrap();
             final var tcpBootstrap = ensureTCPBootstrap();
@@ -405,6 +459,60 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
             return new NettyNetworkLayer(latch, bootstraps, Collections.unmodifiableList(ifs));
         }
 
+        private boolean resolveEpoll() {
+            if (!transportMode.isEpoll()) {
+                return false;
+            }
+
+            if (Epoll.isAvailable()) {
+                logger.info("Using the native epoll transport");
+                return true;
+            }
+
+            logger.warn("The native epoll transport was requested but is not available, falling back to NIO. Reason: {}",
+                    String.valueOf(Epoll.unavailabilityCause()));
+            return false;
+        }
+
+        private EventLoopGroup newEventLoopGroup() {
+            return epoll ? new EpollEventLoopGroup() : new NioEventLoopGroup();
+        }
+
+        private static boolean isEpoll(final EventLoopGroup group) {
+            return group instanceof EpollEventLoopGroup;
+        }
+
+        /**
+         * A channel can only be registered with an event loop of its own kind so the channel class
+         * is given by the group, which may have been given to us, regardless of the transport mode.
+         */
+        static Class<? extends DatagramChannel> datagramChannel(final EventLoopGroup group) {
+            return isEpoll(group) ? EpollDatagramChannel.class : NioDatagramChannel.class;
+        }
+
+        static Class<? extends SocketChannel> socketChannel(final EventLoopGroup group) {
+            return isEpoll(group) ? EpollSocketChannel.class : NioSocketChannel.class;
+        }
+
+        static Class<? extends ServerChannel> serverSocketChannel(final EventLoopGroup group) {
+            return isEpoll(group) ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+        }
+
+        /**
+         * Install all the handlers for the given transport into the pipeline of the new channel
+         * and, if configured, the {@link WriteCoalescer}.
+         */
+        private void setupChannel(final Channel ch, final Transport transport) {
+            final ChannelPipeline pipeline = ch.pipeline();
+            handlers.stream()
+                    .filter(h -> h.hasTransport(transport))
+                    .forEach(h -> pipeline.addLast(h.getName(), h.getHandler()));
+
+            if (writeCoalescing.isEnable()) {
+                ch.attr(WriteCoalescer.KEY).set(WriteCoalescer.of(ch, writeCoalescing));
+            }
+        }
+
         private List<NetworkInterfaceConfiguration> createDefaultNetworkInterfaceListeningPoint() {
             try {
                 final Inet4Address address = findPrimaryAddress();
@@ -429,14 +537,11 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
             if (this.bootstrap == null) {
                 final Bootstrap b = new Bootstrap();
                 b.group(this.udpGroup)
-                        .channel(NioDatagramChannel.class)
+                        .channel(datagramChannel(udpGroup))
                         .handler(new ChannelInitializer<DatagramChannel>() {
                             @Override
                             protected void initChannel(final DatagramChannel ch) throws Exception {
-                                final ChannelPipeline pipeline = ch.pipeline();
-                                handlers.stream()
-                                        .filter(h -> h.hasTransport(Transport.udp))
-                                        .forEach(h -> pipeline.addLast(h.getName(), h.getHandler()));
+                                setupChannel(ch, Transport.udp);
                             }
                         }).option(ChannelOption.SO_REUSEADDR, true);
 
@@ -459,10 +564,7 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
                         .handler(new ChannelInitializer<NioSctpChannel>() {
                             @Override
                             protected void initChannel(final NioSctpChannel ch) throws Exception {
-                                final ChannelPipeline pipeline = ch.pipeline();
-                                handlers.stream()
-                                        .filter(h -> h.hasTransport(Transport.sctp))
-                                        .forEach(h -> pipeline.addLast(h.getName(), h.getHandler()));
+                                setupChannel(ch, Transport.sctp);
                             }
                         });
 
@@ -474,8 +576,10 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
 
         private ServerBootstrap ensureSctpServerBootstrap() {
             if (sctpServerBootstrap == null) {
+                // the boss group may very well be epoll based, which the SCTP server channel can't be
+                // registered with, so the SCTP group accepts the associations as well.
                 final ServerBootstrap b = new ServerBootstrap();
-                b.group(bossGroup, sctpGroup)
+                b.group(sctpGroup, sctpGroup)
                         .channel(NioSctpServerChannel.class)
                         .option(SctpChannelOption.SO_KEEPALIVE, true)
                         .option(SctpChannelOption.SO_BACKLOG, 1000)
@@ -483,10 +587,7 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
                         .childHandler(new ChannelInitializer<NioSctpChannel>() {
                             @Override
                             public void initChannel(final NioSctpChannel ch) throws Exception {
-                                final ChannelPipeline pipeline = ch.pipeline();
-                                handlers.stream()
-                                        .filter(h -> h.hasTransport(Transport.sctp))
-                                        .forEach(h -> pipeline.addLast(h.getName(), h.getHandler()));
+                                setupChannel(ch, Transport.sctp);
                             }
                         });
 
@@ -499,16 +600,13 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
         private Bootstrap ensureTCPBootstrap() {
             final Bootstrap tcpBootstrap = new Bootstrap();
             tcpBootstrap.group(workerGroup)
-                    .channel(NioSocketChannel.class)
+                    .channel(socketChannel(workerGroup))
                     .option(ChannelOption.SO_KEEPALIVE, true)
                     .option(ChannelOption.TCP_NODELAY, true)
                     .handler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(final SocketChannel ch) throws Exception {
-                            final ChannelPipeline pipeline = ch.pipeline();
-                            handlers.stream()
-                                    .filter(h -> h.hasTransport(Transport.tcp))
-                                    .forEach(h -> pipeline.addLast(h.getName(), h.getHandler()));
+                            setupChannel(ch, Transport.tcp);
                         }
                     });
             return tcpBootstrap;
@@ -519,14 +617,11 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
                 final ServerBootstrap b = new ServerBootstrap();
 
                 b.group(this.bossGroup, this.workerGroup)
-                        .channel(NioServerSocketChannel.class)
+                        .channel(serverSocketChannel(bossGroup))
                         .childHandler(new ChannelInitializer<SocketChannel>() {
                             @Override
                             public void initChannel(final SocketChannel ch) throws Exception {
-                                final ChannelPipeline pipeline = ch.pipeline();
-                                handlers.stream()
-                                        .filter(h -> h.hasTransport(Transport.tcp))
-                                        .forEach(h -> pipeline.addLast(h.getName(), h.getHandler()));
+                                setupChannel(ch, Transport.tcp);
                             }
                         })
                         .option(ChannelOption.SO_BACKLOG, 128)
@@ -575,7 +670,7 @@ public class NettyNetworkLayer<T> implements NetworkLayer<T> {
         }
     }
 
-    private static class Bootstraps {
+    static class Bootstraps {
         final Bootstrap udpBootstrap;
         final Bootstrap tcpBootstrap;
         final Bootstrap sctpBootstrap;
@@ -0,0 +1,75 @@
+package io.snice.networking.netty;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * When a UDP listening point is bound to more than one socket through SO_REUSEPORT, the kernel
+ * decides which socket an inbound datagram ends up on and there is no way of telling which socket that
+ * will be for a remote address we have yet to hear from. However, all the state of a UDP flow (its connection,
+ * its FSM etc) lives in the pipeline of a single channel, so every flow is pinned to the channel that saw it
+ * first, be it because a datagram was received on it or because the application "connected" over it.
+ *
+ * <p>
+ * Outbound traffic for a flow always goes out over the channel it is pinned to and any inbound traffic that
+ * the kernel happens to hand to another socket is handed over to the pipeline of the pinned channel.
+ * </p>
+ *
+ * <p>
+ * The flows are shared between all the channels of the listening point, and as such, between event loops,
+ * and is attached to every channel under {@link #KEY}. A listening point with a single socket has no need
+ * for it and doesn't have one.
+ * </p>
+ */
+public final class ReusePortFlows {
+
+    public static final AttributeKey<ReusePortFlows> KEY = AttributeKey.valueOf(ReusePortFlows.class, "reuse_port_flows");
+
+    private final ConcurrentHashMap<InetSocketAddress, Channel> flows = new ConcurrentHashMap<>();
+
+    /**
+     * Pin the flow with the given remote address to the given channel, unless it already is pinned
+     * to a channel.
+     *
+     * @return the channel the flow is pinned to, which is the given channel unless the flow
+     * already was pinned to another one.
+     */
+    public Channel pin(final InetSocketAddress remoteAddress, final Channel channel) {
+        assertNotNull(remoteAddress, "The remote address cannot be null");
+        assertNotNull(channel, "The channel cannot be null");
+        final var existing = flows.putIfAbsent(remoteAddress, channel);
+        return existing != null ? existing : channel;
+    }
+
+    /**
+     * @return the channel the given flow is pinned to or null if it isn't pinned to any.
+     */
+    public Channel get(final InetSocketAddress remoteAddress) {
+        return flows.get(remoteAddress);
+    }
+
+    /**
+     * Release the pin of the given flow, but only if it is pinned to the given channel. Typically called when
+     * the flow is evicted from the channel it was pinned to, after which the flow is pinned to whatever channel
+     * sees it next.
+     */
+    public void unpin(final InetSocketAddress remoteAddress, final Channel channel) {
+        flows.remove(remoteAddress, channel);
+    }
+
+    /**
+     * Release all the flows pinned to the given channel, which is typically because the channel closed.
+     */
+    public void unpinAll(final Channel channel) {
+        flows.values().removeIf(channel::equals);
+    }
+
+    public int size() {
+        return flows.size();
+    }
+}
@@ -0,0 +1,151 @@
+package io.snice.networking.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.AttributeKey;
+import io.snice.networking.config.WriteCoalescingConfiguration;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.snice.preconditions.PreConditions.assertNotNull;
+
+/**
+ * Coalesces the flushes of the writes to a given {@link Channel}. See {@link WriteCoalescingConfiguration}
+ * for the overall behaviour.
+ *
+ * There is one {@link WriteCoalescer} per {@link Channel}, which is installed as an attribute
+ * on the channel (see {@link #KEY}) when the channel is initialized and the {@link AbstractConnection}
+ * will pick it up from there. If there is none, the connection will flush on every write.
+ *
+ * All state, except for the queue of writes from other threads, is only ever touched by
+ * the event loop of the channel.
+ */
+public final class WriteCoalescer {
+
+    public static final AttributeKey<WriteCoalescer> KEY = AttributeKey.valueOf(WriteCoalescer.class, "write_coalescer");
+
+    private final Channel channel;
+    private final int maxPendingWrites;
+    private final long maxDelayNanos;
+
+    private final Runnable flushTask = this::flushPending;
+    private final Runnable drainTask = this::drain;
+
+    /**
+     * Number of writes that have not yet been flushed.
+     */
+    private int pendingWrites;
+
+    /**
+     * The {@link System#nanoTime()} of the first of the pending writes.
+     */
+    private long firstPendingWrite;
+
+    private boolean flushScheduled;
+
+    /**
+     * Writes issued from threads other than the event loop of the channel.
+     */
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    public static WriteCoalescer of(final Channel channel, final WriteCoalescingConfiguration config) {
+        assertNotNull(channel, "The channel cannot be null");
+        assertNotNull(config, "The configuration cannot be null");
+        return new WriteCoalescer(channel, config.getMaxPendingWrites(), TimeUnit.MICROSECONDS.toNanos(config.getMaxDelayMicros()));
+    }
+
+    private WriteCoalescer(final Channel channel, final int maxPendingWrites, final long maxDelayNanos) {
+        this.channel = channel;
+        this.maxPendingWrites = maxPendingWrites;
+        this.maxDelayNanos = maxDelayNanos;
+    }
+
+    public void write(final Object msg) {
+        write(msg, channel.voidPromise());
+    }
+
+    /**
+     * Write the message and notify the given promise once it has actually been written to the socket.
+     * Note that when the write is issued from outside the event loop, the message is queued up
+     * together with its promise, unless it is the void promise in which case there
+     * is no need to keep track of it.
+     */
+    public void write(final Object msg, final ChannelPromise promise) {
+        if (channel.eventLoop().inEventLoop()) {
+            writeInEventLoop(msg, promise);
+            return;
+        }
+
+        queue.add(promise.isVoid() ? msg : new PendingWrite(msg, promise));
+        if (drainScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().execute(drainTask);
+        }
+    }
+
+    private void writeInEventLoop(final Object msg, final ChannelPromise promise) {
+        channel.write(msg, promise);
+
+        final long now = System.nanoTime();
+        if (pendingWrites++ == 0) {
+            firstPendingWrite = now;
+        }
+
+        if (pendingWrites >= maxPendingWrites || now - firstPendingWrite >= maxDelayNanos) {
+            flushPending();
+            return;
+        }
+
+        // any task submitted from within the event loop will be executed once the
+        // event loop is done processing the I/O of the current iteration, so this
+        // is the flush at the "end" of the current iteration.
+        if (!flushScheduled) {
+            flushScheduled = true;
+            channel.eventLoop().execute(flushTask);
+        }
+    }
+
+    /**
+     * Note that we reset the scheduled flag before draining the queue so that any write
+     * added after we have polled the last message will schedule a new drain.
+     */
+    private void drain() {
+        drainScheduled.set(false);
+        Object msg;
+        while ((msg = queue.poll()) != null) {
+            if (msg instanceof PendingWrite) {
+                final var pending = (PendingWrite) msg;
+                channel.write(pending.msg, pending.promise);
+            } else {
+                channel.write(msg, channel.voidPromise());
+            }
+            if (++pendingWrites >= maxPendingWrites) {
+                flushPending();
+            }
+        }
+        flushPending();
+    }
+
+    private void flushPending() {
+        flushScheduled = false;
+        if (pendingWrites == 0) {
+            return;
+        }
+
+        pendingWrites = 0;
+        channel.flush();
+    }
+
+    private static final class PendingWrite {
+        private final Object msg;
+        private final ChannelPromise promise;
+
+        private PendingWrite(final Object msg, final ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+    }
+}
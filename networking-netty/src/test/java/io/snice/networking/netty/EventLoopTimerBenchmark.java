@@ -0,0 +1,95 @@
+package io.snice.networking.netty;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.snice.networking.common.timer.Timeout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of arming and cancelling a timer, which is what happens for every single transaction
+ * that is answered in time, while the wheel already is carrying a large number of armed timers.
+ *
+ * The timers are armed on the event loop, which is where the FSMs and transactions live, and as such,
+ * every invocation runs a batch of operations on the event loop.
+ *
+ * Run it from your IDE or through the main method below.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventLoopTimerBenchmark {
+
+    private static final int BATCH = 10_000;
+
+    private static final Runnable NO_OP = () -> {};
+
+    /**
+     * The number of timers that are armed in the background.
+     */
+    @Param({"0", "1000000"})
+    private int armed;
+
+    private EventLoop loop;
+    private EventLoopTimer timer;
+    private Timeout[] timeouts;
+    private Runnable armAndCancel;
+
+    @Setup
+    public void setup() throws Exception {
+        loop = new DefaultEventLoop();
+        timer = EventLoopTimer.of(loop);
+        timeouts = new Timeout[BATCH];
+
+        // spread out over a few revolutions of the wheel.
+        loop.submit(() -> {
+            for (int i = 0; i < armed; ++i) {
+                timer.schedule(NO_OP, Duration.ofSeconds(60 + i % 60));
+            }
+        }).sync();
+
+        armAndCancel = () -> {
+            for (int i = 0; i < BATCH; ++i) {
+                timeouts[i] = timer.schedule(NO_OP, Duration.ofSeconds(3));
+            }
+            for (int i = 0; i < BATCH; ++i) {
+                timeouts[i].cancel();
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        loop.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int armAndCancel() throws Exception {
+        loop.submit(armAndCancel).sync();
+        return timer.size();
+    }
+
+    public static void main(final String... args) throws Exception {
+        new Runner(new OptionsBuilder().include(EventLoopTimerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
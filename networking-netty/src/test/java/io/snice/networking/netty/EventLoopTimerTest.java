@@ -0,0 +1,107 @@
+package io.snice.networking.netty;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.snice.networking.common.timer.Timeout;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class EventLoopTimerTest {
+
+    private EventLoop loop;
+
+    /**
+     * A tiny wheel with a 1 ms tick so that the timers go around the wheel
+     * a few times and the tests run fast.
+     */
+    private EventLoopTimer timer;
+
+    private List<String> fired;
+
+    @Before
+    public void setUp() {
+        loop = new DefaultEventLoop();
+        timer = EventLoopTimer.create(loop, Duration.ofMillis(1), 4);
+        fired = new CopyOnWriteArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        loop.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+    }
+
+    private Runnable record(final String name, final CountDownLatch latch) {
+        return () -> {
+            assertThat(loop.inEventLoop(), is(true));
+            fired.add(name);
+            latch.countDown();
+        };
+    }
+
+    @Test(timeout = 5000)
+    public void testExpireInOrder() throws Exception {
+        final var latch = new CountDownLatch(3);
+
+        // scheduled from outside the event loop and further out than one revolution of the wheel.
+        timer.schedule(record("three", latch), Duration.ofMillis(60));
+        timer.schedule(record("one", latch), Duration.ofMillis(10));
+        timer.schedule(record("two", latch), Duration.ofMillis(30));
+
+        latch.await();
+        assertThat(fired, is(List.of("one", "two", "three")));
+        assertThat(loop.submit(timer::size).get(), is(0));
+    }
+
+    @Test(timeout = 5000)
+    public void testCancel() throws Exception {
+        final var latch = new CountDownLatch(1);
+        final var cancelled = timer.schedule(record("cancelled", latch), Duration.ofMillis(10));
+        final var expired = timer.schedule(record("expired", latch), Duration.ofMillis(20));
+
+        assertThat(cancelled.cancel(), is(true));
+        assertThat(cancelled.cancel(), is(false));
+        assertThat(cancelled.isCancelled(), is(true));
+
+        latch.await();
+        assertThat(fired, is(List.of("expired")));
+        assertThat(expired.isExpired(), is(true));
+        assertThat(expired.cancel(), is(false));
+    }
+
+    /**
+     * A task may cancel, or arm, other timers that are due in the very same tick.
+     */
+    @Test(timeout = 5000)
+    public void testCancelFromTask() throws Exception {
+        final var latch = new CountDownLatch(2);
+        final Timeout[] second = new Timeout[1];
+
+        loop.submit(() -> {
+            timer.schedule(() -> {
+                second[0].cancel();
+                timer.schedule(record("re-armed", latch), Duration.ZERO);
+                latch.countDown();
+            }, Duration.ofMillis(5));
+            second[0] = timer.schedule(record("second", latch), Duration.ofMillis(5));
+        }).sync();
+
+        latch.await();
+        assertThat(fired, is(List.of("re-armed")));
+    }
+
+    @Test
+    public void testOneTimerPerEventLoop() {
+        assertThat(EventLoopTimer.of(loop), sameInstance(EventLoopTimer.of(loop)));
+    }
+}
@@ -0,0 +1,89 @@
+package io.snice.networking.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.snice.buffer.Buffer;
+import io.snice.buffer.Buffers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old way of encoding a {@link Buffer} into a {@link ByteBuf}, which was to copy
+ * it over byte by byte, with the bulk copy and the wrapping of {@link NettyBuffers}.
+ *
+ * Run it from your IDE or through the main method below.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NettyBuffersBenchmark {
+
+    /**
+     * A small GTP-C message, a typical Diameter answer and a full size GTP-U packet.
+     */
+    @Param({"64", "512", "1400"})
+    private int size;
+
+    private Buffer buffer;
+
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+
+    @Setup
+    public void setup() {
+        final byte[] content = new byte[size];
+        for (int i = 0; i < size; ++i) {
+            content[i] = (byte) i;
+        }
+
+        // slice it so that we do not start at the beginning of the backing array, which
+        // is what you get when framing a message off of a larger buffer.
+        buffer = Buffers.wrap(content).slice(1, size);
+    }
+
+    @Benchmark
+    public int byteByByte() {
+        final int capacity = buffer.capacity();
+        final ByteBuf byteBuf = allocator.buffer(capacity, capacity);
+        for (int i = 0; i < buffer.capacity(); ++i) {
+            byteBuf.writeByte(buffer.getByte(i));
+        }
+        return release(byteBuf);
+    }
+
+    @Benchmark
+    public int bulk() {
+        return release(NettyBuffers.toByteBuf(allocator, buffer));
+    }
+
+    @Benchmark
+    public int wrap() {
+        return release(NettyBuffers.wrap(buffer));
+    }
+
+    private static int release(final ByteBuf byteBuf) {
+        final int readable = byteBuf.readableBytes();
+        byteBuf.release();
+        return readable;
+    }
+
+    public static void main(final String... args) throws Exception {
+        new Runner(new OptionsBuilder().include(NettyBuffersBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,43 @@
+package io.snice.networking.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.snice.buffer.Buffer;
+import io.snice.buffer.Buffers;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class NettyBuffersTest {
+
+    @Test
+    public void testToByteBuf() {
+        ensureSameContent(Buffers.wrap("hello world"));
+
+        // a slice doesn't start at the beginning of the backing array
+        ensureSameContent(Buffers.wrap("hello world").slice(6, 11));
+    }
+
+    @Test
+    public void testEmptyBuffer() {
+        final var empty = Buffers.wrap("hello").slice(0, 0);
+        assertThat(NettyBuffers.wrap(empty).readableBytes(), is(0));
+        assertThat(NettyBuffers.toByteBuf(UnpooledByteBufAllocator.DEFAULT, empty).readableBytes(), is(0));
+    }
+
+    private static void ensureSameContent(final Buffer buffer) {
+        final var copy = NettyBuffers.toByteBuf(UnpooledByteBufAllocator.DEFAULT, buffer);
+        assertThat(copy.capacity(), is(buffer.capacity()));
+        assertSame(buffer, copy);
+
+        assertSame(buffer, NettyBuffers.wrap(buffer));
+    }
+
+    private static void assertSame(final Buffer expected, final ByteBuf actual) {
+        assertThat(actual.readableBytes(), is(expected.capacity()));
+        for (int i = 0; i < expected.capacity(); ++i) {
+            assertThat(actual.getByte(actual.readerIndex() + i), is(expected.getByte(i)));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package io.snice.networking.netty;
+
+import io.netty.bootstrap.AbstractBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.snice.networking.common.Transport;
+import io.snice.networking.config.NetworkInterfaceConfiguration;
+import io.snice.networking.config.TransportMode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.snice.networking.netty.NettyNetworkLayer.Builder.datagramChannel;
+import static io.snice.networking.netty.NettyNetworkLayer.Builder.serverSocketChannel;
+import static io.snice.networking.netty.NettyNetworkLayer.Builder.socketChannel;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * The transport mode only decides what kind of event loop groups we create ourselves, the groups
+ * given to the builder are used as is and the channels must follow them.
+ */
+public class NettyNetworkLayerTest {
+
+    private List<EventLoopGroup> groups;
+
+    @Before
+    public void setUp() {
+        groups = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        groups.forEach(EventLoopGroup::shutdownGracefully);
+    }
+
+    private EventLoopGroup nio() {
+        final var group = new NioEventLoopGroup(1);
+        groups.add(group);
+        return group;
+    }
+
+    private EventLoopGroup epoll() {
+        assumeTrue("The native epoll transport is not available", Epoll.isAvailable());
+        final var group = new EpollEventLoopGroup(1);
+        groups.add(group);
+        return group;
+    }
+
+    private static NettyNetworkLayer.Builder builder(final TransportMode mode) {
+        final var config = new NetworkInterfaceConfiguration("default", URI.create("udp://127.0.0.1:0"), null, Transport.udp);
+        return NettyNetworkLayer.with(config).withTransportMode(mode);
+    }
+
+    /**
+     * Build the network layer and hang on to whatever event loop groups it created so they can be
+     * shut down again.
+     */
+    private NettyNetworkLayer.Bootstraps build(final NettyNetworkLayer.Builder builder) {
+        final var bootstraps = builder.build().getBootstraps();
+        groups.add(bootstraps.udpBootstrap.config().group());
+        groups.add(bootstraps.tcpServerBootstrap.config().group());
+        groups.add(bootstraps.tcpServerBootstrap.config().childGroup());
+        groups.add(bootstraps.sctpServerBootstrap.config().group());
+        return bootstraps;
+    }
+
+    /**
+     * The channel the bootstrap would create, which is closed right away since all we're after is its class.
+     */
+    private static Class<?> channelOf(final AbstractBootstrap<?, ?> bootstrap) {
+        final Channel channel = bootstrap.config().channelFactory().newChannel();
+        try {
+            return channel.getClass();
+        } finally {
+            channel.unsafe().closeForcibly();
+        }
+    }
+
+    @Test
+    public void testNioChannelsForNioGroup() {
+        final var group = nio();
+        assertThat(datagramChannel(group) == NioDatagramChannel.class, is(true));
+        assertThat(socketChannel(group) == NioSocketChannel.class, is(true));
+        assertThat(serverSocketChannel(group) == NioServerSocketChannel.class, is(true));
+    }
+
+    @Test
+    public void testEpollChannelsForEpollGroup() {
+        final var group = epoll();
+        assertThat(datagramChannel(group) == EpollDatagramChannel.class, is(true));
+        assertThat(socketChannel(group) == EpollSocketChannel.class, is(true));
+        assertThat(serverSocketChannel(group) == EpollServerSocketChannel.class, is(true));
+    }
+
+    /**
+     * NIO groups given while asking for epoll, or the other way around, simply end up with channels
+     * of the same kind as the groups.
+     */
+    @Test
+    public void testNioGroupsInEpollMode() {
+        final var bootstraps = build(builder(TransportMode.EPOLL)
+                .withBossEventLoopGroup(nio())
+                .withTCPEventLoopGroup(nio())
+                .withUDPEventLoopGroup(nio()));
+
+        assertThat(channelOf(bootstraps.udpBootstrap) == NioDatagramChannel.class, is(true));
+        assertThat(channelOf(bootstraps.tcpBootstrap) == NioSocketChannel.class, is(true));
+        assertThat(channelOf(bootstraps.tcpServerBootstrap) == NioServerSocketChannel.class, is(true));
+    }
+
+    @Test
+    public void testEpollGroupsInNioMode() {
+        final var epoll = epoll();
+        final var bootstraps = build(builder(TransportMode.NIO)
+                .withTCPEventLoopGroup(epoll)
+                .withUDPEventLoopGroup(nio()));
+
+        assertThat(channelOf(bootstraps.udpBootstrap) == NioDatagramChannel.class, is(true));
+        assertThat(channelOf(bootstraps.tcpBootstrap) == EpollSocketChannel.class, is(true));
+
+        // the boss we create follows the TCP group it hands its connections over to.
+        assertThat(bootstraps.tcpServerBootstrap.config().group() instanceof EpollEventLoopGroup, is(true));
+        assertThat(channelOf(bootstraps.tcpServerBootstrap) == EpollServerSocketChannel.class, is(true));
+    }
+
+    /**
+     * Even with everything else running on epoll, the SCTP channels, including the server channel,
+     * are registered with a NIO group of their own.
+     */
+    @Test
+    public void testSctpInEpollMode() {
+        epoll();
+        final var bootstraps = build(builder(TransportMode.EPOLL));
+
+        assertThat(bootstraps.tcpServerBootstrap.config().group() instanceof EpollEventLoopGroup, is(true));
+        assertThat(bootstraps.sctpBootstrap.config().group() instanceof NioEventLoopGroup, is(true));
+        assertThat(bootstraps.sctpServerBootstrap.config().group() instanceof NioEventLoopGroup, is(true));
+        assertThat(bootstraps.sctpServerBootstrap.config().childGroup() instanceof NioEventLoopGroup, is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBossAndWorkerOfDifferentKind() {
+        builder(TransportMode.NIO)
+                .withBossEventLoopGroup(nio())
+                .withTCPEventLoopGroup(epoll())
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEpollSctpGroup() {
+        builder(TransportMode.EPOLL)
+                .withSCTPEventLoopGroup(epoll())
+                .build();
+    }
+}
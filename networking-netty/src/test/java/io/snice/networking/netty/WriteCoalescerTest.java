@@ -0,0 +1,145 @@
+package io.snice.networking.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.channel.local.LocalChannel;
+import io.snice.networking.config.WriteCoalescingConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class WriteCoalescerTest {
+
+    private EventLoop loop;
+    private LocalChannel channel;
+    private WriteCoalescingConfiguration config;
+
+    /**
+     * Every write and flush ends up here, in the order they happened, and
+     * a flush is recorded as the string "flush".
+     */
+    private List<Object> recorded;
+
+    @Before
+    public void setUp() throws Exception {
+        loop = new DefaultEventLoop();
+        recorded = new CopyOnWriteArrayList<>();
+
+        // the channel is never connected, we simply record what would have been written to it.
+        channel = new LocalChannel();
+        channel.pipeline().addLast(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
+                recorded.add(msg);
+                promise.trySuccess();
+            }
+
+            @Override
+            public void flush(final ChannelHandlerContext ctx) {
+                recorded.add("flush");
+            }
+        });
+        loop.register(channel).sync();
+
+        config = new WriteCoalescingConfiguration();
+        config.setEnable(true);
+        config.setMaxPendingWrites(3);
+
+        // so that we don't trip the latency cap on a slow build machine
+        config.setMaxDelayMicros(TimeUnit.SECONDS.toMicros(10));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        loop.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+    }
+
+    private void onEventLoop(final Runnable task) throws Exception {
+        loop.submit(task).sync();
+        // and another round so that anything scheduled by the task has run too.
+        loop.submit(() -> {}).sync();
+    }
+
+    @Test(timeout = 5000)
+    public void testFlushAtEndOfIteration() throws Exception {
+        final var coalescer = WriteCoalescer.of(channel, config);
+        onEventLoop(() -> {
+            coalescer.write("one");
+            coalescer.write("two");
+            assertThat(recorded, is(List.of("one", "two")));
+        });
+
+        assertThat(recorded, is(List.of("one", "two", "flush")));
+    }
+
+    @Test(timeout = 5000)
+    public void testFlushOnMaxPendingWrites() throws Exception {
+        final var coalescer = WriteCoalescer.of(channel, config);
+        onEventLoop(() -> {
+            coalescer.write("one");
+            coalescer.write("two");
+            coalescer.write("three");
+            assertThat(recorded, is(List.of("one", "two", "three", "flush")));
+        });
+
+        // and the scheduled flush at the end had nothing left to flush
+        assertThat(recorded, is(List.of("one", "two", "three", "flush")));
+    }
+
+    @Test(timeout = 5000)
+    public void testFlushOnMaxDelay() throws Exception {
+        config.setMaxDelayMicros(0);
+        final var coalescer = WriteCoalescer.of(channel, config);
+        onEventLoop(() -> {
+            coalescer.write("one");
+            assertThat(recorded, is(List.of("one", "flush")));
+        });
+    }
+
+    /**
+     * Writes from a thread other than the event loop are queued up and then
+     * written, in order, by a task on the event loop.
+     */
+    @Test(timeout = 5000)
+    public void testWriteFromOtherThread() throws Exception {
+        config.setMaxPendingWrites(100);
+        final var coalescer = WriteCoalescer.of(channel, config);
+        for (int i = 0; i < 10; ++i) {
+            coalescer.write("msg" + i);
+        }
+        onEventLoop(() -> {});
+
+        assertThat(recorded.get(recorded.size() - 1), is("flush"));
+        final var written = recorded.stream().filter(o -> !"flush".equals(o)).toArray();
+        for (int i = 0; i < 10; ++i) {
+            assertThat(written[i], is("msg" + i));
+        }
+    }
+
+    /**
+     * A write issued from another thread with a "real" promise must have that promise
+     * completed once the message has been written.
+     */
+    @Test(timeout = 5000)
+    public void testWriteWithPromiseFromOtherThread() throws Exception {
+        final var coalescer = WriteCoalescer.of(channel, config);
+        final var promise = channel.newPromise();
+        coalescer.write("one");
+        coalescer.write("two", promise);
+        promise.sync();
+
+        final var written = recorded.stream().filter(o -> !"flush".equals(o)).toArray();
+        assertThat(written[0], is("one"));
+        assertThat(written[1], is("two"));
+    }
+}